@@ -0,0 +1,89 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the deegree benchmarks and writes the results as JSON.
+ * <p>
+ * Usage: <code>java -jar target/benchmarks.jar [JMH options]</code>. All standard JMH command line options are
+ * supported (e.g. a regular expression to select benchmarks, <code>-f</code>, <code>-wi</code>, <code>-i</code>). If
+ * no result file is given (<code>-rff</code>), the results are written to
+ * <code>jmh-result-&lt;version&gt;.json</code>, so runs of different releases can be compared (e.g. using the JMH
+ * visualizer).
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class BenchmarkRunner {
+
+    /**
+     * @param args
+     *            JMH command line options
+     * @throws RunnerException
+     * @throws CommandLineOptionException
+     */
+    public static void main( String[] args )
+                            throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmdOptions = new CommandLineOptions( args );
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent( cmdOptions );
+        if ( !cmdOptions.getResultFormat().hasValue() ) {
+            builder.resultFormat( ResultFormatType.JSON );
+        }
+        if ( !cmdOptions.getResult().hasValue() ) {
+            builder.result( new File( "jmh-result-" + getVersion() + ".json" ).getAbsolutePath() );
+        }
+        Options options = builder.build();
+        new Runner( options ).run();
+    }
+
+    private static String getVersion() {
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+
+}
@@ -0,0 +1,259 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static org.deegree.feature.types.property.GeometryPropertyType.CoordinateDimension.DIM_2;
+import static org.deegree.feature.types.property.ValueRepresentation.BOTH;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.BaseType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.coverage.raster.geom.RasterGeoReference.OriginLocation;
+import org.deegree.coverage.raster.utils.RasterFactory;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.feature.Feature;
+import org.deegree.feature.GenericFeature;
+import org.deegree.feature.property.GenericProperty;
+import org.deegree.feature.property.SimpleProperty;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.feature.types.property.GeometryPropertyType;
+import org.deegree.feature.types.property.GeometryPropertyType.GeometryType;
+import org.deegree.feature.types.property.PropertyType;
+import org.deegree.feature.types.property.SimplePropertyType;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.LineString;
+import org.deegree.geometry.primitive.LinearRing;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.geometry.primitive.Ring;
+import org.deegree.geometry.standard.points.PackedPoints;
+
+/**
+ * Reproducible fixture datasets for the benchmarks.
+ * <p>
+ * All datasets are either static resources or generated from a fixed seed, so results of different releases are
+ * based on exactly the same input. The generated geometries are located around Bonn (lon/lat, CRS:84).
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public final class Fixtures {
+
+    /**
+     * Seed used for all generated datasets.
+     */
+    public static final long SEED = 3400L;
+
+    /**
+     * Name of the CRS of all generated geometries (lon/lat).
+     */
+    public static final String CRS_NAME = "urn:ogc:def:crs:OGC:1.3:CRS84";
+
+    /**
+     * Namespace of the generated feature type.
+     */
+    public static final String APP_NS = "http://www.deegree.org/app";
+
+    private static final double CENTER_X = 7.1;
+
+    private static final double CENTER_Y = 50.7;
+
+    private static final GeometryFactory fac = new GeometryFactory();
+
+    private Fixtures() {
+        // static helper
+    }
+
+    /**
+     * @return the CRS of all generated geometries, never <code>null</code>
+     */
+    public static ICRS getCrs() {
+        return CRSManager.getCRSRef( CRS_NAME );
+    }
+
+    /**
+     * @return the extent of all generated geometries, never <code>null</code>
+     */
+    public static Envelope getExtent() {
+        return fac.createEnvelope( CENTER_X - 0.5, CENTER_Y - 0.5, CENTER_X + 0.5, CENTER_Y + 0.5, getCrs() );
+    }
+
+    /**
+     * Creates a star shaped polygon (simple, but with a jagged boundary).
+     * 
+     * @param numVertices
+     *            number of vertices of the exterior ring (without the closing vertex)
+     * @param seed
+     *            seed for the vertex jitter
+     * @return polygon, never <code>null</code>
+     */
+    public static Polygon polygon( int numVertices, long seed ) {
+        Random random = new Random( seed );
+        double cx = CENTER_X + ( random.nextDouble() - 0.5 ) * 0.8;
+        double cy = CENTER_Y + ( random.nextDouble() - 0.5 ) * 0.8;
+        double[] coords = new double[2 * ( numVertices + 1 )];
+        for ( int i = 0; i < numVertices; i++ ) {
+            double angle = 2 * Math.PI * i / numVertices;
+            double radius = 0.02 + 0.03 * random.nextDouble();
+            coords[2 * i] = cx + radius * Math.cos( angle );
+            coords[2 * i + 1] = cy + radius * Math.sin( angle );
+        }
+        coords[2 * numVertices] = coords[0];
+        coords[2 * numVertices + 1] = coords[1];
+        ICRS crs = getCrs();
+        LinearRing exterior = fac.createLinearRing( null, crs, new PackedPoints( crs, coords, 2 ) );
+        return fac.createPolygon( null, crs, exterior, new ArrayList<Ring>() );
+    }
+
+    /**
+     * Creates a line string (random walk).
+     * 
+     * @param numVertices
+     *            number of vertices
+     * @param seed
+     *            seed for the random walk
+     * @return line string, never <code>null</code>
+     */
+    public static LineString lineString( int numVertices, long seed ) {
+        Random random = new Random( seed );
+        double[] coords = new double[2 * numVertices];
+        double x = CENTER_X + ( random.nextDouble() - 0.5 ) * 0.8;
+        double y = CENTER_Y + ( random.nextDouble() - 0.5 ) * 0.8;
+        for ( int i = 0; i < numVertices; i++ ) {
+            x += ( random.nextDouble() - 0.5 ) * 0.002;
+            y += ( random.nextDouble() - 0.5 ) * 0.002;
+            coords[2 * i] = x;
+            coords[2 * i + 1] = y;
+        }
+        ICRS crs = getCrs();
+        return fac.createLineString( null, crs, new PackedPoints( crs, coords, 2 ) );
+    }
+
+    /**
+     * Creates features of type <code>app:River</code> with the properties <code>app:name</code> (string),
+     * <code>app:length</code> (double) and <code>app:geometry</code> (polygon). The filter fixture
+     * (<code>filter200.xml</code>) refers to these properties.
+     * 
+     * @param count
+     *            number of features
+     * @param numVertices
+     *            number of vertices of the polygons
+     * @param seed
+     * @return features, never <code>null</code>
+     */
+    public static List<Feature> features( int count, int numVertices, long seed ) {
+        SimplePropertyType namePt = new SimplePropertyType( new QName( APP_NS, "name" ), 1, 1, BaseType.STRING,
+                                                            null, null );
+        SimplePropertyType lengthPt = new SimplePropertyType( new QName( APP_NS, "length" ), 1, 1,
+                                                              BaseType.DOUBLE, null, null );
+        GeometryPropertyType geomPt = new GeometryPropertyType( new QName( APP_NS, "geometry" ), 1, 1, null, null,
+                                                                GeometryType.POLYGON, DIM_2, BOTH );
+        List<PropertyType> pts = new ArrayList<PropertyType>();
+        pts.add( namePt );
+        pts.add( lengthPt );
+        pts.add( geomPt );
+        GenericFeatureType ft = new GenericFeatureType( new QName( APP_NS, "River" ), pts, false );
+
+        Random random = new Random( seed );
+        List<Feature> features = new ArrayList<Feature>( count );
+        for ( int i = 0; i < count; i++ ) {
+            List<Property> props = new ArrayList<Property>();
+            props.add( new SimpleProperty( namePt, "River " + i ) );
+            props.add( new SimpleProperty( lengthPt, new PrimitiveValue( random.nextDouble() * 1000,
+                                                                         lengthPt.getPrimitiveType() ) ) );
+            props.add( new GenericProperty( geomPt, polygon( numVertices, random.nextLong() ) ) );
+            features.add( new GenericFeature( ft, "RIVER_" + i, props, null ) );
+        }
+        return features;
+    }
+
+    /**
+     * Creates a three band raster with a smooth gradient and some noise.
+     * 
+     * @param width
+     * @param height
+     * @param seed
+     * @return raster covering {@link #getExtent()}, never <code>null</code>
+     */
+    public static AbstractRaster raster( int width, int height, long seed ) {
+        Random random = new Random( seed );
+        BufferedImage image = new BufferedImage( width, height, BufferedImage.TYPE_3BYTE_BGR );
+        for ( int y = 0; y < height; y++ ) {
+            for ( int x = 0; x < width; x++ ) {
+                int r = ( 255 * x ) / width;
+                int g = ( 255 * y ) / height;
+                int b = random.nextInt( 256 );
+                image.setRGB( x, y, ( r << 16 ) | ( g << 8 ) | b );
+            }
+        }
+        return RasterFactory.createRasterFromImage( image, getExtent(), OriginLocation.OUTER );
+    }
+
+    /**
+     * Returns the content of a fixture resource.
+     * 
+     * @param name
+     *            name of the resource (relative to this package)
+     * @return content, never <code>null</code>
+     * @throws IOException
+     */
+    public static String resource( String name )
+                            throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream( name );
+        if ( in == null ) {
+            throw new IOException( "Fixture '" + name + "' not found." );
+        }
+        try {
+            return IOUtils.toString( in, "UTF-8" );
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.filter;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.feature.Feature;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.Filter;
+import org.deegree.filter.xml.Filter200XMLDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for decoding Filter Encoding 2.0 documents ({@link Filter200XMLDecoder}) and for evaluating the decoded
+ * filter against features (fixture <code>filter200.xml</code>: like, comparison and bbox operator).
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({ "1000" })
+    public int numFeatures;
+
+    @Param({ "10", "1000" })
+    public int numVertices;
+
+    private final XMLInputFactory inFactory = XMLInputFactory.newInstance();
+
+    private final TypedObjectNodeXPathEvaluator evaluator = new TypedObjectNodeXPathEvaluator();
+
+    private String filterXml;
+
+    private Filter filter;
+
+    private List<Feature> features;
+
+    @Setup
+    public void setup()
+                            throws Exception {
+        filterXml = Fixtures.resource( "filter200.xml" );
+        filter = decode();
+        features = Fixtures.features( numFeatures, numVertices, Fixtures.SEED );
+    }
+
+    @Benchmark
+    public Filter decode()
+                            throws Exception {
+        XMLStreamReader reader = inFactory.createXMLStreamReader( new StringReader( filterXml ) );
+        try {
+            reader.nextTag();
+            return Filter200XMLDecoder.parse( reader );
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public int evaluate()
+                            throws Exception {
+        int matches = 0;
+        for ( Feature feature : features ) {
+            if ( filter.evaluate( feature, evaluator ) ) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+}
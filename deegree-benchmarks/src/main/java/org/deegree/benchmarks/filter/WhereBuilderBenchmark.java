@@ -0,0 +1,141 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.filter;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.StringReader;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.commons.tom.primitive.BaseType;
+import org.deegree.commons.tom.primitive.PrimitiveType;
+import org.deegree.commons.tom.sql.DefaultPrimitiveConverter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.xml.Filter200XMLDecoder;
+import org.deegree.sqldialect.filter.AbstractWhereBuilder;
+import org.deegree.sqldialect.filter.PropertyNameMapper;
+import org.deegree.sqldialect.filter.PropertyNameMapping;
+import org.deegree.sqldialect.filter.TableAliasManager;
+import org.deegree.sqldialect.filter.UnmappableException;
+import org.deegree.sqldialect.postgis.PostGISDialect;
+import org.deegree.sqldialect.postgis.PostGISGeometryConverter;
+import org.deegree.sqldialect.postgis.PostGISWhereBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the SQL generation of {@link AbstractWhereBuilder} (using the PostGIS dialect and the filter fixture
+ * <code>filter200.xml</code>).
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WhereBuilderBenchmark {
+
+    @Param({ "2.0.0" })
+    public String postgisVersion;
+
+    private PostGISDialect dialect;
+
+    private PropertyNameMapper mapper;
+
+    private OperatorFilter filter;
+
+    @Setup
+    public void setup()
+                            throws Exception {
+        dialect = new PostGISDialect( postgisVersion );
+        final PostGISGeometryConverter geomConverter = new PostGISGeometryConverter( "geom", Fixtures.getCrs(),
+                                                                                     "4326", false );
+        mapper = new PropertyNameMapper() {
+            @Override
+            public PropertyNameMapping getSpatialMapping( ValueReference propName, TableAliasManager aliasManager )
+                                    throws FilterEvaluationException, UnmappableException {
+                return new PropertyNameMapping( geomConverter, null, "geom", aliasManager.getRootTableAlias() );
+            }
+
+            @Override
+            public PropertyNameMapping getMapping( ValueReference propName, TableAliasManager aliasManager )
+                                    throws FilterEvaluationException, UnmappableException {
+                QName name = propName.getAsQName();
+                if ( name == null ) {
+                    throw new UnmappableException( "Unmappable property name '" + propName + "'." );
+                }
+                if ( "geometry".equals( name.getLocalPart() ) ) {
+                    return getSpatialMapping( propName, aliasManager );
+                }
+                BaseType type = "length".equals( name.getLocalPart() ) ? BaseType.DOUBLE : BaseType.STRING;
+                String column = name.getLocalPart();
+                return new PropertyNameMapping( new DefaultPrimitiveConverter( new PrimitiveType( type ), column ),
+                                                null, column, aliasManager.getRootTableAlias() );
+            }
+        };
+        StringReader xml = new StringReader( Fixtures.resource( "filter200.xml" ) );
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader( xml );
+        reader.nextTag();
+        filter = (OperatorFilter) Filter200XMLDecoder.parse( reader );
+        reader.close();
+    }
+
+    @Benchmark
+    public String buildWhere()
+                            throws Exception {
+        PostGISWhereBuilder builder = new PostGISWhereBuilder( dialect, mapper, filter, null, false, false );
+        return builder.getWhere().getSQL().toString();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.geometry;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link GeometryTransformer#transform(Geometry)} (from CRS:84 to projected CRSs). The
+ * <code>createAndTransform</code> variant includes the setup of the transformer, as done by most callers per
+ * request.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GeometryTransformerBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int numVertices;
+
+    @Param({ "EPSG:25832", "EPSG:3857" })
+    public String targetCrs;
+
+    private Geometry polygon;
+
+    private GeometryTransformer transformer;
+
+    @Setup
+    public void setup()
+                            throws Exception {
+        polygon = Fixtures.polygon( numVertices, Fixtures.SEED );
+        transformer = new GeometryTransformer( CRSManager.lookup( targetCrs ) );
+    }
+
+    @Benchmark
+    public Geometry transform()
+                            throws Exception {
+        return transformer.transform( polygon );
+    }
+
+    @Benchmark
+    public Geometry createAndTransform()
+                            throws Exception {
+        return new GeometryTransformer( CRSManager.lookup( targetCrs ) ).transform( polygon );
+    }
+
+}
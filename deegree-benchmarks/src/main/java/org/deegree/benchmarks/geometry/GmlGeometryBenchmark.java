@@ -0,0 +1,140 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.geometry;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.deegree.gml.GMLVersion.GML_32;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.commons.xml.CommonNamespaces;
+import org.deegree.geometry.Geometry;
+import org.deegree.gml.GMLInputFactory;
+import org.deegree.gml.GMLOutputFactory;
+import org.deegree.gml.GMLStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading and writing GML 3.2 geometries ({@link org.deegree.gml.geometry.GML3GeometryReader},
+ * {@link org.deegree.gml.geometry.GML3GeometryWriter}).
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GmlGeometryBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int numVertices;
+
+    private final XMLInputFactory inFactory = XMLInputFactory.newInstance();
+
+    private final XMLOutputFactory outFactory = XMLOutputFactory.newInstance();
+
+    private Geometry polygon;
+
+    private String gml;
+
+    @Setup
+    public void setup()
+                            throws Exception {
+        outFactory.setProperty( XMLOutputFactory.IS_REPAIRING_NAMESPACES, true );
+        polygon = Fixtures.polygon( numVertices, Fixtures.SEED );
+        gml = write( polygon );
+    }
+
+    @Benchmark
+    public String write()
+                            throws Exception {
+        return write( polygon );
+    }
+
+    @Benchmark
+    public Geometry read()
+                            throws Exception {
+        return read( gml );
+    }
+
+    @Benchmark
+    public Geometry roundTrip()
+                            throws Exception {
+        return read( write( polygon ) );
+    }
+
+    private String write( Geometry geometry )
+                            throws Exception {
+        StringWriter sw = new StringWriter();
+        XMLStreamWriter writer = outFactory.createXMLStreamWriter( sw );
+        writer.setDefaultNamespace( CommonNamespaces.GML3_2_NS );
+        GMLStreamWriter gmlWriter = GMLOutputFactory.createGMLStreamWriter( GML_32, writer );
+        gmlWriter.write( geometry );
+        writer.close();
+        return sw.toString();
+    }
+
+    private Geometry read( String gml )
+                            throws Exception {
+        XMLStreamReader reader = inFactory.createXMLStreamReader( new StringReader( gml ) );
+        try {
+            return GMLInputFactory.createGMLStreamReader( GML_32, reader ).readGeometry();
+        } finally {
+            reader.close();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.geometry;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.StringWriter;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.io.WKTReader;
+import org.deegree.geometry.io.WKTWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading and writing WKT ({@link WKTReader}, {@link WKTWriter}).
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WktBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int numVertices;
+
+    private Geometry polygon;
+
+    private String wkt;
+
+    private WKTReader reader;
+
+    @Setup
+    public void setup() {
+        polygon = Fixtures.polygon( numVertices, Fixtures.SEED );
+        wkt = WKTWriter.write( polygon );
+        reader = new WKTReader( Fixtures.getCrs() );
+    }
+
+    @Benchmark
+    public String write()
+                            throws Exception {
+        StringWriter writer = new StringWriter();
+        WKTWriter.write( polygon, writer );
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Geometry read()
+                            throws Exception {
+        return reader.read( wkt );
+    }
+
+}
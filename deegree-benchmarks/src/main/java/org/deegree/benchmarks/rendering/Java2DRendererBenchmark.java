@@ -0,0 +1,146 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks.rendering;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.benchmarks.Fixtures;
+import org.deegree.geometry.Geometry;
+import org.deegree.rendering.r2d.Java2DRenderer;
+import org.deegree.style.styling.LineStyling;
+import org.deegree.style.styling.PolygonStyling;
+import org.deegree.style.styling.components.Fill;
+import org.deegree.style.styling.components.Stroke;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rendering polygons and lines using the {@link Java2DRenderer} (antialiased, 1024x768 ARGB image
+ * covering {@link Fixtures#getExtent()}).
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class Java2DRendererBenchmark {
+
+    private static final int WIDTH = 1024;
+
+    private static final int HEIGHT = 768;
+
+    @Param({ "1000" })
+    public int numGeometries;
+
+    @Param({ "10", "1000" })
+    public int numVertices;
+
+    private final List<Geometry> polygons = new ArrayList<Geometry>();
+
+    private final List<Geometry> lines = new ArrayList<Geometry>();
+
+    private final PolygonStyling polygonStyling = new PolygonStyling();
+
+    private final LineStyling lineStyling = new LineStyling();
+
+    private BufferedImage image;
+
+    private Graphics2D graphics;
+
+    private Java2DRenderer renderer;
+
+    @Setup
+    public void setup() {
+        for ( int i = 0; i < numGeometries; i++ ) {
+            polygons.add( Fixtures.polygon( numVertices, Fixtures.SEED + i ) );
+            lines.add( Fixtures.lineString( numVertices, Fixtures.SEED + i ) );
+        }
+        polygonStyling.fill = new Fill();
+        polygonStyling.fill.color = new Color( 64, 128, 192, 128 );
+        polygonStyling.stroke = new Stroke();
+        polygonStyling.stroke.color = Color.DARK_GRAY;
+        lineStyling.stroke.color = new Color( 200, 40, 40 );
+        lineStyling.stroke.width = 2;
+
+        image = new BufferedImage( WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB );
+        graphics = image.createGraphics();
+        graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+        renderer = new Java2DRenderer( graphics, WIDTH, HEIGHT, Fixtures.getExtent() );
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage renderPolygons() {
+        for ( Geometry polygon : polygons ) {
+            renderer.render( polygonStyling, polygon );
+        }
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage renderLines() {
+        for ( Geometry line : lines ) {
+            renderer.render( lineStyling, line );
+        }
+        return image;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.stream;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded thread pool that prefetches features of {@link FeatureInputStream}s using {@link ThreadedFeatureInputStream}
+ * s.
+ * <p>
+ * Each instance has a fixed number of producer threads and a bounded queue of waiting producers. If the pool is
+ * saturated, {@link #prefetch(FeatureInputStream)} returns the stream unchanged, so it is read by the calling thread
+ * instead of waiting behind other (possibly slow) queries. Idle threads are released after a minute. All live
+ * instances are available via {@link #getInstances()} for monitoring.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FeaturePrefetchExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger( FeaturePrefetchExecutor.class );
+
+    /** Default number of producer threads. */
+    public static final int DEFAULT_THREADS = 10;
+
+    /** Default number of producers that may wait for a free thread. */
+    public static final int DEFAULT_MAX_QUEUED = 100;
+
+    /** Default number of batches buffered per stream. */
+    public static final int DEFAULT_QUEUE_SIZE = 4;
+
+    /** Default number of features per batch. */
+    public static final int DEFAULT_BATCH_SIZE = 25;
+
+    private static final List<FeaturePrefetchExecutor> INSTANCES = new CopyOnWriteArrayList<FeaturePrefetchExecutor>();
+
+    private static FeaturePrefetchExecutor defaultInstance;
+
+    private final String name;
+
+    private final int queueSize;
+
+    private final int batchSize;
+
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name
+     *            name used for the threads and the metrics, must not be <code>null</code>
+     * @param threads
+     *            maximum number of producer threads, must be positive
+     * @param maxQueued
+     *            maximum number of producers waiting for a free thread, <code>0</code> means none
+     * @param queueSize
+     *            number of batches that are buffered per stream, must be positive
+     * @param batchSize
+     *            number of features per batch, must be positive
+     */
+    public FeaturePrefetchExecutor( String name, int threads, int maxQueued, int queueSize, int batchSize ) {
+        if ( threads < 1 || maxQueued < 0 || queueSize < 1 || batchSize < 1 ) {
+            throw new IllegalArgumentException( "Invalid feature prefetch settings: threads=" + threads
+                                                + ", maxQueued=" + maxQueued + ", queueSize=" + queueSize
+                                                + ", batchSize=" + batchSize );
+        }
+        this.name = name;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        BlockingQueue<Runnable> workQueue;
+        if ( maxQueued == 0 ) {
+            workQueue = new SynchronousQueue<Runnable>();
+        } else {
+            workQueue = new LinkedBlockingQueue<Runnable>( maxQueued );
+        }
+        executor = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS, workQueue,
+                                           new PrefetchThreads( name ) );
+        executor.allowCoreThreadTimeOut( true );
+        INSTANCES.add( this );
+    }
+
+    /**
+     * Returns the instance that is used when no specific executor has been configured.
+     * 
+     * @return the default executor, never <code>null</code>
+     */
+    public static synchronized FeaturePrefetchExecutor getDefault() {
+        if ( defaultInstance == null || defaultInstance.executor.isShutdown() ) {
+            defaultInstance = new FeaturePrefetchExecutor( "default", DEFAULT_THREADS, DEFAULT_MAX_QUEUED,
+                                                           DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE );
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * @return <code>true</code>, if this is the {@link #getDefault() default executor}
+     */
+    public boolean isDefault() {
+        synchronized ( FeaturePrefetchExecutor.class ) {
+            return this == defaultInstance;
+        }
+    }
+
+    /**
+     * @return all executors that have not been shut down yet, never <code>null</code>
+     */
+    public static List<FeaturePrefetchExecutor> getInstances() {
+        return unmodifiableList( INSTANCES );
+    }
+
+    /**
+     * Shuts down all executors.
+     */
+    public static void shutdownAll() {
+        for ( FeaturePrefetchExecutor executor : INSTANCES ) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Starts prefetching the features of the given stream in a producer thread.
+     * 
+     * @param features
+     *            stream to prefetch, must not be <code>null</code>
+     * @return prefetching stream, or the given stream if no producer thread is available
+     */
+    public FeatureInputStream prefetch( FeatureInputStream features ) {
+        try {
+            return new ThreadedFeatureInputStream( features, queueSize, batchSize, executor );
+        } catch ( RejectedExecutionException e ) {
+            rejected.increment();
+            LOG.debug( "Feature prefetch executor '{}' is saturated, reading features in the calling thread.", name );
+            return features;
+        }
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Shuts down the executor, running producers are completed.
+     */
+    public void shutdown() {
+        INSTANCES.remove( this );
+        executor.shutdown();
+    }
+
+    /**
+     * @return the name of the executor, never <code>null</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of producer threads that are currently reading features
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return number of producers that are waiting for a free thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of threads currently in the pool
+     */
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * @return maximum number of producer threads
+     */
+    public int getMaximumPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return number of streams that have been read by the calling thread because the executor was saturated
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private static class PrefetchThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final String name;
+
+        PrefetchThreads( String name ) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, "feature-prefetch-" + name + "-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        }
+    }
+
+}
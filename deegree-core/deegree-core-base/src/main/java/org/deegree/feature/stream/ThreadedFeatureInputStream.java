@@ -43,11 +43,12 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.feature.stream;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
@@ -58,6 +59,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * {@link FeatureInputStream} that uses a separate thread to keep an internal queue of features filled.
+ * <p>
+ * The features are handed over from the producer thread in batches, <code>queueSize</code> is the number of batches
+ * that may be buffered. Usually, instances are created using a {@link FeaturePrefetchExecutor}.
+ * </p>
  * 
  * @author <a href="mailto:reijer.copier@idgis.nl">Reijer Copier</a>
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
@@ -67,24 +72,43 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 
     private static Logger LOG = LoggerFactory.getLogger( ThreadedFeatureInputStream.class );
 
-    // TODO where to manage this?
-    private static ExecutorService service = Executors.newFixedThreadPool( 10 );
-
     private final Consumer iterator;
 
     /**
-     * Creates a new {@link ThreadedFeatureInputStreamTest} based on the given {@link FeatureInputStream}.
+     * Creates a new {@link ThreadedFeatureInputStream} based on the given {@link FeatureInputStream} that uses the
+     * {@link FeaturePrefetchExecutor#getDefault() default executor} and hands over single features.
      * 
      * @param featureInputStream
      * @param queueSize
+     * @throws java.util.concurrent.RejectedExecutionException
+     *             if the default executor is saturated
      */
     public ThreadedFeatureInputStream( final FeatureInputStream featureInputStream, final int queueSize ) {
+        this( featureInputStream, queueSize, 1, FeaturePrefetchExecutor.getDefault().executor() );
+    }
+
+    /**
+     * Creates a new {@link ThreadedFeatureInputStream} based on the given {@link FeatureInputStream}.
+     * 
+     * @param featureInputStream
+     *            stream to read from, must not be <code>null</code>
+     * @param queueSize
+     *            number of batches to buffer, must be positive
+     * @param batchSize
+     *            number of features per batch, must be positive
+     * @param executor
+     *            executor to run the producer, must not be <code>null</code>
+     * @throws java.util.concurrent.RejectedExecutionException
+     *             if the executor does not accept the producer, the given stream is left untouched in this case
+     */
+    public ThreadedFeatureInputStream( final FeatureInputStream featureInputStream, final int queueSize,
+                                       final int batchSize, final Executor executor ) {
         final BlockingQueue<ProducerMessage> producerQueue = new ArrayBlockingQueue<ProducerMessage>( queueSize, true );
         final BlockingQueue<ConsumerMessage> consumerQueue = new ArrayBlockingQueue<ConsumerMessage>( 1, true );
 
         iterator = new Consumer( producerQueue, consumerQueue );
 
-        service.execute( new Producer( featureInputStream, producerQueue, consumerQueue ) );
+        executor.execute( new Producer( featureInputStream, producerQueue, consumerQueue, batchSize ) );
     }
 
     @Override
@@ -147,7 +171,7 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
             return false;
         }
 
-        Feature getFeature() {
+        Feature[] getFeatures() {
             throw new IllegalStateException( "Not a ProducerFeatureMessage" );
         }
 
@@ -158,10 +182,10 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 
     protected static class ProducerFeatureMessage extends ProducerMessage {
 
-        final Feature feature;
+        final Feature[] features;
 
-        ProducerFeatureMessage( final Feature feature ) {
-            this.feature = feature;
+        ProducerFeatureMessage( final Feature... features ) {
+            this.features = features;
         }
 
         @Override
@@ -170,9 +194,9 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
         }
 
         @Override
-        Feature getFeature() {
-            return feature;
-        }        
+        Feature[] getFeatures() {
+            return features;
+        }
 
         @Override
         public boolean equals( Object obj ) {
@@ -183,12 +207,12 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
             if ( getClass() != obj.getClass() )
                 return false;
             ProducerFeatureMessage other = (ProducerFeatureMessage) obj;
-            if ( feature == null ) {
-                if ( other.feature != null )
-                    return false;
-            } else if ( !feature.equals( other.feature ) )
-                return false;
-            return true;
+            return Arrays.equals( features, other.features );
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode( features );
         }
     }
 
@@ -208,7 +232,7 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
         @Override
         Throwable getException() {
             return exception;
-        }        
+        }
 
         @Override
         public boolean equals( Object obj ) {
@@ -244,60 +268,56 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
     protected static class Consumer implements Iterator<Feature> {
         ProducerMessage lastMessage;
 
+        int index;
+
         final BlockingQueue<ProducerMessage> producerQueue;
 
         final BlockingQueue<ConsumerMessage> consumerQueue;
 
         public Consumer( final BlockingQueue<ProducerMessage> producerQueue,
-                                 final BlockingQueue<ConsumerMessage> consumerQueue ) {
+                         final BlockingQueue<ConsumerMessage> consumerQueue ) {
 
             this.producerQueue = producerQueue;
             this.consumerQueue = consumerQueue;
         }
 
-        @Override
-        public boolean hasNext() {
-            if ( lastMessage == null ) {
+        /**
+         * Takes messages until the current one is not an exhausted batch of features.
+         */
+        private void fetch() {
+            while ( lastMessage == null || ( lastMessage.isFeature() && index == lastMessage.getFeatures().length ) ) {
                 try {
-                    LOG.debug( "Initial message consumed" );
-
                     lastMessage = producerQueue.take();
+                    index = 0;
                 } catch ( InterruptedException e ) {
                     throw new RuntimeException( e );
                 }
             }
+        }
 
+        @Override
+        public boolean hasNext() {
+            fetch();
             return !lastMessage.isFinished();
         }
 
         @Override
         public Feature next() {
-            try {
-                if ( lastMessage == null ) {
-                    LOG.debug( "Initial message consumed" );
-
-                    lastMessage = producerQueue.take();
-                }
+            fetch();
 
-                ProducerMessage currentMessage = lastMessage;
-                lastMessage = producerQueue.take();
-
-                if ( currentMessage.isException() ) {
-                    LOG.debug( "Exception consumed" );
-
-                    throw new RuntimeException( currentMessage.getException() );
-                }
-
-                if ( !currentMessage.isFeature() ) {
-                    throw new IllegalStateException( "FeatureProducerMessage expected" );
-                }
+            if ( lastMessage.isException() ) {
+                LOG.debug( "Exception consumed" );
 
-                LOG.debug( "Feature consumed" );
+                Throwable exception = lastMessage.getException();
+                lastMessage = null;
+                throw new RuntimeException( exception );
+            }
 
-                return currentMessage.getFeature();
-            } catch ( InterruptedException e ) {
-                throw new RuntimeException( e );
+            if ( !lastMessage.isFeature() ) {
+                throw new NoSuchElementException();
             }
+
+            return lastMessage.getFeatures()[index++];
         }
 
         @Override
@@ -334,34 +354,50 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 
         private final BlockingQueue<ConsumerMessage> consumerQueue;
 
-        protected Producer( FeatureInputStream featureInputStream,
-                                    BlockingQueue<ProducerMessage> producerQueue,
-                                    BlockingQueue<ConsumerMessage> consumerQueue ) {
+        private final int batchSize;
+
+        protected Producer( FeatureInputStream featureInputStream, BlockingQueue<ProducerMessage> producerQueue,
+                            BlockingQueue<ConsumerMessage> consumerQueue, int batchSize ) {
             this.featureInputStream = featureInputStream;
             this.producerQueue = producerQueue;
             this.consumerQueue = consumerQueue;
+            this.batchSize = batchSize;
         }
 
         @Override
         public void run() {
+            Feature[] batch = new Feature[batchSize];
+            int size = 0;
             try {
                 LOG.debug( "Producer started" );
 
                 for ( Feature f : featureInputStream ) {
-                    ConsumerMessage consumerMessage = consumerQueue.poll();
-                    if ( consumerMessage != null && consumerMessage.isClosing() ) {
-                        LOG.debug( "Producer halted" );
-
-                        break;
+                    batch[size++] = f;
+                    if ( size == batchSize ) {
+                        ConsumerMessage consumerMessage = consumerQueue.poll();
+                        if ( consumerMessage != null && consumerMessage.isClosing() ) {
+                            LOG.debug( "Producer halted" );
+
+                            size = 0;
+                            break;
+                        }
+
+                        LOG.trace( "Batch of {} features produced", size );
+                        producerQueue.put( new ProducerFeatureMessage( batch ) );
+                        batch = new Feature[batchSize];
+                        size = 0;
                     }
-
-                    LOG.debug( "Feature produced" );
-                    producerQueue.put( new ProducerFeatureMessage( f ) );
+                }
+                if ( size > 0 ) {
+                    producerQueue.put( new ProducerFeatureMessage( Arrays.copyOf( batch, size ) ) );
                 }
             } catch ( InterruptedException e ) {
                 throw new RuntimeException( e );
             } catch ( Throwable t ) {
                 try {
+                    if ( size > 0 ) {
+                        producerQueue.put( new ProducerFeatureMessage( Arrays.copyOf( batch, size ) ) );
+                    }
                     LOG.debug( "Exception produced" );
                     producerQueue.put( new ProducerExceptionMessage( t ) );
                 } catch ( InterruptedException e ) {
@@ -382,9 +418,9 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
     }
 
     /**
-     * 
+     * Shuts down all {@link FeaturePrefetchExecutor}s.
      */
     public static void shutdown() {
-        service.shutdown();
+        FeaturePrefetchExecutor.shutdownAll();
     }
 }
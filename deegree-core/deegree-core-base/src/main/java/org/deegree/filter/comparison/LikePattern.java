@@ -0,0 +1,270 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.comparison;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of a {@link PropertyIsLike} pattern.
+ * <p>
+ * The pattern is split at the wildcards into segments of plain characters and single character placeholders. Matching
+ * anchors the first and the last segment and searches the segments in between from left to right, so it never
+ * backtracks (the time is bounded by the length of the value times the length of the pattern, usually it is linear).
+ * An escaped character (including the escape character itself) is always matched literally, a trailing escape
+ * character is ignored.
+ * </p>
+ * <p>
+ * Instances are immutable and thread-safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LikePattern {
+
+    private final String pattern;
+
+    private final Segment[] segments;
+
+    private final String literalPrefix;
+
+    private final boolean literal;
+
+    /**
+     * Compiles the given pattern.
+     * 
+     * @param pattern
+     *            pattern to be compiled, must not be <code>null</code>
+     * @param wildCard
+     *            character that matches any number of characters
+     * @param singleChar
+     *            character that matches exactly one character
+     * @param escapeChar
+     *            character that escapes the following character
+     */
+    public LikePattern( String pattern, char wildCard, char singleChar, char escapeChar ) {
+        this.pattern = pattern;
+        List<Segment> segments = new ArrayList<Segment>();
+        StringBuilder chars = new StringBuilder();
+        List<Integer> singleChars = new ArrayList<Integer>();
+        String prefix = null;
+        boolean escapeMode = false;
+        for ( int i = 0; i < pattern.length(); i++ ) {
+            char c = pattern.charAt( i );
+            if ( escapeMode ) {
+                chars.append( c );
+                escapeMode = false;
+            } else if ( c == escapeChar ) {
+                escapeMode = true;
+            } else if ( c == wildCard ) {
+                if ( prefix == null ) {
+                    prefix = chars.toString();
+                }
+                segments.add( new Segment( chars, singleChars ) );
+                chars.setLength( 0 );
+                singleChars.clear();
+            } else if ( c == singleChar ) {
+                if ( prefix == null ) {
+                    prefix = chars.toString();
+                }
+                singleChars.add( chars.length() );
+                chars.append( c );
+            } else {
+                chars.append( c );
+            }
+        }
+        segments.add( new Segment( chars, singleChars ) );
+        this.segments = segments.toArray( new Segment[segments.size()] );
+        this.literal = prefix == null;
+        this.literalPrefix = prefix == null ? chars.toString() : prefix;
+    }
+
+    /**
+     * @return the (uncompiled) pattern, never <code>null</code>
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the unescaped characters before the first wildcard or single character placeholder. Every matching
+     * value starts with this prefix, so it can be used for prefix (range) lookups in sorted indexes.
+     * 
+     * @return the literal prefix, can be empty, but never <code>null</code>
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    /**
+     * Returns whether the pattern contains neither wildcards nor single character placeholders. In this case, only the
+     * {@link #getLiteralPrefix() literal prefix} itself matches.
+     * 
+     * @return <code>true</code>, if the pattern is a plain (unescaped) string, <code>false</code> otherwise
+     */
+    public boolean isLiteral() {
+        return literal;
+    }
+
+    /**
+     * Returns the unescaped character sequences between wildcards and single character placeholders. Every matching
+     * value contains all of these sequences, so they can be used for lookups in substring or token indexes.
+     * 
+     * @return the literal character sequences (without empty ones), may be empty, but never <code>null</code>
+     */
+    public List<String> getLiteralSubstrings() {
+        List<String> substrings = new ArrayList<String>();
+        for ( Segment segment : segments ) {
+            int start = 0;
+            for ( int i = 0; i <= segment.length(); i++ ) {
+                if ( i == segment.length() || segment.isPlaceholder( i ) ) {
+                    if ( i > start ) {
+                        substrings.add( new String( segment.chars, start, i - start ) );
+                    }
+                    start = i + 1;
+                }
+            }
+        }
+        return substrings;
+    }
+
+    /**
+     * Returns whether the given value matches the pattern.
+     * 
+     * @param value
+     *            value to test, must not be <code>null</code>
+     * @return <code>true</code>, if the value matches, <code>false</code> otherwise
+     */
+    public boolean matches( String value ) {
+        int length = value.length();
+        if ( segments.length == 1 ) {
+            Segment only = segments[0];
+            return only.length() == length && only.matchesAt( value, 0 );
+        }
+        Segment first = segments[0];
+        Segment last = segments[segments.length - 1];
+        // the first and last segment are anchored (unless empty) and must not overlap
+        int end = length - last.length();
+        if ( first.length() > end || !first.matchesAt( value, 0 ) || !last.matchesAt( value, end ) ) {
+            return false;
+        }
+        int pos = first.length();
+        for ( int i = 1; i < segments.length - 1; i++ ) {
+            Segment segment = segments[i];
+            if ( segment.length() == 0 ) {
+                continue;
+            }
+            int found = segment.find( value, pos, end );
+            if ( found < 0 ) {
+                return false;
+            }
+            pos = found + segment.length();
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * Characters between two wildcards.
+     */
+    private static class Segment {
+
+        private final char[] chars;
+
+        // positions of single character placeholders, null if there are none
+        private final boolean[] any;
+
+        private final String plain;
+
+        Segment( CharSequence chars, List<Integer> singleChars ) {
+            this.chars = chars.toString().toCharArray();
+            if ( singleChars.isEmpty() ) {
+                any = null;
+                plain = chars.toString();
+            } else {
+                any = new boolean[this.chars.length];
+                for ( int i : singleChars ) {
+                    any[i] = true;
+                }
+                plain = null;
+            }
+        }
+
+        int length() {
+            return chars.length;
+        }
+
+        boolean isPlaceholder( int i ) {
+            return any != null && any[i];
+        }
+
+        boolean matchesAt( String value, int offset ) {
+            if ( plain != null ) {
+                return value.startsWith( plain, offset );
+            }
+            for ( int i = 0; i < chars.length; i++ ) {
+                if ( !any[i] && value.charAt( offset + i ) != chars[i] ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the first position (between <code>from</code> and <code>to - length()</code>) where the segment
+         * matches, <code>-1</code> if there is none.
+         */
+        int find( String value, int from, int to ) {
+            int lastStart = to - chars.length;
+            if ( plain != null ) {
+                int found = value.indexOf( plain, from );
+                return found > lastStart ? -1 : found;
+            }
+            for ( int i = from; i <= lastStart; i++ ) {
+                if ( matchesAt( value, i ) ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
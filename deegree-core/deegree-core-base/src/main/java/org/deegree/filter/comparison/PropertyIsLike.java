@@ -42,6 +42,7 @@ import org.deegree.filter.Expression;
 import org.deegree.filter.FilterEvaluationException;
 import org.deegree.filter.MatchAction;
 import org.deegree.filter.XPathEvaluator;
+import org.deegree.filter.expression.Literal;
 
 /**
  * TODO add documentation here
@@ -65,6 +66,9 @@ public class PropertyIsLike extends ComparisonOperator {
 
     private final boolean matchCase;
 
+    // compiled form of the last evaluated pattern (the pattern is a literal in most cases)
+    private volatile LikePattern compiledPattern;
+
     /**
      * @param testValue
      * @param pattern
@@ -134,7 +138,7 @@ public class PropertyIsLike extends ComparisonOperator {
                         s1 = s1.toLowerCase();
                         s2 = s2.toLowerCase();
                     }
-                    if ( matches( s2, s1 ) ) {
+                    if ( getCompiledPattern( s2 ).matches( s1 ) ) {
                         return true;
                     }
                 }
@@ -144,100 +148,41 @@ public class PropertyIsLike extends ComparisonOperator {
     }
 
     /**
-     * Checks if a given <code>String</code> matches a pattern that is a sequence of:
-     * <ul>
-     * <li>standard characters</li>
-     * <li>wildcard characters (like * in most shells)</li>
-     * <li>singlechar characters (like ? in most shells)</li>
-     * </ul>
+     * Returns the compiled pattern, if the pattern is a {@link Literal}.
+     * <p>
+     * If the operator does not match case, the pattern is compiled in lower case, so the values to be tested (and
+     * compared to the {@link LikePattern#getLiteralPrefix() literal prefix}) have to be converted to lower case as
+     * well.
+     * </p>
      * 
-     * @param pattern
-     *            the pattern to compare to
-     * @param buffer
-     *            the <code>String</code> to test
-     * @return true, if the <code>String</code> matches the pattern
+     * @return the compiled pattern, <code>null</code> if the pattern is not a literal
      * @throws FilterEvaluationException
+     *             if wildCard, singleChar or escapeChar are not exactly one character
      */
-    private boolean matches( String pattern, String buffer )
+    public LikePattern getLiteralPattern()
                             throws FilterEvaluationException {
-
-        // match must be successful if both the pattern and the buffer are empty
-        if ( pattern.length() == 0 && buffer.length() == 0 ) {
-            return true;
+        if ( !( literal instanceof Literal<?> ) ) {
+            return null;
         }
-
-        // build the prefix that has to match the beginning of the buffer
-        // prefix ends at the first (unescaped!) wildcard / singlechar character
-        StringBuffer sb = new StringBuffer();
-        boolean escapeMode = false;
-        int length = pattern.length();
-        char specialChar = '\0';
-
-        if ( wildCard.length() != 1 || singleChar.length() != 1 || escapeChar.length() != 1 ) {
-            String msg = "At the moment, wildCard, singleChar and escapeChar must each be exactly one character.";
-            throw new FilterEvaluationException( msg );
+        String pattern = ( (Literal<?>) literal ).getValue().toString();
+        if ( !matchCase ) {
+            pattern = pattern.toLowerCase();
         }
-        char escapeChar = this.escapeChar.charAt( 0 );
-        char singleChar = this.singleChar.charAt( 0 );
-        char wildCard = this.wildCard.charAt( 0 );
-
-        for ( int i = 0; i < length; i++ ) {
-            char c = pattern.charAt( i );
+        return getCompiledPattern( pattern );
+    }
 
-            if ( escapeMode ) {
-                // just append every character (except the escape character)
-                if ( c != escapeChar ) {
-                    sb.append( c );
-                }
-                escapeMode = false;
-            } else {
-                // escapeChar means: switch to escapeMode
-                if ( c == escapeChar ) {
-                    escapeMode = true;
-                }
-                // wildCard / singleChar means: prefix ends here
-                else if ( c == wildCard || c == singleChar ) {
-                    specialChar = c;
-                    break;
-                } else {
-                    sb.append( c );
-                }
-            }
-        }
-        String prefix = sb.toString();
-        int skip = prefix.length();
-
-        // the buffer must begin with the prefix or else there is no match
-        if ( !buffer.startsWith( prefix ) )
-            return false;
-
-        if ( specialChar == wildCard ) {
-            // the prefix is terminated by a wildcard-character
-            pattern = pattern.substring( skip + 1, pattern.length() );
-            // try to find a match for the rest of the pattern
-            for ( int i = skip; i <= buffer.length(); i++ ) {
-                String rest = buffer.substring( i, buffer.length() );
-                if ( matches( pattern, rest ) ) {
-                    return true;
-                }
-            }
-        } else if ( specialChar == singleChar ) {
-            // the prefix is terminated by a singlechar-character
-            pattern = pattern.substring( skip + 1, pattern.length() );
-            if ( skip + 1 > buffer.length() ) {
-                return false;
-            }
-            String rest = buffer.substring( skip + 1, buffer.length() );
-            if ( matches( pattern, rest ) ) {
-                return true;
-            }
-        } else if ( specialChar == '\0' ) {
-            // the prefix is terminated by the end of the pattern
-            if ( buffer.length() == prefix.length() ) {
-                return true;
+    private LikePattern getCompiledPattern( String pattern )
+                            throws FilterEvaluationException {
+        LikePattern compiled = compiledPattern;
+        if ( compiled == null || !compiled.getPattern().equals( pattern ) ) {
+            if ( wildCard.length() != 1 || singleChar.length() != 1 || escapeChar.length() != 1 ) {
+                String msg = "At the moment, wildCard, singleChar and escapeChar must each be exactly one character.";
+                throw new FilterEvaluationException( msg );
             }
+            compiled = new LikePattern( pattern, wildCard.charAt( 0 ), singleChar.charAt( 0 ), escapeChar.charAt( 0 ) );
+            compiledPattern = compiled;
         }
-        return false;
+        return compiled;
     }
 
     @Override
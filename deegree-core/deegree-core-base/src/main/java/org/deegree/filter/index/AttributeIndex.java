@@ -0,0 +1,426 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.index;
+
+import static java.lang.Boolean.FALSE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deegree.commons.tom.ElementNode;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.Expression;
+import org.deegree.filter.Filter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.MatchAction;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.XPathEvaluator;
+import org.deegree.filter.comparison.BinaryComparisonOperator;
+import org.deegree.filter.comparison.ComparisonOperator;
+import org.deegree.filter.comparison.LikePattern;
+import org.deegree.filter.comparison.PropertyIsBetween;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.LogicalOperator;
+
+/**
+ * In-memory secondary index for the property values of objects (e.g. features or metadata records) that is used to
+ * narrow down the objects that have to be evaluated against a {@link Filter}.
+ * <p>
+ * Every indexed property is identified by a {@link ValueReference}. Simple comparisons on indexed properties (equality,
+ * ranges, between and like with a literal prefix) are answered by the index, <code>And</code> operators intersect and
+ * <code>Or</code> operators unite the candidates of their arguments. Other operators (and comparisons on properties
+ * that are not indexed) cannot be answered. {@link #getCandidates(Filter)} returns a superset of the matching objects,
+ * the filter still has to be evaluated on every candidate.
+ * </p>
+ * <p>
+ * Instances are not thread-safe for modifications, but lookups may be performed concurrently as long as the index is
+ * not modified.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class AttributeIndex<T> {
+
+    private final XPathEvaluator<? super T> evaluator;
+
+    private final Map<Object, ValueReference> keyToPropName = new HashMap<Object, ValueReference>();
+
+    private final Map<Object, PropertyIndex<T>> keyToIndex = new HashMap<Object, PropertyIndex<T>>();
+
+    // insertion order of the indexed objects
+    private final Map<T, Long> objectToSequence = new IdentityHashMap<T, Long>();
+
+    private long nextSequence;
+
+    /**
+     * Creates a new {@link AttributeIndex} without indexed properties.
+     * 
+     * @param evaluator
+     *            evaluator used to determine the property values of the objects, must not be <code>null</code>
+     */
+    public AttributeIndex( XPathEvaluator<? super T> evaluator ) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Adds an index for equality, range and prefix (like) lookups on the given property. Must be called before objects
+     * are added.
+     * 
+     * @param propName
+     *            property to be indexed, must not be <code>null</code>
+     */
+    public void addValueIndex( ValueReference propName ) {
+        addIndex( propName, new ValueIndex<T>() );
+    }
+
+    /**
+     * Adds an index for like lookups on the words of the given (text) property. Must be called before objects are
+     * added.
+     * 
+     * @param propName
+     *            property to be indexed, must not be <code>null</code>
+     */
+    public void addTokenIndex( ValueReference propName ) {
+        addIndex( propName, new TokenIndex<T>() );
+    }
+
+    private void addIndex( ValueReference propName, PropertyIndex<T> index ) {
+        if ( !objectToSequence.isEmpty() ) {
+            throw new IllegalStateException( "Indexes must be added before indexing objects." );
+        }
+        Object key = getKey( propName );
+        keyToPropName.put( key, propName );
+        keyToIndex.put( key, index );
+    }
+
+    /**
+     * Returns whether any property is indexed.
+     * 
+     * @return <code>true</code>, if no property is indexed, <code>false</code> otherwise
+     */
+    public boolean isEmpty() {
+        return keyToIndex.isEmpty();
+    }
+
+    /**
+     * Adds the given object to the index.
+     * 
+     * @param obj
+     *            object to be added, must not be <code>null</code>
+     * @throws FilterEvaluationException
+     *             if the property values cannot be determined
+     */
+    public void add( T obj )
+                            throws FilterEvaluationException {
+        if ( objectToSequence.containsKey( obj ) ) {
+            return;
+        }
+        for ( Map.Entry<Object, PropertyIndex<T>> entry : keyToIndex.entrySet() ) {
+            entry.getValue().add( obj, getValues( keyToPropName.get( entry.getKey() ), obj ) );
+        }
+        objectToSequence.put( obj, nextSequence++ );
+    }
+
+    /**
+     * Removes the given object from the index. The property values of the object must not have changed since it has
+     * been added.
+     * 
+     * @param obj
+     *            object to be removed, must not be <code>null</code>
+     * @throws FilterEvaluationException
+     *             if the property values cannot be determined
+     */
+    public void remove( T obj )
+                            throws FilterEvaluationException {
+        if ( objectToSequence.remove( obj ) == null ) {
+            return;
+        }
+        for ( Map.Entry<Object, PropertyIndex<T>> entry : keyToIndex.entrySet() ) {
+            entry.getValue().remove( obj, getValues( keyToPropName.get( entry.getKey() ), obj ) );
+        }
+    }
+
+    /**
+     * Replaces an indexed object with another one. The new object takes the position of the replaced object in the
+     * order of the candidates, so overwriting an object does not move it to the end. If the old object is not indexed,
+     * the new object is simply added.
+     * 
+     * @param oldObj
+     *            object to be replaced, must not be <code>null</code>
+     * @param newObj
+     *            object to be added instead, must not be <code>null</code>
+     * @throws FilterEvaluationException
+     *             if the property values cannot be determined
+     */
+    public void replace( T oldObj, T newObj )
+                            throws FilterEvaluationException {
+        Long sequence = objectToSequence.get( oldObj );
+        if ( sequence == null ) {
+            add( newObj );
+            return;
+        }
+        if ( oldObj == newObj ) {
+            return;
+        }
+        add( newObj );
+        remove( oldObj );
+        objectToSequence.put( newObj, sequence );
+    }
+
+    /**
+     * Returns the indexed objects that may match the given filter.
+     * 
+     * @param filter
+     *            filter, can be <code>null</code>
+     * @return candidates (superset of the matching objects) in the order they have been added, <code>null</code> if
+     *         the filter cannot be answered using the index
+     * @throws FilterEvaluationException
+     */
+    public List<T> getCandidates( Filter filter )
+                            throws FilterEvaluationException {
+        if ( keyToIndex.isEmpty() || !( filter instanceof OperatorFilter ) ) {
+            return null;
+        }
+        Set<T> candidates = lookup( ( (OperatorFilter) filter ).getOperator() );
+        if ( candidates == null ) {
+            return null;
+        }
+        List<T> sorted = new ArrayList<T>( candidates );
+        Collections.sort( sorted, new Comparator<T>() {
+            @Override
+            public int compare( T o1, T o2 ) {
+                return objectToSequence.get( o1 ).compareTo( objectToSequence.get( o2 ) );
+            }
+        } );
+        return sorted;
+    }
+
+    private Set<T> lookup( Operator op )
+                            throws FilterEvaluationException {
+        switch ( op.getType() ) {
+        case LOGICAL:
+            return lookup( (LogicalOperator) op );
+        case COMPARISON:
+            return lookup( (ComparisonOperator) op );
+        default:
+            return null;
+        }
+    }
+
+    private Set<T> lookup( LogicalOperator op )
+                            throws FilterEvaluationException {
+        switch ( op.getSubType() ) {
+        case AND: {
+            // intersect the candidates of all arguments that can be answered
+            Set<T> candidates = null;
+            for ( Operator param : op.getParams() ) {
+                Set<T> paramCandidates = lookup( param );
+                if ( paramCandidates == null ) {
+                    continue;
+                }
+                if ( candidates == null ) {
+                    candidates = paramCandidates;
+                } else {
+                    candidates = intersect( candidates, paramCandidates );
+                }
+            }
+            return candidates;
+        }
+        case OR: {
+            // unite the candidates, every argument must be answered
+            Set<T> candidates = PropertyIndex.newSet();
+            for ( Operator param : op.getParams() ) {
+                Set<T> paramCandidates = lookup( param );
+                if ( paramCandidates == null ) {
+                    return null;
+                }
+                candidates.addAll( paramCandidates );
+            }
+            return candidates;
+        }
+        default:
+            return null;
+        }
+    }
+
+    private Set<T> lookup( ComparisonOperator op )
+                            throws FilterEvaluationException {
+        if ( op.getMatchAction() == MatchAction.ALL ) {
+            return null;
+        }
+        boolean matchCase = !FALSE.equals( op.isMatchCase() );
+        switch ( op.getSubType() ) {
+        case PROPERTY_IS_EQUAL_TO:
+        case PROPERTY_IS_LESS_THAN:
+        case PROPERTY_IS_LESS_THAN_OR_EQUAL_TO:
+        case PROPERTY_IS_GREATER_THAN:
+        case PROPERTY_IS_GREATER_THAN_OR_EQUAL_TO:
+            return lookup( (BinaryComparisonOperator) op, matchCase );
+        case PROPERTY_IS_BETWEEN: {
+            PropertyIsBetween between = (PropertyIsBetween) op;
+            PropertyIndex<T> index = getIndex( between.getExpression() );
+            PrimitiveValue lower = getLiteralValue( between.getLowerBoundary() );
+            PrimitiveValue upper = getLiteralValue( between.getUpperBoundary() );
+            if ( index == null || lower == null || upper == null ) {
+                return null;
+            }
+            return index.getRange( lower, true, upper, true );
+        }
+        case PROPERTY_IS_LIKE: {
+            PropertyIsLike like = (PropertyIsLike) op;
+            PropertyIndex<T> index = getIndex( like.getExpression() );
+            if ( index == null ) {
+                return null;
+            }
+            LikePattern pattern = like.getLiteralPattern();
+            return pattern != null ? index.getLike( pattern, matchCase ) : null;
+        }
+        default:
+            return null;
+        }
+    }
+
+    private Set<T> lookup( BinaryComparisonOperator op, boolean matchCase ) {
+        boolean swapped = false;
+        PropertyIndex<T> index = getIndex( op.getParameter1() );
+        PrimitiveValue literal = getLiteralValue( op.getParameter2() );
+        if ( index == null ) {
+            index = getIndex( op.getParameter2() );
+            literal = getLiteralValue( op.getParameter1() );
+            swapped = true;
+        }
+        if ( index == null || literal == null ) {
+            return null;
+        }
+        switch ( op.getSubType() ) {
+        case PROPERTY_IS_EQUAL_TO:
+            return index.getEqual( literal, matchCase );
+        case PROPERTY_IS_LESS_THAN:
+            return swapped ? index.getRange( literal, false, null, false ) : index.getRange( null, false, literal, false );
+        case PROPERTY_IS_LESS_THAN_OR_EQUAL_TO:
+            return swapped ? index.getRange( literal, true, null, false ) : index.getRange( null, false, literal, true );
+        case PROPERTY_IS_GREATER_THAN:
+            return swapped ? index.getRange( null, false, literal, false ) : index.getRange( literal, false, null, false );
+        case PROPERTY_IS_GREATER_THAN_OR_EQUAL_TO:
+            return swapped ? index.getRange( null, false, literal, true ) : index.getRange( literal, true, null, false );
+        default:
+            return null;
+        }
+    }
+
+    private PropertyIndex<T> getIndex( Expression expr ) {
+        if ( !( expr instanceof ValueReference ) ) {
+            return null;
+        }
+        return keyToIndex.get( getKey( (ValueReference) expr ) );
+    }
+
+    private static PrimitiveValue getLiteralValue( Expression expr ) {
+        if ( expr instanceof Literal<?> ) {
+            TypedObjectNode value = ( (Literal<?>) expr ).getValue();
+            if ( value instanceof PrimitiveValue ) {
+                return (PrimitiveValue) value;
+            }
+        }
+        return null;
+    }
+
+    private static Object getKey( ValueReference propName ) {
+        return propName.getAsQName() != null ? propName.getAsQName() : propName.getAsText();
+    }
+
+    private static <T> Set<T> intersect( Set<T> set1, Set<T> set2 ) {
+        Set<T> smaller = set1.size() <= set2.size() ? set1 : set2;
+        Set<T> larger = smaller == set1 ? set2 : set1;
+        Set<T> intersection = PropertyIndex.newSet();
+        for ( T obj : smaller ) {
+            if ( larger.contains( obj ) ) {
+                intersection.add( obj );
+            }
+        }
+        return intersection;
+    }
+
+    private List<PrimitiveValue> getValues( ValueReference propName, T obj )
+                            throws FilterEvaluationException {
+        TypedObjectNode[] nodes = evaluate( propName, obj, evaluator );
+        List<PrimitiveValue> values = new ArrayList<PrimitiveValue>( nodes.length );
+        for ( TypedObjectNode node : nodes ) {
+            if ( node != null ) {
+                values.add( getPrimitiveValue( node ) );
+            }
+        }
+        return values;
+    }
+
+    private static <S> TypedObjectNode[] evaluate( ValueReference propName, S obj, XPathEvaluator<S> evaluator )
+                            throws FilterEvaluationException {
+        return propName.evaluate( obj, evaluator );
+    }
+
+    // same conversion as performed by ComparisonOperator
+    private static PrimitiveValue getPrimitiveValue( TypedObjectNode node ) {
+        if ( node == null ) {
+            return new PrimitiveValue( "null" );
+        }
+        if ( node instanceof PrimitiveValue ) {
+            return (PrimitiveValue) node;
+        }
+        if ( node instanceof Property ) {
+            return getPrimitiveValue( ( (Property) node ).getValue() );
+        }
+        if ( node instanceof ElementNode ) {
+            List<TypedObjectNode> children = ( (ElementNode) node ).getChildren();
+            if ( children == null || children.isEmpty() ) {
+                return new PrimitiveValue( "null" );
+            }
+            return getPrimitiveValue( children.get( 0 ) );
+        }
+        return new PrimitiveValue( node.toString() );
+    }
+}
@@ -0,0 +1,141 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.index;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.comparison.LikePattern;
+
+/**
+ * Index for the values of a single property, used by {@link AttributeIndex}.
+ * <p>
+ * Lookups return candidates, i.e. a superset of the objects that fulfill the respective condition (the condition still
+ * has to be evaluated on every candidate). If an index cannot answer a lookup (or cannot guarantee a superset), it
+ * returns <code>null</code>.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+abstract class PropertyIndex<T> {
+
+    /**
+     * Adds the given object with the given property values.
+     * 
+     * @param obj
+     *            object to be added, must not be <code>null</code>
+     * @param values
+     *            property values of the object (primitive), must not be <code>null</code> and not contain
+     *            <code>null</code>
+     */
+    abstract void add( T obj, List<PrimitiveValue> values );
+
+    /**
+     * Removes the given object with the given property values.
+     * 
+     * @param obj
+     *            object to be removed, must not be <code>null</code>
+     * @param values
+     *            property values of the object (the same as when it has been added), must not be <code>null</code>
+     */
+    abstract void remove( T obj, List<PrimitiveValue> values );
+
+    /**
+     * Returns the candidates with a property value that is equal to the given literal.
+     * 
+     * @param literal
+     *            literal value, must not be <code>null</code>
+     * @param matchCase
+     *            <code>true</code>, if the comparison is case sensitive
+     * @return candidates, <code>null</code> if the lookup is not supported
+     */
+    abstract Set<T> getEqual( PrimitiveValue literal, boolean matchCase );
+
+    /**
+     * Returns the candidates with a property value in the given range.
+     * 
+     * @param lower
+     *            lower bound, can be <code>null</code> (unbounded)
+     * @param lowerInclusive
+     *            <code>true</code>, if the lower bound belongs to the range
+     * @param upper
+     *            upper bound, can be <code>null</code> (unbounded)
+     * @param upperInclusive
+     *            <code>true</code>, if the upper bound belongs to the range
+     * @return candidates, <code>null</code> if the lookup is not supported
+     */
+    abstract Set<T> getRange( PrimitiveValue lower, boolean lowerInclusive, PrimitiveValue upper,
+                              boolean upperInclusive );
+
+    /**
+     * Returns the candidates with a property value that matches the given pattern.
+     * 
+     * @param pattern
+     *            pattern (already lower case if not matching case sensitive), must not be <code>null</code>
+     * @param matchCase
+     *            <code>true</code>, if the comparison is case sensitive
+     * @return candidates, <code>null</code> if the lookup is not supported
+     */
+    abstract Set<T> getLike( LikePattern pattern, boolean matchCase );
+
+    static <T> Set<T> newSet() {
+        return Collections.newSetFromMap( new IdentityHashMap<T, Boolean>() );
+    }
+
+    static <K, T> void addPosting( Map<K, Set<T>> index, K key, T obj ) {
+        Set<T> objects = index.get( key );
+        if ( objects == null ) {
+            objects = newSet();
+            index.put( key, objects );
+        }
+        objects.add( obj );
+    }
+
+    static <K, T> void removePosting( Map<K, Set<T>> index, K key, T obj ) {
+        Set<T> objects = index.get( key );
+        if ( objects != null ) {
+            objects.remove( obj );
+            if ( objects.isEmpty() ) {
+                index.remove( key );
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.comparison.LikePattern;
+
+/**
+ * {@link PropertyIndex} for the words of long text values (e.g. the <code>AnyText</code> queryable of metadata
+ * records).
+ * <p>
+ * Values are split into tokens (maximal sequences of letters and digits). A like lookup picks the longest sequence of
+ * letters and digits from the literal parts of the pattern and returns the objects with a token that contains it.
+ * Equality and range lookups are not supported.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class TokenIndex<T> extends PropertyIndex<T> {
+
+    private final TreeMap<String, Set<T>> tokenIndex = new TreeMap<String, Set<T>>();
+
+    @Override
+    void add( T obj, List<PrimitiveValue> values ) {
+        for ( PrimitiveValue value : values ) {
+            for ( String token : tokenize( value.toString() ) ) {
+                addPosting( tokenIndex, token, obj );
+            }
+        }
+    }
+
+    @Override
+    void remove( T obj, List<PrimitiveValue> values ) {
+        for ( PrimitiveValue value : values ) {
+            for ( String token : tokenize( value.toString() ) ) {
+                removePosting( tokenIndex, token, obj );
+            }
+        }
+    }
+
+    @Override
+    Set<T> getEqual( PrimitiveValue literal, boolean matchCase ) {
+        return null;
+    }
+
+    @Override
+    Set<T> getRange( PrimitiveValue lower, boolean lowerInclusive, PrimitiveValue upper, boolean upperInclusive ) {
+        return null;
+    }
+
+    @Override
+    Set<T> getLike( LikePattern pattern, boolean matchCase ) {
+        String word = getLongestWord( pattern.getLiteralSubstrings() );
+        if ( word == null ) {
+            return null;
+        }
+        Set<T> candidates = newSet();
+        for ( Map.Entry<String, Set<T>> entry : tokenIndex.entrySet() ) {
+            if ( contains( entry.getKey(), word, !matchCase ) ) {
+                candidates.addAll( entry.getValue() );
+            }
+        }
+        return candidates;
+    }
+
+    private static String getLongestWord( List<String> substrings ) {
+        String longest = null;
+        for ( String s : substrings ) {
+            for ( String word : tokenize( s ) ) {
+                if ( longest == null || word.length() > longest.length() ) {
+                    longest = word;
+                }
+            }
+        }
+        return longest;
+    }
+
+    private static List<String> tokenize( String text ) {
+        List<String> tokens = new ArrayList<String>();
+        int start = -1;
+        for ( int i = 0; i <= text.length(); i++ ) {
+            if ( i < text.length() && Character.isLetterOrDigit( text.charAt( i ) ) ) {
+                if ( start < 0 ) {
+                    start = i;
+                }
+            } else if ( start >= 0 ) {
+                tokens.add( text.substring( start, i ) );
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean contains( String token, String word, boolean ignoreCase ) {
+        if ( !ignoreCase ) {
+            return token.contains( word );
+        }
+        int last = token.length() - word.length();
+        for ( int i = 0; i <= last; i++ ) {
+            if ( token.regionMatches( true, i, word, 0, word.length() ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
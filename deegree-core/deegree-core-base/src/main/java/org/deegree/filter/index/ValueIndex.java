@@ -0,0 +1,259 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.index;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.comparison.LikePattern;
+
+/**
+ * {@link PropertyIndex} for equality, range and prefix (like) lookups.
+ * <p>
+ * String values are kept in a sorted map by their text, numeric values by their decimal value. Values of other types
+ * (e.g. dates) are always returned as candidates for equality and range lookups, as their comparison depends on the
+ * type conversion performed by {@link PrimitiveValue#compareTo(PrimitiveValue)}. For like lookups and case insensitive
+ * comparisons (which compare the text of the values), the text of all values is indexed as well.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class ValueIndex<T> extends PropertyIndex<T> {
+
+    private final TreeMap<String, Set<T>> stringIndex = new TreeMap<String, Set<T>>();
+
+    // text of values that are not strings
+    private final TreeMap<String, Set<T>> textIndex = new TreeMap<String, Set<T>>();
+
+    private final TreeMap<String, Set<T>> foldedIndex = new TreeMap<String, Set<T>>();
+
+    private final TreeMap<BigDecimal, Set<T>> numberIndex = new TreeMap<BigDecimal, Set<T>>();
+
+    // objects with values that are neither strings nor numbers
+    private final Map<T, Integer> others = new IdentityHashMap<T, Integer>();
+
+    @Override
+    void add( T obj, List<PrimitiveValue> values ) {
+        for ( PrimitiveValue value : values ) {
+            String text = value.toString();
+            addPosting( foldedIndex, fold( text ), obj );
+            if ( value.getValue() instanceof String ) {
+                addPosting( stringIndex, text, obj );
+                continue;
+            }
+            addPosting( textIndex, text, obj );
+            BigDecimal number = toNumber( value );
+            if ( number != null ) {
+                addPosting( numberIndex, number, obj );
+            } else {
+                Integer count = others.get( obj );
+                others.put( obj, count == null ? 1 : count + 1 );
+            }
+        }
+    }
+
+    @Override
+    void remove( T obj, List<PrimitiveValue> values ) {
+        for ( PrimitiveValue value : values ) {
+            String text = value.toString();
+            removePosting( foldedIndex, fold( text ), obj );
+            if ( value.getValue() instanceof String ) {
+                removePosting( stringIndex, text, obj );
+                continue;
+            }
+            removePosting( textIndex, text, obj );
+            BigDecimal number = toNumber( value );
+            if ( number != null ) {
+                removePosting( numberIndex, number, obj );
+            } else {
+                Integer count = others.get( obj );
+                if ( count != null && count > 1 ) {
+                    others.put( obj, count - 1 );
+                } else {
+                    others.remove( obj );
+                }
+            }
+        }
+    }
+
+    @Override
+    Set<T> getEqual( PrimitiveValue literal, boolean matchCase ) {
+        if ( !( literal.getValue() instanceof String ) ) {
+            return null;
+        }
+        String text = literal.toString();
+        Set<T> candidates = newSet();
+        if ( !matchCase ) {
+            // PropertyIsEqualTo compares the text of the values using String#equalsIgnoreCase()
+            addAll( candidates, foldedIndex.get( fold( text ) ) );
+            return candidates;
+        }
+        if ( !numberIndex.isEmpty() ) {
+            BigDecimal number = parseNumber( text );
+            if ( number == null ) {
+                return null;
+            }
+            addAll( candidates, numberIndex.get( number ) );
+        }
+        addAll( candidates, stringIndex.get( text ) );
+        candidates.addAll( others.keySet() );
+        return candidates;
+    }
+
+    @Override
+    Set<T> getRange( PrimitiveValue lower, boolean lowerInclusive, PrimitiveValue upper, boolean upperInclusive ) {
+        if ( ( lower != null && !( lower.getValue() instanceof String ) )
+             || ( upper != null && !( upper.getValue() instanceof String ) ) ) {
+            return null;
+        }
+        String lowerText = lower != null ? lower.toString() : null;
+        String upperText = upper != null ? upper.toString() : null;
+        Set<T> candidates = newSet();
+        if ( !numberIndex.isEmpty() ) {
+            BigDecimal lowerNumber = lower != null ? parseNumber( lowerText ) : null;
+            BigDecimal upperNumber = upper != null ? parseNumber( upperText ) : null;
+            if ( ( lower != null && lowerNumber == null ) || ( upper != null && upperNumber == null ) ) {
+                return null;
+            }
+            addAllValues( candidates, subMap( numberIndex, lowerNumber, lowerInclusive, upperNumber, upperInclusive ) );
+        }
+        addAllValues( candidates, subMap( stringIndex, lowerText, lowerInclusive, upperText, upperInclusive ) );
+        candidates.addAll( others.keySet() );
+        return candidates;
+    }
+
+    @Override
+    Set<T> getLike( LikePattern pattern, boolean matchCase ) {
+        String prefix = pattern.getLiteralPrefix();
+        if ( prefix.isEmpty() ) {
+            return null;
+        }
+        Set<T> candidates = newSet();
+        if ( matchCase ) {
+            addPrefixed( candidates, stringIndex, prefix );
+            addPrefixed( candidates, textIndex, prefix );
+            return candidates;
+        }
+        // the case folded keys can only be used for prefixes that consist of (lower case) ASCII characters
+        for ( int i = 0; i < prefix.length(); i++ ) {
+            if ( prefix.charAt( i ) > 127 ) {
+                return null;
+            }
+        }
+        addPrefixed( candidates, foldedIndex, prefix );
+        return candidates;
+    }
+
+    private static <T> void addPrefixed( Set<T> candidates, TreeMap<String, Set<T>> index, String prefix ) {
+        for ( Map.Entry<String, Set<T>> entry : index.tailMap( prefix ).entrySet() ) {
+            if ( !entry.getKey().startsWith( prefix ) ) {
+                break;
+            }
+            candidates.addAll( entry.getValue() );
+        }
+    }
+
+    /**
+     * Returns a key that is equal for two strings if and only if they are equal according to
+     * {@link String#equalsIgnoreCase(String)}.
+     */
+    private static String fold( String s ) {
+        char[] chars = s.toCharArray();
+        for ( int i = 0; i < chars.length; i++ ) {
+            chars[i] = Character.toLowerCase( Character.toUpperCase( chars[i] ) );
+        }
+        return new String( chars );
+    }
+
+    private static BigDecimal toNumber( PrimitiveValue value ) {
+        Object o = value.getValue();
+        if ( o instanceof BigDecimal ) {
+            return (BigDecimal) o;
+        }
+        if ( o instanceof Number ) {
+            // same conversion as PrimitiveValue#makeComparable()
+            return parseNumber( o.toString() );
+        }
+        return null;
+    }
+
+    private static BigDecimal parseNumber( String s ) {
+        try {
+            return new BigDecimal( s );
+        } catch ( NumberFormatException e ) {
+            return null;
+        }
+    }
+
+    private static <K extends Comparable<K>, T> SortedMap<K, Set<T>> subMap( TreeMap<K, Set<T>> index, K lower,
+                                                                              boolean lowerInclusive, K upper,
+                                                                              boolean upperInclusive ) {
+        if ( lower != null && upper != null ) {
+            int cmp = lower.compareTo( upper );
+            if ( cmp > 0 || ( cmp == 0 && !( lowerInclusive && upperInclusive ) ) ) {
+                return new TreeMap<K, Set<T>>();
+            }
+            return index.subMap( lower, lowerInclusive, upper, upperInclusive );
+        }
+        if ( lower != null ) {
+            return index.tailMap( lower, lowerInclusive );
+        }
+        if ( upper != null ) {
+            return index.headMap( upper, upperInclusive );
+        }
+        return index;
+    }
+
+    private static <T> void addAll( Set<T> candidates, Set<T> objects ) {
+        if ( objects != null ) {
+            candidates.addAll( objects );
+        }
+    }
+
+    private static <T> void addAllValues( Set<T> candidates, Map<?, Set<T>> index ) {
+        for ( Collection<T> objects : index.values() ) {
+            candidates.addAll( objects );
+        }
+    }
+}
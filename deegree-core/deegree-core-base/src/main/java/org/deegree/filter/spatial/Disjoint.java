@@ -64,8 +64,7 @@ public class Disjoint extends SpatialOperator {
         for ( TypedObjectNode paramValue : propName.evaluate( obj, xpathEvaluator ) ) {
             Geometry geom = checkGeometryOrNull( paramValue );
             if ( geom != null ) {
-                Geometry transformedLiteral = getCompatibleGeometry( geom, geometry );
-                return geom.isDisjoint( transformedLiteral );
+                return !getPreparedLiteral( geom, geometry ).intersects( geom );
             }
         }
         return false;
@@ -35,8 +35,8 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.filter.spatial;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.genericxml.GenericXMLElement;
@@ -49,6 +49,7 @@ import org.deegree.filter.expression.ValueReference;
 import org.deegree.filter.i18n.Messages;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.standard.JTSPreparedGeometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,7 +65,8 @@ public abstract class SpatialOperator implements Operator {
 
     private static final Logger LOG = LoggerFactory.getLogger( SpatialOperator.class );
 
-    private final Map<String, Geometry> srsNameToTransformedGeometry = new HashMap<String, Geometry>();
+    // key: alias of the crs the literal is used in ("" if it has no crs)
+    private final Map<String, JTSPreparedGeometry> srsNameToTransformedGeometry = new ConcurrentHashMap<String, JTSPreparedGeometry>();
 
     protected final Expression propName;
 
@@ -190,24 +192,47 @@ public abstract class SpatialOperator implements Operator {
      */
     protected Geometry getCompatibleGeometry( Geometry param, Geometry literal )
                             throws FilterEvaluationException {
-        Geometry transformedLiteral = literal;
+        return getPreparedLiteral( param, literal ).getGeometry();
+    }
+
+    /**
+     * Returns a prepared version of the given geometry literal that has the same srs as the given geometry parameter.
+     * The prepared literal is cached for every srs, so it should be used for the literal of this operator only.
+     * 
+     * @param param
+     *            geometry parameter, must not be <code>null</code>
+     * @param literal
+     *            geometry literal, must not be <code>null</code>
+     * @return prepared literal geometry with the same srs as the parameter geometry
+     * @throws FilterEvaluationException
+     *             if the transformation failed
+     */
+    protected JTSPreparedGeometry getPreparedLiteral( Geometry param, Geometry literal )
+                            throws FilterEvaluationException {
         ICRS paramCRS = param.getCoordinateSystem();
         ICRS literalCRS = literal.getCoordinateSystem();
-        if ( literalCRS != null && !( paramCRS.equals( literalCRS ) ) ) {
+        if ( literalCRS == null || paramCRS == null || paramCRS.equals( literalCRS ) ) {
+            String key = literalCRS == null ? "" : literalCRS.getAlias();
+            JTSPreparedGeometry prepared = srsNameToTransformedGeometry.get( key );
+            if ( prepared == null || prepared.getGeometry() != literal ) {
+                prepared = new JTSPreparedGeometry( literal );
+                srsNameToTransformedGeometry.put( key, prepared );
+            }
+            return prepared;
+        }
+        JTSPreparedGeometry prepared = srsNameToTransformedGeometry.get( paramCRS.getAlias() );
+        if ( prepared == null ) {
             LOG.debug( "Need transformed literal geometry for evaluation: " + literalCRS.getAlias() + " -> "
                        + paramCRS.getAlias() );
-            transformedLiteral = srsNameToTransformedGeometry.get( paramCRS.getAlias() );
-            if ( transformedLiteral == null ) {
-                try {
-                    GeometryTransformer transformer = new GeometryTransformer( paramCRS );
-                    transformedLiteral = transformer.transform( literal );
-                    srsNameToTransformedGeometry.put( paramCRS.getAlias(), transformedLiteral );
-                } catch ( Exception e ) {
-                    throw new FilterEvaluationException( e.getMessage() );
-                }
+            try {
+                GeometryTransformer transformer = new GeometryTransformer( paramCRS );
+                prepared = new JTSPreparedGeometry( transformer.transform( literal ) );
+                srsNameToTransformedGeometry.put( paramCRS.getAlias(), prepared );
+            } catch ( Exception e ) {
+                throw new FilterEvaluationException( e.getMessage() );
             }
         }
-        return transformedLiteral;
+        return prepared;
     }
 
     public abstract Object[] getParams();
@@ -56,8 +56,9 @@ import org.deegree.geometry.composite.CompositeCurve;
 import org.deegree.geometry.composite.CompositeGeometry;
 import org.deegree.geometry.composite.CompositeSolid;
 import org.deegree.geometry.composite.CompositeSurface;
+import org.deegree.geometry.io.CoordinateBuffer;
 import org.deegree.geometry.io.CoordinateFormatter;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FixedDecimalCoordinateFormatter;
 import org.deegree.geometry.multi.MultiCurve;
 import org.deegree.geometry.multi.MultiGeometry;
 import org.deegree.geometry.multi.MultiLineString;
@@ -102,6 +103,8 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
 
     private CoordinateFormatter formatter;
 
+    private final CoordinateBuffer coordinateBuffer;
+
     private CoordinateTransformer transformer;
 
     private double[] transformedOrdinates;
@@ -131,8 +134,9 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         }
         formatter = gmlStream.getCoordinateFormatter();
         if ( formatter == null ) {
-            formatter = new DecimalCoordinateFormatter( crsUnits );
+            formatter = new FixedDecimalCoordinateFormatter( crsUnits );
         }
+        coordinateBuffer = new CoordinateBuffer( formatter );
     }
 
     @SuppressWarnings("unchecked")
@@ -221,21 +225,17 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         writer.writeAttribute( "decimal", "." );
         writer.writeAttribute( "cs", "," );
         writer.writeAttribute( "ts", " " );
-        StringBuilder sb = new StringBuilder();
+        coordinateBuffer.clear();
         boolean first = true;
         for ( Point point : points ) {
             if ( !first ) {
-                sb.append( " " );
+                coordinateBuffer.append( ' ' );
             }
             double[] ords = getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() );
-            sb.append( formatter.format( ords[0] ) );
-            for ( int i = 1; i < ords.length; i++ ) {
-                sb.append( "," );
-                sb.append( formatter.format( ords[i] ) );
-            }
+            coordinateBuffer.append( ords, 0, ords.length, ',' );
             first = false;
         }
-        writer.writeCharacters( sb.toString() );
+        writer.writeCharacters( coordinateBuffer.getChars(), 0, coordinateBuffer.length() );
         writer.writeEndElement();
     }
 
@@ -67,8 +67,9 @@ import org.deegree.geometry.composite.CompositeCurve;
 import org.deegree.geometry.composite.CompositeGeometry;
 import org.deegree.geometry.composite.CompositeSolid;
 import org.deegree.geometry.composite.CompositeSurface;
+import org.deegree.geometry.io.CoordinateBuffer;
 import org.deegree.geometry.io.CoordinateFormatter;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FixedDecimalCoordinateFormatter;
 import org.deegree.geometry.multi.MultiCurve;
 import org.deegree.geometry.multi.MultiGeometry;
 import org.deegree.geometry.multi.MultiLineString;
@@ -145,6 +146,9 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
 
     private CoordinateFormatter formatter;
 
+    // reused for encoding every pos / posList, hence this class is not Thread-safe
+    private final CoordinateBuffer coordinateBuffer;
+
     private CoordinateTransformer transformer;
 
     private GeometryTransformer geoTransformer;
@@ -177,8 +181,9 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         }
         formatter = gmlStreamWriter.getCoordinateFormatter();
         if ( formatter == null ) {
-            formatter = new DecimalCoordinateFormatter( crsUnits );
+            formatter = new FixedDecimalCoordinateFormatter( crsUnits );
         }
+        coordinateBuffer = new CoordinateBuffer( formatter );
     }
 
     @SuppressWarnings("unchecked")
@@ -416,14 +421,23 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
                             throws XMLStreamException, UnknownCRSException, TransformationException {
 
         writer.writeStartElement( gmlNs, "pos" );
-        double[] ordinates = getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() );
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        writePosList( getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() ) );
         writer.writeEndElement();
     }
 
+    /**
+     * Writes the given ordinates (separated by spaces) as the character content of the current element.
+     *
+     * @param ordinates
+     *            ordinates to write, must not be <code>null</code>
+     * @throws XMLStreamException
+     */
+    private void writePosList( double[] ordinates )
+                            throws XMLStreamException {
+        coordinateBuffer.clear().append( ordinates, 0, ordinates.length, ' ' );
+        writer.writeCharacters( coordinateBuffer.getChars(), 0, coordinateBuffer.length() );
+    }
+
     /**
      * Exporting a curve via the XMLStreamWriter given when the class was constructed
      *
@@ -882,11 +896,7 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         } else {
             writer.writeStartElement( "gml", "lowerCorner", gmlNs );
         }
-        double[] ordinates = env.getMin().getAsArray();
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        writePosList( env.getMin().getAsArray() );
         writer.writeEndElement();
 
         if ( version == GML_30 ) {
@@ -894,11 +904,7 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         } else {
             writer.writeStartElement( "gml", "upperCorner", gmlNs );
         }
-        ordinates = env.getMax().getAsArray();
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        writePosList( env.getMax().getAsArray() );
         writer.writeEndElement();
         writer.writeEndElement();
     }
@@ -1510,18 +1516,15 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
             writer.writeStartElement( "gml", "posList", gmlNs );
             // TODO CITE
             // writer.writeAttribute( "srsDimension", String.valueOf( srsDimension ) );
-            boolean first = true;
+            coordinateBuffer.clear();
             for ( final Point p : points ) {
                 final double[] ordinates = getTransformedCoordinate( p.getCoordinateSystem(), p.getAsArray() );
-                for ( int i = 0; i < ordinates.length; i++ ) {
-                    if ( !first ) {
-                        writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-                    } else {
-                        writer.writeCharacters( formatter.format( ordinates[i] ) );
-                        first = false;
-                    }
+                if ( coordinateBuffer.length() > 0 ) {
+                    coordinateBuffer.append( ' ' );
                 }
+                coordinateBuffer.append( ordinates, 0, ordinates.length, ' ' );
             }
+            writer.writeCharacters( coordinateBuffer.getChars(), 0, coordinateBuffer.length() );
             writer.writeEndElement();
         } else {
             for ( final Point p : points ) {
@@ -75,7 +75,7 @@ public class ThreadedFeatureInputStreamTest {
         BlockingQueue<ProducerMessage> producerQueue = mock( BlockingQueue.class );
         BlockingQueue<ConsumerMessage> consumerQueue = mock( BlockingQueue.class );
 
-        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue );
+        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue, 1 );
         producer.run();
 
         verify( consumerQueue, atLeastOnce() ).poll();
@@ -88,6 +88,31 @@ public class ThreadedFeatureInputStreamTest {
         verify( featureInputStream ).close();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProducerBatches()
+                            throws Exception {
+        Feature[] features = new Feature[] { mock( Feature.class ), mock( Feature.class ), mock( Feature.class ) };
+        Iterator<Feature> featureIterator = Arrays.asList( features ).iterator();
+
+        FeatureInputStream featureInputStream = mock( FeatureInputStream.class );
+        when( featureInputStream.iterator() ).thenReturn( featureIterator );
+
+        BlockingQueue<ProducerMessage> producerQueue = mock( BlockingQueue.class );
+        BlockingQueue<ConsumerMessage> consumerQueue = mock( BlockingQueue.class );
+
+        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue, 2 );
+        producer.run();
+
+        InOrder producerQueueOrder = inOrder( producerQueue );
+        producerQueueOrder.verify( producerQueue ).put( new ProducerFeatureMessage( features[0], features[1] ) );
+        producerQueueOrder.verify( producerQueue ).put( new ProducerFeatureMessage( features[2] ) );
+        producerQueueOrder.verify( producerQueue ).put( new ProducerFinishedMessage() );
+        verify( producerQueue, times( 3 ) ).put( any( ProducerMessage.class ) );
+
+        verify( featureInputStream ).close();
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testProducerException()
@@ -106,7 +131,7 @@ public class ThreadedFeatureInputStreamTest {
         BlockingQueue<ProducerMessage> producerQueue = mock( BlockingQueue.class );
         BlockingQueue<ConsumerMessage> consumerQueue = mock( BlockingQueue.class );
 
-        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue );
+        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue, 2 );
         producer.run();
 
         InOrder producerQueueOrder = inOrder( producerQueue );
@@ -133,7 +158,7 @@ public class ThreadedFeatureInputStreamTest {
         BlockingQueue<ConsumerMessage> consumerQueue = mock( BlockingQueue.class );
         when( consumerQueue.poll() ).thenReturn( null, new ConsumerClosingMessage() );
 
-        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue );
+        Producer producer = new Producer( featureInputStream, producerQueue, consumerQueue, 1 );
         producer.run();
 
         verify( producerQueue ).put( new ProducerFinishedMessage() );
@@ -165,6 +190,28 @@ public class ThreadedFeatureInputStreamTest {
         verify( consumerQueue, never() ).put( new ConsumerClosingMessage() );
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConsumerBatches()
+                            throws Exception {
+
+        BlockingQueue<ProducerMessage> producerQueue = mock( BlockingQueue.class );
+        BlockingQueue<ConsumerMessage> consumerQueue = mock( BlockingQueue.class );
+
+        Feature[] features = new Feature[] { mock( Feature.class ), mock( Feature.class ), mock( Feature.class ) };
+        when( producerQueue.take() ).thenReturn( new ProducerFeatureMessage( features[0], features[1] ),
+                                                 new ProducerFeatureMessage( features[2] ),
+                                                 new ProducerFinishedMessage() );
+
+        Consumer consumer = new Consumer( producerQueue, consumerQueue );
+        for ( Feature feature : features ) {
+            assertTrue( consumer.hasNext() );
+            assertEquals( feature, consumer.next() );
+        }
+        assertFalse( consumer.hasNext() );
+        verify( producerQueue, times( 3 ) ).take();
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testConsumerAbort()
@@ -0,0 +1,129 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.comparison;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LikePattern}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LikePatternTest {
+
+    private static LikePattern compile( String pattern ) {
+        return new LikePattern( pattern, '*', '?', '\\' );
+    }
+
+    @Test
+    public void testPlain() {
+        LikePattern p = compile( "Bonn" );
+        assertTrue( p.isLiteral() );
+        assertEquals( "Bonn", p.getLiteralPrefix() );
+        assertTrue( p.matches( "Bonn" ) );
+        assertFalse( p.matches( "Bonn " ) );
+        assertFalse( p.matches( "bonn" ) );
+        assertTrue( compile( "" ).matches( "" ) );
+        assertFalse( compile( "" ).matches( "x" ) );
+    }
+
+    @Test
+    public void testWildCards() {
+        assertTrue( compile( "*" ).matches( "" ) );
+        assertTrue( compile( "B*n" ).matches( "Bn" ) );
+        assertTrue( compile( "B*n" ).matches( "Bonn" ) );
+        assertFalse( compile( "B*n" ).matches( "Bonna" ) );
+        assertTrue( compile( "*a*b*c*" ).matches( "xxaxxbxxcxx" ) );
+        assertFalse( compile( "*a*b*c*" ).matches( "xxcxxbxxaxx" ) );
+        assertTrue( compile( "a*a" ).matches( "aa" ) );
+        assertFalse( compile( "a*a" ).matches( "a" ) );
+        assertTrue( compile( "**a**" ).matches( "a" ) );
+    }
+
+    @Test
+    public void testSingleChars() {
+        assertTrue( compile( "B?nn" ).matches( "Bonn" ) );
+        assertFalse( compile( "B?nn" ).matches( "Bnn" ) );
+        assertTrue( compile( "*?n?" ).matches( "Bonn" ) );
+        assertTrue( compile( "*o?n*" ).matches( "Bonn" ) );
+        assertFalse( compile( "???" ).matches( "Bonn" ) );
+    }
+
+    @Test
+    public void testEscapes() {
+        LikePattern p = compile( "a\\*b" );
+        assertTrue( p.isLiteral() );
+        assertEquals( "a*b", p.getLiteralPrefix() );
+        assertTrue( p.matches( "a*b" ) );
+        assertFalse( p.matches( "axb" ) );
+        assertTrue( compile( "a\\\\*" ).matches( "a\\bc" ) );
+        assertTrue( compile( "\\?*" ).matches( "?x" ) );
+        assertFalse( compile( "\\?*" ).matches( "x" ) );
+    }
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals( "Bo", compile( "Bo*n" ).getLiteralPrefix() );
+        assertEquals( "Bo", compile( "Bo?n*" ).getLiteralPrefix() );
+        assertEquals( "", compile( "*Bonn" ).getLiteralPrefix() );
+        assertFalse( compile( "Bo*" ).isLiteral() );
+    }
+
+    @Test
+    public void testLiteralSubstrings() {
+        assertEquals( Arrays.asList( "Bo", "n" ), compile( "Bo*n" ).getLiteralSubstrings() );
+        assertEquals( Arrays.asList( "Bo", "n", "x" ), compile( "*Bo?n*x" ).getLiteralSubstrings() );
+        assertEquals( Arrays.asList( "a*b" ), compile( "a\\*b" ).getLiteralSubstrings() );
+        assertTrue( compile( "*" ).getLiteralSubstrings().isEmpty() );
+    }
+
+    @Test(timeout = 5000)
+    public void testNoBacktracking() {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 100000; i++ ) {
+            sb.append( 'a' );
+        }
+        assertFalse( compile( "*a*a*a*a*a*a*a*a*b*" ).matches( sb.toString() ) );
+    }
+
+}
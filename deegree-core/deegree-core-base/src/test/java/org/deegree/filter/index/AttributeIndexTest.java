@@ -0,0 +1,232 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.filter.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.Filter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.XPathEvaluator;
+import org.deegree.filter.comparison.PropertyIsBetween;
+import org.deegree.filter.comparison.PropertyIsEqualTo;
+import org.deegree.filter.comparison.PropertyIsGreaterThan;
+import org.deegree.filter.comparison.PropertyIsLessThan;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.And;
+import org.deegree.filter.logical.Not;
+import org.deegree.filter.logical.Or;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AttributeIndex}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class AttributeIndexTest {
+
+    private static final String NS = "http://www.deegree.org/app";
+
+    private static final ValueReference NAME = new ValueReference( new QName( NS, "name" ) );
+
+    private static final ValueReference POPULATION = new ValueReference( new QName( NS, "population" ) );
+
+    private static final ValueReference DESCRIPTION = new ValueReference( new QName( NS, "description" ) );
+
+    private static final ValueReference COUNTRY = new ValueReference( new QName( NS, "country" ) );
+
+    private static final XPathEvaluator<Map<String, Object>> EVALUATOR = new XPathEvaluator<Map<String, Object>>() {
+        @Override
+        public TypedObjectNode[] eval( Map<String, Object> context, ValueReference valueRef ) {
+            Object value = context.get( valueRef.getAsQName().getLocalPart() );
+            if ( value == null ) {
+                return new TypedObjectNode[0];
+            }
+            return new TypedObjectNode[] { new PrimitiveValue( value ) };
+        }
+
+        @Override
+        public String getId( Map<String, Object> context ) {
+            return (String) context.get( "name" );
+        }
+    };
+
+    private final List<Map<String, Object>> cities = new ArrayList<Map<String, Object>>();
+
+    private AttributeIndex<Map<String, Object>> index;
+
+    @Before
+    public void setUp()
+                            throws FilterEvaluationException {
+        addCity( "Bonn", "310000", "Former capital on the river Rhine", "Germany" );
+        addCity( "Berlin", "3500000", "Capital of Germany", "Germany" );
+        addCity( "bochum", "365000", "City in the Ruhr area", "Germany" );
+        addCity( "Boston", "650000", "Capital of Massachusetts", "USA" );
+        addCity( "Paris", "2200000", "Capital of France, on the Seine", "France" );
+        index = new AttributeIndex<Map<String, Object>>( EVALUATOR );
+        index.addValueIndex( NAME );
+        index.addValueIndex( POPULATION );
+        index.addTokenIndex( DESCRIPTION );
+        for ( Map<String, Object> city : cities ) {
+            index.add( city );
+        }
+    }
+
+    private void addCity( String name, String population, String description, String country ) {
+        Map<String, Object> city = new HashMap<String, Object>();
+        city.put( "name", name );
+        city.put( "population", new BigDecimal( population ) );
+        city.put( "description", description );
+        city.put( "country", country );
+        cities.add( city );
+    }
+
+    @Test
+    public void testEqualTo()
+                            throws FilterEvaluationException {
+        assertCandidates( new PropertyIsEqualTo( NAME, new Literal<PrimitiveValue>( "Bonn" ), true, null ), "Bonn" );
+        assertCandidates( new PropertyIsEqualTo( new Literal<PrimitiveValue>( "Bonn" ), NAME, true, null ), "Bonn" );
+        assertCandidates( new PropertyIsEqualTo( NAME, new Literal<PrimitiveValue>( "BONN" ), false, null ), "Bonn" );
+        assertCandidates( new PropertyIsEqualTo( NAME, new Literal<PrimitiveValue>( "BONN" ), true, null ) );
+        assertCandidates( new PropertyIsEqualTo( POPULATION, new Literal<PrimitiveValue>( "310000.00" ), true, null ),
+                          "Bonn" );
+    }
+
+    @Test
+    public void testRanges()
+                            throws FilterEvaluationException {
+        assertCandidates( new PropertyIsLessThan( POPULATION, new Literal<PrimitiveValue>( "650000" ), true, null ),
+                          "Bonn", "bochum" );
+        assertCandidates( new PropertyIsGreaterThan( new Literal<PrimitiveValue>( "650000" ), POPULATION, true, null ),
+                          "Bonn", "bochum" );
+        assertCandidates( new PropertyIsGreaterThan( POPULATION, new Literal<PrimitiveValue>( "650000" ), true, null ),
+                          "Berlin", "Paris" );
+        assertCandidates( new PropertyIsBetween( POPULATION, new Literal<PrimitiveValue>( "365000" ),
+                                                 new Literal<PrimitiveValue>( "2200000" ), true, null ), "bochum",
+                          "Boston", "Paris" );
+        assertCandidates( new PropertyIsBetween( NAME, new Literal<PrimitiveValue>( "Bo" ),
+                                                 new Literal<PrimitiveValue>( "C" ), true, null ), "Bonn", "Boston" );
+    }
+
+    @Test
+    public void testLike()
+                            throws FilterEvaluationException {
+        assertCandidates( like( NAME, "Bo*", true ), "Bonn", "Boston" );
+        assertCandidates( like( NAME, "BO*", false ), "Bonn", "bochum", "Boston" );
+        assertNull( index.getCandidates( new OperatorFilter( like( NAME, "*n", true ) ) ) );
+        assertCandidates( like( DESCRIPTION, "*capital*", false ), "Bonn", "Berlin", "Boston", "Paris" );
+        assertCandidates( like( DESCRIPTION, "*ital of G*", true ), "Bonn", "Berlin", "Boston", "Paris" );
+        assertCandidates( like( DESCRIPTION, "*Rhine", true ), "Bonn" );
+    }
+
+    @Test
+    public void testLogical()
+                            throws FilterEvaluationException {
+        Operator bo = like( NAME, "Bo*", false );
+        Operator big = new PropertyIsGreaterThan( POPULATION, new Literal<PrimitiveValue>( "500000" ), true, null );
+        Operator usa = new PropertyIsEqualTo( COUNTRY, new Literal<PrimitiveValue>( "USA" ), true, null );
+        assertCandidates( new And( bo, big ), "Boston" );
+        assertCandidates( new And( bo, usa ), "Bonn", "bochum", "Boston" );
+        assertCandidates( new Or( bo, big ), "Bonn", "Berlin", "bochum", "Boston", "Paris" );
+        assertNull( index.getCandidates( new OperatorFilter( new Or( bo, usa ) ) ) );
+        assertNull( index.getCandidates( new OperatorFilter( new Not( bo ) ) ) );
+    }
+
+    @Test
+    public void testRemove()
+                            throws FilterEvaluationException {
+        index.remove( cities.get( 0 ) );
+        assertCandidates( like( NAME, "Bo*", true ), "Boston" );
+        assertCandidates( like( DESCRIPTION, "*Rhine*", true ) );
+        index.add( cities.get( 0 ) );
+        assertCandidates( like( NAME, "Bo*", true ), "Boston", "Bonn" );
+    }
+
+    @Test
+    public void testReplace()
+                            throws FilterEvaluationException {
+        Map<String, Object> bonn = cities.get( 0 );
+        Map<String, Object> newBonn = new HashMap<String, Object>( bonn );
+        newBonn.put( "description", "Federal city on the river Rhine" );
+        index.replace( bonn, newBonn );
+        assertCandidates( like( DESCRIPTION, "*capital*", false ), "Berlin", "Boston", "Paris" );
+        assertCandidates( like( DESCRIPTION, "*federal*", false ), "Bonn" );
+        // the replacing object keeps the position of the replaced one
+        assertCandidates( like( NAME, "Bo*", true ), "Bonn", "Boston" );
+        assertEquals( newBonn, index.getCandidates( new OperatorFilter( like( NAME, "Bo*", true ) ) ).get( 0 ) );
+    }
+
+    private static Operator like( ValueReference propName, String pattern, boolean matchCase ) {
+        return new PropertyIsLike( propName, new Literal<PrimitiveValue>( pattern ), "*", "?", "\\", matchCase, null );
+    }
+
+    private void assertCandidates( Operator op, String... expected )
+                            throws FilterEvaluationException {
+        Filter filter = new OperatorFilter( op );
+        List<Map<String, Object>> candidates = index.getCandidates( filter );
+        List<String> names = new ArrayList<String>();
+        for ( Map<String, Object> city : candidates ) {
+            names.add( (String) city.get( "name" ) );
+        }
+        for ( Map<String, Object> city : cities ) {
+            if ( filter.evaluate( city, EVALUATOR ) ) {
+                assertTrue( "Missing candidate " + city.get( "name" ), names.contains( city.get( "name" ) ) );
+            }
+        }
+        List<String> expectedNames = new ArrayList<String>();
+        for ( String name : expected ) {
+            expectedNames.add( name );
+        }
+        assertEquals( expectedNames, names );
+    }
+}
@@ -0,0 +1,563 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.index;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.deegree.commons.utils.Pair;
+import org.deegree.commons.utils.nio.MappedFile;
+
+/**
+ * Static, persistent R-tree that is packed using the Hilbert order of the object envelopes' centers.
+ * <p>
+ * The tree is built once using a {@link Builder} and written to a single file. Opened trees access the file through a
+ * memory mapping, so opening a tree is independent of its size and a query only touches the pages of the nodes that
+ * are visited. The stored objects are <code>long</code> values (e.g. file positions).
+ * </p>
+ * <p>
+ * File layout (big endian): header (magic, version, node size, number of items, flags, number of levels), the end
+ * (exclusive node index) of each level, the envelopes of all nodes (minx, miny, maxx, maxy as doubles, leaf items
+ * first, root last) and a long value for each node (the object for items, the index of the first child for inner
+ * nodes).
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PackedRTree extends SpatialIndex<Long> implements Closeable {
+
+    /**
+     * Default maximum number of children per node.
+     */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    private static final long MAGIC = 0x4447505254524545L;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int BOX_SIZE = 32;
+
+    private static final int HILBERT_BITS = 15;
+
+    // node envelopes of all levels must fit into a single double array while packing
+    private static final int MAX_ITEMS = ( Integer.MAX_VALUE - 8 ) / 5;
+
+    private final MappedFile file;
+
+    private final int nodeSize;
+
+    private final long numItems;
+
+    private final boolean extraFlag;
+
+    private final long[] levelEnds;
+
+    private final long boxesOffset;
+
+    private final long valuesOffset;
+
+    private PackedRTree( MappedFile file )
+                            throws IOException {
+        this.file = file;
+        ByteBuffer header = file.getBuffer( 0, HEADER_SIZE );
+        if ( header.getLong() != MAGIC ) {
+            throw new IOException( "Not a packed R-tree file." );
+        }
+        int version = header.getInt();
+        if ( version != VERSION ) {
+            throw new IOException( "Unsupported packed R-tree version " + version + "." );
+        }
+        nodeSize = header.getInt();
+        numItems = header.getLong();
+        extraFlag = ( header.getInt() & 1 ) != 0;
+        int numLevels = header.getInt();
+        levelEnds = new long[numLevels];
+        ByteBuffer levels = file.getBuffer( HEADER_SIZE, 8 * numLevels );
+        for ( int i = 0; i < numLevels; i++ ) {
+            levelEnds[i] = levels.getLong();
+        }
+        boxesOffset = HEADER_SIZE + 8L * numLevels;
+        valuesOffset = boxesOffset + BOX_SIZE * levelEnds[numLevels - 1];
+    }
+
+    /**
+     * Opens a tree that has been written by {@link Builder#write(File, boolean)}.
+     * 
+     * @param file
+     *            tree file, must not be <code>null</code>
+     * @return the tree, never <code>null</code>
+     * @throws IOException
+     *             if the file could not be mapped or is not a packed R-tree
+     */
+    public static PackedRTree open( File file )
+                            throws IOException {
+        MappedFile mapped = new MappedFile( file );
+        try {
+            return new PackedRTree( mapped );
+        } catch ( IOException e ) {
+            mapped.close();
+            throw e;
+        } catch ( RuntimeException e ) {
+            mapped.close();
+            throw new IOException( "Invalid packed R-tree file " + file + ": " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * @return the number of indexed objects
+     */
+    public long size() {
+        return numItems;
+    }
+
+    /**
+     * @return the flag that has been stored along with the tree
+     */
+    public boolean getExtraFlag() {
+        return extraFlag;
+    }
+
+    @Override
+    public List<Long> query( float[] envelope ) {
+        final List<Long> result = new ArrayList<Long>();
+        query( envelope[0], envelope[1], envelope[2], envelope[3], new Visitor() {
+            @Override
+            public boolean visit( long value ) {
+                result.add( value );
+                return true;
+            }
+        } );
+        return result;
+    }
+
+    /**
+     * Returns all objects whose envelope intersects the given one.
+     * 
+     * @param minx
+     * @param miny
+     * @param maxx
+     * @param maxy
+     * @return intersecting objects, never <code>null</code>
+     */
+    public List<Long> query( double minx, double miny, double maxx, double maxy ) {
+        final List<Long> result = new ArrayList<Long>();
+        query( minx, miny, maxx, maxy, new Visitor() {
+            @Override
+            public boolean visit( long value ) {
+                result.add( value );
+                return true;
+            }
+        } );
+        return result;
+    }
+
+    /**
+     * Passes all objects whose envelope intersects the given one to the visitor. The traversal reads the mapped file
+     * directly and does not allocate any objects.
+     * 
+     * @param minx
+     * @param miny
+     * @param maxx
+     * @param maxy
+     * @param visitor
+     *            must not be <code>null</code>
+     */
+    public void query( double minx, double miny, double maxx, double maxy, Visitor visitor ) {
+        if ( numItems == 0 ) {
+            return;
+        }
+        int level = levelEnds.length - 1;
+        long root = levelEnds[level] - 1;
+        if ( intersects( root, minx, miny, maxx, maxy ) ) {
+            search( level, root, minx, miny, maxx, maxy, visitor );
+        }
+    }
+
+    private boolean search( int level, long node, double minx, double miny, double maxx, double maxy,
+                            Visitor visitor ) {
+        long firstChild = file.getLong( valuesOffset + 8 * node );
+        long end = Math.min( firstChild + nodeSize, levelEnds[level - 1] );
+        for ( long child = firstChild; child < end; child++ ) {
+            if ( !intersects( child, minx, miny, maxx, maxy ) ) {
+                continue;
+            }
+            if ( level == 1 ) {
+                if ( !visitor.visit( file.getLong( valuesOffset + 8 * child ) ) ) {
+                    return false;
+                }
+            } else if ( !search( level - 1, child, minx, miny, maxx, maxy, visitor ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean intersects( long node, double minx, double miny, double maxx, double maxy ) {
+        long pos = boxesOffset + BOX_SIZE * node;
+        return file.getDouble( pos ) <= maxx && minx <= file.getDouble( pos + 16 ) && file.getDouble( pos + 8 ) <= maxy
+               && miny <= file.getDouble( pos + 24 );
+    }
+
+    /**
+     * Not supported, packed trees are built using a {@link Builder}.
+     */
+    @Override
+    public void insertBulk( List<Pair<float[], Long>> listOfObjects ) {
+        throw new UnsupportedOperationException( "Packed R-trees are read-only, use a Builder." );
+    }
+
+    /**
+     * Not supported, packed trees are read-only.
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException( "Packed R-trees are read-only." );
+    }
+
+    /**
+     * Not supported, packed trees are read-only.
+     */
+    @Override
+    public boolean insert( float[] envelope, Long object ) {
+        throw new UnsupportedOperationException( "Packed R-trees are read-only, use a Builder." );
+    }
+
+    /**
+     * Not supported, packed trees are read-only.
+     */
+    @Override
+    public boolean remove( Long object ) {
+        throw new UnsupportedOperationException( "Packed R-trees are read-only." );
+    }
+
+    @Override
+    public void close()
+                            throws IOException {
+        file.close();
+    }
+
+    /**
+     * Callback for the objects found by {@link PackedRTree#query(double, double, double, double, Visitor)}.
+     */
+    public interface Visitor {
+
+        /**
+         * @param value
+         *            an object whose envelope intersects the query envelope
+         * @return true, if the traversal should continue, false to stop
+         */
+        boolean visit( long value );
+    }
+
+    /**
+     * Result of packing the objects of a {@link Builder}: envelopes and values of all nodes, leaf items first, root
+     * last. The value of an item is its object, the value of an inner node is the index of its first child.
+     */
+    static class Packed {
+
+        final int nodeSize;
+
+        final int[] levelEnds;
+
+        final double[] boxes;
+
+        final long[] values;
+
+        Packed( int nodeSize, int[] levelEnds, double[] boxes, long[] values ) {
+            this.nodeSize = nodeSize;
+            this.levelEnds = levelEnds;
+            this.boxes = boxes;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Collects objects and their envelopes and writes them as a {@link PackedRTree}. The items are kept in primitive
+     * arrays, so the builder needs 40 bytes per item (and twice as much while packing).
+     */
+    public static class Builder {
+
+        private final int nodeSize;
+
+        private double[] bounds;
+
+        private long[] values;
+
+        private int size;
+
+        /**
+         * Creates a builder with the {@link PackedRTree#DEFAULT_NODE_SIZE}.
+         */
+        public Builder() {
+            this( DEFAULT_NODE_SIZE );
+        }
+
+        /**
+         * @param nodeSize
+         *            maximum number of children per node, must be at least 2
+         */
+        public Builder( int nodeSize ) {
+            if ( nodeSize < 2 ) {
+                throw new IllegalArgumentException( "Node size must be at least 2." );
+            }
+            this.nodeSize = nodeSize;
+            bounds = new double[4 * 1024];
+            values = new long[1024];
+        }
+
+        /**
+         * Adds an object.
+         * 
+         * @param minx
+         * @param miny
+         * @param maxx
+         * @param maxy
+         * @param value
+         *            the object
+         */
+        public void add( double minx, double miny, double maxx, double maxy, long value ) {
+            if ( size == values.length ) {
+                int capacity = size + ( size >> 1 );
+                if ( capacity > MAX_ITEMS || capacity < 0 ) {
+                    capacity = MAX_ITEMS;
+                    if ( capacity == size ) {
+                        throw new IllegalStateException( "Too many objects for a packed R-tree." );
+                    }
+                }
+                bounds = Arrays.copyOf( bounds, 4 * capacity );
+                values = Arrays.copyOf( values, capacity );
+            }
+            int i = 4 * size;
+            bounds[i] = minx;
+            bounds[i + 1] = miny;
+            bounds[i + 2] = maxx;
+            bounds[i + 3] = maxy;
+            values[size++] = value;
+        }
+
+        /**
+         * Adds an object without envelope, it is returned by every query.
+         * 
+         * @param value
+         *            the object
+         */
+        public void addUnbounded( long value ) {
+            add( NEGATIVE_INFINITY, NEGATIVE_INFINITY, POSITIVE_INFINITY, POSITIVE_INFINITY, value );
+        }
+
+        /**
+         * @return the number of objects added so far
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Sorts the objects along the Hilbert curve, packs them into a tree and writes it to the given file.
+         * 
+         * @param file
+         *            target file, must not be <code>null</code>
+         * @param extraFlag
+         *            an application specific flag to store along with the tree (see
+         *            {@link PackedRTree#getExtraFlag()})
+         * @throws IOException
+         */
+        public void write( File file, boolean extraFlag )
+                                throws IOException {
+            Packed packed = pack();
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ),
+                                                                                   1 << 16 ) );
+            try {
+                out.writeLong( MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( nodeSize );
+                out.writeLong( size );
+                out.writeInt( extraFlag ? 1 : 0 );
+                out.writeInt( packed.levelEnds.length );
+                for ( int levelEnd : packed.levelEnds ) {
+                    out.writeLong( levelEnd );
+                }
+                for ( double d : packed.boxes ) {
+                    out.writeDouble( d );
+                }
+                for ( long value : packed.values ) {
+                    out.writeLong( value );
+                }
+            } finally {
+                out.close();
+            }
+        }
+
+        /**
+         * Sorts the objects along the Hilbert curve and packs them into a tree. Nodes are numbered level by level,
+         * starting with the items, so the root is the last node.
+         */
+        Packed pack() {
+            int[] order = hilbertOrder();
+
+            // number of nodes per level, there is always at least one level above the items
+            List<Integer> ends = new ArrayList<Integer>();
+            long levelSize = size;
+            long end = size;
+            ends.add( size );
+            do {
+                levelSize = Math.max( ( levelSize + nodeSize - 1 ) / nodeSize, 1 );
+                end += levelSize;
+                if ( 4 * end > Integer.MAX_VALUE ) {
+                    throw new IllegalStateException( "Too many objects for a packed R-tree." );
+                }
+                ends.add( (int) end );
+            } while ( levelSize > 1 );
+            int[] levelEnds = new int[ends.size()];
+            for ( int i = 0; i < levelEnds.length; i++ ) {
+                levelEnds[i] = ends.get( i );
+            }
+
+            int numNodes = (int) end;
+            double[] boxes = new double[4 * numNodes];
+            long[] nodeValues = new long[numNodes];
+            for ( int i = 0; i < size; i++ ) {
+                System.arraycopy( bounds, 4 * order[i], boxes, 4 * i, 4 );
+                nodeValues[i] = values[order[i]];
+            }
+            Arrays.fill( boxes, 4 * size, boxes.length, Double.NaN );
+            for ( int level = 1; level < levelEnds.length; level++ ) {
+                int childStart = level == 1 ? 0 : levelEnds[level - 2];
+                int start = levelEnds[level - 1];
+                for ( int child = childStart; child < start; child++ ) {
+                    int parent = start + ( child - childStart ) / nodeSize;
+                    if ( ( child - childStart ) % nodeSize == 0 ) {
+                        nodeValues[parent] = child;
+                    }
+                    merge( boxes, 4 * parent, boxes, 4 * child );
+                }
+            }
+            return new Packed( nodeSize, levelEnds, boxes, nodeValues );
+        }
+
+        private static void merge( double[] target, int targetIdx, double[] source, int sourceIdx ) {
+            if ( Double.isNaN( target[targetIdx] ) ) {
+                System.arraycopy( source, sourceIdx, target, targetIdx, 4 );
+                return;
+            }
+            target[targetIdx] = Math.min( target[targetIdx], source[sourceIdx] );
+            target[targetIdx + 1] = Math.min( target[targetIdx + 1], source[sourceIdx + 1] );
+            target[targetIdx + 2] = Math.max( target[targetIdx + 2], source[sourceIdx + 2] );
+            target[targetIdx + 3] = Math.max( target[targetIdx + 3], source[sourceIdx + 3] );
+        }
+
+        private int[] hilbertOrder() {
+            double minx = POSITIVE_INFINITY, miny = POSITIVE_INFINITY;
+            double maxx = NEGATIVE_INFINITY, maxy = NEGATIVE_INFINITY;
+            for ( int i = 0; i < size; i++ ) {
+                int idx = 4 * i;
+                if ( isBounded( idx ) ) {
+                    minx = Math.min( minx, bounds[idx] );
+                    miny = Math.min( miny, bounds[idx + 1] );
+                    maxx = Math.max( maxx, bounds[idx + 2] );
+                    maxy = Math.max( maxy, bounds[idx + 3] );
+                }
+            }
+            int max = ( 1 << HILBERT_BITS ) - 1;
+            double scaleX = maxx > minx ? max / ( maxx - minx ) : 0;
+            double scaleY = maxy > miny ? max / ( maxy - miny ) : 0;
+            long[] keys = new long[size];
+            for ( int i = 0; i < size; i++ ) {
+                int idx = 4 * i;
+                long h;
+                if ( isBounded( idx ) ) {
+                    int x = (int) ( ( ( bounds[idx] + bounds[idx + 2] ) / 2 - minx ) * scaleX );
+                    int y = (int) ( ( ( bounds[idx + 1] + bounds[idx + 3] ) / 2 - miny ) * scaleY );
+                    h = hilbert( x, y );
+                } else {
+                    // objects without envelope are kept together at the end
+                    h = 1L << ( 2 * HILBERT_BITS );
+                }
+                keys[i] = ( h << 32 ) | i;
+            }
+            Arrays.sort( keys );
+            int[] order = new int[size];
+            for ( int i = 0; i < size; i++ ) {
+                order[i] = (int) keys[i];
+            }
+            return order;
+        }
+
+        private boolean isBounded( int idx ) {
+            return !Double.isInfinite( bounds[idx] ) && !Double.isInfinite( bounds[idx + 2] )
+                   && !Double.isInfinite( bounds[idx + 1] ) && !Double.isInfinite( bounds[idx + 3] );
+        }
+
+        /**
+         * Computes the distance of the given grid cell along the Hilbert curve.
+         */
+        static long hilbert( int x, int y ) {
+            int max = ( 1 << HILBERT_BITS ) - 1;
+            long d = 0;
+            for ( int s = 1 << ( HILBERT_BITS - 1 ); s > 0; s >>= 1 ) {
+                int rx = ( x & s ) > 0 ? 1 : 0;
+                int ry = ( y & s ) > 0 ? 1 : 0;
+                d += (long) s * s * ( ( 3 * rx ) ^ ry );
+                // rotate the quadrant
+                if ( ry == 0 ) {
+                    if ( rx == 1 ) {
+                        x = max - x;
+                        y = max - y;
+                    }
+                    int t = x;
+                    x = y;
+                    y = t;
+                }
+            }
+            return d;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.commons.utils.Pair;
+
+/**
+ * Read-only, in-memory R-tree that is bulk loaded using Hilbert packing (see {@link PackedRTree}).
+ * <p>
+ * In contrast to {@link RTree}, the nodes are not represented by objects, but stored in flat primitive arrays (one
+ * <code>double[]</code> for the node envelopes, one <code>int[]</code> for the child/object references), so the tree
+ * needs about 40 bytes per object and queries do not allocate anything besides the result list. The tree can only be
+ * (re-)built as a whole using {@link #insertBulk(List)}, objects can not be inserted or removed individually.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @param <T>
+ *            type of the indexed objects
+ */
+public class StaticRTree<T> extends SpatialIndex<T> {
+
+    private final int nodeSize;
+
+    private int[] levelEnds;
+
+    private double[] boxes;
+
+    private int[] children;
+
+    private Object[] objects;
+
+    /**
+     * Creates an empty tree with the {@link PackedRTree#DEFAULT_NODE_SIZE}.
+     */
+    public StaticRTree() {
+        this( PackedRTree.DEFAULT_NODE_SIZE );
+    }
+
+    /**
+     * Creates an empty tree.
+     * 
+     * @param nodeSize
+     *            maximum number of children per node, must be at least 2
+     */
+    public StaticRTree( int nodeSize ) {
+        if ( nodeSize < 2 ) {
+            throw new IllegalArgumentException( "Node size must be at least 2." );
+        }
+        this.nodeSize = nodeSize;
+        clear();
+    }
+
+    /**
+     * Builds the tree from the given objects, replacing the current contents. Objects with a <code>null</code>
+     * envelope are returned by every query.
+     */
+    @Override
+    public void insertBulk( List<Pair<float[], T>> listOfObjects ) {
+        PackedRTree.Builder builder = new PackedRTree.Builder( nodeSize );
+        Object[] objects = new Object[listOfObjects.size()];
+        int i = 0;
+        for ( Pair<float[], T> p : listOfObjects ) {
+            float[] env = p.first;
+            if ( env == null ) {
+                builder.addUnbounded( i );
+            } else {
+                builder.add( env[0], env[1], env[2], env[3], i );
+            }
+            objects[i++] = p.second;
+        }
+        PackedRTree.Packed packed = builder.pack();
+        int[] children = new int[packed.values.length];
+        for ( int j = 0; j < children.length; j++ ) {
+            children[j] = (int) packed.values[j];
+        }
+        this.levelEnds = packed.levelEnds;
+        this.boxes = packed.boxes;
+        this.children = children;
+        this.objects = objects;
+    }
+
+    @Override
+    public List<T> query( float[] envelope ) {
+        return query( envelope[0], envelope[1], envelope[2], envelope[3] );
+    }
+
+    /**
+     * Returns all objects whose envelope intersects the given one.
+     * 
+     * @param minx
+     * @param miny
+     * @param maxx
+     * @param maxy
+     * @return intersecting objects, never <code>null</code>
+     */
+    public List<T> query( double minx, double miny, double maxx, double maxy ) {
+        List<T> result = new ArrayList<T>();
+        if ( objects.length == 0 ) {
+            return result;
+        }
+        int level = levelEnds.length - 1;
+        int root = levelEnds[level] - 1;
+        if ( intersects( root, minx, miny, maxx, maxy ) ) {
+            search( level, root, minx, miny, maxx, maxy, result );
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void search( int level, int node, double minx, double miny, double maxx, double maxy, List<T> result ) {
+        int firstChild = children[node];
+        int end = Math.min( firstChild + nodeSize, levelEnds[level - 1] );
+        for ( int child = firstChild; child < end; child++ ) {
+            if ( !intersects( child, minx, miny, maxx, maxy ) ) {
+                continue;
+            }
+            if ( level == 1 ) {
+                result.add( (T) objects[children[child]] );
+            } else {
+                search( level - 1, child, minx, miny, maxx, maxy, result );
+            }
+        }
+    }
+
+    private boolean intersects( int node, double minx, double miny, double maxx, double maxy ) {
+        int i = 4 * node;
+        return boxes[i] <= maxx && minx <= boxes[i + 2] && boxes[i + 1] <= maxy && miny <= boxes[i + 3];
+    }
+
+    /**
+     * @return the number of indexed objects
+     */
+    public int size() {
+        return objects.length;
+    }
+
+    @Override
+    public void clear() {
+        levelEnds = new int[] { 0 };
+        boxes = new double[0];
+        children = new int[0];
+        objects = new Object[0];
+    }
+
+    /**
+     * Not supported, the tree can only be built as a whole using {@link #insertBulk(List)}.
+     */
+    @Override
+    public boolean insert( float[] envelope, T object ) {
+        throw new UnsupportedOperationException( "Static R-trees can only be built using insertBulk()." );
+    }
+
+    /**
+     * Not supported, the tree can only be built as a whole using {@link #insertBulk(List)}.
+     */
+    @Override
+    public boolean remove( T object ) {
+        throw new UnsupportedOperationException( "Static R-trees can only be built using insertBulk()." );
+    }
+
+}
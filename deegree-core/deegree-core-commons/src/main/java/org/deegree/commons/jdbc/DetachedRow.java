@@ -0,0 +1,246 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+/**
+ * In-memory copy of a single {@link ResultSet} row that can still be accessed through the {@link ResultSet} interface.
+ * <p>
+ * This allows to keep rows around after the cursor of the originating {@link ResultSet} has been moved on (or the
+ * {@link ResultSet} has been closed), so code that reads values using the <code>getXXX</code> methods (e.g. particle
+ * converters) can be used unchanged. The values of the row are captured using {@link ResultSet#getObject(int)}, the
+ * typed accessors perform simple conversions on these values. Only the value accessors (by column index or label),
+ * {@link ResultSet#wasNull()}, {@link ResultSet#findColumn(String)} and {@link ResultSet#close()} are supported.
+ * </p>
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class DetachedRow implements InvocationHandler {
+
+    private final String[] columnLabels;
+
+    private final Object[] values;
+
+    private boolean wasNull;
+
+    private DetachedRow( String[] columnLabels, Object[] values ) {
+        this.columnLabels = columnLabels;
+        this.values = values;
+    }
+
+    /**
+     * Returns the column labels of the given {@link ResultSet}.
+     *
+     * @param rs
+     *            result set, must not be <code>null</code>
+     * @return column labels, index <code>0</code> corresponds to column <code>1</code>, never <code>null</code>
+     * @throws SQLException
+     */
+    public static String[] getColumnLabels( ResultSet rs )
+                            throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        String[] labels = new String[md.getColumnCount()];
+        for ( int i = 0; i < labels.length; i++ ) {
+            labels[i] = md.getColumnLabel( i + 1 );
+        }
+        return labels;
+    }
+
+    /**
+     * Copies the current row of the given {@link ResultSet}.
+     *
+     * @param rs
+     *            result set positioned on a row, must not be <code>null</code>
+     * @param columnLabels
+     *            column labels of the result set (see {@link #getColumnLabels(ResultSet)}), must not be
+     *            <code>null</code>
+     * @return detached copy of the current row, never <code>null</code>
+     * @throws SQLException
+     */
+    public static ResultSet copyCurrentRow( ResultSet rs, String[] columnLabels )
+                            throws SQLException {
+        Object[] values = new Object[columnLabels.length];
+        for ( int i = 0; i < values.length; i++ ) {
+            values[i] = rs.getObject( i + 1 );
+        }
+        DetachedRow handler = new DetachedRow( columnLabels, values );
+        return (ResultSet) Proxy.newProxyInstance( DetachedRow.class.getClassLoader(),
+                                                   new Class<?>[] { ResultSet.class }, handler );
+    }
+
+    @Override
+    public Object invoke( Object proxy, Method method, Object[] args )
+                            throws Throwable {
+        String name = method.getName();
+        if ( method.getDeclaringClass() == Object.class ) {
+            if ( "equals".equals( name ) ) {
+                return proxy == args[0];
+            } else if ( "hashCode".equals( name ) ) {
+                return System.identityHashCode( proxy );
+            }
+            return "DetachedRow" + Arrays.toString( values );
+        }
+        if ( "close".equals( name ) ) {
+            return null;
+        } else if ( "isClosed".equals( name ) ) {
+            return false;
+        } else if ( "wasNull".equals( name ) ) {
+            return wasNull;
+        } else if ( "findColumn".equals( name ) ) {
+            return findColumn( (String) args[0] );
+        } else if ( "getStatement".equals( name ) ) {
+            return null;
+        } else if ( name.startsWith( "get" ) && args != null && args.length == 1 ) {
+            int colIdx = args[0] instanceof String ? findColumn( (String) args[0] ) : (Integer) args[0];
+            return convert( getValue( colIdx ), method.getReturnType(), name );
+        }
+        throw new SQLFeatureNotSupportedException( "Method '" + name + "' is not supported by detached rows." );
+    }
+
+    private int findColumn( String label )
+                            throws SQLException {
+        for ( int i = 0; i < columnLabels.length; i++ ) {
+            if ( columnLabels[i] != null && columnLabels[i].equalsIgnoreCase( label ) ) {
+                return i + 1;
+            }
+        }
+        throw new SQLException( "No column with label '" + label + "'." );
+    }
+
+    private Object getValue( int colIdx )
+                            throws SQLException {
+        if ( colIdx < 1 || colIdx > values.length ) {
+            throw new SQLException( "Invalid column index: " + colIdx );
+        }
+        Object value = values[colIdx - 1];
+        wasNull = value == null;
+        return value;
+    }
+
+    private Object convert( Object value, Class<?> type, String methodName )
+                            throws SQLException {
+        if ( type == Object.class ) {
+            return value;
+        }
+        if ( type.isPrimitive() ) {
+            return convertToPrimitive( value, type );
+        }
+        if ( value == null ) {
+            return null;
+        }
+        if ( type.isInstance( value ) ) {
+            return value;
+        }
+        if ( type == String.class ) {
+            return value.toString();
+        }
+        if ( type == BigDecimal.class && value instanceof Number ) {
+            return new BigDecimal( value.toString() );
+        }
+        if ( type == InputStream.class && value instanceof byte[] ) {
+            return new ByteArrayInputStream( (byte[]) value );
+        }
+        if ( value instanceof java.util.Date ) {
+            long time = ( (java.util.Date) value ).getTime();
+            if ( type == Timestamp.class ) {
+                return new Timestamp( time );
+            } else if ( type == Date.class ) {
+                return new Date( time );
+            } else if ( type == Time.class ) {
+                return new Time( time );
+            }
+        }
+        throw new SQLException( "Cannot convert value of type " + value.getClass().getName() + " using '"
+                                + methodName + "'." );
+    }
+
+    private Object convertToPrimitive( Object value, Class<?> type )
+                            throws SQLException {
+        if ( type == boolean.class ) {
+            if ( value == null ) {
+                return false;
+            }
+            if ( value instanceof Boolean ) {
+                return value;
+            }
+            if ( value instanceof Number ) {
+                return ( (Number) value ).intValue() != 0;
+            }
+            return Boolean.parseBoolean( value.toString() );
+        }
+        Number n;
+        if ( value == null ) {
+            n = 0;
+        } else if ( value instanceof Number ) {
+            n = (Number) value;
+        } else {
+            try {
+                n = new BigDecimal( value.toString().trim() );
+            } catch ( NumberFormatException e ) {
+                throw new SQLException( "Cannot convert '" + value + "' to a number." );
+            }
+        }
+        if ( type == int.class ) {
+            return n.intValue();
+        } else if ( type == long.class ) {
+            return n.longValue();
+        } else if ( type == double.class ) {
+            return n.doubleValue();
+        } else if ( type == float.class ) {
+            return n.floatValue();
+        } else if ( type == short.class ) {
+            return n.shortValue();
+        } else if ( type == byte.class ) {
+            return n.byteValue();
+        }
+        throw new SQLException( "Unsupported primitive type: " + type );
+    }
+}
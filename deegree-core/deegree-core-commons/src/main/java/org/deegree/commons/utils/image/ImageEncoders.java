@@ -0,0 +1,110 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Drop-in replacement for {@link ImageIO#write(java.awt.image.RenderedImage, String, OutputStream)} that uses
+ * {@link PngEncoder} and {@link JpegEncoder} with default settings for PNG and JPEG.
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class ImageEncoders {
+
+    private static final PngEncoder PNG = new PngEncoder();
+
+    private static final JpegEncoder JPEG = new JpegEncoder();
+
+    private ImageEncoders() {
+        // avoid instantiation
+    }
+
+    /**
+     * @return the shared PNG encoder with default settings, never <code>null</code>
+     */
+    public static PngEncoder getPngEncoder() {
+        return PNG;
+    }
+
+    /**
+     * @return the shared JPEG encoder with default settings, never <code>null</code>
+     */
+    public static JpegEncoder getJpegEncoder() {
+        return JPEG;
+    }
+
+    /**
+     * Releases the threads, buffers and writers held by the encoders, see {@link PngEncoder#shutdown()}. Meant to be
+     * called when the application is shut down or undeployed.
+     */
+    public static void shutdown() {
+        PngEncoder.shutdown();
+        JPEG.dispose();
+    }
+
+    /**
+     * Writes the image in the given format. The output stream is not closed.
+     *
+     * @param img
+     *            image to encode, must not be <code>null</code>
+     * @param formatName
+     *            informal format name as used by ImageIO, e.g. 'png' or 'jpeg', must not be <code>null</code>
+     * @param out
+     *            stream to write to, must not be <code>null</code>
+     * @return <code>false</code>, if no encoder for the format is available
+     * @throws IOException
+     */
+    public static boolean write( BufferedImage img, String formatName, OutputStream out )
+                            throws IOException {
+        String format = formatName.toLowerCase();
+        if ( format.equals( "png" ) ) {
+            PNG.encode( img, out );
+            return true;
+        }
+        if ( format.equals( "jpeg" ) || format.equals( "jpg" ) ) {
+            JPEG.encode( img, out );
+            return true;
+        }
+        return ImageIO.write( img, formatName, out );
+    }
+
+}
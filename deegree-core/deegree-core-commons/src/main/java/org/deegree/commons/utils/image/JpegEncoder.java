@@ -0,0 +1,159 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static javax.imageio.ImageWriteParam.MODE_EXPLICIT;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Encodes {@link BufferedImage}s as JPEG using the ImageIO JPEG writer.
+ * <p>
+ * In contrast to <code>ImageIO.write</code>, the quality can be configured, the (not thread safe) writers are pooled
+ * and reused, and output is always cached in memory instead of in a temporary file. Images with alpha are drawn onto
+ * a white background first, as JPEG does not support transparency.
+ * </p>
+ * <p>
+ * Instances may be shared between threads.
+ * </p>
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class JpegEncoder {
+
+    /** Default quality, same as the ImageIO default. */
+    public static final float DEFAULT_QUALITY = 0.75f;
+
+    private final Queue<ImageWriter> writers = new ConcurrentLinkedQueue<ImageWriter>();
+
+    private final float quality;
+
+    /**
+     * Creates an encoder with quality {@value #DEFAULT_QUALITY}.
+     */
+    public JpegEncoder() {
+        this( DEFAULT_QUALITY );
+    }
+
+    /**
+     * @param quality
+     *            compression quality, between <code>0</code> (smallest) and <code>1</code> (best)
+     */
+    public JpegEncoder( float quality ) {
+        if ( quality < 0 || quality > 1 ) {
+            throw new IllegalArgumentException( "Quality must be between 0 and 1, but was " + quality );
+        }
+        this.quality = quality;
+    }
+
+    /**
+     * Writes the given image as JPEG. The output stream is not closed.
+     *
+     * @param img
+     *            image to encode, must not be <code>null</code>
+     * @param out
+     *            stream to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    public void encode( BufferedImage img, OutputStream out )
+                            throws IOException {
+        if ( img.getColorModel().hasAlpha() ) {
+            img = dropAlpha( img );
+        }
+        ImageWriter writer = writers.poll();
+        if ( writer == null ) {
+            Iterator<ImageWriter> it = ImageIO.getImageWritersByFormatName( "jpeg" );
+            if ( !it.hasNext() ) {
+                throw new IOException( "No ImageIO writer for JPEG available." );
+            }
+            writer = it.next();
+        }
+        boolean reusable = false;
+        ImageOutputStream ios = new MemoryCacheImageOutputStream( out );
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode( MODE_EXPLICIT );
+            param.setCompressionQuality( quality );
+            writer.setOutput( ios );
+            writer.write( null, new IIOImage( img, null, null ), param );
+            // does not close the underlying stream
+            ios.close();
+            reusable = true;
+        } finally {
+            if ( reusable ) {
+                writer.reset();
+                writers.offer( writer );
+            } else {
+                writer.dispose();
+            }
+        }
+    }
+
+    /**
+     * Disposes the pooled writers. The encoder may still be used afterwards.
+     */
+    public void dispose() {
+        ImageWriter writer;
+        while ( ( writer = writers.poll() ) != null ) {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage dropAlpha( BufferedImage img ) {
+        BufferedImage rgb = new BufferedImage( img.getWidth(), img.getHeight(), TYPE_INT_RGB );
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage( img, 0, 0, Color.WHITE, null );
+        g.dispose();
+        return rgb;
+    }
+
+}
@@ -0,0 +1,994 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes {@link BufferedImage}s as PNG.
+ * <p>
+ * In contrast to the ImageIO PNG writer, the deflate level and the scanline filter can be configured, images with at
+ * most 256 distinct colours are written as palette images (losslessly, no quantization is involved) and large images
+ * are deflated in horizontal stripes in parallel. Every stripe is primed with the preceding 32 KiB of scanline data,
+ * so the stripes form a single regular zlib stream that compresses nearly as well as a sequential one. Working
+ * buffers and deflaters are reused through a small pool, {@link #shutdown()} releases them and stops the deflate
+ * threads.
+ * </p>
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ * </p>
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class PngEncoder {
+
+    /**
+     * Scanline filters, see the PNG specification. <code>ADAPTIVE</code> picks the filter with the smallest sum of
+     * absolute differences for every row.
+     */
+    public enum Filter {
+        NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE
+    }
+
+    /** Default deflate level, trades a little compression for considerably faster encoding. */
+    public static final int DEFAULT_DEFLATE_LEVEL = 4;
+
+    /** Default number of rows per stripe when deflating in parallel. */
+    public static final int DEFAULT_STRIPE_HEIGHT = 128;
+
+    /** Images with fewer pixels are always deflated sequentially. */
+    static final int PARALLEL_MIN_PIXELS = 512 * 512;
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    private static final int WINDOW_SIZE = 32768;
+
+    private static final int CHUNK_SIZE = 16384;
+
+    // larger buffers are allocated per call and not pooled
+    private static final int MAX_POOLED_INDICES = 256 * 256;
+
+    private static final int MAX_POOLED_ROW = 4 * 1024 * 4 + 1;
+
+    private static final int MAX_COLORS = 256;
+
+    private static final int HASH_BITS = 10;
+
+    private static final int HASH_SIZE = 1 << HASH_BITS;
+
+    private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+
+    private static final int IHDR = 0x49484452;
+
+    private static final int PLTE = 0x504C5445;
+
+    private static final int TRNS = 0x74524E53;
+
+    private static final int IDAT = 0x49444154;
+
+    private static final int IEND = 0x49454E44;
+
+    private static final int COLOR_TYPE_RGB = 2;
+
+    private static final int COLOR_TYPE_PALETTE = 3;
+
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    private static final BlockingQueue<Buffers> POOL = new ArrayBlockingQueue<Buffers>( CPUS );
+
+    private static ThreadPoolExecutor stripeExecutor;
+
+    private final int deflateLevel;
+
+    private final Filter filter;
+
+    private final boolean palette;
+
+    private final boolean parallel;
+
+    private final int stripeHeight;
+
+    /**
+     * Creates an encoder with the default settings: deflate level {@value #DEFAULT_DEFLATE_LEVEL}, adaptive
+     * filtering, palette output for images with few colours and parallel deflate of large images.
+     */
+    public PngEncoder() {
+        this( DEFAULT_DEFLATE_LEVEL, Filter.ADAPTIVE, true, true, DEFAULT_STRIPE_HEIGHT );
+    }
+
+    /**
+     * @param deflateLevel
+     *            deflate level, between <code>0</code> (no compression) and <code>9</code> (best compression)
+     * @param filter
+     *            scanline filter used for truecolour images, must not be <code>null</code> (palette images are
+     *            never filtered, as recommended by the PNG specification)
+     * @param palette
+     *            <code>true</code>, if images with at most 256 colours should be written as palette images
+     * @param parallel
+     *            <code>true</code>, if large images should be deflated in parallel
+     * @param stripeHeight
+     *            number of rows per stripe when deflating in parallel, must be positive
+     */
+    public PngEncoder( int deflateLevel, Filter filter, boolean palette, boolean parallel, int stripeHeight ) {
+        if ( deflateLevel < 0 || deflateLevel > 9 ) {
+            throw new IllegalArgumentException( "Deflate level must be between 0 and 9, but was " + deflateLevel );
+        }
+        if ( filter == null ) {
+            throw new IllegalArgumentException( "Filter must not be null." );
+        }
+        if ( stripeHeight < 1 ) {
+            throw new IllegalArgumentException( "Stripe height must be positive, but was " + stripeHeight );
+        }
+        this.deflateLevel = deflateLevel;
+        this.filter = filter;
+        this.palette = palette;
+        this.parallel = parallel;
+        this.stripeHeight = stripeHeight;
+    }
+
+    /**
+     * Writes the given image as PNG. The output stream is not closed.
+     *
+     * @param img
+     *            image to encode, must not be <code>null</code>
+     * @param out
+     *            stream to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    public void encode( BufferedImage img, OutputStream out )
+                            throws IOException {
+        Pixels pixels = new Pixels( img );
+        Buffers buffers = acquireBuffers();
+        try {
+            Palette pal = palette ? Palette.collect( pixels, buffers ) : null;
+            write( pixels, pal, out, buffers );
+        } finally {
+            releaseBuffers( buffers );
+        }
+    }
+
+    /**
+     * Writes the given image as palette PNG, if it has at most 256 distinct colours. The output stream is not closed.
+     *
+     * @param img
+     *            image to encode, must not be <code>null</code>
+     * @param out
+     *            stream to write to, must not be <code>null</code>
+     * @return <code>true</code>, if the image has been written, <code>false</code> if it has too many colours (nothing
+     *         has been written in this case)
+     * @throws IOException
+     */
+    public boolean encodeIndexed( BufferedImage img, OutputStream out )
+                            throws IOException {
+        Pixels pixels = new Pixels( img );
+        Buffers buffers = acquireBuffers();
+        try {
+            Palette pal = Palette.collect( pixels, buffers );
+            if ( pal == null ) {
+                return false;
+            }
+            write( pixels, pal, out, buffers );
+            return true;
+        } finally {
+            releaseBuffers( buffers );
+        }
+    }
+
+    /**
+     * Stops the threads used for parallel deflate and releases the pooled buffers and deflaters. Encoders may still be
+     * used afterwards (the threads are started again on demand), this is meant to be called when the application is
+     * shut down or undeployed.
+     */
+    public static void shutdown() {
+        synchronized ( PngEncoder.class ) {
+            if ( stripeExecutor != null ) {
+                stripeExecutor.shutdownNow();
+                stripeExecutor = null;
+            }
+        }
+        Buffers buffers;
+        while ( ( buffers = POOL.poll() ) != null ) {
+            buffers.end();
+        }
+    }
+
+    private static Buffers acquireBuffers() {
+        Buffers buffers = POOL.poll();
+        return buffers != null ? buffers : new Buffers();
+    }
+
+    private static void releaseBuffers( Buffers buffers ) {
+        buffers.trim();
+        if ( !POOL.offer( buffers ) ) {
+            buffers.end();
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getStripeExecutor() {
+        if ( stripeExecutor == null ) {
+            // idle threads terminate, so the pool does not outlive bursts of large images
+            stripeExecutor = new ThreadPoolExecutor( CPUS, CPUS, 60, TimeUnit.SECONDS,
+                                                     new LinkedBlockingQueue<Runnable>(), new StripeThreads() );
+            stripeExecutor.allowCoreThreadTimeOut( true );
+        }
+        return stripeExecutor;
+    }
+
+    private void write( Pixels pixels, Palette pal, OutputStream out, Buffers buffers )
+                            throws IOException {
+        CRC32 crc = buffers.crc;
+        Scanlines lines;
+        int colorType;
+        if ( pal != null ) {
+            lines = new IndexedScanlines( pixels.width, pixels.height, pal.indices );
+            colorType = COLOR_TYPE_PALETTE;
+        } else {
+            lines = new TruecolorScanlines( pixels );
+            colorType = pixels.alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB;
+        }
+
+        out.write( SIGNATURE );
+        byte[] header = new byte[13];
+        putInt( header, 0, pixels.width );
+        putInt( header, 4, pixels.height );
+        header[8] = 8;
+        header[9] = (byte) colorType;
+        writeChunk( out, IHDR, header, header.length, crc );
+        if ( pal != null ) {
+            pal.write( out, crc );
+        }
+
+        IdatOutputStream idat = new IdatOutputStream( out, buffers.chunk, crc );
+        idat.write( 0x78 );
+        idat.write( zlibFlags( deflateLevel ) );
+        long adler = deflate( lines, pal != null ? Filter.NONE : filter, idat, buffers );
+        byte[] checksum = new byte[4];
+        putInt( checksum, 0, (int) adler );
+        idat.write( checksum );
+        idat.finish();
+
+        writeChunk( out, IEND, header, 0, crc );
+    }
+
+    private long deflate( final Scanlines lines, final Filter rowFilter, OutputStream idat, Buffers buffers )
+                            throws IOException {
+        int height = lines.height;
+        int stripes = 1;
+        if ( parallel && CPUS > 1 && (long) lines.width * height >= PARALLEL_MIN_PIXELS ) {
+            stripes = ( height + stripeHeight - 1 ) / stripeHeight;
+        }
+        if ( stripes < 2 ) {
+            return deflateStripe( lines, rowFilter, 0, height, idat, buffers );
+        }
+
+        ThreadPoolExecutor executor = getStripeExecutor();
+        List<FutureTask<Stripe>> tasks = new ArrayList<FutureTask<Stripe>>( stripes );
+        for ( int i = 0; i < stripes; i++ ) {
+            final int from = i * stripeHeight;
+            final int to = Math.min( height, from + stripeHeight );
+            FutureTask<Stripe> task = new FutureTask<Stripe>( new Callable<Stripe>() {
+                @Override
+                public Stripe call()
+                                        throws IOException {
+                    ByteArrayOutputStream data = new ByteArrayOutputStream( ( to - from ) * lines.stride / 4 + 64 );
+                    Buffers stripeBuffers = acquireBuffers();
+                    try {
+                        long adler = deflateStripe( lines, rowFilter, from, to, data, stripeBuffers );
+                        return new Stripe( data, adler, (long) ( to - from ) * ( lines.stride + 1 ) );
+                    } finally {
+                        releaseBuffers( stripeBuffers );
+                    }
+                }
+            } );
+            tasks.add( task );
+            if ( i > 0 ) {
+                try {
+                    executor.execute( task );
+                } catch ( RejectedExecutionException e ) {
+                    // shut down concurrently, the stripe is deflated by this thread below
+                }
+            }
+        }
+
+        long adler = 1;
+        try {
+            for ( FutureTask<Stripe> task : tasks ) {
+                // deflates the stripe in this thread, unless a pool thread has already picked it up
+                task.run();
+                Stripe stripe = get( task );
+                stripe.data.writeTo( idat );
+                adler = combineAdler32( adler, stripe.adler, stripe.length );
+            }
+        } finally {
+            for ( FutureTask<Stripe> task : tasks ) {
+                task.cancel( false );
+            }
+        }
+        return adler;
+    }
+
+    private long deflateStripe( Scanlines lines, Filter rowFilter, int from, int to, OutputStream sink,
+                                Buffers buffers )
+                            throws IOException {
+        int rowLength = lines.stride + 1;
+        byte[][] rows = buffers.rows( rowLength );
+        byte[] prev = rows[0];
+        byte[] cur = rows[1];
+        Arrays.fill( prev, 0, rowLength, (byte) 0 );
+
+        Deflater deflater = buffers.deflater( deflateLevel );
+        byte[] out = buffers.deflated;
+        Adler32 adler = buffers.adler;
+        adler.reset();
+
+        if ( from > 0 ) {
+            // prime the deflater with the (deterministically) filtered rows of the preceding stripe
+            int dictRows = Math.min( from, ( WINDOW_SIZE + rowLength - 1 ) / rowLength );
+            int first = from - dictRows;
+            if ( first > 0 ) {
+                lines.read( first - 1, prev, buffers );
+            }
+            byte[] dict = buffers.dictionary( dictRows * rowLength );
+            for ( int y = first; y < from; y++ ) {
+                lines.read( y, cur, buffers );
+                byte[] filtered = filter( rowFilter, cur, prev, rowLength, lines.bpp, buffers );
+                System.arraycopy( filtered, 0, dict, ( y - first ) * rowLength, rowLength );
+                byte[] tmp = prev;
+                prev = cur;
+                cur = tmp;
+            }
+            int length = Math.min( WINDOW_SIZE, dictRows * rowLength );
+            deflater.setDictionary( dict, dictRows * rowLength - length, length );
+        }
+
+        for ( int y = from; y < to; y++ ) {
+            lines.read( y, cur, buffers );
+            byte[] filtered = filter( rowFilter, cur, prev, rowLength, lines.bpp, buffers );
+            adler.update( filtered, 0, rowLength );
+            deflater.setInput( filtered, 0, rowLength );
+            while ( !deflater.needsInput() ) {
+                sink.write( out, 0, deflater.deflate( out, 0, out.length ) );
+            }
+            byte[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+
+        if ( to == lines.height ) {
+            deflater.finish();
+            while ( !deflater.finished() ) {
+                sink.write( out, 0, deflater.deflate( out, 0, out.length ) );
+            }
+        } else {
+            // end on a byte boundary without marking the last block, so the next stripe can be appended
+            int n;
+            do {
+                n = deflater.deflate( out, 0, out.length, Deflater.SYNC_FLUSH );
+                sink.write( out, 0, n );
+            } while ( n == out.length );
+        }
+        return adler.getValue();
+    }
+
+    private static byte[] filter( Filter filter, byte[] cur, byte[] prev, int length, int bpp, Buffers buffers ) {
+        switch ( filter ) {
+        case NONE:
+            cur[0] = 0;
+            return cur;
+        case ADAPTIVE:
+            byte[][] candidates = buffers.candidates( length );
+            int best = 0;
+            int bestSum = Integer.MAX_VALUE;
+            for ( int type = 0; type < 5; type++ ) {
+                int sum = applyFilter( type, cur, prev, length, bpp, candidates[type] );
+                if ( sum < bestSum ) {
+                    best = type;
+                    bestSum = sum;
+                }
+            }
+            return candidates[best];
+        default:
+            byte[] filtered = buffers.candidates( length )[0];
+            applyFilter( filter.ordinal(), cur, prev, length, bpp, filtered );
+            return filtered;
+        }
+    }
+
+    /**
+     * Filters a scanline (the data starts at index <code>1</code>, index <code>0</code> receives the filter type).
+     *
+     * @return sum of the absolute values of the filtered bytes (interpreted as signed)
+     */
+    static int applyFilter( int type, byte[] cur, byte[] prev, int length, int bpp, byte[] dst ) {
+        dst[0] = (byte) type;
+        int sum = 0;
+        for ( int i = 1; i < length; i++ ) {
+            int x = cur[i] & 0xff;
+            int a = i > bpp ? cur[i - bpp] & 0xff : 0;
+            int b = prev[i] & 0xff;
+            int v;
+            switch ( type ) {
+            case 1:
+                v = x - a;
+                break;
+            case 2:
+                v = x - b;
+                break;
+            case 3:
+                v = x - ( ( a + b ) >>> 1 );
+                break;
+            case 4:
+                v = x - paeth( a, b, i > bpp ? prev[i - bpp] & 0xff : 0 );
+                break;
+            default:
+                v = x;
+            }
+            byte f = (byte) v;
+            dst[i] = f;
+            sum += f < 0 ? -f : f;
+        }
+        return sum;
+    }
+
+    private static int paeth( int a, int b, int c ) {
+        int p = a + b - c;
+        int pa = Math.abs( p - a );
+        int pb = Math.abs( p - b );
+        int pc = Math.abs( p - c );
+        if ( pa <= pb && pa <= pc ) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Computes the Adler-32 checksum of two concatenated byte sequences from their individual checksums (see
+     * <code>adler32_combine</code> in zlib).
+     */
+    static long combineAdler32( long adler1, long adler2, long length2 ) {
+        final long base = 65521;
+        long rem = length2 % base;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = ( rem * sum1 ) % base;
+        sum1 += ( adler2 & 0xffff ) + base - 1;
+        sum2 += ( ( adler1 >> 16 ) & 0xffff ) + ( ( adler2 >> 16 ) & 0xffff ) + base - rem;
+        if ( sum1 >= base ) {
+            sum1 -= base;
+        }
+        if ( sum1 >= base ) {
+            sum1 -= base;
+        }
+        if ( sum2 >= ( base << 1 ) ) {
+            sum2 -= ( base << 1 );
+        }
+        if ( sum2 >= base ) {
+            sum2 -= base;
+        }
+        return sum1 | ( sum2 << 16 );
+    }
+
+    private static int zlibFlags( int level ) {
+        // FLEVEL hint, chosen so that the header is a multiple of 31
+        if ( level < 2 ) {
+            return 0x01;
+        } else if ( level < 6 ) {
+            return 0x5e;
+        } else if ( level == 6 ) {
+            return 0x9c;
+        }
+        return 0xda;
+    }
+
+    private static Stripe get( FutureTask<Stripe> task )
+                            throws IOException {
+        try {
+            return task.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for PNG stripe." );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            } else if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            } else if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new IOException( cause );
+        }
+    }
+
+    private static void putInt( byte[] b, int off, int v ) {
+        b[off] = (byte) ( v >>> 24 );
+        b[off + 1] = (byte) ( v >>> 16 );
+        b[off + 2] = (byte) ( v >>> 8 );
+        b[off + 3] = (byte) v;
+    }
+
+    private static void writeChunk( OutputStream out, int type, byte[] data, int length, CRC32 crc )
+                            throws IOException {
+        byte[] head = new byte[8];
+        putInt( head, 0, length );
+        putInt( head, 4, type );
+        crc.reset();
+        crc.update( head, 4, 4 );
+        crc.update( data, 0, length );
+        out.write( head );
+        out.write( data, 0, length );
+        putInt( head, 0, (int) crc.getValue() );
+        out.write( head, 0, 4 );
+    }
+
+    /**
+     * Pixel access, reads the backing array directly for the common integer RGB(A) images.
+     */
+    private static class Pixels {
+
+        final BufferedImage img;
+
+        final int width;
+
+        final int height;
+
+        final boolean alpha;
+
+        private final int[] data;
+
+        private final int offset;
+
+        private final int scanlineStride;
+
+        Pixels( BufferedImage img ) {
+            this.img = img;
+            this.width = img.getWidth();
+            this.height = img.getHeight();
+            this.alpha = img.getColorModel().hasAlpha();
+            int type = img.getType();
+            WritableRaster raster = img.getRaster();
+            DataBuffer buffer = raster.getDataBuffer();
+            if ( ( type == TYPE_INT_ARGB || type == TYPE_INT_RGB ) && buffer instanceof DataBufferInt
+                 && buffer.getNumBanks() == 1 && raster.getSampleModel() instanceof SinglePixelPackedSampleModel ) {
+                SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                this.data = ( (DataBufferInt) buffer ).getData();
+                this.scanlineStride = sm.getScanlineStride();
+                this.offset = buffer.getOffset() - raster.getSampleModelTranslateY() * scanlineStride
+                              - raster.getSampleModelTranslateX();
+            } else {
+                this.data = null;
+                this.scanlineStride = 0;
+                this.offset = 0;
+            }
+        }
+
+        /**
+         * Reads a row as non-premultiplied ARGB values (alpha is always 255 for images without alpha).
+         */
+        void row( int y, int[] dst ) {
+            if ( data == null ) {
+                img.getRGB( 0, y, width, 1, dst, 0, width );
+                return;
+            }
+            System.arraycopy( data, offset + y * scanlineStride, dst, 0, width );
+            if ( !alpha ) {
+                for ( int i = 0; i < width; i++ ) {
+                    dst[i] |= 0xff000000;
+                }
+            }
+        }
+    }
+
+    /**
+     * The distinct colours of an image and the palette index of every pixel.
+     */
+    private static class Palette {
+
+        final int[] colors;
+
+        final int size;
+
+        final byte[] indices;
+
+        private Palette( int[] colors, int size, byte[] indices ) {
+            this.colors = colors;
+            this.size = size;
+            this.indices = indices;
+        }
+
+        /**
+         * @return the palette, or <code>null</code> if the image has more than 256 colours
+         */
+        static Palette collect( Pixels pixels, Buffers buffers ) {
+            long count = (long) pixels.width * pixels.height;
+            if ( count > Integer.MAX_VALUE ) {
+                return null;
+            }
+            byte[] indices = buffers.indices( (int) count );
+            int[] keys = buffers.keys;
+            int[] slots = buffers.slots;
+            Arrays.fill( slots, -1 );
+            int[] colors = new int[MAX_COLORS];
+            int size = 0;
+            int[] row = buffers.pixels( pixels.width );
+            int pos = 0;
+            for ( int y = 0; y < pixels.height; y++ ) {
+                pixels.row( y, row );
+                int last = 0;
+                int index = -1;
+                for ( int x = 0; x < pixels.width; x++ ) {
+                    int c = row[x];
+                    if ( index < 0 || c != last ) {
+                        last = c;
+                        if ( ( c >>> 24 ) == 0 ) {
+                            // all fully transparent pixels share one entry
+                            c = 0;
+                        }
+                        int h = ( c * 0x9E3779B9 ) >>> ( 32 - HASH_BITS );
+                        while ( slots[h] >= 0 && keys[h] != c ) {
+                            h = ( h + 1 ) & ( HASH_SIZE - 1 );
+                        }
+                        if ( slots[h] < 0 ) {
+                            if ( size == MAX_COLORS ) {
+                                return null;
+                            }
+                            keys[h] = c;
+                            slots[h] = size;
+                            colors[size++] = c;
+                        }
+                        index = slots[h];
+                    }
+                    indices[pos++] = (byte) index;
+                }
+            }
+            return new Palette( colors, size, indices );
+        }
+
+        void write( OutputStream out, CRC32 crc )
+                                throws IOException {
+            byte[] plte = new byte[size * 3];
+            int transparent = 0;
+            for ( int i = 0; i < size; i++ ) {
+                int c = colors[i];
+                plte[i * 3] = (byte) ( c >>> 16 );
+                plte[i * 3 + 1] = (byte) ( c >>> 8 );
+                plte[i * 3 + 2] = (byte) c;
+                if ( ( c >>> 24 ) != 0xff ) {
+                    transparent = i + 1;
+                }
+            }
+            writeChunk( out, PLTE, plte, plte.length, crc );
+            if ( transparent > 0 ) {
+                byte[] trns = new byte[transparent];
+                for ( int i = 0; i < transparent; i++ ) {
+                    trns[i] = (byte) ( colors[i] >>> 24 );
+                }
+                writeChunk( out, TRNS, trns, trns.length, crc );
+            }
+        }
+    }
+
+    private abstract static class Scanlines {
+
+        final int width;
+
+        final int height;
+
+        final int bpp;
+
+        final int stride;
+
+        Scanlines( int width, int height, int bpp ) {
+            this.width = width;
+            this.height = height;
+            this.bpp = bpp;
+            this.stride = width * bpp;
+        }
+
+        /**
+         * Reads the unfiltered bytes of a row into <code>dst</code>, starting at index <code>1</code>.
+         */
+        abstract void read( int y, byte[] dst, Buffers buffers );
+    }
+
+    private static class IndexedScanlines extends Scanlines {
+
+        private final byte[] indices;
+
+        IndexedScanlines( int width, int height, byte[] indices ) {
+            super( width, height, 1 );
+            this.indices = indices;
+        }
+
+        @Override
+        void read( int y, byte[] dst, Buffers buffers ) {
+            System.arraycopy( indices, y * width, dst, 1, width );
+        }
+    }
+
+    private static class TruecolorScanlines extends Scanlines {
+
+        private final Pixels pixels;
+
+        TruecolorScanlines( Pixels pixels ) {
+            super( pixels.width, pixels.height, pixels.alpha ? 4 : 3 );
+            this.pixels = pixels;
+        }
+
+        @Override
+        void read( int y, byte[] dst, Buffers buffers ) {
+            int[] row = buffers.pixels( width );
+            pixels.row( y, row );
+            int j = 1;
+            if ( bpp == 4 ) {
+                for ( int i = 0; i < width; i++ ) {
+                    int c = row[i];
+                    dst[j++] = (byte) ( c >>> 16 );
+                    dst[j++] = (byte) ( c >>> 8 );
+                    dst[j++] = (byte) c;
+                    dst[j++] = (byte) ( c >>> 24 );
+                }
+            } else {
+                for ( int i = 0; i < width; i++ ) {
+                    int c = row[i];
+                    dst[j++] = (byte) ( c >>> 16 );
+                    dst[j++] = (byte) ( c >>> 8 );
+                    dst[j++] = (byte) c;
+                }
+            }
+        }
+    }
+
+    private static class Stripe {
+
+        final ByteArrayOutputStream data;
+
+        final long adler;
+
+        final long length;
+
+        Stripe( ByteArrayOutputStream data, long adler, long length ) {
+            this.data = data;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Splits the zlib stream into IDAT chunks.
+     */
+    private static class IdatOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private final byte[] buffer;
+
+        private final CRC32 crc;
+
+        private int count;
+
+        IdatOutputStream( OutputStream out, byte[] buffer, CRC32 crc ) {
+            this.out = out;
+            this.buffer = buffer;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write( int b )
+                                throws IOException {
+            if ( count == buffer.length ) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+                                throws IOException {
+            while ( len > 0 ) {
+                if ( count == buffer.length ) {
+                    flushChunk();
+                }
+                int n = Math.min( len, buffer.length - count );
+                System.arraycopy( b, off, buffer, count, n );
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        void finish()
+                                throws IOException {
+            if ( count > 0 ) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk()
+                                throws IOException {
+            writeChunk( out, IDAT, buffer, count, crc );
+            count = 0;
+        }
+    }
+
+    /**
+     * Working buffers of a single encoding (or stripe). Large buffers are dropped before pooling, so huge images don't
+     * pin memory.
+     */
+    private static class Buffers {
+
+        final CRC32 crc = new CRC32();
+
+        final Adler32 adler = new Adler32();
+
+        final byte[] chunk = new byte[CHUNK_SIZE];
+
+        final byte[] deflated = new byte[CHUNK_SIZE];
+
+        final int[] keys = new int[HASH_SIZE];
+
+        final int[] slots = new int[HASH_SIZE];
+
+        private final Deflater[] deflaters = new Deflater[10];
+
+        private byte[][] rows = new byte[2][0];
+
+        private byte[][] candidates = new byte[5][0];
+
+        private byte[] dictionary = new byte[0];
+
+        private byte[] indices = new byte[0];
+
+        private int[] pixels = new int[0];
+
+        Deflater deflater( int level ) {
+            Deflater deflater = deflaters[level];
+            if ( deflater == null ) {
+                deflater = new Deflater( level, true );
+                deflaters[level] = deflater;
+            } else {
+                deflater.reset();
+            }
+            return deflater;
+        }
+
+        byte[][] rows( int length ) {
+            if ( rows[0].length < length ) {
+                rows = new byte[][] { new byte[length], new byte[length] };
+            }
+            return rows;
+        }
+
+        byte[][] candidates( int length ) {
+            if ( candidates[0].length < length ) {
+                candidates = new byte[5][length];
+            }
+            return candidates;
+        }
+
+        byte[] dictionary( int length ) {
+            if ( dictionary.length < length ) {
+                dictionary = new byte[length];
+            }
+            return dictionary;
+        }
+
+        byte[] indices( int length ) {
+            if ( length > MAX_POOLED_INDICES ) {
+                return new byte[length];
+            }
+            if ( indices.length < length ) {
+                indices = new byte[length];
+            }
+            return indices;
+        }
+
+        int[] pixels( int length ) {
+            if ( pixels.length < length ) {
+                pixels = new int[length];
+            }
+            return pixels;
+        }
+
+        void trim() {
+            if ( rows[0].length > MAX_POOLED_ROW ) {
+                rows = new byte[2][0];
+            }
+            if ( candidates[0].length > MAX_POOLED_ROW ) {
+                candidates = new byte[5][0];
+            }
+            if ( dictionary.length > WINDOW_SIZE + MAX_POOLED_ROW ) {
+                dictionary = new byte[0];
+            }
+            if ( indices.length > MAX_POOLED_INDICES ) {
+                indices = new byte[0];
+            }
+            if ( pixels.length * 4 > MAX_POOLED_ROW ) {
+                pixels = new int[0];
+            }
+        }
+
+        void end() {
+            for ( int i = 0; i < deflaters.length; i++ ) {
+                if ( deflaters[i] != null ) {
+                    deflaters[i].end();
+                    deflaters[i] = null;
+                }
+            }
+        }
+    }
+
+    private static class StripeThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, "png-deflate-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        }
+    }
+
+}
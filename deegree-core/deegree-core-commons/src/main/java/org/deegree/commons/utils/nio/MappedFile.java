@@ -0,0 +1,183 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils.nio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only memory mapping of a file of arbitrary size.
+ * <p>
+ * A single {@link java.nio.MappedByteBuffer} can only address 2 GB. This class maps the file in consecutive segments
+ * that overlap by a small amount, so any range that fits into the overlap can be accessed through a single buffer view.
+ * Larger ranges that cross a segment border are mapped on demand. Views returned by {@link #getBuffer(long, int)} are
+ * independent of each other, so they can be used by different threads concurrently. Single values can be read using
+ * the absolute accessors, which do not allocate anything.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MappedFile implements Closeable {
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final long SEGMENT_OVERLAP = 1L << 20;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final ByteBuffer[] segments;
+
+    /**
+     * Maps the given file.
+     * 
+     * @param file
+     *            file to map, must not be <code>null</code>
+     * @throws IOException
+     */
+    public MappedFile( File file ) throws IOException {
+        this( new RandomAccessFile( file, "r" ) );
+    }
+
+    /**
+     * Maps the given file.
+     * 
+     * @param file
+     *            file to map, must not be <code>null</code>, will be closed by {@link #close()}
+     * @throws IOException
+     */
+    public MappedFile( RandomAccessFile file ) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.size = channel.size();
+        int numSegments = (int) Math.max( 1, ( size + SEGMENT_SIZE - 1 ) / SEGMENT_SIZE );
+        segments = new ByteBuffer[numSegments];
+        for ( int i = 0; i < numSegments; i++ ) {
+            long start = i * SEGMENT_SIZE;
+            long length = Math.min( size - start, SEGMENT_SIZE + SEGMENT_OVERLAP );
+            segments[i] = channel.map( MapMode.READ_ONLY, start, Math.max( 0, length ) );
+        }
+    }
+
+    /**
+     * @return the size of the file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of the given range of the file. The returned buffer starts at position <code>0</code> (which
+     * corresponds to the given file position), has big endian byte order and its limit is set to the length of the
+     * range.
+     * 
+     * @param pos
+     *            file position of the range
+     * @param length
+     *            length of the range in bytes
+     * @return view of the range, never <code>null</code>
+     * @throws IndexOutOfBoundsException
+     *             if the range exceeds the file
+     * @throws IOException
+     *             if mapping a range that crosses segment borders fails
+     */
+    public ByteBuffer getBuffer( long pos, int length )
+                            throws IOException {
+        checkBounds( pos, length );
+        int segment = (int) ( pos / SEGMENT_SIZE );
+        long offset = pos - segment * SEGMENT_SIZE;
+        ByteBuffer buffer = segments[segment];
+        if ( offset + length > buffer.capacity() ) {
+            // crosses the segment overlap, so map it separately
+            return channel.map( MapMode.READ_ONLY, pos, length );
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position( (int) offset );
+        view.limit( (int) offset + length );
+        return view.slice();
+    }
+
+    /**
+     * Reads a big endian long value at the given file position (without creating a view).
+     * 
+     * @param pos
+     *            file position
+     * @return the value
+     * @throws IndexOutOfBoundsException
+     *             if the value exceeds the file
+     */
+    public long getLong( long pos ) {
+        checkBounds( pos, 8 );
+        return segments[(int) ( pos / SEGMENT_SIZE )].getLong( (int) ( pos % SEGMENT_SIZE ) );
+    }
+
+    /**
+     * Reads a big endian double value at the given file position (without creating a view).
+     * 
+     * @param pos
+     *            file position
+     * @return the value
+     * @throws IndexOutOfBoundsException
+     *             if the value exceeds the file
+     */
+    public double getDouble( long pos ) {
+        checkBounds( pos, 8 );
+        return segments[(int) ( pos / SEGMENT_SIZE )].getDouble( (int) ( pos % SEGMENT_SIZE ) );
+    }
+
+    private void checkBounds( long pos, int length ) {
+        if ( pos < 0 || length < 0 || pos + length > size ) {
+            throw new IndexOutOfBoundsException( "Range " + pos + "+" + length + " exceeds file size " + size + "." );
+        }
+    }
+
+    @Override
+    public void close()
+                            throws IOException {
+        channel.close();
+        file.close();
+    }
+
+}
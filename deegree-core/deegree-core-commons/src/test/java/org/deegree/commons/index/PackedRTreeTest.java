@@ -0,0 +1,158 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PackedRTree}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PackedRTreeTest {
+
+    @Test
+    public void testQueryMatchesBruteForce()
+                            throws IOException {
+        Random random = new Random( 42 );
+        for ( int numItems : new int[] { 1, 5, 16, 17, 300, 5000 } ) {
+            double[][] boxes = new double[numItems][];
+            PackedRTree.Builder builder = new PackedRTree.Builder();
+            for ( int i = 0; i < numItems; i++ ) {
+                if ( i % 97 == 3 ) {
+                    builder.addUnbounded( i );
+                    continue;
+                }
+                double x = random.nextDouble() * 1000;
+                double y = random.nextDouble() * 1000;
+                boxes[i] = new double[] { x, y, x + random.nextDouble() * 10, y + random.nextDouble() * 10 };
+                builder.add( boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3], i );
+            }
+            PackedRTree tree = write( builder, true );
+            try {
+                assertEquals( numItems, tree.size() );
+                assertTrue( tree.getExtraFlag() );
+                for ( int q = 0; q < 100; q++ ) {
+                    float x = random.nextFloat() * 1000;
+                    float y = random.nextFloat() * 1000;
+                    float[] env = new float[] { x, y, x + 50, y + 50 };
+                    Set<Long> expected = new HashSet<Long>();
+                    for ( int i = 0; i < numItems; i++ ) {
+                        double[] b = boxes[i];
+                        if ( b == null || ( b[0] <= env[2] && env[0] <= b[2] && b[1] <= env[3] && env[1] <= b[3] ) ) {
+                            expected.add( (long) i );
+                        }
+                    }
+                    List<Long> result = tree.query( env );
+                    assertEquals( expected.size(), result.size() );
+                    assertEquals( expected, new HashSet<Long>( result ) );
+                }
+            } finally {
+                tree.close();
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyTree()
+                            throws IOException {
+        PackedRTree tree = write( new PackedRTree.Builder(), false );
+        try {
+            assertEquals( 0, tree.size() );
+            assertFalse( tree.getExtraFlag() );
+            assertTrue( tree.query( new float[] { 0, 0, 1, 1 } ).isEmpty() );
+        } finally {
+            tree.close();
+        }
+    }
+
+    @Test
+    public void testVisitorStopsTraversal()
+                            throws IOException {
+        PackedRTree.Builder builder = new PackedRTree.Builder( 4 );
+        for ( int i = 0; i < 100; i++ ) {
+            builder.add( i, i, i + 1, i + 1, i );
+        }
+        PackedRTree tree = write( builder, false );
+        try {
+            final List<Long> visited = new ArrayList<Long>();
+            tree.query( 0, 0, 100, 100, new PackedRTree.Visitor() {
+                @Override
+                public boolean visit( long value ) {
+                    visited.add( value );
+                    return visited.size() < 3;
+                }
+            } );
+            assertEquals( 3, visited.size() );
+            assertEquals( 100, tree.query( 0, 0, 100, 100 ).size() );
+        } finally {
+            tree.close();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testInsertNotSupported()
+                            throws IOException {
+        PackedRTree tree = write( new PackedRTree.Builder(), false );
+        try {
+            tree.insert( new float[] { 0, 0, 1, 1 }, 1L );
+        } finally {
+            tree.close();
+        }
+    }
+
+    private static PackedRTree write( PackedRTree.Builder builder, boolean flag )
+                            throws IOException {
+        File file = File.createTempFile( "packedrtree", ".prt" );
+        file.deleteOnExit();
+        builder.write( file, flag );
+        return PackedRTree.open( file );
+    }
+
+}
@@ -0,0 +1,111 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.deegree.commons.utils.Pair;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StaticRTree}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class StaticRTreeTest {
+
+    @Test
+    public void testQueryMatchesBruteForce() {
+        Random random = new Random( 42 );
+        for ( int numItems : new int[] { 1, 2, 16, 17, 257, 5000 } ) {
+            List<Pair<float[], Integer>> items = new ArrayList<Pair<float[], Integer>>();
+            for ( int i = 0; i < numItems; i++ ) {
+                if ( i % 50 == 7 ) {
+                    items.add( new Pair<float[], Integer>( null, i ) );
+                    continue;
+                }
+                float x = random.nextFloat() * 1000;
+                float y = random.nextFloat() * 1000;
+                float[] env = new float[] { x, y, x + random.nextFloat() * 5, y + random.nextFloat() * 5 };
+                items.add( new Pair<float[], Integer>( env, i ) );
+            }
+            StaticRTree<Integer> tree = new StaticRTree<Integer>();
+            tree.insertBulk( items );
+            assertEquals( numItems, tree.size() );
+            for ( int q = 0; q < 100; q++ ) {
+                float x = random.nextFloat() * 1000;
+                float y = random.nextFloat() * 1000;
+                float[] query = new float[] { x, y, x + 40, y + 40 };
+                Set<Integer> expected = new HashSet<Integer>();
+                for ( Pair<float[], Integer> item : items ) {
+                    float[] b = item.first;
+                    if ( b == null || ( b[0] <= query[2] && query[0] <= b[2] && b[1] <= query[3] && query[1] <= b[3] ) ) {
+                        expected.add( item.second );
+                    }
+                }
+                List<Integer> result = tree.query( query );
+                assertEquals( expected.size(), result.size() );
+                assertEquals( expected, new HashSet<Integer>( result ) );
+            }
+        }
+    }
+
+    @Test
+    public void testClear() {
+        StaticRTree<String> tree = new StaticRTree<String>();
+        List<Pair<float[], String>> items = new ArrayList<Pair<float[], String>>();
+        items.add( new Pair<float[], String>( new float[] { 0, 0, 1, 1 }, "a" ) );
+        tree.insertBulk( items );
+        assertEquals( 1, tree.query( new float[] { 0, 0, 2, 2 } ).size() );
+        tree.clear();
+        assertEquals( 0, tree.size() );
+        assertTrue( tree.query( new float[] { 0, 0, 2, 2 } ).isEmpty() );
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveNotSupported() {
+        new StaticRTree<String>().remove( "a" );
+    }
+
+}
@@ -0,0 +1,114 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DetachedRow}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DetachedRowTest {
+
+    private static final String[] LABELS = { "id", "name", "wkb", "empty" };
+
+    @Test
+    public void testCopyCurrentRowByIndex()
+                            throws SQLException {
+        ResultSet row = DetachedRow.copyCurrentRow( createSource( 42L, "foo", new byte[] { 1, 2 }, null ), LABELS );
+        assertEquals( 42L, row.getObject( 1 ) );
+        assertEquals( 42, row.getInt( 1 ) );
+        assertEquals( "42", row.getString( 1 ) );
+        assertEquals( "foo", row.getString( 2 ) );
+        assertArrayEquals( new byte[] { 1, 2 }, row.getBytes( 3 ) );
+        assertFalse( row.wasNull() );
+    }
+
+    @Test
+    public void testCopyCurrentRowByLabel()
+                            throws SQLException {
+        ResultSet row = DetachedRow.copyCurrentRow( createSource( 42L, "foo", new byte[] { 1, 2 }, null ), LABELS );
+        assertEquals( 2, row.findColumn( "NAME" ) );
+        assertEquals( "foo", row.getString( "name" ) );
+        assertEquals( 42.0, row.getDouble( "id" ), 0.0 );
+    }
+
+    @Test
+    public void testNullValues()
+                            throws SQLException {
+        ResultSet row = DetachedRow.copyCurrentRow( createSource( 42L, "foo", new byte[] { 1, 2 }, null ), LABELS );
+        assertNull( row.getString( 4 ) );
+        assertTrue( row.wasNull() );
+        assertEquals( 0, row.getInt( 4 ) );
+        assertTrue( row.wasNull() );
+    }
+
+    @Test(expected = SQLException.class)
+    public void testInvalidColumnIndex()
+                            throws SQLException {
+        ResultSet row = DetachedRow.copyCurrentRow( createSource( 42L, "foo", new byte[] { 1, 2 }, null ), LABELS );
+        row.getObject( 5 );
+    }
+
+    private ResultSet createSource( final Object... values ) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args )
+                                    throws Throwable {
+                if ( "getObject".equals( method.getName() ) ) {
+                    return values[( (Integer) args[0] ) - 1];
+                }
+                throw new UnsupportedOperationException();
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                                                   handler );
+    }
+}
@@ -0,0 +1,230 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils.image;
+
+import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.commons.utils.image.PngEncoder.Filter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PngEncoder}.
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class PngEncoderTest {
+
+    @Test
+    public void testTruecolorWithAllFilters()
+                            throws IOException {
+        BufferedImage img = createGradient( 67, 31, TYPE_INT_ARGB );
+        for ( Filter filter : Filter.values() ) {
+            PngEncoder encoder = new PngEncoder( 6, filter, true, false, 16 );
+            BufferedImage decoded = roundTrip( encoder, img );
+            assertFalse( decoded.getColorModel() instanceof IndexColorModel );
+            assertSamePixels( img, decoded );
+        }
+    }
+
+    @Test
+    public void testOpaqueImageWithoutAlpha()
+                            throws IOException {
+        BufferedImage img = createGradient( 40, 20, TYPE_INT_RGB );
+        BufferedImage decoded = roundTrip( new PngEncoder(), img );
+        assertFalse( decoded.getColorModel().hasAlpha() );
+        assertSamePixels( img, decoded );
+    }
+
+    @Test
+    public void testGenericImageType()
+                            throws IOException {
+        BufferedImage img = createGradient( 40, 20, TYPE_3BYTE_BGR );
+        assertSamePixels( img, roundTrip( new PngEncoder(), img ) );
+    }
+
+    @Test
+    public void testFewColorsAreWrittenAsPalette()
+                            throws IOException {
+        BufferedImage img = createColors( 300, 200, 17, TYPE_INT_ARGB );
+        img.setRGB( 3, 4, 0x00000000 );
+        img.setRGB( 5, 6, 0x80ff0000 );
+        BufferedImage decoded = roundTrip( new PngEncoder(), img );
+        assertTrue( decoded.getColorModel() instanceof IndexColorModel );
+        assertSamePixels( img, decoded );
+    }
+
+    @Test
+    public void testPaletteDisabled()
+                            throws IOException {
+        BufferedImage img = createColors( 30, 20, 4, TYPE_INT_RGB );
+        PngEncoder encoder = new PngEncoder( 4, Filter.ADAPTIVE, false, false, 16 );
+        BufferedImage decoded = roundTrip( encoder, img );
+        assertFalse( decoded.getColorModel() instanceof IndexColorModel );
+        assertSamePixels( img, decoded );
+    }
+
+    @Test
+    public void testEncodeIndexed()
+                            throws IOException {
+        PngEncoder encoder = new PngEncoder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse( encoder.encodeIndexed( createGradient( 64, 64, TYPE_INT_RGB ), out ) );
+        assertEquals( 0, out.size() );
+
+        BufferedImage img = createColors( 64, 64, 256, TYPE_INT_RGB );
+        assertTrue( encoder.encodeIndexed( img, out ) );
+        BufferedImage decoded = ImageIO.read( new ByteArrayInputStream( out.toByteArray() ) );
+        assertTrue( decoded.getColorModel() instanceof IndexColorModel );
+        assertSamePixels( img, decoded );
+    }
+
+    @Test
+    public void testParallelStripes()
+                            throws IOException {
+        BufferedImage img = createGradient( 700, 801, TYPE_INT_ARGB );
+        PngEncoder parallel = new PngEncoder( 4, Filter.ADAPTIVE, true, true, 50 );
+        assertSamePixels( img, roundTrip( parallel, img ) );
+
+        BufferedImage indexed = createColors( 1000, 700, 200, TYPE_INT_RGB );
+        assertSamePixels( indexed, roundTrip( parallel, indexed ) );
+    }
+
+    @Test
+    public void testEncodeAfterShutdown()
+                            throws IOException {
+        BufferedImage img = createGradient( 700, 801, TYPE_INT_ARGB );
+        PngEncoder parallel = new PngEncoder( 4, Filter.ADAPTIVE, true, true, 50 );
+        assertSamePixels( img, roundTrip( parallel, img ) );
+        PngEncoder.shutdown();
+        assertSamePixels( img, roundTrip( parallel, img ) );
+        BufferedImage small = createColors( 20, 10, 5, TYPE_INT_RGB );
+        PngEncoder.shutdown();
+        assertSamePixels( small, roundTrip( new PngEncoder(), small ) );
+    }
+
+    @Test
+    public void testSubImage()
+                            throws IOException {
+        BufferedImage img = createGradient( 100, 80, TYPE_INT_ARGB ).getSubimage( 10, 20, 50, 40 );
+        assertSamePixels( img, roundTrip( new PngEncoder(), img ) );
+    }
+
+    @Test
+    public void testCombineAdler32() {
+        byte[] data = new byte[100000];
+        new Random( 42 ).nextBytes( data );
+        Adler32 all = new Adler32();
+        all.update( data );
+        Adler32 first = new Adler32();
+        first.update( data, 0, 12345 );
+        Adler32 second = new Adler32();
+        second.update( data, 12345, data.length - 12345 );
+        assertEquals( all.getValue(),
+                      PngEncoder.combineAdler32( first.getValue(), second.getValue(), data.length - 12345 ) );
+        assertEquals( all.getValue(), PngEncoder.combineAdler32( 1, all.getValue(), data.length ) );
+    }
+
+    private static BufferedImage roundTrip( PngEncoder encoder, BufferedImage img )
+                            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode( img, out );
+        BufferedImage decoded = ImageIO.read( new ByteArrayInputStream( out.toByteArray() ) );
+        assertNotNull( decoded );
+        return decoded;
+    }
+
+    private static BufferedImage createGradient( int width, int height, int type ) {
+        BufferedImage img = new BufferedImage( width, height, type );
+        Random random = new Random( 1 );
+        for ( int y = 0; y < height; y++ ) {
+            for ( int x = 0; x < width; x++ ) {
+                int alpha = ( x * 7 + y ) & 0xff;
+                img.setRGB( x, y, alpha << 24 | ( x & 0xff ) << 16 | ( y & 0xff ) << 8 | random.nextInt( 4 ) );
+            }
+        }
+        return img;
+    }
+
+    private static BufferedImage createColors( int width, int height, int colors, int type ) {
+        BufferedImage img = new BufferedImage( width, height, type );
+        for ( int y = 0; y < height; y++ ) {
+            for ( int x = 0; x < width; x++ ) {
+                int c = ( ( x / 3 ) * 31 + y * 7 ) % colors;
+                img.setRGB( x, y, 0xff000000 | c * 0x010203 );
+            }
+        }
+        return img;
+    }
+
+    private static void assertSamePixels( BufferedImage expected, BufferedImage actual ) {
+        assertEquals( expected.getWidth(), actual.getWidth() );
+        assertEquals( expected.getHeight(), actual.getHeight() );
+        boolean alpha = expected.getColorModel().hasAlpha();
+        for ( int y = 0; y < expected.getHeight(); y++ ) {
+            for ( int x = 0; x < expected.getWidth(); x++ ) {
+                int e = expected.getRGB( x, y );
+                int a = actual.getRGB( x, y );
+                if ( !alpha ) {
+                    e |= 0xff000000;
+                }
+                if ( ( e >>> 24 ) == 0 ) {
+                    // colour of fully transparent pixels is irrelevant
+                    assertEquals( 0, a >>> 24 );
+                } else {
+                    assertEquals( "pixel " + x + "," + y, e, a );
+                }
+            }
+        }
+    }
+
+}
@@ -45,6 +45,7 @@ import org.deegree.cs.exceptions.TransformationException;
 import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.cs.i18n.Messages;
 import org.deegree.cs.persistence.CRSManager;
+import org.deegree.cs.persistence.TransformationRegistry;
 import org.deegree.cs.transformations.Transformation;
 import org.deegree.cs.transformations.TransformationFactory;
 import org.slf4j.Logger;
@@ -212,7 +213,7 @@ public abstract class Transformer {
                                                                      "createCRSTransformation( ICoordinateSystem )",
                                                                      "sourceCRS" ) );
         }
-        return CRSManager.getTransformation( null, CRSManager.lookup( sourceCRS ), targetCRS );
+        return TransformationRegistry.getInstance().get( CRSManager.lookup( sourceCRS ), targetCRS, null );
     }
 
     /**
@@ -225,7 +226,8 @@ public abstract class Transformer {
     /**
      * Simple method to check for the CRS transformation to use. If the Transformer was initialized with a
      * {@link Transformation} this will be used (if the sourceCRS fits). If it does not fit or no transformation was
-     * given, a new Transformation will be created using the {@link TransformationFactory}
+     * given, the Transformation will be looked up in the {@link TransformationRegistry} (which creates it using the
+     * {@link TransformationFactory} if it has not been cached yet)
      * 
      * @param sourceCRS
      * @param toBeUsedTransformations
@@ -238,7 +240,8 @@ public abstract class Transformer {
         if ( definedTransformation == null
              || !( definedTransformation.getSourceCRS().equals( sourceCRS ) && definedTransformation.getTargetCRS().equals(
                                                                                                                             targetCRS ) ) ) {
-            definedTransformation = CRSManager.getTransformation( null, sourceCRS, targetCRS, toBeUsedTransformations );
+            definedTransformation = TransformationRegistry.getInstance().get( sourceCRS, targetCRS,
+                                                                              toBeUsedTransformations );
             if ( LOG.isDebugEnabled() ) {
                 if ( definedTransformation == null ) {
                     LOG.debug( "Identity transformation (null)." );
@@ -88,4 +88,36 @@ public interface IProjectedCRS extends ICRS {
     public Point2d doInverseProjection( double x, double y )
                             throws ProjectionException;
 
+    /**
+     * Projects a batch of geographic coordinates in place, see
+     * {@link IProjection#doProjection(IGeographicCRS, double[], int, int, int)}.
+     * 
+     * @param ordinates
+     *            holding the lambda, phi values of the coordinates
+     * @param offset
+     *            position of the first coordinate
+     * @param stride
+     *            number of ordinates between two consecutive coordinates
+     * @param count
+     *            number of coordinates to project
+     * @return the number of coordinates which could not be projected
+     */
+    public int doProjection( double[] ordinates, int offset, int stride, int count );
+
+    /**
+     * Inverts the projection of a batch of map coordinates in place, see
+     * {@link IProjection#doInverseProjection(IGeographicCRS, double[], int, int, int)}.
+     * 
+     * @param ordinates
+     *            holding the x, y values of the coordinates
+     * @param offset
+     *            position of the first coordinate
+     * @param stride
+     *            number of ordinates between two consecutive coordinates
+     * @param count
+     *            number of coordinates to invert
+     * @return the number of coordinates which could not be inverted
+     */
+    public int doInverseProjection( double[] ordinates, int offset, int stride, int count );
+
 }
\ No newline at end of file
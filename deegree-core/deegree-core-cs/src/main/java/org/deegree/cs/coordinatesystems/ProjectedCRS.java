@@ -194,6 +194,14 @@ public class ProjectedCRS extends CRS implements IProjectedCRS {
         return projection.doInverseProjection( this.underlyingCRS, x, y );
     }
 
+    public int doProjection( double[] ordinates, int offset, int stride, int count ) {
+        return projection.doProjection( this.underlyingCRS, ordinates, offset, stride, count );
+    }
+
+    public int doInverseProjection( double[] ordinates, int offset, int stride, int count ) {
+        return projection.doInverseProjection( this.underlyingCRS, ordinates, offset, stride, count );
+    }
+
     @Override
     public boolean equals( Object other ) {
         if ( other != null && other instanceof ICRS && this.getType().equals( ( (ICRS) other ).getType() ) ) {
@@ -135,6 +135,11 @@ public class CRSManager implements Initializable, Destroyable {
     @Override
     public void destroy( Workspace workspace ) {
         LOG.info( "Clear CRS store and transformation map" );
+        TransformationRegistry registry = TransformationRegistry.getInstance();
+        LOG.info( "Transformation cache: {} hits, {} misses, {} evictions", new Object[] { registry.getHits(),
+                                                                                          registry.getMisses(),
+                                                                                          registry.getEvictions() } );
+        registry.clear();
         idToCRSStore.clear();
         idToTransF.clear();
         storeIds.clear();
@@ -175,6 +180,8 @@ public class CRSManager implements Initializable, Destroyable {
                     LOG.error( "Unable to read config file '" + crsConfigFile + "'.", t );
                 }
             }
+            // chains resolved so far may not consider the new stores
+            TransformationRegistry.getInstance().clear();
             LOG.info( "" );
         } else {
             LOG.info( "Could not set up CRS stores: CRS workspace directory " + crsDir + " is null or does not exist." );
@@ -0,0 +1,394 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.cs.persistence;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.deegree.cs.CRSCodeType;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.exceptions.TransformationException;
+import org.deegree.cs.transformations.Transformation;
+import org.slf4j.Logger;
+
+/**
+ * Global, bounded cache of the {@link Transformation} chains resolved by
+ * {@link CRSManager#getTransformation(String, ICRS, ICRS, List)}.
+ * <p>
+ * Resolving a transformation chain is expensive (and serialized by the {@link CRSManager}), so every
+ * {@link org.deegree.cs.Transformer} looks its chains up here. Entries are keyed by source crs, target crs and the
+ * list of transformations which must be used. The returned chains are shared between all callers and threads, so they
+ * must not be modified (e.g. by calling {@link Transformation#inverse()}). If the number of cached chains exceeds the
+ * maximum size (system property <code>DEEGREE_TRANSFORMATION_CACHE_SIZE</code>, default 256), the least recently used
+ * chain is evicted. The registry is cleared whenever the {@link CRSManager} is destroyed.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TransformationRegistry {
+
+    private static final Logger LOG = getLogger( TransformationRegistry.class );
+
+    private static final String VAR_CACHE_SIZE = "DEEGREE_TRANSFORMATION_CACHE_SIZE";
+
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final TransformationRegistry INSTANCE = new TransformationRegistry( getConfiguredCacheSize() );
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    private final int maxSize;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private ExecutorService warmUpExecutor;
+
+    /**
+     * Creates a new registry.
+     * 
+     * @param maxSize
+     *            maximum number of cached transformation chains, must be greater than zero
+     */
+    TransformationRegistry( int maxSize ) {
+        if ( maxSize <= 0 ) {
+            throw new IllegalArgumentException( "Maximum size must be greater than zero." );
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the global instance, never <code>null</code>
+     */
+    public static TransformationRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the transformation chain from the given source to the given target crs.
+     * 
+     * @param sourceCRS
+     *            start of the transformation chain, must not be <code>null</code>
+     * @param targetCRS
+     *            end of the transformation chain, must not be <code>null</code>
+     * @param toBeUsedTransformations
+     *            transformations which must be used in the chain, may be <code>null</code> or empty
+     * @return the (shared) transformation chain, <code>null</code> if no transformation is needed or none could be
+     *         found
+     * @throws TransformationException
+     *             if the transformation chain could not be created
+     */
+    public Transformation get( ICRS sourceCRS, ICRS targetCRS, List<Transformation> toBeUsedTransformations )
+                            throws TransformationException {
+        Key key = new Key( sourceCRS, targetCRS, toBeUsedTransformations );
+        Entry entry = entries.get( key );
+        if ( entry != null ) {
+            hits.incrementAndGet();
+            entry.lastAccess = clock.incrementAndGet();
+            return entry.transformation;
+        }
+        misses.incrementAndGet();
+        Transformation transformation = CRSManager.getTransformation( null, sourceCRS, targetCRS,
+                                                                      toBeUsedTransformations );
+        entry = new Entry( transformation, clock.incrementAndGet() );
+        Entry existing = entries.putIfAbsent( key, entry );
+        if ( existing != null ) {
+            return existing.transformation;
+        }
+        if ( entries.size() > maxSize ) {
+            evictLeastRecentlyUsed();
+        }
+        return transformation;
+    }
+
+    /**
+     * Resolves the transformation chains from the given source crs to each of the given target crs in the background,
+     * so they are cached before the first request needs them. Failures are logged only.
+     * 
+     * @param sourceCRS
+     *            source crs, may be <code>null</code> (nothing will be done)
+     * @param targetCRSs
+     *            target crs, may be <code>null</code> (nothing will be done)
+     */
+    public void warmUp( final ICRS sourceCRS, Collection<? extends ICRS> targetCRSs ) {
+        if ( sourceCRS == null || targetCRSs == null || targetCRSs.isEmpty() ) {
+            return;
+        }
+        final List<ICRS> targets = new ArrayList<ICRS>( targetCRSs );
+        getWarmUpExecutor().execute( new Runnable() {
+            @Override
+            public void run() {
+                resolve( sourceCRS, targets );
+            }
+        } );
+    }
+
+    /**
+     * Like {@link #warmUp(ICRS, Collection)}, but determines the source crs in the background as well. This is meant
+     * for source crs which are expensive to determine, e.g. the storage crs of a feature store.
+     * 
+     * @param sourceCRS
+     *            determines the source crs, must not be <code>null</code>, may return <code>null</code> (nothing will
+     *            be done)
+     * @param targetCRSs
+     *            target crs, may be <code>null</code> (nothing will be done)
+     */
+    public void warmUp( final Callable<ICRS> sourceCRS, Collection<? extends ICRS> targetCRSs ) {
+        if ( targetCRSs == null || targetCRSs.isEmpty() ) {
+            return;
+        }
+        final List<ICRS> targets = new ArrayList<ICRS>( targetCRSs );
+        getWarmUpExecutor().execute( new Runnable() {
+            @Override
+            public void run() {
+                ICRS crs;
+                try {
+                    crs = sourceCRS.call();
+                } catch ( Throwable t ) {
+                    LOG.debug( "Could not determine source crs: {}", t.getMessage() );
+                    return;
+                }
+                if ( crs != null ) {
+                    resolve( crs, targets );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Stops the background thread used by {@link #warmUp(ICRS, Collection)}, pending warm ups are discarded. The
+     * thread is started again by the next warm up.
+     */
+    public synchronized void shutdown() {
+        if ( warmUpExecutor != null ) {
+            warmUpExecutor.shutdownNow();
+            warmUpExecutor = null;
+        }
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups which had to resolve the transformation chain
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of chains evicted because the maximum size was exceeded
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of cached chains
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return maximum number of cached chains
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes all cached chains (the statistics are kept).
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        while ( entries.size() > maxSize ) {
+            Key oldest = null;
+            long oldestAccess = Long.MAX_VALUE;
+            for ( Map.Entry<Key, Entry> e : entries.entrySet() ) {
+                long lastAccess = e.getValue().lastAccess;
+                if ( lastAccess < oldestAccess ) {
+                    oldestAccess = lastAccess;
+                    oldest = e.getKey();
+                }
+            }
+            if ( oldest == null || entries.remove( oldest ) == null ) {
+                return;
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void resolve( ICRS sourceCRS, List<ICRS> targetCRSs ) {
+        for ( ICRS targetCRS : targetCRSs ) {
+            if ( Thread.currentThread().isInterrupted() ) {
+                return;
+            }
+            try {
+                if ( targetCRS != null && !sourceCRS.equals( targetCRS ) ) {
+                    get( sourceCRS, targetCRS, null );
+                }
+            } catch ( Throwable t ) {
+                LOG.debug( "Could not resolve transformation from {} to {}: {}",
+                           new Object[] { sourceCRS.getAlias(), targetCRS.getAlias(), t.getMessage() } );
+            }
+        }
+    }
+
+    private synchronized ExecutorService getWarmUpExecutor() {
+        if ( warmUpExecutor == null ) {
+            warmUpExecutor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+                @Override
+                public Thread newThread( Runnable r ) {
+                    Thread t = new Thread( r, "transformation-warmup" );
+                    t.setDaemon( true );
+                    return t;
+                }
+            } );
+        }
+        return warmUpExecutor;
+    }
+
+    private static int getConfiguredCacheSize() {
+        String size = System.getProperty( VAR_CACHE_SIZE );
+        if ( size != null ) {
+            try {
+                int value = Integer.parseInt( size.trim() );
+                if ( value > 0 ) {
+                    return value;
+                }
+            } catch ( NumberFormatException e ) {
+                // fall through
+            }
+            LOG.warn( "Ignoring invalid value '{}' of {}, using {}.", new Object[] { size, VAR_CACHE_SIZE,
+                                                                                   DEFAULT_CACHE_SIZE } );
+        }
+        return DEFAULT_CACHE_SIZE;
+    }
+
+    private static class Entry {
+
+        private final Transformation transformation;
+
+        private volatile long lastAccess;
+
+        private Entry( Transformation transformation, long lastAccess ) {
+            this.transformation = transformation;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Identifies a transformation chain. The hash code is based on the crs codes (the hash codes of crs objects only
+     * consider type and dimension), equality on {@link ICRS#equals(Object)}, which is also used by
+     * {@link org.deegree.cs.Transformer} to check if a chain fits.
+     */
+    private static class Key {
+
+        private final ICRS source;
+
+        private final ICRS target;
+
+        private final List<Transformation> toBeUsed;
+
+        private final int hash;
+
+        private Key( ICRS source, ICRS target, List<Transformation> toBeUsed ) {
+            this.source = source;
+            this.target = target;
+            if ( toBeUsed == null || toBeUsed.isEmpty() ) {
+                this.toBeUsed = Collections.emptyList();
+            } else {
+                this.toBeUsed = new ArrayList<Transformation>( toBeUsed );
+            }
+            int h = hash( source );
+            h = 31 * h + hash( target );
+            this.hash = 31 * h + this.toBeUsed.size();
+        }
+
+        private static int hash( ICRS crs ) {
+            CRSCodeType code = crs == null ? null : crs.getCode();
+            return code == null ? 0 : code.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !( o instanceof Key ) ) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hash == that.hash && equal( source, that.source ) && equal( target, that.target )
+                   && toBeUsed.equals( that.toBeUsed );
+        }
+
+        private static boolean equal( ICRS a, ICRS b ) {
+            return a == null ? b == null : a.equals( b );
+        }
+    }
+
+}
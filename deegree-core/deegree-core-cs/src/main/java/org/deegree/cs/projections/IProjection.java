@@ -82,6 +82,40 @@ public interface IProjection extends CRSResource {
     Point2d doInverseProjection( IGeographicCRS geographicCRS, double x, double y )
                             throws ProjectionException;
 
+    /**
+     * Projects a batch of geographic coordinates to map coordinates in place. The longitude of the i-th coordinate is
+     * read from <code>ordinates[offset + i * stride]</code>, the latitude from the following ordinate, the projected x
+     * and y values are written to the same positions. Coordinates which cannot be projected are left unchanged.
+     * 
+     * @param ordinates
+     *            holding the lambda, phi values (in radians) of the coordinates, must not be <code>null</code>
+     * @param offset
+     *            position of the first coordinate
+     * @param stride
+     *            number of ordinates between two consecutive coordinates, must be &gt;= 2
+     * @param count
+     *            number of coordinates to project
+     * @return the number of coordinates which could not be projected
+     */
+    int doProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride, int count );
+
+    /**
+     * Inverts the projection of a batch of map coordinates in place, see
+     * {@link #doProjection(IGeographicCRS, double[], int, int, int)} for the layout of the given array. Coordinates
+     * which cannot be inverted are left unchanged.
+     * 
+     * @param ordinates
+     *            holding the x, y values of the coordinates, must not be <code>null</code>
+     * @param offset
+     *            position of the first coordinate
+     * @param stride
+     *            number of ordinates between two consecutive coordinates, must be &gt;= 2
+     * @param count
+     *            number of coordinates to invert
+     * @return the number of coordinates which could not be inverted
+     */
+    int doInverseProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride, int count );
+
     /**
      * @return A deegree specific name which will be used for the export of a projection.
      */
@@ -49,6 +49,8 @@ import org.deegree.cs.components.IPrimeMeridian;
 import org.deegree.cs.components.IUnit;
 import org.deegree.cs.coordinatesystems.IGeographicCRS;
 import org.deegree.cs.exceptions.ProjectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Map <code>conversion</code> is the process of changing the map grid coordinates (usually, but not always, Easting &
@@ -76,6 +78,8 @@ import org.deegree.cs.exceptions.ProjectionException;
 
 public abstract class Projection extends CRSIdentifiable implements IProjection {
 
+    private static final Logger LOG = LoggerFactory.getLogger( Projection.class );
+
     private final boolean conformal;
 
     private boolean equalArea;
@@ -189,6 +193,57 @@ public abstract class Projection extends CRSIdentifiable implements IProjection
     public abstract Point2d doInverseProjection( IGeographicCRS underlyingCRS, double x, double y )
                             throws ProjectionException;
 
+    /**
+     * Projects the coordinates one by one using {@link #doProjection(IGeographicCRS, double, double)}, subclasses
+     * should override this method to project the coordinates without creating intermediate objects.
+     */
+    public int doProjection( IGeographicCRS underlyingCRS, double[] ordinates, int offset, int stride, int count ) {
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            try {
+                Point2d p = doProjection( underlyingCRS, ordinates[pos], ordinates[pos + 1] );
+                ordinates[pos] = p.x;
+                ordinates[pos + 1] = p.y;
+            } catch ( ProjectionException e ) {
+                LOG.trace( "Stack trace:", e );
+                LOG.debug( "Projection error: {}", e.getLocalizedMessage() );
+                ++failed;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Inverts the coordinates one by one using {@link #doInverseProjection(IGeographicCRS, double, double)},
+     * subclasses should override this method to invert the coordinates without creating intermediate objects.
+     */
+    public int doInverseProjection( IGeographicCRS underlyingCRS, double[] ordinates, int offset, int stride,
+                                    int count ) {
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            try {
+                Point2d p = doInverseProjection( underlyingCRS, ordinates[pos], ordinates[pos + 1] );
+                ordinates[pos] = p.x;
+                ordinates[pos + 1] = p.y;
+            } catch ( ProjectionException e ) {
+                LOG.trace( "Stack trace:", e );
+                LOG.debug( "Inverse projection error: {}", e.getLocalizedMessage() );
+                ++failed;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return <code>true</code> if neither of the values is NaN or infinite, used by the batch methods of subclasses
+     *         to detect coordinates which could not be projected
+     */
+    protected static boolean isFinite( double x, double y ) {
+        return !( Double.isNaN( x ) || Double.isInfinite( x ) || Double.isNaN( y ) || Double.isInfinite( y ) );
+    }
+
     /**
      * @return A deegree specific name which will be used for the export of a projection.
      */
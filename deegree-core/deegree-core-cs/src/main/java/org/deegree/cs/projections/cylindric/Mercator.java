@@ -112,37 +112,86 @@ public class Mercator extends CylindricalProjection implements IMercator {
     @Override
     public synchronized Point2d doInverseProjection( IGeographicCRS geographicCRS, double x, double y )
                             throws ProjectionException {
-        Point2d result = new Point2d( 0, 0 );
         LOG.debug( "InverseProjection, incoming points x: " + x + " y: " + y );
-        x -= getFalseEasting();
-        y -= getFalseNorthing();
-
-        result.x = ( x / getScaleFactor( geographicCRS ) ) + getProjectionLongitude();
-        result.y = ProjectionUtils.HALFPI - 2. * Math.atan( Math.exp( -y / getScaleFactor( geographicCRS ) ) );
-        if ( !isSpherical( geographicCRS ) ) {
-            double[] preCalcedPhiSeries = preCalcedThetaSeries( getSquaredEccentricity( geographicCRS ) );
-            result.y = calcPhiFromConformalLatitude( result.y, preCalcedPhiSeries );
+        double[] ordinates = new double[] { x, y };
+        if ( doInverseProjection( geographicCRS, ordinates, 0, 2, 1 ) > 0 ) {
+            throw new ProjectionException( "The point x: " + x + " y: " + y + " could not be inverted." );
         }
-        return result;
+        return new Point2d( ordinates[0], ordinates[1] );
+    }
+
+    @Override
+    public synchronized int doInverseProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset,
+                                                 int stride, int count ) {
+        final double scaleFactor = getScaleFactor( geographicCRS );
+        final double projectionLongitude = getProjectionLongitude();
+        final double falseEasting = getFalseEasting();
+        final double falseNorthing = getFalseNorthing();
+        final double[] preCalcedPhiSeries = isSpherical( geographicCRS ) ? null
+                                                                        : preCalcedThetaSeries( getSquaredEccentricity( geographicCRS ) );
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            double x = ordinates[pos] - falseEasting;
+            double y = ordinates[pos + 1] - falseNorthing;
+            double phi = ProjectionUtils.HALFPI - 2. * Math.atan( Math.exp( -y / scaleFactor ) );
+            if ( preCalcedPhiSeries != null ) {
+                phi = calcPhiFromConformalLatitude( phi, preCalcedPhiSeries );
+            }
+            double lambda = ( x / scaleFactor ) + projectionLongitude;
+            if ( !isFinite( lambda, phi ) ) {
+                LOG.debug( "Inverse projection error: x: {} y: {} could not be inverted.", ordinates[pos],
+                           ordinates[pos + 1] );
+                ++failed;
+                continue;
+            }
+            ordinates[pos] = lambda;
+            ordinates[pos + 1] = phi;
+        }
+        return failed;
     }
 
     @Override
     public synchronized Point2d doProjection( IGeographicCRS geographicCRS, double lambda, double phi )
                             throws ProjectionException {
-        Point2d result = new Point2d( 0, 0 );
-        lambda -= getProjectionLongitude();
-
-        result.x = getScaleFactor( geographicCRS ) * lambda;
-        if ( isSpherical( geographicCRS ) ) {
-            result.y = getScaleFactor( geographicCRS ) * Math.log( Math.tan( ProjectionUtils.QUARTERPI + 0.5 * phi ) );
-        } else {
-            result.y = -getScaleFactor( geographicCRS )
-                       * Math.log( ProjectionUtils.tanHalfCoLatitude( phi, Math.sin( phi ),
-                                                                      getEccentricity( geographicCRS ) ) );
+        double[] ordinates = new double[] { lambda, phi };
+        if ( doProjection( geographicCRS, ordinates, 0, 2, 1 ) > 0 ) {
+            throw new ProjectionException( "The point lambda: " + lambda + " phi: " + phi
+                                           + " could not be projected." );
+        }
+        return new Point2d( ordinates[0], ordinates[1] );
+    }
+
+    @Override
+    public synchronized int doProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride,
+                                          int count ) {
+        final double scaleFactor = getScaleFactor( geographicCRS );
+        final boolean spherical = isSpherical( geographicCRS );
+        final double eccentricity = getEccentricity( geographicCRS );
+        final double projectionLongitude = getProjectionLongitude();
+        final double falseEasting = getFalseEasting();
+        final double falseNorthing = getFalseNorthing();
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            double lambda = ordinates[pos] - projectionLongitude;
+            double phi = ordinates[pos + 1];
+            double y;
+            if ( spherical ) {
+                y = scaleFactor * Math.log( Math.tan( ProjectionUtils.QUARTERPI + 0.5 * phi ) );
+            } else {
+                y = -scaleFactor * Math.log( ProjectionUtils.tanHalfCoLatitude( phi, Math.sin( phi ), eccentricity ) );
+            }
+            double x = scaleFactor * lambda + falseEasting;
+            y += falseNorthing;
+            if ( !isFinite( x, y ) ) {
+                LOG.debug( "Projection error: lambda: {} phi: {} could not be projected.", ordinates[pos],
+                           ordinates[pos + 1] );
+                ++failed;
+                continue;
+            }
+            ordinates[pos] = x;
+            ordinates[pos + 1] = y;
         }
-        result.x += getFalseEasting();
-        result.y += getFalseNorthing();
-        return result;
+        return failed;
     }
 
     @Override
@@ -206,181 +206,247 @@ public class TransverseMercator extends CylindricalProjection implements ITransv
     @Override
     public synchronized Point2d doInverseProjection( IGeographicCRS geographicCRS, double x, double y )
                             throws ProjectionException {
-        Point2d result = new Point2d( 0, 0 );
-        LOG.debug( "InverseProjection, incoming points x: " + x + " y: " + y );
-        x = ( x - getFalseEasting() ) / getScaleFactor( geographicCRS );
-        y = ( y - getFalseNorthing() ) / getScaleFactor( geographicCRS );
-        y *= hemisphere;
-
-        if ( isSpherical( geographicCRS ) ) {
-            // h holds e^x, the sinh = 0.5*(e^x - e^-x), cosh = 0.5(e^x + e^-x)
-            double h = Math.exp( x / getScaleFactor( geographicCRS ) );
-            // sinh holds the sinh from Snyder (p.60 8-7)
-            double sinh = .5 * ( h - 1. / h );
-
-            // Snyder (p.60 8-8)
-            // reuse variable
-            double cosD = Math.cos( getProjectionLatitude() + ( y/* / getScale() */) );
-            /**
-             * To calc phi from Snyder (p.60 8-6), use following trick! sin^2(D) + cos^2(D) = 1 => sin(D) = sqrt( 1-
-             * cos^2(D) ) and cosh^2(x) - sin^2(x) = 1 => cosh(x) = sqrt( 1+sin^2(x) )
-             */
-            result.y = asinScaled( Math.sqrt( ( 1. - cosD * cosD ) / ( 1. + sinh * sinh ) ) );
-            // if ( y < 0 ) {// southern hemisphere
-            // out.y = -out.y;
-            // }
-            result.x = Math.atan2( sinh, cosD );
-        } else {
-            // out.y will hold the phi_1 from Snyder (p.63 8-18).
-            result.y = calcPhiFromMeridianDistance( calculateMl0( geographicCRS ) + ( y/* / getScale() */),
-                                                    getSquaredEccentricity( geographicCRS ),
-                                                    calculateEn( geographicCRS ) );
-            // result.y = calcPhiFromMeridianDistance( ml0 + ( y / getScale() ),
-            // getSquaredEccentricity(),
-            // en );
-            if ( Math.abs( result.y ) >= HALFPI ) {
-                result.y = y < 0. ? -HALFPI : HALFPI;
-                result.x = 0;
-            } else {
-
-                double sinphi = Math.sin( result.y );
-                double cosphi = Math.cos( result.y );
-                // largeT Will hold the tan^2(phi) Snyder (p.64 8-22).
-                double largeT = ( Math.abs( cosphi ) > EPS10 ) ? sinphi / cosphi : 0;
-
-                // will hold the C_1 from Synder (p.64 8-21)
-                double largeC = calculateEsp( geographicCRS ) * cosphi * cosphi;
-
-                // Holds a modified N from Synder (p.64 8-23), multiplied with the largeT, it is the first term fo the
-                // calculation of phi e.g. N*T/R
-                double con = 1. - ( getSquaredEccentricity( geographicCRS ) * sinphi * sinphi );
-                // largeD holds the D from Snyder (p.64 8-25). (x/(1/N) = x*N)
-                // double largeD = x * Math.sqrt( con ) / getScaleFactor();
-                double largeD = x * Math.sqrt( con )/* / getScale() */;
-                con *= largeT;
-                largeT *= largeT;
-                double ds = largeD * largeD;
+        if ( LOG.isDebugEnabled() ) {
+            LOG.debug( "InverseProjection, incoming points x: " + x + " y: " + y );
+        }
+        double[] ordinates = new double[] { x, y };
+        if ( doInverseProjection( geographicCRS, ordinates, 0, 2, 1 ) > 0 ) {
+            throw new ProjectionException( "The point x: " + x + " y: " + y + " could not be inverted." );
+        }
+        return new Point2d( ordinates[0], ordinates[1] );
+    }
 
+    @Override
+    public synchronized int doInverseProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset,
+                                                 int stride, int count ) {
+        final boolean spherical = isSpherical( geographicCRS );
+        final double scaleFactor = getScaleFactor( geographicCRS );
+        final double es = getSquaredEccentricity( geographicCRS );
+        final double esp = calculateEsp( geographicCRS );
+        final double ml0 = calculateMl0( geographicCRS );
+        final double[] en = spherical ? null : calculateEn( geographicCRS );
+        final double projectionLatitude = getProjectionLatitude();
+        final double projectionLongitude = getProjectionLongitude();
+        final double falseEasting = getFalseEasting();
+        final double falseNorthing = getFalseNorthing();
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            double x = ordinates[pos];
+            double y = ordinates[pos + 1];
+            double rx = 0;
+            double ry = 0;
+            x = ( x - falseEasting ) / scaleFactor;
+            y = ( y - falseNorthing ) / scaleFactor;
+            y *= hemisphere;
+
+            if ( spherical ) {
+                // h holds e^x, the sinh = 0.5*(e^x - e^-x), cosh = 0.5(e^x + e^-x)
+                double h = Math.exp( x / scaleFactor );
+                // sinh holds the sinh from Snyder (p.60 8-7)
+                double sinh = .5 * ( h - 1. / h );
+
+                // Snyder (p.60 8-8)
+                // reuse variable
+                double cosD = Math.cos( projectionLatitude + ( y/* / getScale() */) );
                 /**
-                 * As for the forward projection, I'm not sure if this is correct, this should be checked!
+                 * To calc phi from Snyder (p.60 8-6), use following trick! sin^2(D) + cos^2(D) = 1 => sin(D) = sqrt( 1-
+                 * cos^2(D) ) and cosh^2(x) - sin^2(x) = 1 => cosh(x) = sqrt( 1+sin^2(x) )
                  */
-                result.y -= ( con * ds / ( 1. - getSquaredEccentricity( geographicCRS ) ) )
-                            * FC2
-                            * ( 1. - ds
-                                     * FC4
-                                     * ( 5. + largeT * ( 3. - 9. * largeC ) + largeC * ( 1. - 4 * largeC ) - ds
-                                                                                                             * FC6
-                                                                                                             * ( 61.
-                                                                                                                 + largeT
-                                                                                                                 * ( 90. - 252. * largeC + 45. * largeT )
-                                                                                                                 + 46.
-                                                                                                                 * largeC - ds
-                                                                                                                            * FC8
-                                                                                                                            * ( 1385. + largeT
-                                                                                                                                        * ( 3633. + largeT
-                                                                                                                                                    * ( 4095. + 1574. * largeT ) ) ) ) ) );
-                result.x = largeD
-                           * ( FC1 - ds
-                                     * FC3
-                                     * ( 1. + 2. * largeT + largeC - ds
-                                                                     * FC5
-                                                                     * ( 5. + largeT
-                                                                         * ( 28. + 24. * largeT + 8. * largeC ) + 6.
-                                                                         * largeC - ds
-                                                                                    * FC7
-                                                                                    * ( 61. + largeT
-                                                                                              * ( 662. + largeT
-                                                                                                         * ( 1320. + 720. * largeT ) ) ) ) ) )
-                           / cosphi;
+                ry = asinScaled( Math.sqrt( ( 1. - cosD * cosD ) / ( 1. + sinh * sinh ) ) );
+                // if ( y < 0 ) {// southern hemisphere
+                // out.y = -out.y;
+                // }
+                rx = Math.atan2( sinh, cosD );
+            } else {
+                // out.y will hold the phi_1 from Snyder (p.63 8-18).
+                ry = calcPhiFromMeridianDistance( ml0 + ( y/* / getScale() */), es, en );
+                // ry = calcPhiFromMeridianDistance( ml0 + ( y / getScale() ),
+                // getSquaredEccentricity(),
+                // en );
+                if ( Math.abs( ry ) >= HALFPI ) {
+                    ry = y < 0. ? -HALFPI : HALFPI;
+                    rx = 0;
+                } else {
+
+                    double sinphi = Math.sin( ry );
+                    double cosphi = Math.cos( ry );
+                    // largeT Will hold the tan^2(phi) Snyder (p.64 8-22).
+                    double largeT = ( Math.abs( cosphi ) > EPS10 ) ? sinphi / cosphi : 0;
+
+                    // will hold the C_1 from Synder (p.64 8-21)
+                    double largeC = esp * cosphi * cosphi;
+
+                    // Holds a modified N from Synder (p.64 8-23), multiplied with the largeT, it is the first term fo the
+                    // calculation of phi e.g. N*T/R
+                    double con = 1. - ( es * sinphi * sinphi );
+                    // largeD holds the D from Snyder (p.64 8-25). (x/(1/N) = x*N)
+                    // double largeD = x * Math.sqrt( con ) / getScaleFactor();
+                    double largeD = x * Math.sqrt( con )/* / getScale() */;
+                    con *= largeT;
+                    largeT *= largeT;
+                    double ds = largeD * largeD;
+
+                    /**
+                     * As for the forward projection, I'm not sure if this is correct, this should be checked!
+                     */
+                    ry -= ( con * ds / ( 1. - es ) )
+                                * FC2
+                                * ( 1. - ds
+                                         * FC4
+                                         * ( 5. + largeT * ( 3. - 9. * largeC ) + largeC * ( 1. - 4 * largeC ) - ds
+                                                                                                                 * FC6
+                                                                                                                 * ( 61.
+                                                                                                                     + largeT
+                                                                                                                     * ( 90. - 252. * largeC + 45. * largeT )
+                                                                                                                     + 46.
+                                                                                                                     * largeC - ds
+                                                                                                                                * FC8
+                                                                                                                                * ( 1385. + largeT
+                                                                                                                                            * ( 3633. + largeT
+                                                                                                                                                        * ( 4095. + 1574. * largeT ) ) ) ) ) );
+                    rx = largeD
+                               * ( FC1 - ds
+                                         * FC3
+                                         * ( 1. + 2. * largeT + largeC - ds
+                                                                         * FC5
+                                                                         * ( 5. + largeT
+                                                                             * ( 28. + 24. * largeT + 8. * largeC ) + 6.
+                                                                             * largeC - ds
+                                                                                        * FC7
+                                                                                        * ( 61. + largeT
+                                                                                                  * ( 662. + largeT
+                                                                                                             * ( 1320. + 720. * largeT ) ) ) ) ) )
+                               / cosphi;
+                }
             }
+            // ry += projectionLatitude;
+            rx += projectionLongitude;
+
+            if ( !isFinite( rx, ry ) ) {
+                LOG.debug( "Inverse projection error: x: {} y: {} could not be inverted.", ordinates[pos],
+                           ordinates[pos + 1] );
+                ++failed;
+                continue;
+            }
+            ordinates[pos] = rx;
+            ordinates[pos + 1] = ry;
         }
-        // result.y += getProjectionLatitude();
-        result.x += getProjectionLongitude();
-
-        return result;
+        return failed;
     }
 
-    /*
-     * (non-Javadoc)
-     * 
-     * @see org.deegree.cs.projections.Projection#doProjection(double, double)
-     */
     @Override
     public synchronized Point2d doProjection( IGeographicCRS geographicCRS, double lambda, double phi )
                             throws ProjectionException {
         // LOG.debug( "Projection, incoming points lambda: " + lambda + " phi: " + phi );
-        LOG.debug( "Projection, incoming points lambda: " + Math.toDegrees( lambda ) + " phi: " + Math.toDegrees( phi ) );
-        Point2d result = new Point2d( 0, 0 );
-        lambda -= getProjectionLongitude();
-        // phi -= getProjectionLatitude();
-
-        phi *= hemisphere;
-        double cosphi = Math.cos( phi );
-        if ( isSpherical( geographicCRS ) ) {
-            double b = cosphi * Math.sin( lambda );
+        if ( LOG.isDebugEnabled() ) {
+            LOG.debug( "Projection, incoming points lambda: " + Math.toDegrees( lambda ) + " phi: "
+                       + Math.toDegrees( phi ) );
+        }
+        double[] ordinates = new double[] { lambda, phi };
+        if ( doProjection( geographicCRS, ordinates, 0, 2, 1 ) > 0 ) {
+            throw new ProjectionException( "The point lambda: " + lambda + " phi: " + phi
+                                           + " could not be projected." );
+        }
+        return new Point2d( ordinates[0], ordinates[1] );
+    }
 
-            // Snyder (p.58 8-1)
-            result.x = calculateMl0( geographicCRS ) * getScaleFactor( geographicCRS )
-                       * Math.log( ( 1. + b ) / ( 1. - b ) );
+    @Override
+    public synchronized int doProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride,
+                                          int count ) {
+        final boolean spherical = isSpherical( geographicCRS );
+        final double scaleFactor = getScaleFactor( geographicCRS );
+        final double es = getSquaredEccentricity( geographicCRS );
+        final double esp = calculateEsp( geographicCRS );
+        final double ml0 = calculateMl0( geographicCRS );
+        final double[] en = spherical ? null : calculateEn( geographicCRS );
+        final double projectionLatitude = getProjectionLatitude();
+        final double projectionLongitude = getProjectionLongitude();
+        final double falseEasting = getFalseEasting();
+        final double falseNorthing = getFalseNorthing();
+        int failed = 0;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += stride ) {
+            double lambda = ordinates[pos];
+            double phi = ordinates[pos + 1];
+            double rx = 0;
+            double ry = 0;
+            lambda -= projectionLongitude;
+            // phi -= projectionLatitude;
+
+            phi *= hemisphere;
+            double cosphi = Math.cos( phi );
+            if ( spherical ) {
+                double b = cosphi * Math.sin( lambda );
+
+                // Snyder (p.58 8-1)
+                rx = ml0 * scaleFactor * Math.log( ( 1. + b ) / ( 1. - b ) );
+
+                // reformed and inserted the k from (p.58 8-4), so no tangens has to be calculated.
+                double ty = cosphi * Math.cos( lambda ) / Math.sqrt( 1. - b * b );
+                ty = acosScaled( ty );
+                if ( phi < 0.0 ) {
+                    ty = -ty;
+                }
+                // esp just holds the scale
+                ry = esp * ( ty - projectionLatitude );
+            } else {
+                double sinphi = Math.sin( phi );
+                double largeT = ( Math.abs( cosphi ) > EPS10 ) ? sinphi / cosphi : 0.0;
+                // largeT holds Snyder (p.61 8-13).
+                largeT *= largeT;
+                double largeA = cosphi * lambda;
+                double squaredLargeA = largeA * largeA;
+                // largeA now holds A/N Snyder (p.61 4-20 and 8-15)
+                largeA /= Math.sqrt( 1. - ( es * sinphi * sinphi ) );
+
+                // largeA *= getSemiMajorAxis();
+
+                // largeC will hold Snyder (p.61 8-14), esp holds Snyder (p.61 8-12).
+                double largeC = esp * cosphi * cosphi;
+                double largeM = getDistanceAlongMeridian( phi, sinphi, cosphi, en );
+
+                rx = largeA
+                           * ( FC1 + FC3
+                                     * squaredLargeA
+                                     * ( 1. - largeT + largeC + FC5
+                                                                * squaredLargeA
+                                                                * ( 5. + largeT * ( largeT - 18. ) + largeC
+                                                                    * ( 14. - 58. * largeT ) + FC7
+                                                                                               * squaredLargeA
+                                                                                               * ( 61. + largeT
+                                                                                                         * ( largeT
+                                                                                                             * ( 179. - largeT ) - 479. ) ) ) ) );
+
+                ry = ( largeM - ml0 )
+                           + sinphi
+                           * largeA
+                           * lambda
+                           * FC2
+                           * ( 1. + FC4
+                                    * squaredLargeA
+                                    * ( 5. - largeT + largeC * ( 9. + 4. * largeC ) + FC6
+                                                                                      * squaredLargeA
+                                                                                      * ( 61. + largeT * ( largeT - 58. )
+                                                                                          + largeC * ( 270. - 330 * largeT ) + FC8
+                                                                                                                               * squaredLargeA
+                                                                                                                               * ( 1385. + largeT
+                                                                                                                                           * ( largeT
+                                                                                                                                               * ( 543. - largeT ) - 3111. ) ) ) ) );
 
-            // reformed and inserted the k from (p.58 8-4), so no tangens has to be calculated.
-            double ty = cosphi * Math.cos( lambda ) / Math.sqrt( 1. - b * b );
-            ty = acosScaled( ty );
-            if ( phi < 0.0 ) {
-                ty = -ty;
             }
-            // esp just holds the scale
-            result.y = calculateEsp( geographicCRS ) * ( ty - getProjectionLatitude() );
-        } else {
-            double sinphi = Math.sin( phi );
-            double largeT = ( Math.abs( cosphi ) > EPS10 ) ? sinphi / cosphi : 0.0;
-            // largeT holds Snyder (p.61 8-13).
-            largeT *= largeT;
-            double largeA = cosphi * lambda;
-            double squaredLargeA = largeA * largeA;
-            // largeA now holds A/N Snyder (p.61 4-20 and 8-15)
-            largeA /= Math.sqrt( 1. - ( getSquaredEccentricity( geographicCRS ) * sinphi * sinphi ) );
-
-            // largeA *= getSemiMajorAxis();
-
-            // largeC will hold Snyder (p.61 8-14), esp holds Snyder (p.61 8-12).
-            double largeC = calculateEsp( geographicCRS ) * cosphi * cosphi;
-            double largeM = getDistanceAlongMeridian( phi, sinphi, cosphi, calculateEn( geographicCRS ) );
-
-            result.x = largeA
-                       * ( FC1 + FC3
-                                 * squaredLargeA
-                                 * ( 1. - largeT + largeC + FC5
-                                                            * squaredLargeA
-                                                            * ( 5. + largeT * ( largeT - 18. ) + largeC
-                                                                * ( 14. - 58. * largeT ) + FC7
-                                                                                           * squaredLargeA
-                                                                                           * ( 61. + largeT
-                                                                                                     * ( largeT
-                                                                                                         * ( 179. - largeT ) - 479. ) ) ) ) );
-
-            result.y = ( largeM - calculateMl0( geographicCRS ) )
-                       + sinphi
-                       * largeA
-                       * lambda
-                       * FC2
-                       * ( 1. + FC4
-                                * squaredLargeA
-                                * ( 5. - largeT + largeC * ( 9. + 4. * largeC ) + FC6
-                                                                                  * squaredLargeA
-                                                                                  * ( 61. + largeT * ( largeT - 58. )
-                                                                                      + largeC * ( 270. - 330 * largeT ) + FC8
-                                                                                                                           * squaredLargeA
-                                                                                                                           * ( 1385. + largeT
-                                                                                                                                       * ( largeT
-                                                                                                                                           * ( 543. - largeT ) - 3111. ) ) ) ) );
 
-        }
+            rx = ( rx * scaleFactor ) + falseEasting;
+            ry = ( ry * scaleFactor ) + falseNorthing;
 
-        result.x = ( result.x * getScaleFactor( geographicCRS ) ) + getFalseEasting();
-        result.y = ( result.y * getScaleFactor( geographicCRS ) ) + getFalseNorthing();
-
-        return result;
+            if ( !isFinite( rx, ry ) ) {
+                LOG.debug( "Projection error: lambda: {} phi: {} could not be projected.", ordinates[pos],
+                           ordinates[pos + 1] );
+                ++failed;
+                continue;
+            }
+            ordinates[pos] = rx;
+            ordinates[pos + 1] = ry;
+        }
+        return failed;
     }
 
     /**
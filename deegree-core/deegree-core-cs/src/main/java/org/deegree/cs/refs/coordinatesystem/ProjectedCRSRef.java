@@ -93,6 +93,14 @@ public class ProjectedCRSRef extends CRSRef implements IProjectedCRS {
         return getReferencedObject().doInverseProjection( x, y );
     }
 
+    public int doProjection( double[] ordinates, int offset, int stride, int count ) {
+        return getReferencedObject().doProjection( ordinates, offset, stride, count );
+    }
+
+    public int doInverseProjection( double[] ordinates, int offset, int stride, int count ) {
+        return getReferencedObject().doInverseProjection( ordinates, offset, stride, count );
+    }
+
     @Override
     public boolean equals( Object obj ) {
         return super.equals( obj ) ? true : getReferencedObject().equals( obj );
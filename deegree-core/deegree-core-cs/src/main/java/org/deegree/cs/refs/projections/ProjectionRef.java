@@ -81,6 +81,15 @@ public class ProjectionRef extends CRSResourceRef<IProjection> implements Serial
         return getReferencedObject().doInverseProjection( geographicCRS, x, y );
     }
 
+    public int doProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride, int count ) {
+        return getReferencedObject().doProjection( geographicCRS, ordinates, offset, stride, count );
+    }
+
+    public int doInverseProjection( IGeographicCRS geographicCRS, double[] ordinates, int offset, int stride,
+                                    int count ) {
+        return getReferencedObject().doInverseProjection( geographicCRS, ordinates, offset, stride, count );
+    }
+
     public String getImplementationName() {
         return getReferencedObject().getImplementationName();
     }
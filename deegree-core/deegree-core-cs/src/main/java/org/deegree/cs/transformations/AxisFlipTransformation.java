@@ -73,6 +73,15 @@ public class AxisFlipTransformation extends Transformation {
         return srcPts;
     }
 
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            double tmpX = xyz[pos];
+            xyz[pos] = xyz[pos + 1];
+            xyz[pos + 1] = tmpX;
+        }
+    }
+
     @Override
     public boolean isIdentity() {
         return false;
@@ -36,7 +36,8 @@
 
 package org.deegree.cs.transformations;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.vecmath.Point3d;
@@ -125,6 +126,71 @@ public abstract class Transformation extends CRSIdentifiable {
     public abstract List<Point3d> doTransform( final List<Point3d> srcPts )
                             throws TransformationException;
 
+    /**
+     * Transforms the given coordinates in place. The coordinates are stored as consecutive x, y, z triples (the layout
+     * of a {@link Point3d}), the z value of two dimensional coordinates should be {@link Double#NaN} or <code>0</code>.
+     * This is the primitive every coordinate (array) based method of this class is based upon, it does not create any
+     * intermediate objects for the transformations which implement it. The default implementation wraps the
+     * coordinates into a list of {@link Point3d} and calls {@link #doTransform(List)}, subclasses should override it.
+     * 
+     * @param xyz
+     *            holding the x, y, z triples, must not be <code>null</code>
+     * @param offset
+     *            position of the x value of the first coordinate
+     * @param count
+     *            number of coordinates to transform
+     * @throws TransformationException
+     *             if a transform could not be calculated.
+     */
+    public void doTransformInPlace( double[] xyz, int offset, int count )
+                            throws TransformationException {
+        List<Point3d> points = new ArrayList<Point3d>( count );
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            points.add( new Point3d( xyz[pos], xyz[pos + 1], xyz[pos + 2] ) );
+        }
+        List<Point3d> result = doTransform( points );
+        Iterator<Point3d> iter = result.iterator();
+        for ( int i = 0, pos = offset; i < count && iter.hasNext(); ++i, pos += 3 ) {
+            Point3d p = iter.next();
+            xyz[pos] = p.x;
+            xyz[pos + 1] = p.y;
+            xyz[pos + 2] = p.z;
+        }
+    }
+
+    /**
+     * Adapter for subclasses implementing {@link #doTransformInPlace(double[], int, int)}: transforms the given points
+     * with it and writes the results back into the points.
+     * 
+     * @param srcPts
+     *            to transform, may be <code>null</code>
+     * @return the given list holding the transformed points
+     * @throws TransformationException
+     *             if a transform could not be calculated.
+     */
+    protected final List<Point3d> doTransformInPlace( List<Point3d> srcPts )
+                            throws TransformationException {
+        if ( srcPts == null || srcPts.isEmpty() ) {
+            return srcPts;
+        }
+        final int count = srcPts.size();
+        double[] xyz = new double[count * 3];
+        int pos = 0;
+        for ( Point3d p : srcPts ) {
+            xyz[pos++] = p.x;
+            xyz[pos++] = p.y;
+            xyz[pos++] = p.z;
+        }
+        doTransformInPlace( xyz, 0, count );
+        pos = 0;
+        for ( Point3d p : srcPts ) {
+            p.x = xyz[pos++];
+            p.y = xyz[pos++];
+            p.z = xyz[pos++];
+        }
+        return srcPts;
+    }
+
     /**
      * @return true if this transformation doesn't transform the incoming points. (e.g. is the id. matrix)
      */
@@ -144,9 +210,10 @@ public abstract class Transformation extends CRSIdentifiable {
     }
 
     /**
-     * Wraps the incoming coordinates into a List<Point3d> and calls the {@link #doTransform(List)}. The source array
-     * will be read according to the dimension of the source CRS {@link #getSourceDimension()} and the target
-     * coordinates will be put according to the dimension of the targetCRS {@link #getTargetDimension()}. If the
+     * Copies the incoming coordinates into an x, y, z array and calls {@link #doTransformInPlace(double[], int, int)}
+     * (if source and target dimension are 3, the coordinates are transformed directly in the destination array). The
+     * source array will be read according to the dimension of the source CRS {@link #getSourceDimension()} and the
+     * target coordinates will be put according to the dimension of the targetCRS {@link #getTargetDimension()}. If the
      * sourceDim &lt; 2 or &gt; 3 a transformation exception will be thrown.
      * 
      * @param srcOrdinates
@@ -199,19 +266,19 @@ public abstract class Transformation extends CRSIdentifiable {
             throw new IllegalArgumentException( Messages.getMessage( "CRS_TRANSFORM_LAST_LT_START" ) );
         }
 
-        List<Point3d> sourceCoords = new LinkedList<Point3d>();
         final int dim = getSourceDimension();
         if ( dim > 3 || dim < 2 ) {
             throw new TransformationException( Messages.getMessage( "CRS_TRANSFORM_WRONG_CRS_DIM", "source" ) );
         }
-        for ( int i = startPositionSrc; ( ( i + ( dim - 1 ) ) < ( startPositionSrc + length ) ); i += dim ) {
-            sourceCoords.add( new Point3d( srcOrdinates[i], srcOrdinates[i + 1], ( dim == 3 ) ? srcOrdinates[i + 2] : 0 ) );
+        final int dimDest = getTargetDimension();
+        if ( dimDest > 3 || dimDest < 2 ) {
+            throw new TransformationException( Messages.getMessage( "CRS_TRANSFORM_WRONG_CRS_DIM", "target" ) );
         }
-        List<Point3d> result = doTransform( sourceCoords );
+        final int count = length / dim;
         if ( startPositionDest < 0 ) {
             startPositionDest = 0;
         }
-        final int requiredSpace = result.size() * getTargetDimension();
+        final int requiredSpace = count * dimDest;
         if ( destOrdinates == null ) {
             startPositionDest = 0;
             destOrdinates = new double[requiredSpace];
@@ -222,22 +289,29 @@ public abstract class Transformation extends CRSIdentifiable {
             System.arraycopy( destOrdinates, 0, tmp, 0, startPositionDest );
             destOrdinates = tmp;
         }
-        final int dimDest = getTargetDimension();
-        if ( dimDest > 3 || dimDest < 2 ) {
-            throw new TransformationException( Messages.getMessage( "CRS_TRANSFORM_WRONG_CRS_DIM", "target" ) );
+        if ( dim == 3 && dimDest == 3 ) {
+            System.arraycopy( srcOrdinates, startPositionSrc, destOrdinates, startPositionDest, count * 3 );
+            doTransformInPlace( destOrdinates, startPositionDest, count );
+            return;
+        }
+        double[] xyz = new double[count * 3];
+        for ( int i = 0, src = startPositionSrc, pos = 0; i < count; ++i, src += dim ) {
+            xyz[pos++] = srcOrdinates[src];
+            xyz[pos++] = srcOrdinates[src + 1];
+            xyz[pos++] = ( dim == 3 ) ? srcOrdinates[src + 2] : 0;
         }
-        int arrayPos = startPositionDest;
-        for ( Point3d coord : result ) {
-            destOrdinates[arrayPos++] = coord.x;
-            destOrdinates[arrayPos++] = coord.y;
+        doTransformInPlace( xyz, 0, count );
+        for ( int i = 0, dest = startPositionDest, pos = 0; i < count; ++i, pos += 3 ) {
+            destOrdinates[dest++] = xyz[pos];
+            destOrdinates[dest++] = xyz[pos + 1];
             if ( dimDest == 3 ) {
-                destOrdinates[arrayPos++] = coord.z;
+                destOrdinates[dest++] = xyz[pos + 2];
             }
         }
     }
 
     /**
-     * Transforms a single point3d (by calling the doTransform( List<Point3d>).
+     * Transforms a single point3d in place (by calling {@link #doTransformInPlace(double[], int, int)}).
      * 
      * @param coordinate
      *            to transform, if <code>null</code> null will be returned.
@@ -250,9 +324,10 @@ public abstract class Transformation extends CRSIdentifiable {
         if ( coordinate == null ) {
             return null;
         }
-        List<Point3d> coord = new LinkedList<Point3d>();
-        coord.add( coordinate );
-        return doTransform( coord ).get( 0 );
+        double[] xyz = new double[] { coordinate.x, coordinate.y, coordinate.z };
+        doTransformInPlace( xyz, 0, 1 );
+        coordinate.set( xyz );
+        return coordinate;
     }
 
     /**
@@ -119,12 +119,20 @@ public class ConcatenatedTransform extends Transformation {
     public List<Point3d> doTransform( List<Point3d> srcPts )
                             throws TransformationException {
         if ( !isIdentitiy ) {
-            List<Point3d> dest = firstTransform.doTransform( srcPts );
-            return secondTransform.doTransform( dest );
+            return doTransformInPlace( srcPts );
         }
         return srcPts;
     }
 
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count )
+                            throws TransformationException {
+        if ( !isIdentitiy ) {
+            firstTransform.doTransformInPlace( xyz, offset, count );
+            secondTransform.doTransformInPlace( xyz, offset, count );
+        }
+    }
+
     @Override
     public void inverse() {
         super.inverse();
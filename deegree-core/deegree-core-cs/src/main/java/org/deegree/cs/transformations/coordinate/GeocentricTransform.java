@@ -39,7 +39,6 @@ package org.deegree.cs.transformations.coordinate;
 import static org.deegree.cs.utilities.ProjectionUtils.EPS11;
 import static org.deegree.cs.utilities.ProjectionUtils.length;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.vecmath.Point3d;
@@ -54,6 +53,7 @@ import org.deegree.cs.coordinatesystems.CRS.CRSType;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.cs.coordinatesystems.ICompoundCRS;
 import org.deegree.cs.coordinatesystems.IGeocentricCRS;
+import org.deegree.cs.exceptions.TransformationException;
 import org.deegree.cs.transformations.Transformation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -174,8 +174,8 @@ public class GeocentricTransform extends Transformation {
     }
 
     @Override
-    public List<Point3d> doTransform( List<Point3d> srcPts ) {
-        List<Point3d> result = new ArrayList<Point3d>( srcPts );
+    public List<Point3d> doTransform( List<Point3d> srcPts )
+                            throws TransformationException {
         if ( LOG.isDebugEnabled() ) {
             StringBuilder sb = new StringBuilder( isInverseTransform() ? "An inverse " : "A " );
             sb.append( getImplementationName() );
@@ -183,12 +183,16 @@ public class GeocentricTransform extends Transformation {
             sb.append( srcPts );
             LOG.debug( sb.toString() );
         }
+        return doTransformInPlace( srcPts );
+    }
+
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
         if ( isInverseTransform() ) {
-            toGeographic( result );
+            toGeographic( xyz, offset, count );
         } else {
-            toGeoCentric( result );
+            toGeoCentric( xyz, offset, count );
         }
-        return result;
     }
 
     /**
@@ -196,21 +200,28 @@ public class GeocentricTransform extends Transformation {
      * current ellipsoid parameters. The method used here is derived from "An Improved Algorithm for Geocentric to
      * Geodetic Coordinate Conversion", by Ralph Toms, Feb 1996 UCRL-JC-123138.
      * 
-     * @param srcPts
-     *            the points which must be transformed.
+     * @param xyz
+     *            holding the x, y, z triples of the coordinates which must be transformed.
+     * @param offset
+     *            position of the first coordinate
+     * @param count
+     *            number of coordinates
      */
-    protected void toGeographic( List<Point3d> srcPts ) {
-        for ( Point3d p : srcPts ) {
+    protected void toGeographic( double[] xyz, int offset, int count ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double x = xyz[pos];
+            final double y = xyz[pos + 1];
+            final double z = xyz[pos + 2];
             // Note: Variable names follow the notation used in Toms, Feb 1996
 
-            final double T0 = p.z * AD_C; // initial estimate of vertical component
-            final double W = length( p.x, p.y );// distance from Z axis
+            final double T0 = z * AD_C; // initial estimate of vertical component
+            final double W = length( x, y );// distance from Z axis
             final double S0 = length( T0, W );// initial estimate of horizontal component
 
             final double sin_B0 = T0 / S0; // sin(B0), B0 is estimate of Bowring variable
             final double cos_B0 = W / S0; // cos(B0)
             final double sin3_B0 = sin_B0 * sin_B0 * sin_B0; // cube of sin(B0)
-            final double T1 = p.z + semiMinorAxis * ep2 * sin3_B0; // corrected estimate of vertical component
+            final double T1 = z + semiMinorAxis * ep2 * sin3_B0; // corrected estimate of vertical component
 
             // numerator of cos(phi1)
             final double sum = W - semiMajorAxis * squaredEccentricity * ( cos_B0 * cos_B0 * cos_B0 );
@@ -223,8 +234,8 @@ public class GeocentricTransform extends Transformation {
             final double cosPhi = sum / S1; // cos(phi)
 
             // Lambda in tom.
-            p.x = Math.atan2( p.y, p.x );// longitude;
-            p.y = Math.atan( sinPhi / cosPhi );// latitude;
+            xyz[pos] = Math.atan2( y, x );// longitude;
+            xyz[pos + 1] = Math.atan( sinPhi / cosPhi );// latitude;
             if ( hasHeight ) {
                 double height;
                 // rn = radius of curvature of the prime vertical, of the ellipsoid at location
@@ -235,11 +246,11 @@ public class GeocentricTransform extends Transformation {
                 } else if ( cosPhi <= -COS_67P5 ) {
                     height = W / -cosPhi - rn;
                 } else {
-                    height = p.z / sinPhi + rn * ( squaredEccentricity - 1.0 );
+                    height = z / sinPhi + rn * ( squaredEccentricity - 1.0 );
                 }
-                p.z = height;
+                xyz[pos + 2] = height;
             } else {
-                p.z = defaultHeightValue;
+                xyz[pos + 2] = defaultHeightValue;
             }
         }
     }
@@ -247,27 +258,32 @@ public class GeocentricTransform extends Transformation {
     /**
      * Converts geographic (longitude, latitude, height) to cartesian (x,y,z) coordinates.
      * 
-     * @param srcPts
-     *            to convert.
+     * @param xyz
+     *            holding the longitude, latitude, height triples of the coordinates to convert.
+     * @param offset
+     *            position of the first coordinate
+     * @param count
+     *            number of coordinates
      */
-    protected void toGeoCentric( List<Point3d> srcPts ) {
-        for ( Point3d p : srcPts ) {
-            final double lambda = p.x; // Longitude
-            final double phi = p.y; // Latitude
-            // first check the p.z value if it is defined, if not, use the defaultheight value, which will be
+    protected void toGeoCentric( double[] xyz, int offset, int count ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double lambda = xyz[pos]; // Longitude
+            final double phi = xyz[pos + 1]; // Latitude
+            double z = xyz[pos + 2];
+            // first check the z value if it is defined, if not, use the defaultheight value, which will be
             // initialized with 0 or the configured compound crs value.
-            if ( Double.isNaN( p.z ) || Math.abs( p.z ) < EPS11 ) {
-                p.z = defaultHeightValue;
+            if ( Double.isNaN( z ) || Math.abs( z ) < EPS11 ) {
+                z = defaultHeightValue;
             }
-            final double h = hasHeight ? p.z : 0; // Height above the ellipsoid (metres).
+            final double h = hasHeight ? z : 0; // Height above the ellipsoid (metres).
 
             final double cosPhi = Math.cos( phi );
             final double sinPhi = Math.sin( phi );
             final double rn = semiMajorAxis / Math.sqrt( 1 - squaredEccentricity * ( sinPhi * sinPhi ) );
 
-            p.x = ( rn + h ) * cosPhi * Math.cos( lambda );
-            p.y = ( rn + h ) * cosPhi * Math.sin( lambda );
-            p.z = ( rn * ( 1 - squaredEccentricity ) + h ) * sinPhi;
+            xyz[pos] = ( rn + h ) * cosPhi * Math.cos( lambda );
+            xyz[pos + 1] = ( rn + h ) * cosPhi * Math.sin( lambda );
+            xyz[pos + 2] = ( rn * ( 1 - squaredEccentricity ) + h ) * sinPhi;
         }
     }
 
@@ -69,6 +69,11 @@ public class IdentityTransform extends Transformation {
         return srcPts;
     }
 
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
+        // nothing to do
+    }
+
     @Override
     public String getImplementationName() {
         return "Identity";
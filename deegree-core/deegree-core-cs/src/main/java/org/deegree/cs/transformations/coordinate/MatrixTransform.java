@@ -271,29 +271,36 @@ public class MatrixTransform extends Transformation {
     }
 
     @Override
-    public List<Point3d> doTransform( List<Point3d> srcPts ) {
+    public List<Point3d> doTransform( List<Point3d> srcPts )
+                            throws TransformationException {
         if ( isIdentity() ) {
             return srcPts;
         }
-        // List<Point3d> results = new ArrayList<Point3d>( srcPts );
+        return doTransformInPlace( srcPts );
+    }
+
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
+        if ( count <= 0 || isIdentity() ) {
+            return;
+        }
         if ( isInverseTransform() ) {
             if ( matrix3D != null ) {
-                transform( invertMatrix3D, srcPts );
+                transform( invertMatrix3D, xyz, offset, count );
             } else if ( matrix4D != null ) {
-                transform( invertMatrix4D, srcPts );
+                transform( invertMatrix4D, xyz, offset, count );
             } else {
-                transform( invertMatrix, srcPts );
+                transform( invertMatrix, xyz, offset, count );
             }
         } else {
             if ( matrix3D != null ) {
-                transform( matrix3D, srcPts );
+                transform( matrix3D, xyz, offset, count );
             } else if ( matrix4D != null ) {
-                transform( matrix4D, srcPts );
+                transform( matrix4D, xyz, offset, count );
             } else {
-                transform( matrix, srcPts );
+                transform( matrix, xyz, offset, count );
             }
         }
-        return srcPts;
     }
 
     /**
@@ -413,10 +420,10 @@ public class MatrixTransform extends Transformation {
      * </pre>
      * </code> </blockquote>
      * 
-     * @param srcPts
-     *            list containing the source point coordinates.
+     * @param xyz
+     *            array containing the x, y, z triples of the coordinates.
      */
-    private void transform( GMatrix gm, List<Point3d> srcPts ) {
+    private void transform( GMatrix gm, double[] xyz, int offset, int count ) {
         final int inputDimension = numCol - 1;
         final int outputDimension = numRow - 1;
         if ( inputDimension > 3 ) {
@@ -433,14 +440,17 @@ public class MatrixTransform extends Transformation {
         }
 
         final double[] tmpPoint = new double[numRow];
-        for ( Point3d p : srcPts ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double x = xyz[pos];
+            final double y = xyz[pos + 1];
+            final double z = xyz[pos + 2];
             for ( int row = 0; row < numRow; ++row ) {
-                tmpPoint[row] = gm.getElement( row, 0 ) * p.x;
+                tmpPoint[row] = gm.getElement( row, 0 ) * x;
                 if ( numCol >= 2 ) {
-                    tmpPoint[row] += gm.getElement( row, 1 ) * p.y;
+                    tmpPoint[row] += gm.getElement( row, 1 ) * y;
                     if ( numCol >= 3 ) {
                         tmpPoint[row] += gm.getElement( row, 2 )
-                                         * ( ( !Double.isNaN( p.z ) && !Double.isInfinite( p.z ) ) ? p.z : 1 );
+                                         * ( ( !Double.isNaN( z ) && !Double.isInfinite( z ) ) ? z : 1 );
                         if ( numCol == 4 ) { // assume 1
                             tmpPoint[row] += gm.getElement( row, 3 );
                         }
@@ -450,11 +460,11 @@ public class MatrixTransform extends Transformation {
             }
             final double w = tmpPoint[outputDimension];
             if ( outputDimension >= 1 ) {
-                p.x = tmpPoint[0] / w;
+                xyz[pos] = tmpPoint[0] / w;
                 if ( outputDimension >= 2 ) {
-                    p.y = tmpPoint[1] / w;
+                    xyz[pos + 1] = tmpPoint[1] / w;
                     if ( outputDimension == 3 ) {
-                        p.z = tmpPoint[2] / w;
+                        xyz[pos + 2] = tmpPoint[2] / w;
                     }
                 }
             }
@@ -463,38 +473,47 @@ public class MatrixTransform extends Transformation {
     }
 
     /**
-     * Use the given GMatrix to transform the given points inplace.
+     * Use the given Matrix4d to transform the given coordinates in place.
      * 
      * @param m4d
      *            the matrix to use (e.g. the inverse matrix or the forward matrix.
-     * @param srcPts
-     *            The array containing the source point coordinates.
+     * @param xyz
+     *            The array containing the x, y, z triples of the coordinates.
      */
-    private void transform( Matrix4d m4d, List<Point3d> srcPts ) {
-        for ( Point3d p : srcPts ) {
-            m4d.transform( p );
+    private void transform( Matrix4d m4d, double[] xyz, int offset, int count ) {
+        final double m00 = m4d.m00, m01 = m4d.m01, m02 = m4d.m02, m03 = m4d.m03;
+        final double m10 = m4d.m10, m11 = m4d.m11, m12 = m4d.m12, m13 = m4d.m13;
+        final double m20 = m4d.m20, m21 = m4d.m21, m22 = m4d.m22, m23 = m4d.m23;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double x = xyz[pos];
+            final double y = xyz[pos + 1];
+            final double z = xyz[pos + 2];
+            xyz[pos] = m00 * x + m01 * y + m02 * z + m03;
+            xyz[pos + 1] = m10 * x + m11 * y + m12 * z + m13;
+            xyz[pos + 2] = m20 * x + m21 * y + m22 * z + m23;
         }
     }
 
     /**
-     * Use the given GMatrix to transform the given points in-place.
+     * Use the given Matrix3d to transform the given coordinates in place.
      * 
      * @param m3d
      *            the matrix to use (e.g. the inverse matrix or the forward matrix).
-     * @param srcPts
-     *            The array containing the source point coordinates.
+     * @param xyz
+     *            The array containing the x, y, z triples of the coordinates.
      */
-    private void transform( Matrix3d m3d, List<Point3d> srcPts ) {
-        for ( Point3d p : srcPts ) {
-
-            boolean zIsNaN = Double.isNaN( p.z );
-            if ( zIsNaN ) {
-                p.z = 1;
-            }
-            m3d.transform( p );
-            if ( zIsNaN ) {
-                p.z = Double.NaN;
-            }
+    private void transform( Matrix3d m3d, double[] xyz, int offset, int count ) {
+        final double m00 = m3d.m00, m01 = m3d.m01, m02 = m3d.m02;
+        final double m10 = m3d.m10, m11 = m3d.m11, m12 = m3d.m12;
+        final double m20 = m3d.m20, m21 = m3d.m21, m22 = m3d.m22;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double x = xyz[pos];
+            final double y = xyz[pos + 1];
+            final boolean zIsNaN = Double.isNaN( xyz[pos + 2] );
+            final double z = zIsNaN ? 1 : xyz[pos + 2];
+            xyz[pos] = m00 * x + m01 * y + m02 * z;
+            xyz[pos + 1] = m10 * x + m11 * y + m12 * z;
+            xyz[pos + 2] = zIsNaN ? Double.NaN : m20 * x + m21 * y + m22 * z;
         }
     }
 
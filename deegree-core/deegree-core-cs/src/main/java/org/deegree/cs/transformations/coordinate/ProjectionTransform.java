@@ -38,7 +38,6 @@ package org.deegree.cs.transformations.coordinate;
 
 import java.util.List;
 
-import javax.vecmath.Point2d;
 import javax.vecmath.Point3d;
 
 import org.deegree.commons.annotations.LoggingNotes;
@@ -48,7 +47,6 @@ import org.deegree.cs.CRSResource;
 import org.deegree.cs.components.Axis;
 import org.deegree.cs.components.IAxis;
 import org.deegree.cs.coordinatesystems.IProjectedCRS;
-import org.deegree.cs.exceptions.ProjectionException;
 import org.deegree.cs.exceptions.TransformationException;
 import org.deegree.cs.transformations.Transformation;
 import org.slf4j.Logger;
@@ -132,109 +130,74 @@ public class ProjectionTransform extends Transformation {
     @Override
     public List<Point3d> doTransform( List<Point3d> srcPts )
                             throws TransformationException {
-        // List<Point3d> result = new ArrayList<Point3d>( srcPts.size() );
-        // if ( LOG.isDebugEnabled() ) {
-        // StringBuilder sb = new StringBuilder( isInverseTransform() ? "An inverse" : "A" );
-        // sb.append( " projection transform with incoming points: " );
-        // sb.append( srcPts );
-        // sb.append( " and following projection: " );
-        // sb.append( projectedCRS.getProjection().getImplementationName() );
-        // LOG.debug( sb.toString() );
-        // }
-        if ( isInverseTransform() ) {
-            doInverseTransform( srcPts );
-        } else {
-            doForwardTransform( srcPts );
-        }
-
-        return srcPts;
+        return doTransformInPlace( srcPts );
     }
 
-    /**
-     * @param srcPts
-     */
-    private void doForwardTransform( List<Point3d> srcPts ) {
-        int i = 0;
-        if ( swapAxisSource ) {
-            for ( Point3d p : srcPts ) {
-                try {
-                    Point2d tmp = projectedCRS.doProjection( p.y, p.x );
-                    if ( swapAxisTarget ) {
-                        p.x = tmp.y;
-                        p.y = tmp.x;
-                    } else {
-                        p.x = tmp.x;
-                        p.y = tmp.y;
-                    }
-                } catch ( ProjectionException e ) {
-                    LOG.trace( "Stack trace:", e );
-                    LOG.warn( "Transformation error: {}", e.getLocalizedMessage() );
-                }
-                ++i;
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
+        if ( count <= 0 ) {
+            return;
+        }
+        final boolean inverse = isInverseTransform();
+        final boolean swapIncoming = inverse ? swapAxisTarget : swapAxisSource;
+        final boolean swapOutgoing = inverse ? swapAxisSource : swapAxisTarget;
+        if ( swapIncoming ) {
+            swapAxis( xyz, offset, count );
+        }
+        // the projection leaves failed coordinates unchanged, if only one of the swaps is applied, the incoming
+        // ordinates are needed to find them and keep their original axis order
+        double[] incoming = null;
+        if ( swapIncoming != swapOutgoing ) {
+            incoming = new double[2 * count];
+            for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+                incoming[2 * i] = xyz[pos];
+                incoming[2 * i + 1] = xyz[pos + 1];
             }
+        }
+        int failed;
+        if ( inverse ) {
+            failed = projectedCRS.doInverseProjection( xyz, offset, 3, count );
         } else {
-            for ( Point3d p : srcPts ) {
-                try {
-                    Point2d tmp = projectedCRS.doProjection( p.x, p.y );
-                    if ( swapAxisTarget ) {
-                        p.x = tmp.y;
-                        p.y = tmp.x;
-                    } else {
-                        p.x = tmp.x;
-                        p.y = tmp.y;
-                    }
-                } catch ( ProjectionException e ) {
-                    LOG.trace( "Stack trace:", e );
-                    LOG.warn( "Transformation error: {}", e.getLocalizedMessage() );
-                }
-                ++i;
-            }
+            failed = projectedCRS.doProjection( xyz, offset, 3, count );
+        }
+        if ( incoming != null && failed > 0 ) {
+            swapProjectedAxis( xyz, offset, count, incoming, swapIncoming );
+        } else if ( swapOutgoing ) {
+            swapAxis( xyz, offset, count );
+        }
+        if ( failed > 0 ) {
+            LOG.warn( "Transformation error: {} of {} coordinates could not be {}.",
+                      new Object[] { failed, count, inverse ? "inverted" : "projected" } );
         }
-
     }
 
     /**
-     * @param srcPts
+     * Applies the outgoing swap to the projected coordinates, while the coordinates which are still equal to the
+     * incoming ones (i.e. could not be projected) are restored to their original axis order.
      */
-    private void doInverseTransform( List<Point3d> srcPts ) {
-        int i = 0;
-        if ( swapAxisTarget ) {
-            for ( Point3d p : srcPts ) {
-                try {
-                    Point2d tmp = projectedCRS.doInverseProjection( p.y, p.x );
-                    if ( swapAxisSource ) {
-                        p.x = tmp.y;
-                        p.y = tmp.x;
-                    } else {
-                        p.x = tmp.x;
-                        p.y = tmp.y;
-                    }
-                } catch ( ProjectionException e ) {
-                    LOG.trace( "Stack trace:", e );
-                    LOG.warn( "Transformation error: {}", e.getLocalizedMessage() );
-                }
-                ++i;
-            }
-        } else {
-            for ( Point3d p : srcPts ) {
-                try {
-                    Point2d tmp = projectedCRS.doInverseProjection( p.x, p.y );
-                    if ( swapAxisSource ) {
-                        p.x = tmp.y;
-                        p.y = tmp.x;
-                    } else {
-                        p.x = tmp.x;
-                        p.y = tmp.y;
-                    }
-                } catch ( ProjectionException e ) {
-                    LOG.trace( "Stack trace:", e );
-                    LOG.warn( "Transformation error: {}", e.getLocalizedMessage() );
-                }
-                ++i;
+    private static void swapProjectedAxis( double[] xyz, int offset, int count, double[] incoming,
+                                           boolean swapIncoming ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            boolean unchanged = Double.compare( xyz[pos], incoming[2 * i] ) == 0
+                                && Double.compare( xyz[pos + 1], incoming[2 * i + 1] ) == 0;
+            // only one of the swaps is applied, so unchanged coordinates need the incoming swap to be undone and
+            // projected coordinates need the outgoing swap
+            if ( unchanged == swapIncoming ) {
+                double tmp = xyz[pos];
+                xyz[pos] = xyz[pos + 1];
+                xyz[pos + 1] = tmp;
             }
         }
     }
 
+    private static void swapAxis( double[] xyz, int offset, int count ) {
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            double tmp = xyz[pos];
+            xyz[pos] = xyz[pos + 1];
+            xyz[pos + 1] = tmp;
+        }
+    }
+
     @Override
     public boolean isIdentity() {
         // a projection cannot be an identity it doesn't make a lot of sense.
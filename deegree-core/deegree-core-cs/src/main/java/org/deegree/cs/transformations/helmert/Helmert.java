@@ -477,40 +477,46 @@ public class Helmert extends Transformation {
     }
 
     @Override
-    public synchronized List<Point3d> doTransform( List<Point3d> srcPts )
+    public List<Point3d> doTransform( List<Point3d> srcPts )
                             throws TransformationException {
+        return doTransformInPlace( srcPts );
+    }
 
-        if ( srcPts == null || srcPts.size() == 0 ) {
-            return srcPts;
+    @Override
+    public void doTransformInPlace( double[] xyz, int offset, int count ) {
+        if ( count <= 0 ) {
+            return;
+        }
+        final Matrix4d m = getMatrix();
+        final double m00 = m.m00, m01 = m.m01, m02 = m.m02, m03 = m.m03;
+        final double m10 = m.m10, m11 = m.m11, m12 = m.m12, m13 = m.m13;
+        final double m20 = m.m20, m21 = m.m21, m22 = m.m22, m23 = m.m23;
+        for ( int i = 0, pos = offset; i < count; ++i, pos += 3 ) {
+            final double x = xyz[pos];
+            final double y = xyz[pos + 1];
+            final boolean zIsNaN = Double.isNaN( xyz[pos + 2] );
+            final double z = zIsNaN ? 1 : xyz[pos + 2];
+            xyz[pos] = m00 * x + m01 * y + m02 * z + m03;
+            xyz[pos + 1] = m10 * x + m11 * y + m12 * z + m13;
+            xyz[pos + 2] = zIsNaN ? Double.NaN : m20 * x + m21 * y + m22 * z + m23;
         }
+    }
 
-        // lazy instantiation
+    /**
+     * @return the (lazily created) matrix to use for the current direction of this transformation
+     */
+    private synchronized Matrix4d getMatrix() {
         if ( transformMatrix == null ) {
             transformMatrix = getAsAffineTransform();
         }
-        Matrix4d matrix = transformMatrix;
-
-        // create the inverse matrix
         if ( isInverseTransform() ) {
             if ( inverseMatrix == null ) {
                 inverseMatrix = getAsAffineTransform();
                 inverseMatrix.invert();
             }
-            matrix = inverseMatrix;
-        }
-
-        for ( Point3d p : srcPts ) {
-            boolean zIsNaN = Double.isNaN( p.z );
-            if ( zIsNaN ) {
-                p.z = 1;
-            }
-            matrix.transform( p );
-            if ( zIsNaN ) {
-                p.z = Double.NaN;
-            }
+            return inverseMatrix;
         }
-
-        return srcPts;
+        return transformMatrix;
     }
 
     @Override
@@ -0,0 +1,139 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.cs.persistence;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.Callable;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.exceptions.TransformationException;
+import org.deegree.cs.exceptions.UnknownCRSException;
+import org.deegree.cs.transformations.Transformation;
+import org.junit.Test;
+
+/**
+ * Tests the caching, eviction and warm up of the {@link TransformationRegistry}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TransformationRegistryTest {
+
+    @Test
+    public void testSameChainIsReturned()
+                            throws TransformationException, UnknownCRSException {
+        TransformationRegistry registry = new TransformationRegistry( 10 );
+        ICRS source = CRSManager.lookup( "epsg:4326" );
+        ICRS target = CRSManager.lookup( "epsg:31467" );
+        Transformation first = registry.get( source, target, null );
+        assertNotNull( first );
+        assertSame( first, registry.get( source, target, null ) );
+        assertEquals( 1, registry.getMisses() );
+        assertEquals( 1, registry.getHits() );
+        assertEquals( 1, registry.size() );
+    }
+
+    @Test
+    public void testIdentityIsCached()
+                            throws TransformationException, UnknownCRSException {
+        TransformationRegistry registry = new TransformationRegistry( 10 );
+        ICRS crs = CRSManager.lookup( "epsg:4326" );
+        assertNull( registry.get( crs, crs, null ) );
+        assertNull( registry.get( crs, crs, null ) );
+        assertEquals( 1, registry.getMisses() );
+        assertEquals( 1, registry.getHits() );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+                            throws TransformationException, UnknownCRSException {
+        TransformationRegistry registry = new TransformationRegistry( 2 );
+        ICRS source = CRSManager.lookup( "epsg:4326" );
+        ICRS first = CRSManager.lookup( "epsg:31466" );
+        ICRS second = CRSManager.lookup( "epsg:31467" );
+        ICRS third = CRSManager.lookup( "epsg:31468" );
+        registry.get( source, first, null );
+        registry.get( source, second, null );
+        // makes the second chain the least recently used one
+        registry.get( source, first, null );
+        registry.get( source, third, null );
+        assertEquals( 2, registry.size() );
+        assertEquals( 1, registry.getEvictions() );
+        registry.get( source, first, null );
+        assertEquals( 2, registry.getHits() );
+        registry.get( source, second, null );
+        assertEquals( 4, registry.getMisses() );
+    }
+
+    @Test
+    public void testWarmUpAfterShutdown()
+                            throws Exception {
+        TransformationRegistry registry = new TransformationRegistry( 10 );
+        final ICRS source = CRSManager.lookup( "epsg:4326" );
+        ICRS target = CRSManager.lookup( "epsg:31467" );
+        registry.warmUp( new Callable<ICRS>() {
+            @Override
+            public ICRS call() {
+                return source;
+            }
+        }, asList( source, target ) );
+        waitForSize( registry, 1 );
+        // the identity is skipped
+        assertEquals( 1, registry.getMisses() );
+
+        registry.shutdown();
+        registry.warmUp( source, singletonList( CRSManager.lookup( "epsg:31466" ) ) );
+        waitForSize( registry, 2 );
+        assertEquals( 2, registry.getMisses() );
+        registry.shutdown();
+    }
+
+    private static void waitForSize( TransformationRegistry registry, int size )
+                            throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while ( registry.size() < size && System.currentTimeMillis() < end ) {
+            Thread.sleep( 10 );
+        }
+        assertEquals( size, registry.size() );
+    }
+
+}
@@ -37,6 +37,7 @@
 package org.deegree.cs.projections.cylindric;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import javax.vecmath.Point2d;
 
@@ -94,4 +95,48 @@ public class TransverseMercatorTest extends ProjectionBase {
         assertEquals( 32, projection_25832.getZoneFromNearestMeridian( Math.toRadians( 9 ) ) );
     }
 
+    /**
+     * tests that the batch methods count the coordinates which could not be projected and leave them unchanged.
+     */
+    @Test
+    public void testBatchFailures() {
+        double[] ordinates = new double[] { Math.toRadians( 6.610765 ), Math.toRadians( 53.235916 ), Double.NaN,
+                                           Math.toRadians( 53.235916 ), Math.toRadians( 6.610765 ), Double.NaN };
+        assertEquals( 2, projection_25832.doProjection( geographic_4258, ordinates, 0, 2, 3 ) );
+        assertEquals( 340545.99617007, ordinates[0], 0.15 );
+        assertEquals( 5901178.79904923, ordinates[1], 0.15 );
+        assertTrue( Double.isNaN( ordinates[2] ) );
+        assertEquals( Math.toRadians( 53.235916 ), ordinates[3], 0 );
+        assertEquals( Math.toRadians( 6.610765 ), ordinates[4], 0 );
+        assertTrue( Double.isNaN( ordinates[5] ) );
+
+        assertEquals( 2, projection_25832.doInverseProjection( geographic_4258, ordinates, 0, 2, 3 ) );
+        assertEquals( Math.toRadians( 6.610765 ), ordinates[0], 1e-7 );
+        assertEquals( Math.toRadians( 53.235916 ), ordinates[1], 1e-7 );
+        assertTrue( Double.isNaN( ordinates[2] ) );
+        assertEquals( Math.toRadians( 53.235916 ), ordinates[3], 0 );
+    }
+
+    /**
+     * tests that a single coordinate which could not be projected results in an exception.
+     * 
+     * @throws ProjectionException
+     */
+    @Test(expected = ProjectionException.class)
+    public void testProjectionFailure()
+                            throws ProjectionException {
+        projection_25832.doProjection( geographic_4258, Double.NaN, 0 );
+    }
+
+    /**
+     * tests that a single coordinate which could not be inverted results in an exception.
+     * 
+     * @throws ProjectionException
+     */
+    @Test(expected = ProjectionException.class)
+    public void testInverseProjectionFailure()
+                            throws ProjectionException {
+        projection_25832.doInverseProjection( geographic_4258, 500000, Double.NaN );
+    }
+
 }
@@ -0,0 +1,207 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.cs.transformations;
+
+import static org.deegree.cs.transformations.CRSDefines.EPSILON_M;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.vecmath.Point2d;
+import javax.vecmath.Point3d;
+
+import org.deegree.cs.CRSCodeType;
+import org.deegree.cs.CoordinateTransformer;
+import org.deegree.cs.components.Axis;
+import org.deegree.cs.components.GeodeticDatum;
+import org.deegree.cs.components.IAxis;
+import org.deegree.cs.components.Unit;
+import org.deegree.cs.coordinatesystems.GeographicCRS;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.coordinatesystems.ProjectedCRS;
+import org.deegree.cs.exceptions.TransformationException;
+import org.deegree.cs.exceptions.UnknownCRSException;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.cs.projections.cylindric.TransverseMercator;
+import org.deegree.cs.transformations.coordinate.ProjectionTransform;
+import org.junit.Test;
+
+/**
+ * Checks that the in place (batch) transformation of coordinate arrays yields the reference results and the same
+ * results as transforming the coordinates one by one.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TransformationInPlaceTest {
+
+    private static final double EPS = 1E-9;
+
+    @Test
+    public void testHelmertTransverseMercatorMercator()
+                            throws TransformationException, UnknownCRSException {
+        checkBatch( "epsg:31466", "epsg:900913", 2365253.9171053073, 5838184.758315763, 1000 );
+    }
+
+    @Test
+    public void testGeographicToTransverseMercator()
+                            throws TransformationException, UnknownCRSException {
+        checkBatch( "epsg:4326", "epsg:31467", 9.5, 51.5, 0.01 );
+    }
+
+    @Test
+    public void testTransverseMercatorToGeographic()
+                            throws TransformationException, UnknownCRSException {
+        checkBatch( "epsg:31467", "epsg:4258", 3500000, 5700000, 1000 );
+    }
+
+    @Test
+    public void testOrdinateArray()
+                            throws TransformationException, UnknownCRSException {
+        Transformation t = getTransformation( "epsg:4326", "epsg:31467" );
+        double[] src = new double[] { -1, 9.5, 51.5, 9.6, 51.4, 9.7, 51.3 };
+        double[] dest = new double[7];
+        t.doTransform( src, 1, dest, 1, 6 );
+        assertEquals( 0, dest[0], 0 );
+        for ( int i = 0; i < 3; i++ ) {
+            Point3d p = t.doTransform( new Point3d( src[1 + 2 * i], src[2 + 2 * i], 0 ) );
+            assertEquals( p.x, dest[1 + 2 * i], EPS );
+            assertEquals( p.y, dest[2 + 2 * i], EPS );
+        }
+    }
+
+    /**
+     * Reference coordinates taken from {@link TransformationGoogleTest}, the second coordinate cannot be transformed.
+     */
+    @Test
+    public void testGeographicToGoogleReference()
+                            throws TransformationException, UnknownCRSException {
+        Transformation t = getTransformation( "epsg:4326", "epsg:900913" );
+        double[] xyz = new double[] { 4.00788999689501, 52.659800083701924, Double.NaN, Double.NaN, 52.5, Double.NaN,
+                                     4.00788999689501, 52.659800083701924, Double.NaN };
+        t.doTransformInPlace( xyz, 0, 3 );
+        assertEquals( 446156.27360980725, xyz[0], EPSILON_M.x );
+        assertEquals( 6920316.401632084, xyz[1], EPSILON_M.y );
+        assertTrue( Double.isNaN( xyz[3] ) );
+        assertEquals( 446156.27360980725, xyz[6], EPSILON_M.x );
+        assertEquals( 6920316.401632084, xyz[7], EPSILON_M.y );
+    }
+
+    /**
+     * Projects from a lat/lon crs to an east/north crs, so only the incoming ordinates are swapped by the projection
+     * transform. Coordinates which cannot be projected must be returned unchanged nevertheless. The reference point was
+     * created with proj4 command: <code>
+     * proj -f "%.5f" +proj=tmerc +ellps=GRS80 +lon_0=9 +lat_0=0 +k=0.9996 +x_0=500000
+     * 6.610765 53.235916
+     * 340545.99617007 5901178.79904923
+     * </code>
+     */
+    @Test
+    public void testFailedCoordinatesKeepAxisOrder() {
+        IAxis[] latLon = new IAxis[] { new Axis( Unit.DEGREE, "lat", Axis.AO_NORTH ),
+                                      new Axis( Unit.DEGREE, "lon", Axis.AO_EAST ) };
+        IAxis[] eastNorth = new IAxis[] { new Axis( Unit.METRE, "x", Axis.AO_EAST ),
+                                         new Axis( Unit.METRE, "y", Axis.AO_NORTH ) };
+        GeographicCRS geographic = new GeographicCRS( GeodeticDatum.WGS84, latLon, new CRSCodeType( "latlon" ) );
+        TransverseMercator tm = new TransverseMercator( true, 0, 500000.0, new Point2d( Math.toRadians( 9 ), 0 ),
+                                                        Unit.METRE, 0.9996 );
+        ProjectedCRS projected = new ProjectedCRS( tm, geographic, eastNorth, new CRSCodeType( "utm32" ) );
+        Transformation t = new ProjectionTransform( projected );
+
+        double lat = Math.toRadians( 53.235916 );
+        double lon = Math.toRadians( 6.610765 );
+        double[] xyz = new double[] { lat, lon, Double.NaN, lat, Double.NaN, Double.NaN };
+        t.doTransformInPlace( xyz, 0, 2 );
+        assertEquals( 340545.99617007, xyz[0], EPSILON_M.x );
+        assertEquals( 5901178.79904923, xyz[1], EPSILON_M.y );
+        assertEquals( lat, xyz[3], 0 );
+        assertTrue( Double.isNaN( xyz[4] ) );
+
+        t.inverse();
+        xyz = new double[] { 340545.99617007, 5901178.79904923, Double.NaN, 500000, Double.NaN, Double.NaN };
+        t.doTransformInPlace( xyz, 0, 2 );
+        assertEquals( lat, xyz[0], 1E-7 );
+        assertEquals( lon, xyz[1], 1E-7 );
+        assertEquals( 500000, xyz[3], 0 );
+        assertTrue( Double.isNaN( xyz[4] ) );
+    }
+
+    private void checkBatch( String source, String target, double x, double y, double step )
+                            throws TransformationException, UnknownCRSException {
+        Transformation t = getTransformation( source, target );
+        int count = 100;
+        // one leading and one trailing triple which must not be touched
+        double[] xyz = new double[( count + 2 ) * 3];
+        for ( int i = 0; i < count; i++ ) {
+            xyz[3 + i * 3] = x + ( i % 10 ) * step;
+            xyz[4 + i * 3] = y + ( i / 10 ) * step;
+            xyz[5 + i * 3] = Double.NaN;
+        }
+        double[] expected = xyz.clone();
+        for ( int i = 0; i < count; i++ ) {
+            int pos = 3 + i * 3;
+            Point3d p = t.doTransform( new Point3d( expected[pos], expected[pos + 1], expected[pos + 2] ) );
+            expected[pos] = p.x;
+            expected[pos + 1] = p.y;
+            expected[pos + 2] = p.z;
+        }
+        t.doTransformInPlace( xyz, 3, count );
+        for ( int i = 0; i < xyz.length; i++ ) {
+            if ( Double.isNaN( expected[i] ) ) {
+                assertEquals( Double.NaN, xyz[i], 0 );
+            } else {
+                assertEquals( expected[i], xyz[i], EPS );
+            }
+        }
+    }
+
+    private Transformation getTransformation( String source, String target )
+                            throws TransformationException, UnknownCRSException {
+        return new TransformationLookup( CRSManager.lookup( target ) ).get( CRSManager.lookup( source ) );
+    }
+
+    private static class TransformationLookup extends CoordinateTransformer {
+
+        TransformationLookup( ICRS targetCRS ) {
+            super( targetCRS );
+        }
+
+        Transformation get( ICRS sourceCRS )
+                                throws TransformationException {
+            return createCRSTransformation( sourceCRS );
+        }
+    }
+
+}
@@ -39,6 +39,7 @@ import static org.deegree.commons.utils.StringUtils.isSet;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -110,6 +111,7 @@ import org.deegree.geometry.primitive.segments.LineStringSegment;
 import org.deegree.geometry.primitive.segments.OffsetCurve;
 import org.deegree.geometry.primitive.segments.CurveSegment.CurveSegmentType;
 import org.deegree.geometry.standard.curvesegments.AffinePlacement;
+import org.deegree.geometry.standard.points.PackedPoints;
 import org.deegree.geometry.standard.points.PointsList;
 import org.slf4j.Logger;
 
@@ -538,29 +540,31 @@ public class GeometryTransformer extends Transformer {
         double axis0Step = span0 / ( pointsPerSide + 1 );
         double axis1Step = span1 / ( pointsPerSide + 1 );
 
-        List<Point3d> points = new ArrayList<Point3d>( pointsPerSide * 4 + 4 );
+        final int count = ( pointsPerSide + 2 ) * 4;
+        double[] xyz = new double[count * 3];
         double zValue = Double.NaN;
         if ( trans.getSourceCRS() != null ) {
             zValue = trans.getSourceCRS().getDimension() == 3 ? 1 : Double.NaN;
         }
 
+        int pos = 0;
         for ( int i = 0; i <= pointsPerSide + 1; i++ ) {
-            points.add( new Point3d( axis0Min + i * axis0Step, axis1Min, zValue ) );
-            points.add( new Point3d( axis0Min + i * axis0Step, axis1Max, zValue ) );
-            points.add( new Point3d( axis0Min, axis1Min + i * axis1Step, zValue ) );
-            points.add( new Point3d( axis0Max, axis1Min + i * axis1Step, zValue ) );
+            pos = set( xyz, pos, axis0Min + i * axis0Step, axis1Min, zValue );
+            pos = set( xyz, pos, axis0Min + i * axis0Step, axis1Max, zValue );
+            pos = set( xyz, pos, axis0Min, axis1Min + i * axis1Step, zValue );
+            pos = set( xyz, pos, axis0Max, axis1Min + i * axis1Step, zValue );
         }
 
-        points = trans.doTransform( points );
+        trans.doTransformInPlace( xyz, 0, count );
         axis0Min = Double.MAX_VALUE;
         axis1Min = Double.MAX_VALUE;
         axis0Max = Double.NEGATIVE_INFINITY;
         axis1Max = Double.NEGATIVE_INFINITY;
-        for ( Point3d p : points ) {
-            axis0Min = Math.min( p.x, axis0Min );
-            axis1Min = Math.min( p.y, axis1Min );
-            axis0Max = Math.max( p.x, axis0Max );
-            axis1Max = Math.max( p.y, axis1Max );
+        for ( pos = 0; pos < xyz.length; pos += 3 ) {
+            axis0Min = Math.min( xyz[pos], axis0Min );
+            axis1Min = Math.min( xyz[pos + 1], axis1Min );
+            axis0Max = Math.max( xyz[pos], axis0Max );
+            axis1Max = Math.max( xyz[pos + 1], axis1Max );
         }
 
         // pass the 3rd coordinate if exist and dimension of source and target CRS is 2
@@ -815,28 +819,81 @@ public class GeometryTransformer extends Transformer {
      */
     private Points transform( Points points, Transformation trans )
                             throws TransformationException {
-
-        List<Point> result = new ArrayList<Point>( points.size() );
+        if ( points instanceof PackedPoints && ( points.getDimension() == 2 || points.getDimension() == 3 ) ) {
+            return transform( (PackedPoints) points, trans );
+        }
+        final int size = points.size();
+        double[] xyz = new double[size * 3];
+        int pos = 0;
         for ( Point point : points ) {
-            Point3d coord = new Point3d( point.get0(), point.get1(), point.get2() );
-            Point3d tmp = new Point3d( coord );
-
-            tmp = trans.doTransform( coord );
+            pos = set( xyz, pos, point.get0(), point.get1(), point.get2() );
+        }
+        trans.doTransformInPlace( xyz, 0, size );
 
+        // pass the 3rd coordinate if exist and dimension of source and target CRS is 2
+        boolean passZ = trans.getSourceCRS().getDimension() == 2 && trans.getTargetCRS().getDimension() == 2;
+        List<Point> result = new ArrayList<Point>( size );
+        pos = 0;
+        for ( Point point : points ) {
             if ( Double.isNaN( point.get2() ) ) {
-                result.add( geomFactory.createPoint( point.getId(), new double[] { tmp.x, tmp.y }, getTargetCRS() ) );
+                result.add( geomFactory.createPoint( point.getId(), new double[] { xyz[pos], xyz[pos + 1] },
+                                                     getTargetCRS() ) );
             } else {
-                // pass the 3rd coordinate if exist and dimension of source and target CRS is 2
-                if ( trans.getSourceCRS().getDimension() == 2 && trans.getTargetCRS().getDimension() == 2 ) {
-                    tmp.z = point.get2();
-                }
-                result.add( geomFactory.createPoint( point.getId(), new double[] { tmp.x, tmp.y, tmp.z },
+                double z = passZ ? point.get2() : xyz[pos + 2];
+                result.add( geomFactory.createPoint( point.getId(), new double[] { xyz[pos], xyz[pos + 1], z },
                                                      getTargetCRS() ) );
             }
+            pos += 3;
         }
         return new PointsList( result );
     }
 
+    /**
+     * transforms the packed points without creating intermediate point objects
+     * 
+     * @throws TransformationException
+     */
+    private Points transform( PackedPoints points, Transformation trans )
+                            throws TransformationException {
+        final int dim = points.getDimension();
+        final int size = points.size();
+        final double[] src = points.getAsArray();
+        double[] xyz;
+        if ( dim == 3 ) {
+            xyz = Arrays.copyOf( src, size * 3 );
+        } else {
+            xyz = new double[size * 3];
+            for ( int i = 0, s = 0, pos = 0; i < size; ++i ) {
+                pos = set( xyz, pos, src[s++], src[s++], Double.NaN );
+            }
+        }
+        trans.doTransformInPlace( xyz, 0, size );
+
+        if ( dim == 2 ) {
+            double[] result = new double[size * 2];
+            for ( int i = 0, d = 0, pos = 0; i < size; ++i, pos += 3 ) {
+                result[d++] = xyz[pos];
+                result[d++] = xyz[pos + 1];
+            }
+            return new PackedPoints( getTargetCRS(), result, 2 );
+        }
+        // pass the 3rd coordinate if exist and dimension of source and target CRS is 2
+        boolean passZ = trans.getSourceCRS().getDimension() == 2 && trans.getTargetCRS().getDimension() == 2;
+        for ( int pos = 2; pos < xyz.length; pos += 3 ) {
+            if ( passZ || Double.isNaN( src[pos] ) ) {
+                xyz[pos] = src[pos];
+            }
+        }
+        return new PackedPoints( getTargetCRS(), xyz, 3 );
+    }
+
+    private static int set( double[] xyz, int pos, double x, double y, double z ) {
+        xyz[pos++] = x;
+        xyz[pos++] = y;
+        xyz[pos++] = z;
+        return pos;
+    }
+
     /**
      * transforms the submitted point to the target coordinate reference system
      * 
@@ -0,0 +1,194 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import java.util.Arrays;
+
+/**
+ * Reusable character buffer for encoding coordinate lists (e.g. <code>gml:posList</code> or WKT point lists) with a
+ * {@link CoordinateFormatter}.
+ * <p>
+ * If the formatter is a {@link FixedDecimalCoordinateFormatter}, the ordinates are written directly into the buffer,
+ * so a whole coordinate list can be encoded without creating any intermediate strings and handed to the output in one
+ * call (e.g. {@link javax.xml.stream.XMLStreamWriter#writeCharacters(char[], int, int)}). Other formatters are
+ * supported as well, but their strings are copied. Instances are not thread-safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CoordinateBuffer {
+
+    private final CoordinateFormatter formatter;
+
+    private final FixedDecimalCoordinateFormatter fixedFormatter;
+
+    private char[] chars = new char[256];
+
+    private int length;
+
+    /**
+     * Creates a new {@link CoordinateBuffer} instance.
+     * 
+     * @param formatter
+     *            formatter to use for the ordinates, must not be <code>null</code>
+     */
+    public CoordinateBuffer( CoordinateFormatter formatter ) {
+        this.formatter = formatter;
+        if ( formatter instanceof FixedDecimalCoordinateFormatter ) {
+            fixedFormatter = (FixedDecimalCoordinateFormatter) formatter;
+        } else {
+            fixedFormatter = null;
+        }
+    }
+
+    /**
+     * @return the formatter used for the ordinates, never <code>null</code>
+     */
+    public CoordinateFormatter getFormatter() {
+        return formatter;
+    }
+
+    /**
+     * Empties the buffer (keeps the allocated memory).
+     * 
+     * @return this buffer
+     */
+    public CoordinateBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Appends the formatted ordinate.
+     * 
+     * @param ordinate
+     *            ordinate to append
+     * @return this buffer
+     */
+    public CoordinateBuffer append( double ordinate ) {
+        if ( fixedFormatter != null ) {
+            ensureCapacity( fixedFormatter.getMaxLength() );
+            int end = fixedFormatter.format( ordinate, chars, length );
+            if ( end >= 0 ) {
+                length = end;
+                return this;
+            }
+        }
+        return append( formatter.format( ordinate ) );
+    }
+
+    /**
+     * Appends the given ordinates, separated by the given character.
+     * 
+     * @param ordinates
+     *            ordinates to append, must not be <code>null</code>
+     * @param offset
+     *            index of the first ordinate to append
+     * @param count
+     *            number of ordinates to append
+     * @param separator
+     *            character to put between two ordinates
+     * @return this buffer
+     */
+    public CoordinateBuffer append( double[] ordinates, int offset, int count, char separator ) {
+        for ( int i = 0; i < count; i++ ) {
+            if ( i > 0 ) {
+                append( separator );
+            }
+            append( ordinates[offset + i] );
+        }
+        return this;
+    }
+
+    /**
+     * Appends the given character.
+     * 
+     * @param c
+     *            character to append
+     * @return this buffer
+     */
+    public CoordinateBuffer append( char c ) {
+        ensureCapacity( 1 );
+        chars[length++] = c;
+        return this;
+    }
+
+    /**
+     * Appends the given string.
+     * 
+     * @param s
+     *            string to append, must not be <code>null</code>
+     * @return this buffer
+     */
+    public CoordinateBuffer append( String s ) {
+        int len = s.length();
+        ensureCapacity( len );
+        s.getChars( 0, len, chars, length );
+        length += len;
+        return this;
+    }
+
+    /**
+     * Returns the internal character array. Only the first {@link #length()} characters are valid. The array may be
+     * replaced when more characters are appended.
+     * 
+     * @return the internal character array, never <code>null</code>
+     */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /**
+     * @return the number of characters in the buffer
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String( chars, 0, length );
+    }
+
+    private void ensureCapacity( int additional ) {
+        int required = length + additional;
+        if ( required > chars.length ) {
+            chars = Arrays.copyOf( chars, Math.max( required, chars.length * 2 ) );
+        }
+    }
+
+}
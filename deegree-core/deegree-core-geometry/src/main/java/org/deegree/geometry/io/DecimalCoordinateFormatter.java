@@ -55,7 +55,7 @@ public class DecimalCoordinateFormatter implements CoordinateFormatter {
     public static final int DEFAULT_PLACES = 6;
 
     /** Number of decimal places used for metric coordinates (3). **/
-    private static final int DEFAULT_PLACES_METRE = 3;
+    static final int DEFAULT_PLACES_METRE = 3;
 
     private final DecimalFormat decimalFormat;
 
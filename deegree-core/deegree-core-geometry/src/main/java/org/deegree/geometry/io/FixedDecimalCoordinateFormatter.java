@@ -0,0 +1,224 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import static org.deegree.geometry.io.DecimalCoordinateFormatter.DEFAULT_PLACES;
+import static org.deegree.geometry.io.DecimalCoordinateFormatter.DEFAULT_PLACES_METRE;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.deegree.cs.components.IUnit;
+import org.deegree.cs.components.Unit;
+
+/**
+ * {@link CoordinateFormatter} that writes ordinates with a fixed number of decimal places, without using
+ * {@link java.text.DecimalFormat}.
+ * <p>
+ * The output is the same as the one of a {@link DecimalCoordinateFormatter} with the same number of decimal places
+ * (<code>'.'</code> as decimal separator, no grouping, half-even rounding), except that values which are rounded to
+ * zero never get a minus sign. Ordinates are scaled and rounded in double precision, only the rare values that hit a
+ * rounding boundary after scaling (and values that are too large) are formatted using {@link BigDecimal}.
+ * </p>
+ * <p>
+ * Besides {@link #format(double)}, ordinates can be written directly into a character array (
+ * {@link #format(double, char[], int)}), which allows to encode long coordinate lists without creating intermediate
+ * strings (see {@link CoordinateBuffer}). Instances are immutable and thread-safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FixedDecimalCoordinateFormatter implements CoordinateFormatter {
+
+    /** Maximum number of decimal places (15). **/
+    public static final int MAX_PLACES = 15;
+
+    // scaled values up to this magnitude are below 2^53 (exact integers) and have at most 15 significant digits
+    private static final double MAX_SCALED = 1.0E15;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_PLACES + 1];
+
+    static {
+        long pow = 1;
+        for ( int i = 0; i < POWERS_OF_TEN.length; i++ ) {
+            POWERS_OF_TEN[i] = pow;
+            pow *= 10;
+        }
+    }
+
+    private final int decimalPlaces;
+
+    private final long unscale;
+
+    private final double scale;
+
+    private final BigDecimal halfUnit;
+
+    /**
+     * Creates a new {@link FixedDecimalCoordinateFormatter} instance that uses
+     * {@link DecimalCoordinateFormatter#DEFAULT_PLACES}.
+     */
+    public FixedDecimalCoordinateFormatter() {
+        this( DEFAULT_PLACES );
+    }
+
+    /**
+     * Creates a new {@link FixedDecimalCoordinateFormatter} instance suitable for the specified {@link Unit}.
+     * 
+     * @param uom
+     *            unit-of-measure, may be <code>null</code>
+     */
+    public FixedDecimalCoordinateFormatter( IUnit uom ) {
+        this( uom == Unit.METRE ? DEFAULT_PLACES_METRE : DEFAULT_PLACES );
+    }
+
+    /**
+     * Creates a new {@link FixedDecimalCoordinateFormatter} instance that uses the specified number of decimal places.
+     * 
+     * @param decimalPlaces
+     *            number of decimal places, between <code>0</code> and {@link #MAX_PLACES}
+     * @throws IllegalArgumentException
+     *             if the number of decimal places is out of range
+     */
+    public FixedDecimalCoordinateFormatter( int decimalPlaces ) {
+        if ( decimalPlaces < 0 || decimalPlaces > MAX_PLACES ) {
+            throw new IllegalArgumentException( "Number of decimal places must be between 0 and " + MAX_PLACES
+                                                + ", but is " + decimalPlaces + "." );
+        }
+        this.decimalPlaces = decimalPlaces;
+        this.unscale = POWERS_OF_TEN[decimalPlaces];
+        this.scale = unscale;
+        this.halfUnit = BigDecimal.valueOf( 5, decimalPlaces + 1 );
+    }
+
+    /**
+     * @return the number of decimal places
+     */
+    public int getDecimalPlaces() {
+        return decimalPlaces;
+    }
+
+    /**
+     * Returns the number of characters that {@link #format(double, char[], int)} may write at most.
+     * 
+     * @return maximum number of characters written for a single ordinate
+     */
+    public int getMaxLength() {
+        // sign, 15 digits, decimal separator
+        return 17 + decimalPlaces;
+    }
+
+    @Override
+    public String format( double ordinate ) {
+        char[] chars = new char[getMaxLength()];
+        int end = format( ordinate, chars, 0 );
+        if ( end < 0 ) {
+            return formatSlow( ordinate );
+        }
+        return new String( chars, 0, end );
+    }
+
+    private String formatSlow( double ordinate ) {
+        if ( Double.isNaN( ordinate ) || Double.isInfinite( ordinate ) ) {
+            return Double.toString( ordinate );
+        }
+        // just like DecimalFormat: round the shortest decimal representation, but decide ties using the exact value
+        BigDecimal shortest = new BigDecimal( Double.toString( ordinate ) );
+        BigDecimal rounded = shortest.setScale( decimalPlaces, RoundingMode.HALF_EVEN );
+        if ( shortest.subtract( rounded ).abs().compareTo( halfUnit ) == 0 ) {
+            rounded = new BigDecimal( ordinate ).setScale( decimalPlaces, RoundingMode.HALF_EVEN );
+        }
+        return rounded.toPlainString();
+    }
+
+    /**
+     * Writes the formatted ordinate into the given character array.
+     * 
+     * @param ordinate
+     *            ordinate to be formatted
+     * @param buffer
+     *            array to write to, must provide at least {@link #getMaxLength()} characters starting at
+     *            <code>offset</code>
+     * @param offset
+     *            index of the first character to write
+     * @return index after the last written character, <code>-1</code> if the ordinate cannot be written this way, e.g.
+     *         if it is not a number, infinite or too large (nothing is written in this case, use
+     *         {@link #format(double)} instead)
+     */
+    public int format( double ordinate, char[] buffer, int offset ) {
+        double product = ordinate * scale;
+        // rint rounds half-even, just like DecimalFormat does by default
+        double scaled = Math.rint( product );
+        if ( !( scaled > -MAX_SCALED && scaled < MAX_SCALED ) || Math.abs( product - scaled ) == 0.5 ) {
+            // the product is rounded, so a tie does not mean that the exact value is a tie
+            return -1;
+        }
+        long value = (long) scaled;
+        int pos = offset;
+        if ( value < 0 ) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        long integerPart = value / unscale;
+        pos = writeDigits( integerPart, buffer, pos );
+        if ( decimalPlaces > 0 ) {
+            buffer[pos++] = '.';
+            long fraction = value - integerPart * unscale;
+            for ( int i = pos + decimalPlaces - 1; i >= pos; i-- ) {
+                buffer[i] = (char) ( '0' + fraction % 10 );
+                fraction /= 10;
+            }
+            pos += decimalPlaces;
+        }
+        return pos;
+    }
+
+    private static int writeDigits( long value, char[] buffer, int offset ) {
+        int numDigits = 1;
+        for ( long v = value / 10; v != 0; v /= 10 ) {
+            numDigits++;
+        }
+        int pos = offset + numDigits;
+        long v = value;
+        for ( int i = pos - 1; i >= offset; i-- ) {
+            buffer[i] = (char) ( '0' + v % 10 );
+            v /= 10;
+        }
+        return pos;
+    }
+
+}
@@ -117,6 +117,8 @@ public class WKTWriter {
 
     private CoordinateFormatter formatter;
 
+    private CoordinateBuffer buffer;
+
     private int linearizedControlPoints = 5;
 
     /**
@@ -151,7 +153,7 @@ public class WKTWriter {
      *            signaling the capabilities of this writer, if <code>null</code> only some geometries can be exported
      *            (all dialects are disabled).
      * @param formatter
-     *            to use, if <code>null</code> the default decimal formatter with 5 decimals is used.
+     *            to use, if <code>null</code> a {@link FixedDecimalCoordinateFormatter} with 6 decimals is used.
      */
     public WKTWriter( Set<WKTFlag> flags, CoordinateFormatter formatter ) {
         this.flags = flags;
@@ -159,10 +161,11 @@ public class WKTWriter {
             this.flags = new HashSet<WKTFlag>();
         }
         if ( formatter == null ) {
-            this.formatter = new DecimalCoordinateFormatter();
+            this.formatter = new FixedDecimalCoordinateFormatter();
         } else {
             this.formatter = formatter;
         }
+        buffer = new CoordinateBuffer( this.formatter );
     }
 
     /**
@@ -189,6 +192,7 @@ public class WKTWriter {
      */
     public void setFormatter( CoordinateFormatter formatter ) {
         this.formatter = formatter;
+        buffer = new CoordinateBuffer( formatter );
     }
 
     /**
@@ -288,21 +292,37 @@ public class WKTWriter {
      */
     private void writePointWithoutPrefix( Point geometry, Writer writer )
                             throws IOException {
+        buffer.clear();
+        appendPoint( geometry );
+        writer.write( buffer.getChars(), 0, buffer.length() );
+    }
 
-        if ( flags.contains( WKTFlag.USE_3D ) ) {
-            writer.append( formatter.format( geometry.get0() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get1() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get2() ) );
-
-        } else {
-            writer.append( formatter.format( geometry.get0() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get1() ) );
-
+    /**
+     * Writes the comma separated coordinates of the given points, using a single write operation.
+     * 
+     * @param points
+     * @param writer
+     * @throws IOException
+     */
+    private void writePoints( Points points, Writer writer )
+                            throws IOException {
+        buffer.clear();
+        boolean first = true;
+        for ( Point point : points ) {
+            if ( !first ) {
+                buffer.append( ',' );
+            }
+            appendPoint( point );
+            first = false;
         }
+        writer.write( buffer.getChars(), 0, buffer.length() );
+    }
 
+    private void appendPoint( Point point ) {
+        buffer.append( point.get0() ).append( ' ' ).append( point.get1() );
+        if ( flags.contains( WKTFlag.USE_3D ) ) {
+            buffer.append( ' ' ).append( point.get2() );
+        }
     }
 
     /**
@@ -485,33 +505,14 @@ public class WKTWriter {
                             throws IOException {
 
         writer.append( "((" );
-        Points points = geometry.getExteriorRingCoordinates();
-        int counter = 0;
-        for ( Point point : points ) {
-            counter++;
-            if ( counter < points.size() ) {
-                writePointWithoutPrefix( point, writer );
-                writer.append( ',' );
-            } else {
-                writePointWithoutPrefix( point, writer );
-            }
-        }
+        writePoints( geometry.getExteriorRingCoordinates(), writer );
         writer.append( ')' );
 
         List<Points> interiorRings = geometry.getInteriorRingsCoordinates();
         if ( interiorRings != null ) {
             for ( Points r : interiorRings ) {
                 writer.append( ",(" );
-                counter = 0;
-                for ( Point point : r ) {
-                    counter++;
-                    if ( counter < r.size() ) {
-                        writePointWithoutPrefix( point, writer );
-                        writer.append( ',' );
-                    } else {
-                        writePointWithoutPrefix( point, writer );
-                    }
-                }
+                writePoints( r, writer );
                 writer.append( ')' );
             }
         }
@@ -857,14 +858,7 @@ public class WKTWriter {
         // appendObjectProps( writer, (Geometry) arcString );
         // }
         writer.append( '(' );
-        int counter = 0;
-        for ( Point p : curve.getControlPoints() ) {
-            counter++;
-            writePointWithoutPrefix( p, writer );
-            if ( counter != curve.getControlPoints().size() ) {
-                writer.append( ',' );
-            }
-        }
+        writePoints( curve.getControlPoints(), writer );
         writer.append( ')' );
 
     }
@@ -902,14 +896,7 @@ public class WKTWriter {
         // appendObjectProps( writer, (Geometry) createLineStringSegment );
         // }
         writer.append( '(' );
-        int counter = 0;
-        for ( Point p : curve.getControlPoints() ) {
-            counter++;
-            writePointWithoutPrefix( p, writer );
-            if ( counter != curve.getControlPoints().size() ) {
-                writer.append( ',' );
-            }
-        }
+        writePoints( curve.getControlPoints(), writer );
         writer.append( ')' );
 
     }
@@ -966,17 +953,7 @@ public class WKTWriter {
     private void writeLineStringWithoutPrefix( LineString geometry, Writer writer )
                             throws IOException {
 
-        Points points = geometry.getControlPoints();
-        int counter = 0;
-        for ( Point p : points ) {
-            counter++;
-            if ( counter < points.size() ) {
-                writePointWithoutPrefix( p, writer );
-                writer.append( ',' );
-            } else {
-                writePointWithoutPrefix( p, writer );
-            }
-        }
+        writePoints( geometry.getControlPoints(), writer );
 
     }
 
@@ -1277,15 +1254,13 @@ public class WKTWriter {
             writer.append( "ENVELOPE " );
             appendObjectProps( writer, envelope );
             writer.append( '(' );
-            writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-            writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) );
+            writeCoordinatePairs( writer, pMinX, pMinY, pMaxX, pMaxY );
             writer.append( ')' );
 
         } else if ( flags.contains( WKTFlag.USE_ENVELOPE ) ) {
             writer.append( "ENVELOPE " );
             writer.append( '(' );
-            writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-            writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) );
+            writeCoordinatePairs( writer, pMinX, pMinY, pMaxX, pMaxY );
             writer.append( ')' );
         } else {
 
@@ -1294,11 +1269,7 @@ public class WKTWriter {
             } else {
                 writer.append( "POLYGON ((" );
 
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-                writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMinY ) + ',' );
-                writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) + ',' );
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMaxY ) + ',' );
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) );
+                writeCoordinatePairs( writer, pMinX, pMinY, pMaxX, pMinY, pMaxX, pMaxY, pMinX, pMaxY, pMinX, pMinY );
 
                 writer.append( "))" );
 
@@ -1307,6 +1278,18 @@ public class WKTWriter {
 
     }
 
+    private void writeCoordinatePairs( Writer writer, double... xy )
+                            throws IOException {
+        buffer.clear();
+        for ( int i = 0; i < xy.length; i += 2 ) {
+            if ( i > 0 ) {
+                buffer.append( ',' );
+            }
+            buffer.append( xy[i] ).append( ' ' ).append( xy[i + 1] );
+        }
+        writer.write( buffer.getChars(), 0, buffer.length() );
+    }
+
     /**
      * Export the given geometry to wkt, without using any {@link WKTFlag}s. The writing is done to a StringWriter,
      * which should be handled with care.
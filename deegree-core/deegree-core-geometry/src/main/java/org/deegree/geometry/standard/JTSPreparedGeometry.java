@@ -0,0 +1,147 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.standard;
+
+import org.deegree.geometry.Geometry;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Wraps a {@link Geometry} that is tested against many other geometries, e.g. the literal of a spatial filter
+ * operator.
+ * <p>
+ * The topological predicates are evaluated against a JTS {@link PreparedGeometry} (which indexes the segments of the
+ * geometry on first use), after checking the envelopes of both geometries. The results are the same as the ones of
+ * the corresponding {@link Geometry} methods called on the other geometry. The JTS geometry is created lazily, so
+ * wrapping a geometry is cheap. Instances are thread-safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class JTSPreparedGeometry {
+
+    private final Geometry geometry;
+
+    private volatile PreparedGeometry prepared;
+
+    /**
+     * Creates a new {@link JTSPreparedGeometry} instance.
+     * 
+     * @param geometry
+     *            geometry to be prepared, must not be <code>null</code>
+     */
+    public JTSPreparedGeometry( Geometry geometry ) {
+        this.geometry = geometry;
+    }
+
+    /**
+     * @return the wrapped geometry, never <code>null</code>
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns whether the given geometry intersects the wrapped geometry (see {@link Geometry#intersects(Geometry)}).
+     * 
+     * @param other
+     *            geometry to test, must not be <code>null</code> and must use the same crs as the wrapped geometry
+     * @return <code>true</code>, if the geometries intersect, <code>false</code> otherwise
+     */
+    public boolean intersects( Geometry other ) {
+        PreparedGeometry prep = getPrepared();
+        com.vividsolutions.jts.geom.Geometry jtsOther = getJTSGeometry( other );
+        if ( !getEnvelope( prep ).intersects( jtsOther.getEnvelopeInternal() ) ) {
+            return false;
+        }
+        return prep.intersects( jtsOther );
+    }
+
+    /**
+     * Returns whether the given geometry is within the wrapped geometry (see {@link Geometry#isWithin(Geometry)}).
+     * 
+     * @param other
+     *            geometry to test, must not be <code>null</code> and must use the same crs as the wrapped geometry
+     * @return <code>true</code>, if the given geometry is within the wrapped geometry, <code>false</code> otherwise
+     */
+    public boolean isWithin( Geometry other ) {
+        PreparedGeometry prep = getPrepared();
+        com.vividsolutions.jts.geom.Geometry jtsOther = getJTSGeometry( other );
+        if ( !getEnvelope( prep ).covers( jtsOther.getEnvelopeInternal() ) ) {
+            return false;
+        }
+        // a within b <=> b contains a
+        return prep.contains( jtsOther );
+    }
+
+    /**
+     * Returns whether the given geometry contains the wrapped geometry (see {@link Geometry#contains(Geometry)}).
+     * 
+     * @param other
+     *            geometry to test, must not be <code>null</code> and must use the same crs as the wrapped geometry
+     * @return <code>true</code>, if the given geometry contains the wrapped geometry, <code>false</code> otherwise
+     */
+    public boolean contains( Geometry other ) {
+        PreparedGeometry prep = getPrepared();
+        com.vividsolutions.jts.geom.Geometry jtsOther = getJTSGeometry( other );
+        if ( !jtsOther.getEnvelopeInternal().covers( getEnvelope( prep ) ) ) {
+            return false;
+        }
+        return jtsOther.contains( prep.getGeometry() );
+    }
+
+    private PreparedGeometry getPrepared() {
+        PreparedGeometry prep = prepared;
+        if ( prep == null ) {
+            // preparing twice (concurrently) does no harm
+            prep = PreparedGeometryFactory.prepare( getJTSGeometry( geometry ) );
+            prepared = prep;
+        }
+        return prep;
+    }
+
+    private static Envelope getEnvelope( PreparedGeometry prep ) {
+        return prep.getGeometry().getEnvelopeInternal();
+    }
+
+    private static com.vividsolutions.jts.geom.Geometry getJTSGeometry( Geometry geometry ) {
+        return AbstractDefaultGeometry.getAsDefaultGeometry( geometry ).getJTSGeometry();
+    }
+
+}
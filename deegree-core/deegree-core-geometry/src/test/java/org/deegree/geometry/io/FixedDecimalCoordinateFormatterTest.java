@@ -0,0 +1,116 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link FixedDecimalCoordinateFormatter} and {@link CoordinateBuffer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FixedDecimalCoordinateFormatterTest {
+
+    @Test
+    public void testFormat() {
+        FixedDecimalCoordinateFormatter formatter = new FixedDecimalCoordinateFormatter( 3 );
+        assertEquals( "0.000", formatter.format( 0 ) );
+        assertEquals( "7.125", formatter.format( 7.125 ) );
+        assertEquals( "-7.100", formatter.format( -7.1 ) );
+        assertEquals( "5432109.877", formatter.format( 5432109.8765 ) );
+        assertEquals( "0.000", formatter.format( -0.0001 ) );
+        assertEquals( "12", new FixedDecimalCoordinateFormatter( 0 ).format( 12.4 ) );
+    }
+
+    @Test
+    public void testFormatTiesAndLargeValues() {
+        FixedDecimalCoordinateFormatter formatter = new FixedDecimalCoordinateFormatter( 2 );
+        // half-even
+        assertEquals( "0.12", formatter.format( 0.125 ) );
+        assertEquals( "0.38", formatter.format( 0.375 ) );
+        // 1.005 is actually slightly below 1.005
+        assertEquals( "1.00", formatter.format( 1.005 ) );
+        assertTrue( formatter.format( 1.0E300 ).startsWith( "10000000000" ) );
+        assertTrue( formatter.format( 1.0E300 ).endsWith( ".00" ) );
+        assertEquals( "NaN", formatter.format( Double.NaN ) );
+    }
+
+    @Test
+    public void testSameAsDecimalCoordinateFormatter() {
+        Random rnd = new Random( 42 );
+        for ( int places = 0; places <= 9; places++ ) {
+            FixedDecimalCoordinateFormatter fixed = new FixedDecimalCoordinateFormatter( places );
+            DecimalCoordinateFormatter decimal = new DecimalCoordinateFormatter( places );
+            for ( int i = 0; i < 10000; i++ ) {
+                double ordinate = ( rnd.nextDouble() - 0.5 ) * Math.pow( 10, rnd.nextInt( 12 ) );
+                String expected = decimal.format( ordinate );
+                if ( expected.matches( "-0(\\.0*)?" ) ) {
+                    expected = expected.substring( 1 );
+                }
+                assertEquals( expected, fixed.format( ordinate ) );
+            }
+        }
+    }
+
+    @Test
+    public void testCoordinateBuffer() {
+        CoordinateBuffer buffer = new CoordinateBuffer( new FixedDecimalCoordinateFormatter( 1 ) );
+        double[] ordinates = new double[] { 1, 2.25, -3, Double.NaN };
+        buffer.append( ordinates, 0, 3, ' ' );
+        assertEquals( "1.0 2.2 -3.0", buffer.toString() );
+        buffer.clear().append( ordinates, 1, 3, ',' );
+        assertEquals( "2.2,-3.0,NaN", buffer.toString() );
+        buffer.clear();
+        for ( int i = 0; i < 1000; i++ ) {
+            buffer.append( 123456.75 );
+        }
+        assertEquals( 1000 * 8, buffer.length() );
+    }
+
+    @Test
+    public void testCoordinateBufferWithOtherFormatter() {
+        CoordinateBuffer buffer = new CoordinateBuffer( new DoubleCoordinateFormatter() );
+        buffer.append( new double[] { 1.5, 2 }, 0, 2, ' ' );
+        assertEquals( "1.5 2.0", buffer.toString() );
+    }
+
+}
@@ -0,0 +1,95 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.standard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.geometry.standard.points.PackedPoints;
+import org.junit.Test;
+
+/**
+ * Checks that {@link JTSPreparedGeometry} yields the same results as the predicates of the unprepared geometries.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class JTSPreparedGeometryTest {
+
+    private static final GeometryFactory FAC = new GeometryFactory();
+
+    private static final ICRS CRS = CRSManager.getCRSRef( "EPSG:4326" );
+
+    @Test
+    public void testSameResultsAsUnprepared() {
+        // concave polygon: a "U" shape
+        Polygon u = createPolygon( 0, 0, 10, 0, 10, 10, 7, 10, 7, 3, 3, 3, 3, 10, 0, 10, 0, 0 );
+        List<Geometry> others = new ArrayList<Geometry>();
+        others.add( FAC.createPoint( null, 1, 1, CRS ) );
+        others.add( FAC.createPoint( null, 5, 5, CRS ) );
+        others.add( FAC.createPoint( null, 10, 5, CRS ) );
+        others.add( FAC.createPoint( null, 20, 20, CRS ) );
+        others.add( FAC.createEnvelope( 1, 1, 2, 2, CRS ) );
+        others.add( FAC.createEnvelope( 4, 4, 6, 6, CRS ) );
+        others.add( FAC.createEnvelope( -1, -1, 11, 11, CRS ) );
+        others.add( FAC.createEnvelope( 11, 11, 12, 12, CRS ) );
+        others.add( createPolygon( 1, 1, 2, 1, 2, 2, 1, 1 ) );
+        others.add( createPolygon( 4, 4, 6, 4, 6, 6, 4, 4 ) );
+        others.add( FAC.createLineString( null, CRS, new PackedPoints( CRS, new double[] { 1, 5, 9, 5 }, 2 ) ) );
+        others.add( FAC.createLineString( null, CRS, new PackedPoints( CRS, new double[] { 4, 5, 6, 5 }, 2 ) ) );
+        others.add( u );
+
+        JTSPreparedGeometry prepared = new JTSPreparedGeometry( u );
+        for ( Geometry other : others ) {
+            assertEquals( other.toString(), other.intersects( u ), prepared.intersects( other ) );
+            assertEquals( other.toString(), other.isWithin( u ), prepared.isWithin( other ) );
+            assertEquals( other.toString(), other.contains( u ), prepared.contains( other ) );
+        }
+    }
+
+    private Polygon createPolygon( double... ordinates ) {
+        return FAC.createPolygon( null, CRS, FAC.createLinearRing( null, CRS, new PackedPoints( CRS, ordinates, 2 ) ),
+                                  null );
+    }
+
+}
@@ -42,22 +42,43 @@
 package org.deegree.rendering.r2d;
 
 import static org.deegree.commons.utils.math.MathUtils.isZero;
+import static org.deegree.geometry.primitive.Ring.RingType.LinearRing;
+import static org.deegree.geometry.primitive.Surface.SurfaceType.Polygon;
 import static org.deegree.rendering.r2d.OrientationFixer.fixOrientation;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometries;
 import org.deegree.geometry.Geometry;
+import org.deegree.geometry.multi.MultiGeometry;
+import org.deegree.geometry.points.Points;
+import org.deegree.geometry.primitive.LineString;
 import org.deegree.geometry.primitive.Point;
 import org.deegree.geometry.primitive.Polygon;
+import org.deegree.geometry.primitive.Ring;
 import org.deegree.geometry.standard.AbstractDefaultGeometry;
 import org.deegree.geometry.standard.DefaultEnvelope;
+import org.deegree.geometry.standard.multi.DefaultMultiGeometry;
+import org.deegree.geometry.standard.multi.DefaultMultiLineString;
+import org.deegree.geometry.standard.points.PackedPoints;
+import org.deegree.geometry.standard.primitive.DefaultLineString;
+import org.deegree.geometry.standard.primitive.DefaultLinearRing;
 import org.deegree.geometry.standard.primitive.DefaultPoint;
+import org.deegree.geometry.standard.primitive.DefaultPolygon;
+import org.deegree.rendering.r2d.RectangleClipper.Relation;
 import org.deegree.style.styling.LineStyling;
 import org.deegree.style.styling.PolygonStyling;
 import org.deegree.style.styling.components.Stroke;
 
 /**
  * Responsible for clipping geometries to the area of the viewport.
+ * <p>
+ * Points, line strings and polygons with linear rings (and multi geometries composed of these) are clipped directly on
+ * their coordinate arrays using a {@link RectangleClipper}. Other geometries are clipped using a JTS intersection.
+ * </p>
  * 
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  * @author last edited by: $Author: stranger $
@@ -68,19 +89,23 @@ class GeometryClipper {
 
     private final Polygon clippingArea;
 
+    private final RectangleClipper rectangleClipper;
+
     GeometryClipper( final Envelope viewPort, final int width ) {
-        this.clippingArea = calculateClippingArea( viewPort, width );
+        Envelope enlargedBBox = calculateClippingEnvelope( viewPort, width );
+        this.clippingArea = (Polygon) Geometries.getAsGeometry( enlargedBBox );
+        this.rectangleClipper = new RectangleClipper( enlargedBBox.getMin().get0(), enlargedBBox.getMin().get1(),
+                                                      enlargedBBox.getMax().get0(), enlargedBBox.getMax().get1() );
     }
 
-    private Polygon calculateClippingArea( final Envelope bbox, final int width ) {
+    private Envelope calculateClippingEnvelope( final Envelope bbox, final int width ) {
         double resolution = bbox.getSpan0() / width;
         double delta = resolution * 100;
         double[] minCords = new double[] { bbox.getMin().get0() - delta, bbox.getMin().get1() - delta };
         double[] maxCords = new double[] { bbox.getMax().get0() + delta, bbox.getMax().get1() + delta };
         Point min = new DefaultPoint( null, bbox.getCoordinateSystem(), null, minCords );
         Point max = new DefaultPoint( null, bbox.getCoordinateSystem(), null, maxCords );
-        Envelope enlargedBBox = new DefaultEnvelope( min, max );
-        return (Polygon) Geometries.getAsGeometry( enlargedBBox );
+        return new DefaultEnvelope( min, max );
     }
 
     /**
@@ -92,6 +117,9 @@ class GeometryClipper {
      * @return the clipped geometry or the original geometry if the geometry lays completely in the drawing area.
      */
     Geometry clipGeometry( final Geometry geom ) {
+        if ( isRectangleClippable( geom ) ) {
+            return clipRectangle( geom, geom.getCoordinateSystem() );
+        }
         if ( clippingArea != null && !clippingArea.contains( geom ) ) {
             try {
                 Geometry clippedGeometry = clippingArea.getIntersection( geom );
@@ -115,7 +143,141 @@ class GeometryClipper {
         }
         return geom;
     }
-    
+
+    private boolean isRectangleClippable( final Geometry geom ) {
+        if ( geom instanceof Point || geom instanceof LineString ) {
+            return true;
+        }
+        if ( geom instanceof Polygon ) {
+            Polygon polygon = (Polygon) geom;
+            if ( polygon.getSurfaceType() != Polygon || !isLinear( polygon.getExteriorRing() ) ) {
+                return false;
+            }
+            if ( polygon.getInteriorRings() != null ) {
+                for ( Ring interior : polygon.getInteriorRings() ) {
+                    if ( !isLinear( interior ) ) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        if ( geom instanceof MultiGeometry<?> ) {
+            for ( Geometry member : (MultiGeometry<?>) geom ) {
+                if ( !isRectangleClippable( member ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isLinear( Ring ring ) {
+        return ring != null && ring.getRingType() == LinearRing;
+    }
+
+    private Geometry clipRectangle( final Geometry geom, final ICRS defaultCrs ) {
+        ICRS crs = geom.getCoordinateSystem() != null ? geom.getCoordinateSystem() : defaultCrs;
+        if ( geom instanceof Point ) {
+            Point p = (Point) geom;
+            return rectangleClipper.contains( p.get0(), p.get1() ) ? geom : null;
+        }
+        if ( geom instanceof LineString ) {
+            return clipLineString( (LineString) geom, crs );
+        }
+        if ( geom instanceof Polygon ) {
+            return clipPolygon( (Polygon) geom, crs );
+        }
+        return clipMultiGeometry( (MultiGeometry<?>) geom, crs );
+    }
+
+    private Geometry clipLineString( final LineString lineString, final ICRS crs ) {
+        Points points = lineString.getControlPoints();
+        double[] coords = points.getAsArray();
+        Relation relation = rectangleClipper.relate( coords, points.getDimension() );
+        if ( relation == Relation.INSIDE ) {
+            return lineString;
+        }
+        if ( relation == Relation.OUTSIDE ) {
+            return null;
+        }
+        List<double[]> parts = rectangleClipper.clipLineString( coords, points.getDimension() );
+        if ( parts.isEmpty() ) {
+            return null;
+        }
+        if ( parts.size() == 1 ) {
+            return new DefaultLineString( null, crs, null, new PackedPoints( crs, parts.get( 0 ), 2 ) );
+        }
+        List<LineString> members = new ArrayList<LineString>( parts.size() );
+        for ( double[] part : parts ) {
+            members.add( new DefaultLineString( null, crs, null, new PackedPoints( crs, part, 2 ) ) );
+        }
+        return new DefaultMultiLineString( null, crs, null, members );
+    }
+
+    private Geometry clipPolygon( final Polygon polygon, final ICRS crs ) {
+        Points exteriorPoints = polygon.getExteriorRing().getControlPoints();
+        double[] exteriorCoords = exteriorPoints.getAsArray();
+        Relation relation = rectangleClipper.relate( exteriorCoords, exteriorPoints.getDimension() );
+        if ( relation == Relation.INSIDE ) {
+            return polygon;
+        }
+        if ( relation == Relation.OUTSIDE ) {
+            return null;
+        }
+        Ring exterior = clipRing( exteriorCoords, exteriorPoints.getDimension(), crs );
+        if ( exterior == null ) {
+            return null;
+        }
+        List<Ring> interiors = new ArrayList<Ring>();
+        if ( polygon.getInteriorRings() != null ) {
+            for ( Ring interior : polygon.getInteriorRings() ) {
+                Points points = interior.getControlPoints();
+                double[] coords = points.getAsArray();
+                relation = rectangleClipper.relate( coords, points.getDimension() );
+                if ( relation == Relation.INSIDE ) {
+                    interiors.add( interior );
+                } else if ( relation == Relation.CROSSING ) {
+                    Ring clipped = clipRing( coords, points.getDimension(), crs );
+                    if ( clipped != null ) {
+                        interiors.add( clipped );
+                    }
+                }
+            }
+        }
+        return new DefaultPolygon( null, crs, null, exterior, interiors );
+    }
+
+    private Ring clipRing( final double[] coords, final int dim, final ICRS crs ) {
+        double[] clipped = rectangleClipper.clipRing( coords, dim );
+        if ( clipped == null ) {
+            return null;
+        }
+        return new DefaultLinearRing( null, crs, null, new PackedPoints( crs, clipped, 2 ) );
+    }
+
+    private Geometry clipMultiGeometry( final MultiGeometry<?> multiGeometry, final ICRS crs ) {
+        List<Geometry> members = new ArrayList<Geometry>( multiGeometry.size() );
+        boolean unchanged = true;
+        for ( Geometry member : multiGeometry ) {
+            Geometry clipped = clipRectangle( member, crs );
+            if ( clipped != member ) {
+                unchanged = false;
+            }
+            if ( clipped != null ) {
+                members.add( clipped );
+            }
+        }
+        if ( unchanged ) {
+            return multiGeometry;
+        }
+        if ( members.isEmpty() ) {
+            return null;
+        }
+        return new DefaultMultiGeometry<Geometry>( null, crs, null, members );
+    }
+
     /**
      * Check if the passed Geometry is a Polygon (or the first Geometry of a Collection) and the exterior Ring has CW orientation  
      * 
@@ -80,6 +80,8 @@ class GeometryHelper {
 
     private AffineTransform worldToScreen;
 
+    private PixelGeneralizer generalizer;
+
     GeometryHelper( Envelope bbox, int width, AffineTransform worldToScreen ) {
         this.worldToScreen = worldToScreen;
         try {
@@ -92,14 +94,37 @@ class GeometryHelper {
         }
     }
 
-    Double fromCurve( Curve curve, boolean close ) {
-        Double line = new Double();
+    /**
+     * @param enabled
+     *            <code>true</code>, if curves should be generalized to the device pixel grid (see
+     *            {@link PixelGeneralizer})
+     */
+    void setPixelGeneralization( boolean enabled ) {
+        if ( !enabled ) {
+            generalizer = null;
+        } else if ( generalizer == null ) {
+            generalizer = new PixelGeneralizer();
+        }
+    }
 
+    /**
+     * @param curve
+     * @param close
+     *            <code>true</code>, if the curve is a polygon ring
+     * @return the curve as path in device coordinates, may be <code>null</code> if pixel generalization is enabled and
+     *         the ring is smaller than a pixel
+     */
+    Double fromCurve( Curve curve, boolean close ) {
         // TODO use error criterion
         ICRS crs = curve.getCoordinateSystem();
         curve = linearizer.linearize( curve, new NumPointsCriterion( 100 ) );
         curve.setCoordinateSystem( crs );
         Points points = curve.getControlPoints();
+        if ( generalizer != null ) {
+            return generalizer.buildPath( points.getAsArray(), points.getDimension(), worldToScreen, close );
+        }
+
+        Double line = new Double();
         Iterator<Point> iter = points.iterator();
         Point p = iter.next();
         double x = p.get0(), y = p.get1();
@@ -0,0 +1,77 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import org.deegree.commons.utils.image.ImageEncoders;
+
+/**
+ * Provides the {@link ImageSerializer}s used for image formats without a configured serializer.
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class ImageSerializers {
+
+    private static final ImageSerializer PNG = new PngImageSerializer( ImageEncoders.getPngEncoder(), false );
+
+    private static final ImageSerializer PNG_8BIT = new PngImageSerializer( ImageEncoders.getPngEncoder(), true );
+
+    private static final ImageSerializer JPEG = new JpegImageSerializer( ImageEncoders.getJpegEncoder() );
+
+    private ImageSerializers() {
+        // avoid instantiation
+    }
+
+    /**
+     * @param format
+     *            mime type of the image format, must not be <code>null</code>
+     * @return the default serializer for the format, or <code>null</code> if the format should be written using
+     *         ImageIO
+     */
+    public static ImageSerializer getDefaultSerializer( String format ) {
+        if ( format.equals( "image/png" ) ) {
+            return PNG;
+        }
+        if ( format.equals( "image/png; subtype=8bit" ) || format.equals( "image/png; mode=8bit" ) ) {
+            return PNG_8BIT;
+        }
+        if ( format.equals( "image/jpeg" ) ) {
+            return JPEG;
+        }
+        return null;
+    }
+
+}
@@ -139,6 +139,19 @@ public class Java2DRenderer implements Renderer {
         rendererContext = new RendererContext( pixelSize, res, graphics, this, bbox, width, worldToScreen );
     }
 
+    /**
+     * Enables or disables the generalization of lines and polygons to the device pixel grid. If enabled, coordinates
+     * are snapped to whole pixels, redundant vertices are dropped and polygon rings smaller than a pixel are not
+     * rendered at all. Disabled by default.
+     *
+     * @param enabled
+     */
+    public void setPixelGeneralization( boolean enabled ) {
+        if ( rendererContext.geomHelper != null ) {
+            rendererContext.geomHelper.setPixelGeneralization( enabled );
+        }
+    }
+
     @Override
     public void render( final PointStyling styling, final Geometry geom ) {
         if ( geom == null ) {
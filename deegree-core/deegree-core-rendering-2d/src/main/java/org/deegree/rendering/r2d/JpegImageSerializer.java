@@ -0,0 +1,85 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.deegree.commons.utils.image.JpegEncoder;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+
+/**
+ * {@link ImageSerializer} that writes JPEG images using a {@link JpegEncoder}. Can be configured as a custom GetMap
+ * format, the <code>quality</code> (between 0 and 1) is set as bean property.
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class JpegImageSerializer implements ImageSerializer {
+
+    private volatile JpegEncoder encoder;
+
+    /**
+     * Creates a serializer with the default quality.
+     */
+    public JpegImageSerializer() {
+        this( new JpegEncoder() );
+    }
+
+    /**
+     * @param encoder
+     *            encoder to use, must not be <code>null</code>
+     */
+    public JpegImageSerializer( JpegEncoder encoder ) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * @param quality
+     *            between <code>0</code> (smallest) and <code>1</code> (best)
+     */
+    public void setQuality( float quality ) {
+        encoder = new JpegEncoder( quality );
+    }
+
+    @Override
+    public void serialize( RenderingInfo rinfo, BufferedImage img, OutputStream out )
+                            throws IOException {
+        encoder.encode( img, out );
+    }
+
+}
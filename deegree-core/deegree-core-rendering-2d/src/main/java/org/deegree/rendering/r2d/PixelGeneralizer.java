@@ -0,0 +1,195 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D.Double;
+
+/**
+ * Reduces packed coordinate sequences to what is actually visible on the device pixel grid.
+ * <p>
+ * The coordinates are transformed to device space and snapped to whole pixels. Consecutive points that fall into the
+ * same pixel are dropped, as are inner points of collinear runs. Rings that do not extend over at least one pixel are
+ * culled completely. For small scale maps, this reduces the number of vertices handed to the Java2D rasterizer by
+ * orders of magnitude, at the expense of up to half a pixel of displacement.
+ * </p>
+ * <p>
+ * Instances reuse an internal buffer and are not thread safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class PixelGeneralizer {
+
+    private double[] buffer = new double[256];
+
+    /**
+     * Generalizes the given coordinates. The resulting points can be obtained using {@link #getCoordinates()}.
+     * 
+     * @param coords
+     *            packed world coordinates, must not be <code>null</code>
+     * @param dim
+     *            coordinate dimension of the packed coordinates
+     * @param worldToScreen
+     *            world to device transform, must not be <code>null</code>
+     * @param ring
+     *            <code>true</code>, if the coordinates describe a (closed) ring that may be culled
+     * @return number of resulting (two dimensional) points, <code>0</code> if the ring is smaller than a pixel
+     */
+    int generalize( double[] coords, int dim, AffineTransform worldToScreen, boolean ring ) {
+        int numPoints = coords.length / dim;
+        if ( numPoints == 0 ) {
+            return 0;
+        }
+        if ( buffer.length < numPoints * 2 ) {
+            buffer = new double[numPoints * 2];
+        }
+        double[] buf = buffer;
+        if ( dim == 2 ) {
+            worldToScreen.transform( coords, 0, buf, 0, numPoints );
+        } else {
+            for ( int i = 0, j = 0; i < numPoints; ++i, j += dim ) {
+                buf[2 * i] = coords[j];
+                buf[2 * i + 1] = coords[j + 1];
+            }
+            worldToScreen.transform( buf, 0, buf, 0, numPoints );
+        }
+
+        if ( ring && isSubPixel( buf, numPoints ) ) {
+            return 0;
+        }
+
+        int out = 0;
+        for ( int i = 0; i < numPoints; ++i ) {
+            double x = Math.rint( buf[2 * i] );
+            double y = Math.rint( buf[2 * i + 1] );
+            if ( out > 0 && x == buf[2 * out - 2] && y == buf[2 * out - 1] ) {
+                continue;
+            }
+            if ( out > 1 && isInnerCollinear( buf[2 * out - 4], buf[2 * out - 3], buf[2 * out - 2], buf[2 * out - 1], x,
+                                               y ) ) {
+                --out;
+            }
+            buf[2 * out] = x;
+            buf[2 * out + 1] = y;
+            ++out;
+        }
+        if ( out == 1 ) {
+            // keep a zero length segment, so caps/joins still mark the position
+            buf[2] = buf[0];
+            buf[3] = buf[1];
+            out = 2;
+        }
+        return out;
+    }
+
+    /**
+     * @return the device coordinates (x/y pairs) of the last call to
+     *         {@link #generalize(double[], int, AffineTransform, boolean)}, only the returned number of points is
+     *         valid
+     */
+    double[] getCoordinates() {
+        return buffer;
+    }
+
+    /**
+     * Builds a path from the given coordinates.
+     * 
+     * @param coords
+     *            packed world coordinates, must not be <code>null</code>
+     * @param dim
+     *            coordinate dimension of the packed coordinates
+     * @param worldToScreen
+     *            world to device transform, must not be <code>null</code>
+     * @param close
+     *            <code>true</code>, if the coordinates describe a ring
+     * @return path in device coordinates, <code>null</code> if a ring has been culled
+     */
+    Double buildPath( double[] coords, int dim, AffineTransform worldToScreen, boolean close ) {
+        int numPoints = generalize( coords, dim, worldToScreen, close );
+        if ( numPoints == 0 ) {
+            return null;
+        }
+        double[] buf = buffer;
+        Double path = new Double( Double.WIND_NON_ZERO, numPoints );
+        path.moveTo( buf[0], buf[1] );
+        int last = numPoints - 1;
+        for ( int i = 1; i < last; ++i ) {
+            path.lineTo( buf[2 * i], buf[2 * i + 1] );
+        }
+        if ( close && last > 1 && buf[2 * last] == buf[0] && buf[2 * last + 1] == buf[1] ) {
+            path.closePath();
+        } else {
+            path.lineTo( buf[2 * last], buf[2 * last + 1] );
+        }
+        return path;
+    }
+
+    private static boolean isSubPixel( double[] buf, int numPoints ) {
+        double minX = buf[0], maxX = buf[0];
+        double minY = buf[1], maxY = buf[1];
+        for ( int i = 1; i < numPoints; ++i ) {
+            double x = buf[2 * i];
+            double y = buf[2 * i + 1];
+            if ( x < minX ) {
+                minX = x;
+            } else if ( x > maxX ) {
+                maxX = x;
+            }
+            if ( y < minY ) {
+                minY = y;
+            } else if ( y > maxY ) {
+                maxY = y;
+            }
+            if ( maxX - minX >= 1 || maxY - minY >= 1 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Snapped coordinates are whole numbers, so the tests are exact. The middle point is only dropped if it lies
+     * between its neighbours, spikes are kept.
+     */
+    private static boolean isInnerCollinear( double ax, double ay, double bx, double by, double cx, double cy ) {
+        double abx = bx - ax, aby = by - ay;
+        double bcx = cx - bx, bcy = cy - by;
+        return abx * bcy - aby * bcx == 0 && abx * bcx + aby * bcy > 0;
+    }
+
+}
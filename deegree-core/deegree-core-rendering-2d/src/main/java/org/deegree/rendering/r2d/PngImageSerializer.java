@@ -0,0 +1,166 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.deegree.commons.utils.image.PngEncoder;
+import org.deegree.commons.utils.image.PngEncoder.Filter;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+import org.deegree.style.utils.ColorQuantizer;
+
+/**
+ * {@link ImageSerializer} that writes PNG images using a {@link PngEncoder}.
+ * <p>
+ * Can be configured as a custom GetMap format, the encoder settings are set as bean properties
+ * (<code>deflateLevel</code>, <code>filter</code>, <code>palette</code>, <code>parallel</code>,
+ * <code>stripeHeight</code>). If <code>quantize</code> is set, images with more than 256 colours are reduced to 256
+ * colours (as for <code>image/png; mode=8bit</code>), images with fewer colours are written as they are.
+ * </p>
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class PngImageSerializer implements ImageSerializer {
+
+    private int deflateLevel = PngEncoder.DEFAULT_DEFLATE_LEVEL;
+
+    private Filter filter = Filter.ADAPTIVE;
+
+    private boolean palette = true;
+
+    private boolean parallel = true;
+
+    private int stripeHeight = PngEncoder.DEFAULT_STRIPE_HEIGHT;
+
+    private boolean quantize;
+
+    private volatile PngEncoder encoder;
+
+    /**
+     * Creates a serializer with the default encoder settings, to be configured using the setters.
+     */
+    public PngImageSerializer() {
+        // default settings
+    }
+
+    /**
+     * @param encoder
+     *            encoder to use, must not be <code>null</code>
+     * @param quantize
+     *            <code>true</code>, if images should be reduced to 256 colours
+     */
+    public PngImageSerializer( PngEncoder encoder, boolean quantize ) {
+        this.encoder = encoder;
+        this.quantize = quantize;
+    }
+
+    /**
+     * @param deflateLevel
+     *            between <code>0</code> (no compression) and <code>9</code> (best compression)
+     */
+    public void setDeflateLevel( int deflateLevel ) {
+        this.deflateLevel = deflateLevel;
+        encoder = null;
+    }
+
+    /**
+     * @param filter
+     *            scanline filter, one of NONE, SUB, UP, AVERAGE, PAETH or ADAPTIVE
+     */
+    public void setFilter( String filter ) {
+        this.filter = Filter.valueOf( filter.trim().toUpperCase() );
+        encoder = null;
+    }
+
+    /**
+     * @param palette
+     *            <code>true</code>, if images with at most 256 colours should be written as palette images
+     */
+    public void setPalette( boolean palette ) {
+        this.palette = palette;
+        encoder = null;
+    }
+
+    /**
+     * @param parallel
+     *            <code>true</code>, if large images should be deflated in parallel stripes
+     */
+    public void setParallel( boolean parallel ) {
+        this.parallel = parallel;
+        encoder = null;
+    }
+
+    /**
+     * @param stripeHeight
+     *            number of rows per stripe when deflating in parallel
+     */
+    public void setStripeHeight( int stripeHeight ) {
+        this.stripeHeight = stripeHeight;
+        encoder = null;
+    }
+
+    /**
+     * @param quantize
+     *            <code>true</code>, if images should be reduced to 256 colours
+     */
+    public void setQuantize( boolean quantize ) {
+        this.quantize = quantize;
+    }
+
+    @Override
+    public void serialize( RenderingInfo rinfo, BufferedImage img, OutputStream out )
+                            throws IOException {
+        PngEncoder encoder = getEncoder();
+        if ( !quantize ) {
+            encoder.encode( img, out );
+        } else if ( !encoder.encodeIndexed( img, out ) ) {
+            encoder.encode( ColorQuantizer.quantizeImage( img, 256, false, false ), out );
+        }
+    }
+
+    private PngEncoder getEncoder() {
+        PngEncoder encoder = this.encoder;
+        if ( encoder == null ) {
+            encoder = new PngEncoder( deflateLevel, filter, palette, parallel, stripeHeight );
+            this.encoder = encoder;
+        }
+        return encoder;
+    }
+
+}
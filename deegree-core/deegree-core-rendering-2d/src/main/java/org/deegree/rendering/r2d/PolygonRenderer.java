@@ -96,9 +96,16 @@ class PolygonRenderer {
                 GeneralPath polygon = new GeneralPath( WIND_EVEN_ODD );
                 for ( Curve curve : polygonPatch.getBoundaryRings() ) {
                     Double d = geomHelper.fromCurve( curve, true );
+                    if ( d == null ) {
+                        // culled by pixel generalization
+                        continue;
+                    }
                     lines.add( d );
                     polygon.append( d, false );
                 }
+                if ( lines.isEmpty() ) {
+                    continue;
+                }
 
                 fillRenderer.applyFill( styling.fill, styling.uom );
                 graphics.fill( polygon );
@@ -0,0 +1,327 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clips packed coordinate sequences against an axis-aligned rectangle.
+ * <p>
+ * Line strings are clipped segment by segment (Liang-Barsky) and may fall apart into several parts, rings are clipped
+ * edge by edge (Sutherland-Hodgman) and stay one (possibly degenerate) ring. Clipping of rings preserves the vertex
+ * order, so the orientation of the result is the same as the orientation of the input. Resulting coordinates are
+ * always two dimensional.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class RectangleClipper {
+
+    /**
+     * Relation between the envelope of a coordinate sequence and the clipping rectangle.
+     */
+    enum Relation {
+        /** envelope is completely inside of the rectangle */
+        INSIDE,
+        /** envelope does not touch the rectangle */
+        OUTSIDE,
+        /** envelope overlaps the rectangle boundary */
+        CROSSING
+    }
+
+    private final double minX;
+
+    private final double minY;
+
+    private final double maxX;
+
+    private final double maxY;
+
+    RectangleClipper( double minX, double minY, double maxX, double maxY ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    boolean contains( double x, double y ) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * @param coords
+     *            packed coordinates, must not be <code>null</code>
+     * @param dim
+     *            coordinate dimension of the packed coordinates
+     * @return relation between the envelope of the coordinates and the clipping rectangle, never <code>null</code>
+     */
+    Relation relate( double[] coords, int dim ) {
+        if ( coords.length < dim ) {
+            return Relation.OUTSIDE;
+        }
+        double envMinX = coords[0], envMaxX = coords[0];
+        double envMinY = coords[1], envMaxY = coords[1];
+        for ( int i = dim; i < coords.length; i += dim ) {
+            double x = coords[i];
+            double y = coords[i + 1];
+            if ( x < envMinX ) {
+                envMinX = x;
+            } else if ( x > envMaxX ) {
+                envMaxX = x;
+            }
+            if ( y < envMinY ) {
+                envMinY = y;
+            } else if ( y > envMaxY ) {
+                envMaxY = y;
+            }
+        }
+        if ( envMinX >= minX && envMaxX <= maxX && envMinY >= minY && envMaxY <= maxY ) {
+            return Relation.INSIDE;
+        }
+        if ( envMaxX < minX || envMinX > maxX || envMaxY < minY || envMinY > maxY ) {
+            return Relation.OUTSIDE;
+        }
+        return Relation.CROSSING;
+    }
+
+    /**
+     * Clips a line string.
+     * 
+     * @param coords
+     *            packed coordinates, must not be <code>null</code>
+     * @param dim
+     *            coordinate dimension of the packed coordinates
+     * @return the visible parts as packed two dimensional coordinates (each with at least two points), may be empty,
+     *         but never <code>null</code>
+     */
+    List<double[]> clipLineString( double[] coords, int dim ) {
+        List<double[]> parts = new ArrayList<double[]>();
+        CoordinateBuffer part = new CoordinateBuffer( 16 );
+        double[] t = new double[2];
+        for ( int i = dim; i < coords.length; i += dim ) {
+            double x0 = coords[i - dim], y0 = coords[i - dim + 1];
+            double x1 = coords[i], y1 = coords[i + 1];
+            if ( !clipSegment( x0, y0, x1, y1, t ) ) {
+                part.flushTo( parts );
+                continue;
+            }
+            double dx = x1 - x0, dy = y1 - y0;
+            if ( part.size == 0 || t[0] > 0 ) {
+                part.flushTo( parts );
+                part.add( x0 + t[0] * dx, y0 + t[0] * dy );
+            }
+            if ( t[1] < 1 ) {
+                part.add( x0 + t[1] * dx, y0 + t[1] * dy );
+                part.flushTo( parts );
+            } else {
+                part.add( x1, y1 );
+            }
+        }
+        part.flushTo( parts );
+        return parts;
+    }
+
+    /**
+     * Clips a closed ring.
+     * 
+     * @param coords
+     *            packed coordinates of the ring (first point equals the last point), must not be <code>null</code>
+     * @param dim
+     *            coordinate dimension of the packed coordinates
+     * @return the clipped ring as packed two dimensional coordinates (first point equals the last point),
+     *         <code>null</code> if nothing (or an area of size zero) remains
+     */
+    double[] clipRing( double[] coords, int dim ) {
+        int numPoints = coords.length / dim;
+        if ( numPoints > 1 && coords[0] == coords[coords.length - dim]
+             && coords[1] == coords[coords.length - dim + 1] ) {
+            // the closing point is implicit for the clipping steps
+            numPoints--;
+        }
+        CoordinateBuffer in = new CoordinateBuffer( numPoints + 4 );
+        for ( int i = 0; i < numPoints; ++i ) {
+            in.add( coords[i * dim], coords[i * dim + 1] );
+        }
+        CoordinateBuffer out = new CoordinateBuffer( numPoints + 4 );
+        for ( int edge = 0; edge < 4 && in.size > 0; ++edge ) {
+            out.size = 0;
+            clipAgainstEdge( in, out, edge );
+            CoordinateBuffer tmp = in;
+            in = out;
+            out = tmp;
+        }
+        if ( in.size < 3 || isZeroArea( in ) ) {
+            return null;
+        }
+        in.add( in.coords[0], in.coords[1] );
+        return Arrays.copyOf( in.coords, in.size * 2 );
+    }
+
+    private void clipAgainstEdge( CoordinateBuffer in, CoordinateBuffer out, int edge ) {
+        double[] c = in.coords;
+        int n = in.size;
+        double prevX = c[2 * n - 2], prevY = c[2 * n - 1];
+        boolean prevInside = isInside( prevX, prevY, edge );
+        for ( int i = 0; i < n; ++i ) {
+            double x = c[2 * i], y = c[2 * i + 1];
+            boolean inside = isInside( x, y, edge );
+            if ( inside != prevInside ) {
+                addIntersection( out, prevX, prevY, x, y, edge );
+            }
+            if ( inside ) {
+                out.add( x, y );
+            }
+            prevX = x;
+            prevY = y;
+            prevInside = inside;
+        }
+    }
+
+    private boolean isInside( double x, double y, int edge ) {
+        switch ( edge ) {
+        case 0:
+            return x >= minX;
+        case 1:
+            return x <= maxX;
+        case 2:
+            return y >= minY;
+        default:
+            return y <= maxY;
+        }
+    }
+
+    private void addIntersection( CoordinateBuffer out, double x0, double y0, double x1, double y1, int edge ) {
+        switch ( edge ) {
+        case 0:
+            out.add( minX, y0 + ( minX - x0 ) / ( x1 - x0 ) * ( y1 - y0 ) );
+            break;
+        case 1:
+            out.add( maxX, y0 + ( maxX - x0 ) / ( x1 - x0 ) * ( y1 - y0 ) );
+            break;
+        case 2:
+            out.add( x0 + ( minY - y0 ) / ( y1 - y0 ) * ( x1 - x0 ), minY );
+            break;
+        default:
+            out.add( x0 + ( maxY - y0 ) / ( y1 - y0 ) * ( x1 - x0 ), maxY );
+        }
+    }
+
+    /**
+     * Liang-Barsky clipping of a single segment.
+     * 
+     * @param t
+     *            receives the parameters of the visible part of the segment
+     * @return <code>false</code>, if the segment is completely outside
+     */
+    private boolean clipSegment( double x0, double y0, double x1, double y1, double[] t ) {
+        double dx = x1 - x0, dy = y1 - y0;
+        t[0] = 0;
+        t[1] = 1;
+        return clipParameter( -dx, x0 - minX, t ) && clipParameter( dx, maxX - x0, t )
+               && clipParameter( -dy, y0 - minY, t ) && clipParameter( dy, maxY - y0, t );
+    }
+
+    private static boolean clipParameter( double p, double q, double[] t ) {
+        if ( p == 0 ) {
+            return q >= 0;
+        }
+        double r = q / p;
+        if ( p < 0 ) {
+            if ( r > t[1] ) {
+                return false;
+            }
+            if ( r > t[0] ) {
+                t[0] = r;
+            }
+        } else {
+            if ( r < t[0] ) {
+                return false;
+            }
+            if ( r < t[1] ) {
+                t[1] = r;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rings that wind around the rectangle without overlapping it are clipped to paths that go back and forth along the
+     * rectangle boundary. These are recognized by their (numerically) vanishing area.
+     */
+    private boolean isZeroArea( CoordinateBuffer ring ) {
+        double[] c = ring.coords;
+        int n = ring.size;
+        double area = 0;
+        for ( int i = 0, j = n - 1; i < n; j = i++ ) {
+            area += ( c[2 * j] - c[2 * i] ) * ( c[2 * j + 1] + c[2 * i + 1] );
+        }
+        return Math.abs( area ) <= ( maxX - minX ) * ( maxY - minY ) * 1E-12;
+    }
+
+    /**
+     * Growable buffer of two dimensional coordinates.
+     */
+    private static class CoordinateBuffer {
+
+        double[] coords;
+
+        int size;
+
+        CoordinateBuffer( int capacity ) {
+            coords = new double[Math.max( capacity, 4 ) * 2];
+        }
+
+        void add( double x, double y ) {
+            if ( size * 2 == coords.length ) {
+                coords = Arrays.copyOf( coords, coords.length * 2 );
+            }
+            coords[size * 2] = x;
+            coords[size * 2 + 1] = y;
+            size++;
+        }
+
+        void flushTo( List<double[]> parts ) {
+            if ( size > 1 ) {
+                parts.add( Arrays.copyOf( coords, size * 2 ) );
+            }
+            size = 0;
+        }
+    }
+
+}
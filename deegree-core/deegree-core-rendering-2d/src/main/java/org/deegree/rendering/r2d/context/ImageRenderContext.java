@@ -57,7 +57,9 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import org.deegree.style.utils.ColorQuantizer;
+import org.deegree.rendering.r2d.ImageSerializer;
+import org.deegree.rendering.r2d.ImageSerializers;
+import org.deegree.rendering.r2d.context.MapOptions.Generalization;
 import org.deegree.style.utils.ImageUtils;
 
 /**
@@ -100,19 +102,18 @@ public class ImageRenderContext extends Java2DRenderContext {
             graphics.dispose();
             
             if ( outputStream != null ) {
-                BufferedImage image = this.image;
-                String format = this.format.substring( this.format.indexOf( "/" ) + 1 );
-                if ( format.equals( "x-ms-bmp" ) ) {
-                    format = "bmp";
+                ImageSerializer serializer = info.getSerializer();
+                if ( serializer == null ) {
+                    serializer = ImageSerializers.getDefaultSerializer( this.format );
                 }
-                if ( format.equals( "png; subtype=8bit" ) || format.equals( "png; mode=8bit" ) ) {
-                    image = ColorQuantizer.quantizeImage( image, 256, false, false );
-                    format = "png";
-                }
-                
-                if (info.getSerializer() != null){
-                    info.getSerializer().serialize( info, image, outputStream );
+
+                if ( serializer != null ) {
+                    serializer.serialize( info, image, outputStream );
                 } else {
+                    String format = this.format.substring( this.format.indexOf( "/" ) + 1 );
+                    if ( format.equals( "x-ms-bmp" ) ) {
+                        format = "bmp";
+                    }
                     return write( image, format, outputStream );
                 }
             }
@@ -127,6 +128,11 @@ public class ImageRenderContext extends Java2DRenderContext {
         applyQuality( options );
         applyInterpolation( options );
         applyAntialias( options );
+        applyGeneralization( options );
+    }
+
+    private void applyGeneralization( MapOptions options ) {
+        renderer.setPixelGeneralization( options.getGeneralization() == Generalization.PIXEL );
     }
 
     private void applyAntialias( MapOptions options ) {
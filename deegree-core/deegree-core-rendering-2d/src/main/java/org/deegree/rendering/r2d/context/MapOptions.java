@@ -54,6 +54,8 @@ public class MapOptions {
 
     private boolean opaque;
 
+    private Generalization generalization;
+
     public MapOptions( Quality quality, Interpolation interpol, Antialias antialias, int maxFeatures,
                        int featureInfoRadius ) {
         this( quality, interpol, antialias, maxFeatures, featureInfoRadius, false );
@@ -159,6 +161,21 @@ public class MapOptions {
         this.opaque = opaque;
     }
 
+    /**
+     * @return the geometry generalization, may be <code>null</code> (not set)
+     */
+    public Generalization getGeneralization() {
+        return generalization;
+    }
+
+    /**
+     * @param generalization
+     *            the geometry generalization to set
+     */
+    public void setGeneralization( Generalization generalization ) {
+        this.generalization = generalization;
+    }
+
     /**
      * <code>Quality</code>
      * 
@@ -206,6 +223,20 @@ public class MapOptions {
         NONE
     }
 
+    /**
+     * Generalization applied to line and polygon geometries before they are handed to the rasterizer.
+     * 
+     * @author last edited by: $Author$
+     * 
+     * @version $Revision$, $Date$
+     */
+    public static enum Generalization {
+        /** geometries are rendered with full resolution */
+        NONE,
+        /** coordinates are snapped to the pixel grid, redundant vertices and sub-pixel polygons are dropped */
+        PIXEL
+    }
+
     public interface MapOptionsSetter<T> {
         void setOption( String layer, T value );
     }
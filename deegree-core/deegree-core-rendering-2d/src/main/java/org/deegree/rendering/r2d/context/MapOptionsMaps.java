@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.deegree.rendering.r2d.context.MapOptions.Antialias;
+import org.deegree.rendering.r2d.context.MapOptions.Generalization;
 import org.deegree.rendering.r2d.context.MapOptions.Interpolation;
 import org.deegree.rendering.r2d.context.MapOptions.Quality;
 
@@ -108,6 +109,11 @@ public class MapOptionsMaps {
         return opts == null ? null : opts.getInterpolation();
     }
 
+    public Generalization getGeneralization( String layer ) {
+        MapOptions opts = options.get( layer );
+        return opts == null ? null : opts.getGeneralization();
+    }
+
     public void setMaxFeatures( String layer, int maxFeatures ) {
         if ( options.get( layer ) == null ) {
             options.put( layer, new MapOptions( null, null, null, maxFeatures, -1 ) );
@@ -148,9 +154,18 @@ public class MapOptionsMaps {
         }
     }
 
+    public void setGeneralization( String layer, Generalization generalization ) {
+        if ( options.get( layer ) == null ) {
+            options.put( layer, new MapOptions( null, null, null, -1, -1 ) );
+        }
+        options.get( layer ).setGeneralization( generalization );
+    }
+
     public MapOptions get( String layer ) {
-        return new MapOptions( getQuality( layer ), getInterpolation( layer ), getAntialias( layer ),
-                               getMaxFeatures( layer ), getFeatureInfoRadius( layer ) );
+        MapOptions opts = new MapOptions( getQuality( layer ), getInterpolation( layer ), getAntialias( layer ),
+                                          getMaxFeatures( layer ), getFeatureInfoRadius( layer ) );
+        opts.setGeneralization( getGeneralization( layer ) );
+        return opts;
     }
 
 }
@@ -36,16 +36,15 @@
 package org.deegree.rendering.r2d.labelplacement;
 
 import static org.slf4j.LoggerFactory.getLogger;
-import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import org.deegree.rendering.r2d.Java2DRenderer;
 import org.deegree.rendering.r2d.Label;
 import org.deegree.rendering.r2d.Renderer;
-import org.deegree.rendering.r2d.RendererContext;
-import org.deegree.rendering.r2d.Java2DRenderer;
 import org.deegree.style.utils.UomCalculator;
+import org.slf4j.Logger;
 
 /**
  * <code>Automatic Label Placement, based on org.deegree.graphics.optimizers.LabelOptimizer from deegree2 </code>
@@ -53,7 +52,14 @@ import org.deegree.style.utils.UomCalculator;
  * Selects an approximate optimal <code>Label</code>s position distribution with respect to the amount of overlapping.
  * <p>
  * The labeling and optimization approach uses ideas from papers by Ingo Petzold on automated label placement.
+ * </p>
  * <p>
+ * Labels that may collide are determined using a {@link LabelGrid}, so only neighbouring labels are compared. The
+ * labels are placed greedily in list order (each label takes the best position that does not overlap the labels placed
+ * before, if there is one), followed by a bounded number of improvement passes that move labels which still overlap
+ * others. Placement stops when the time budget (system property <code>DEEGREE_LABEL_PLACEMENT_TIME_BUDGET</code> in
+ * milliseconds, default 1000) is used up, labels that have not been placed by then keep their default position.
+ * </p>
  * 
  * @author <a href="mailto:schmitz@lat-lon.de">Andreas Schmitz</a>
  * @author Florian Bingel
@@ -66,14 +72,28 @@ public class AutoLabelPlacement {
     
     private static final Logger LOG = getLogger( AutoLabelPlacement.class );
 
+    private static final String VAR_TIME_BUDGET = "DEEGREE_LABEL_PLACEMENT_TIME_BUDGET";
+
+    private static final long DEFAULT_TIME_BUDGET = 1000;
+
+    private static final long TIME_BUDGET = getConfiguredTimeBudget();
+
+    private static final int INTERSECTION_PENALTY = 40;
+
+    private static final int MAX_IMPROVEMENT_PASSES = 3;
+
+    /**
+     * Position indexes, ordered from best to worst quality.
+     */
+    private static final int[] POSITIONS_BY_QUALITY = new int[] { 0, 6, 4, 3, 2, 1, 7, 5 };
+
     private ArrayList<PointLabelPositionOptions> labelPositionsList;
-    
-    // collision matrix of PointLabelPositionOptions that may overlap
-    private boolean[][] collisionMatrix;
-    
-    float placementQuality = 0.0f;
-    int intersectionQuality = 0;
-    
+
+    // indexes of the PointLabelPositionOptions that may overlap, for every PointLabelPositionOptions
+    private int[][] neighbours;
+
+    private long deadline;
+
     /**
      * Finds optimized {@link Label} positions for all Labels in the List. Labels should have {@link TextStyling}.auto set to true
      *
@@ -94,15 +114,21 @@ public class AutoLabelPlacement {
         LOG.debug( "Added "+labelPositionsList.size() + " Labels of " + labelList.size() + " to auto placement" );
     
         if( labelPositionsList.size() > 1 ){
-            buildCollisionMatrix();
-    
-            // do the magic
-            try {
-                anneal();
-            } catch ( Exception e ) {
-                e.printStackTrace();
+            long now = System.currentTimeMillis();
+            deadline = System.nanoTime() + TIME_BUDGET * 1000000;
+
+            neighbours = LabelGrid.findNeighbours( labelPositionsList );
+            LOG.debug( "Finding neighbouring labels took: " + ( System.currentTimeMillis() - now ) + " millis." );
+
+            int placed = placeGreedily();
+            if ( placed < labelPositionsList.size() ) {
+                LOG.warn( "Label placement time budget exceeded, placed only {} of {} labels.", placed,
+                          labelPositionsList.size() );
+            } else {
+                improve();
             }
-    
+            LOG.debug( "Label placement took: " + ( System.currentTimeMillis() - now ) + " millis." );
+
             //Update labels with new position
             for( PointLabelPositionOptions l : labelPositionsList){
                 l.updateLabelPosition();
@@ -111,176 +137,125 @@ public class AutoLabelPlacement {
     }
 
     /**
-     * Performs "Simulated Annealing" on the array of {@link PointLabelPositionOptions}.
+     * Places the labels in list order. Every label takes the best position that does not intersect any of the labels
+     * placed before, or the position with the least intersections if there is no such position.
+     * 
+     * @return number of labels that have been placed before the time budget was exceeded
      */
-    private void anneal() {
-
-        objectiveFunction();
-        float currentQuality = placementQuality + intersectionQuality;
-
-        double temperature = 1.0;
-        int counter = 0;
-        int successCounter = 0;
-//        int failCounter = 0;
-        java.util.Random rand = new java.util.Random();
-
+    private int placeGreedily() {
         int n = labelPositionsList.size();
-
-        LOG.debug( "Starting Annealing with value: " + currentQuality + ", trying to reach: " + ( n + 0.8 * 40 ));
-        long now = System.currentTimeMillis();
-
-        while ( counter <= 2500 && currentQuality > ( n + 0.8 * 40 ) ) {
-
-            counter++;
-            if ( successCounter == 5 ) {
-                successCounter = 0;
-                temperature *= 0.9;
+        for ( int i = 0; i < n; i++ ) {
+            if ( ( i & 0xff ) == 0 && isOutOfTime() ) {
+                return i;
             }
-
-            //choose one Label from the list randomly
-            int choiceIndex = rand.nextInt( n );
-            //int choiceIndex = (int) ( Math.random() * ( n - 1 ) + 0.5 );
-            PointLabelPositionOptions choice = labelPositionsList.get( choiceIndex );
-            
-            int oldPos = choice.getSelectedIndex();
-            int oldIntersectionQuality = intersectionQuality;
-            float oldPlacementQuality = placementQuality;
-
-            updateChoiceAndQuality(choice, choiceIndex);
-            
-            float quality = placementQuality + intersectionQuality;
-
-            // does the new placement imply an improvement?
-            if ( quality < currentQuality ) {
-                // yes -> keep it
-                currentQuality = quality;
-                successCounter++;
-//                failCounter = 0;
-            } else {
-                // no -> only keep it with a certain probability
-                if ( Math.random() < temperature ) {
-                    currentQuality = quality;
-//                    failCounter = 0;
-                } else {
-                    // change it back to the old placement
-                    choice.select( oldPos );
-                    intersectionQuality = oldIntersectionQuality;
-                    placementQuality = oldPlacementQuality;
-//                    failCounter++;
+            PointLabelPositionOptions label = labelPositionsList.get( i );
+            int bestPos = 0;
+            float bestCost = Float.MAX_VALUE;
+            for ( int pos : POSITIONS_BY_QUALITY ) {
+                label.select( pos );
+                int intersections = countIntersections( i, i );
+                float cost = label.getQuality() + INTERSECTION_PENALTY * intersections;
+                if ( cost < bestCost ) {
+                    bestCost = cost;
+                    bestPos = pos;
+                }
+                if ( intersections == 0 ) {
+                    // positions are ordered by quality, so this is the best one
+                    break;
                 }
             }
+            label.select( bestPos );
         }
- 
-        long duration = System.currentTimeMillis() - now;
-        
-        LOG.debug( "Final value: " + currentQuality + ", needed " + counter + " iterations");
-        LOG.debug( "Annealing took: " + duration + " ms, ( " + (int)((double)duration/(double)counter * 1000) + " µs per iteration  )"  );
+        return n;
     }
 
     /**
-     * Builds the collision matrix for all <code>PointLabelPositionOptions</code>.
+     * Moves labels that intersect other labels to the position with the least cost (quality and intersections with all
+     * neighbours), until no label can be improved, the maximum number of passes has been done or the time budget is
+     * exceeded.
      */
-    private void buildCollisionMatrix() {
-        
-        long now = System.currentTimeMillis();
-        collisionMatrix = new boolean[labelPositionsList.size()][labelPositionsList.size()];
-        
-        for ( int i = 0; i < labelPositionsList.size(); i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            
-            for ( int j = i + 1; j < labelPositionsList.size(); j++ ) {
-                PointLabelPositionOptions choice2 = labelPositionsList.get( j );
-                collisionMatrix[i][j] = choice1.intersectsAny( choice2 );
+    private void improve() {
+        int n = labelPositionsList.size();
+        for ( int pass = 0; pass < MAX_IMPROVEMENT_PASSES; pass++ ) {
+            int moved = 0;
+            for ( int i = 0; i < n; i++ ) {
+                if ( ( i & 0xff ) == 0 && isOutOfTime() ) {
+                    LOG.debug( "Label placement time budget exceeded in improvement pass {}.", pass + 1 );
+                    return;
+                }
+                PointLabelPositionOptions label = labelPositionsList.get( i );
+                int intersections = countIntersections( i, n );
+                if ( intersections == 0 ) {
+                    continue;
+                }
+                int oldPos = label.getSelectedIndex();
+                int bestPos = oldPos;
+                float bestCost = label.getQuality() + INTERSECTION_PENALTY * intersections;
+                for ( int pos : POSITIONS_BY_QUALITY ) {
+                    if ( pos == oldPos ) {
+                        continue;
+                    }
+                    label.select( pos );
+                    float cost = label.getQuality() + INTERSECTION_PENALTY * countIntersections( i, n );
+                    if ( cost < bestCost ) {
+                        bestCost = cost;
+                        bestPos = pos;
+                    }
+                }
+                label.select( bestPos );
+                if ( bestPos != oldPos ) {
+                    moved++;
+                }
+            }
+            LOG.debug( "Improvement pass {} moved {} labels.", pass + 1, moved );
+            if ( moved == 0 ) {
+                return;
             }
-            
         }
-        
-        LOG.debug( "Building of collision matrix took: " + ( System.currentTimeMillis() - now ) + " millis." );
     }
-    
+
     /**
-     * Updates the quality value for the currently selected combination of {@link Label}s and lets the label select a new random position
+     * Counts the intersections of the current position of a label with the current positions of its neighbours.
      * 
-     * @param changedLabel
-     *          the label which is chosen to be changed
-     *          
-     * @param choice
-     *          the index of the choice in the labelPositionsList
+     * @param index
+     *          index of the label
+     * @param limit
+     *          only neighbours with an index below this limit are considered
      */
-    private void updateChoiceAndQuality(PointLabelPositionOptions changedLabel, int choice) {
-       
-        int changedLabelIntersectionQuality = 0;
-        
-        
-        //calculate, how much the (to bee) changedLabel does contribute to the intersectionQuality
-        for ( int i = 0; i < choice; i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            if ( collisionMatrix[i][choice] && ( changedLabel.intersectsSelection(choice1) )) {
-                changedLabelIntersectionQuality += 40;
+    private int countIntersections( int index, int limit ) {
+        PointLabelPositionOptions label = labelPositionsList.get( index );
+        int intersections = 0;
+        for ( int j : neighbours[index] ) {
+            if ( j >= limit ) {
+                // neighbour indexes are sorted
+                break;
             }
-        }
-        
-        for (int i = choice+1; i <  labelPositionsList.size(); i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            if ( collisionMatrix[choice][i] && ( changedLabel.intersectsSelection(choice1) )) {
-                changedLabelIntersectionQuality += 40;
+            if ( label.intersectsSelection( labelPositionsList.get( j ) ) ) {
+                intersections++;
             }
         }
-        
-        //subtract the qualities of the label which is going to be changed
-        intersectionQuality -= changedLabelIntersectionQuality;
-        placementQuality -= changedLabel.getQuality();
-
-
-        //select a new position randomly
-        changedLabel.selectLabelPositionRandomly();
+        return intersections;
+    }
 
-        
-        //calculate, how much the changedLabel does contribute to the intersectionQuality
-        changedLabelIntersectionQuality = 0;
-        for ( int i = 0; i < choice; i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            if ( collisionMatrix[i][choice] && ( changedLabel.intersectsSelection(choice1) )) {
-                changedLabelIntersectionQuality += 40;
-            }
-        }
-        
-        for (int i = choice+1; i <  labelPositionsList.size(); i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            if ( collisionMatrix[choice][i] && ( changedLabel.intersectsSelection(choice1) )) {
-                changedLabelIntersectionQuality += 40;
-            }
-        }
-        
-        //add the new qualities
-        intersectionQuality += changedLabelIntersectionQuality;
-        placementQuality += changedLabel.getQuality();
+    private boolean isOutOfTime() {
+        return System.nanoTime() - deadline > 0;
     }
-    
-    /**
-     * Calculates the initial quality values for the currently selected combination of {@link Label}s.
-     *
-     */
-    private void objectiveFunction() {
-        
-        placementQuality = 0.0f;
-        intersectionQuality = 0;
-        
-        for ( int i = 0; i < labelPositionsList.size(); i++ ) {
-            PointLabelPositionOptions choice1 = labelPositionsList.get( i );
-            //placementQuality += choice1.getQuality() + 1.0f;
-            placementQuality += choice1.getQuality();
-            
-            for ( int j = i + 1; j < labelPositionsList.size(); j++ ) {
-                if ( collisionMatrix[i][j] ) {
-                    PointLabelPositionOptions choice2 = labelPositionsList.get( j );
-                    if ( choice1.intersectsSelection( choice2 ) ) {
-                        intersectionQuality += 40;
-                    }
+
+    private static long getConfiguredTimeBudget() {
+        String budget = System.getProperty( VAR_TIME_BUDGET );
+        if ( budget != null ) {
+            try {
+                long value = Long.parseLong( budget.trim() );
+                if ( value > 0 ) {
+                    return value;
                 }
+            } catch ( NumberFormatException e ) {
+                // fall through
             }
+            LOG.warn( "Ignoring invalid value '{}' of {}, using {}.", new Object[] { budget, VAR_TIME_BUDGET,
+                                                                                   DEFAULT_TIME_BUDGET } );
         }
+        return DEFAULT_TIME_BUDGET;
     }
-    
-}
 
+}
@@ -0,0 +1,175 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.labelplacement;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the areas covered by {@link PointLabelPositionOptions}, used to find the labels that may collide
+ * with each other without comparing every label with every other one.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class LabelGrid {
+
+    private static final int[] EMPTY = new int[0];
+
+    private LabelGrid() {
+        // avoid instantiation
+    }
+
+    /**
+     * Determines the potentially colliding labels (see {@link PointLabelPositionOptions#intersectsAny}) for every
+     * label.
+     * 
+     * @param labels
+     *            labels, must not be <code>null</code>
+     * @return indexes of the potentially colliding labels for every label (in ascending order), never
+     *         <code>null</code>
+     */
+    static int[][] findNeighbours( List<PointLabelPositionOptions> labels ) {
+        int n = labels.size();
+        int[][] neighbours = new int[n][];
+        int[] numNeighbours = new int[n];
+        if ( n == 0 ) {
+            return neighbours;
+        }
+
+        double[][] boxes = new double[n][];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double sumSize = 0;
+        for ( int i = 0; i < n; ++i ) {
+            double[] box = labels.get( i ).getSearchBox();
+            boxes[i] = box;
+            minX = Math.min( minX, box[0] );
+            minY = Math.min( minY, box[1] );
+            maxX = Math.max( maxX, box[2] );
+            maxY = Math.max( maxY, box[3] );
+            sumSize += Math.max( box[2] - box[0], box[3] - box[1] );
+        }
+
+        // cells of about the size of an average label, but not (many) more cells than labels
+        double cellSize = Math.max( 1, sumSize / n );
+        double width = maxX - minX, height = maxY - minY;
+        while ( ( width / cellSize + 1 ) * ( height / cellSize + 1 ) > 4.0 * n ) {
+            cellSize *= 2;
+        }
+        int cols = (int) ( width / cellSize ) + 1;
+        int rows = (int) ( height / cellSize ) + 1;
+
+        // compressed cell lists: cellStart[c] .. cellStart[c + 1] - 1 are the positions of cell c in cellItems
+        int[] cellStart = new int[cols * rows + 1];
+        int[][] ranges = new int[n][];
+        for ( int i = 0; i < n; ++i ) {
+            double[] box = boxes[i];
+            int[] range = new int[] { cell( box[0], minX, cellSize, cols ), cell( box[1], minY, cellSize, rows ),
+                                     cell( box[2], minX, cellSize, cols ), cell( box[3], minY, cellSize, rows ) };
+            ranges[i] = range;
+            for ( int row = range[1]; row <= range[3]; ++row ) {
+                for ( int col = range[0]; col <= range[2]; ++col ) {
+                    cellStart[row * cols + col + 1]++;
+                }
+            }
+        }
+        for ( int c = 1; c < cellStart.length; ++c ) {
+            cellStart[c] += cellStart[c - 1];
+        }
+        int[] cellItems = new int[cellStart[cellStart.length - 1]];
+        int[] fill = Arrays.copyOf( cellStart, cellStart.length - 1 );
+        for ( int i = 0; i < n; ++i ) {
+            int[] range = ranges[i];
+            for ( int row = range[1]; row <= range[3]; ++row ) {
+                for ( int col = range[0]; col <= range[2]; ++col ) {
+                    cellItems[fill[row * cols + col]++] = i;
+                }
+            }
+        }
+
+        int[] lastSeen = new int[n];
+        Arrays.fill( lastSeen, -1 );
+        for ( int i = 0; i < n; ++i ) {
+            PointLabelPositionOptions label = labels.get( i );
+            int[] range = ranges[i];
+            for ( int row = range[1]; row <= range[3]; ++row ) {
+                for ( int col = range[0]; col <= range[2]; ++col ) {
+                    int c = row * cols + col;
+                    for ( int k = cellStart[c]; k < cellStart[c + 1]; ++k ) {
+                        int j = cellItems[k];
+                        if ( j <= i || lastSeen[j] == i ) {
+                            continue;
+                        }
+                        lastSeen[j] = i;
+                        if ( label.intersectsAny( labels.get( j ) ) ) {
+                            add( neighbours, numNeighbours, i, j );
+                            add( neighbours, numNeighbours, j, i );
+                        }
+                    }
+                }
+            }
+        }
+
+        for ( int i = 0; i < n; ++i ) {
+            if ( neighbours[i] == null ) {
+                neighbours[i] = EMPTY;
+            } else {
+                neighbours[i] = Arrays.copyOf( neighbours[i], numNeighbours[i] );
+                Arrays.sort( neighbours[i] );
+            }
+        }
+        return neighbours;
+    }
+
+    private static int cell( double value, double min, double cellSize, int numCells ) {
+        int cell = (int) ( ( value - min ) / cellSize );
+        return Math.max( 0, Math.min( numCells - 1, cell ) );
+    }
+
+    private static void add( int[][] neighbours, int[] numNeighbours, int i, int j ) {
+        int[] list = neighbours[i];
+        if ( list == null ) {
+            list = new int[4];
+            neighbours[i] = list;
+        } else if ( numNeighbours[i] == list.length ) {
+            list = Arrays.copyOf( list, list.length * 2 );
+            neighbours[i] = list;
+        }
+        list[numNeighbours[i]++] = j;
+    }
+
+}
@@ -178,7 +178,32 @@ public class PointLabelPositionOptions {
         selMaxX = selMinX + bounds.getWidth();
         selMinY = selMaxY - bounds.getHeight();
         
-        selectedPolygon = getPolygon( selMinX, selMinY, selMaxX, selMaxY );
+        // only needed for rotated labels, created on demand
+        selectedPolygon = null;
+    }
+
+    private Polygon getSelectedPolygon() {
+        if ( selectedPolygon == null ) {
+            selectedPolygon = getPolygon( selMinX, selMinY, selMaxX, selMaxY );
+        }
+        return selectedPolygon;
+    }
+
+    boolean isRotated() {
+        return label.getStyling().rotation != 0;
+    }
+
+    /**
+     * Returns an axis aligned box that contains all possible positions (including rotation).
+     * 
+     * @return minX, minY, maxX, maxY
+     */
+    double[] getSearchBox() {
+        if ( isRotated() ) {
+            com.vividsolutions.jts.geom.Envelope env = totalPolygon.getEnvelopeInternal();
+            return new double[] { env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY() };
+        }
+        return new double[] { totalMinX, totalMinY, totalMaxX, totalMaxY };
     }
     
     /**
@@ -214,7 +239,7 @@ public class PointLabelPositionOptions {
         
         if( label.getStyling().rotation != 0 || labelPosOption.label.getStyling().rotation != 0 ){
             
-            return selectedPolygon.intersects( labelPosOption.selectedPolygon);
+            return getSelectedPolygon().intersects( labelPosOption.getSelectedPolygon() );
             
         }else
             return ((selMinX < labelPosOption.getSelectedMaxX()) && (selMaxX > labelPosOption.getSelectedMinX()) && (selMinY < labelPosOption.getSelectedMaxY()) && (selMaxY > labelPosOption.getSelectedMinY()));
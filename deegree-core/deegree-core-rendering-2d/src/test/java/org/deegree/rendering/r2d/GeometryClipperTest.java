@@ -40,12 +40,15 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.rendering.r2d;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryFactory;
 import org.deegree.geometry.io.WKTReader;
+import org.deegree.geometry.multi.MultiLineString;
+import org.deegree.geometry.primitive.Polygon;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -98,4 +101,24 @@ public class GeometryClipperTest {
         assertTrue( geometryDistinct.equals( clippedGeometry ) );
     }
 
+    @Test
+    public void clipLineStringLeavingAndReenteringViewport()
+                            throws ParseException {
+        final String wkt = "LINESTRING (0.5 0.5,2 0.5,2 0.8,0.5 0.8)";
+        final Geometry geometry = new WKTReader( null ).read( wkt );
+        final Geometry clippedGeometry = clipper.clipGeometry( geometry );
+        assertTrue( clippedGeometry instanceof MultiLineString );
+        assertEquals( 2, ( (MultiLineString) clippedGeometry ).size() );
+    }
+
+    @Test
+    public void clipPolygonDropsInteriorRingOutsideViewport()
+                            throws ParseException {
+        final String wkt = "POLYGON ((0 0,3 0,3 3,0 3,0 0),(0.2 0.2,0.4 0.2,0.4 0.4,0.2 0.2),(2 2,2.5 2,2.5 2.5,2 2))";
+        final Geometry geometry = new WKTReader( null ).read( wkt );
+        final Geometry clippedGeometry = clipper.clipGeometry( geometry );
+        assertTrue( clippedGeometry instanceof Polygon );
+        assertEquals( 1, ( (Polygon) clippedGeometry ).getInteriorRings().size() );
+    }
+
 }
@@ -0,0 +1,96 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.TextLayout;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+import org.deegree.style.styling.TextStyling;
+
+/**
+ * Creates {@link Label}s in screen coordinates, for testing the label placement.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LabelGenerator {
+
+    private static final Font FONT = new Font( Font.SANS_SERIF, Font.PLAIN, 12 );
+
+    private final Java2DRenderer renderer;
+
+    /**
+     * Creates a generator for a renderer with a scale of 1.
+     */
+    public LabelGenerator() {
+        Graphics2D g = new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB ).createGraphics();
+        renderer = new Java2DRenderer( g );
+    }
+
+    /**
+     * @return the renderer the labels are created for, never <code>null</code>
+     */
+    public Java2DRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * @param text
+     *            label text, must not be empty
+     * @param x
+     *            screen x coordinate of the labeled point
+     * @param y
+     *            screen y coordinate of the labeled point
+     * @param displacement
+     *            displacement in pixels (in both directions)
+     * @param rotation
+     *            rotation in degrees
+     * @return an auto placed label
+     */
+    public Label createLabel( String text, double x, double y, double displacement, double rotation ) {
+        TextStyling styling = new TextStyling();
+        styling.auto = true;
+        styling.displacementX = displacement;
+        styling.displacementY = displacement;
+        styling.rotation = rotation;
+        TextLayout layout = new TextLayout( text, FONT, renderer.graphics.getFontRenderContext() );
+        return new Label( layout, styling, FONT, text, new Point2D.Double( x, y ), renderer.rendererContext );
+    }
+
+}
@@ -0,0 +1,136 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PixelGeneralizer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PixelGeneralizerTest {
+
+    private final AffineTransform identity = new AffineTransform();
+
+    @Test
+    public void testSnapAndDropDuplicates() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 0.1, 0.2, 0.4, 0.3, 3.2, 0.1, 3.4, 4.1, 3.1, 3.9 };
+        int numPoints = generalizer.generalize( coords, 2, identity, false );
+        assertEquals( 3, numPoints );
+        assertArrayEquals( new double[] { 0, 0, 3, 0, 3, 4 },
+                           Arrays.copyOf( generalizer.getCoordinates(), numPoints * 2 ), 0 );
+    }
+
+    @Test
+    public void testDropCollinearRuns() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 0, 0, 1, 1, 2, 2, 3, 3, 4, 3, 5, 3 };
+        int numPoints = generalizer.generalize( coords, 2, identity, false );
+        assertEquals( 3, numPoints );
+        assertArrayEquals( new double[] { 0, 0, 3, 3, 5, 3 },
+                           Arrays.copyOf( generalizer.getCoordinates(), numPoints * 2 ), 0 );
+    }
+
+    @Test
+    public void testKeepSpikes() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 0, 0, 5, 0, 2, 0 };
+        int numPoints = generalizer.generalize( coords, 2, identity, false );
+        assertEquals( 3, numPoints );
+    }
+
+    @Test
+    public void testLineInsideSinglePixel() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 0.1, 0.1, 0.2, 0.3, 0.4, 0.2 };
+        int numPoints = generalizer.generalize( coords, 2, identity, false );
+        assertEquals( 2, numPoints );
+        assertArrayEquals( new double[] { 0, 0, 0, 0 }, Arrays.copyOf( generalizer.getCoordinates(), 4 ), 0 );
+    }
+
+    @Test
+    public void testCullSubPixelRing() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 10, 10, 10.5, 10, 10.5, 10.5, 10, 10.5, 10, 10 };
+        assertNull( generalizer.buildPath( coords, 2, identity, true ) );
+    }
+
+    @Test
+    public void testRingWithWorldToScreenTransform() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        AffineTransform worldToScreen = new AffineTransform( 0.01, 0, 0, -0.01, 0, 100 );
+        double[] coords = { 0, 0, 0, 1000, 0, 5000, 0, 10000, 5000, 10000, 5001, 10000, 10000, 10000, 10000, 0, 0, 0 };
+        Path2D.Double path = generalizer.buildPath( coords, 2, worldToScreen, true );
+        assertNotNull( path );
+        double[] expected = { 0, 100, 0, 0, 100, 0, 100, 100 };
+        double[] segment = new double[6];
+        int i = 0;
+        PathIterator iter = path.getPathIterator( null );
+        for ( ; !iter.isDone(); iter.next() ) {
+            int type = iter.currentSegment( segment );
+            if ( type == PathIterator.SEG_CLOSE ) {
+                break;
+            }
+            assertEquals( expected[i++], segment[0], 0 );
+            assertEquals( expected[i++], segment[1], 0 );
+        }
+        assertEquals( expected.length, i );
+        assertEquals( PathIterator.SEG_CLOSE, iter.currentSegment( segment ) );
+    }
+
+    @Test
+    public void testThreeDimensionalCoordinates() {
+        PixelGeneralizer generalizer = new PixelGeneralizer();
+        double[] coords = { 0, 0, 7, 2.2, 0, 7, 4.1, 0.2, 7 };
+        int numPoints = generalizer.generalize( coords, 3, identity, false );
+        assertEquals( 2, numPoints );
+        assertArrayEquals( new double[] { 0, 0, 4, 0 }, Arrays.copyOf( generalizer.getCoordinates(), 4 ), 0 );
+    }
+
+}
@@ -0,0 +1,155 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.deegree.rendering.r2d.RectangleClipper.Relation;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RectangleClipper}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RectangleClipperTest {
+
+    private final RectangleClipper clipper = new RectangleClipper( 0, 0, 10, 10 );
+
+    @Test
+    public void testRelate() {
+        assertEquals( Relation.INSIDE, clipper.relate( new double[] { 1, 1, 9, 9 }, 2 ) );
+        assertEquals( Relation.OUTSIDE, clipper.relate( new double[] { 11, 1, 19, 9 }, 2 ) );
+        assertEquals( Relation.CROSSING, clipper.relate( new double[] { 5, 5, 15, 5 }, 2 ) );
+        assertEquals( Relation.INSIDE, clipper.relate( new double[] { 1, 1, 100, 9, 9, 200 }, 3 ) );
+    }
+
+    @Test
+    public void testClipLineStringCrossing() {
+        List<double[]> parts = clipper.clipLineString( new double[] { -5, 5, 5, 5, 15, 5 }, 2 );
+        assertEquals( 1, parts.size() );
+        assertArrayEquals( new double[] { 0, 5, 5, 5, 10, 5 }, parts.get( 0 ), 0 );
+    }
+
+    @Test
+    public void testClipLineStringLeavingAndReentering() {
+        List<double[]> parts = clipper.clipLineString( new double[] { 5, 5, 15, 5, 15, 8, 5, 8 }, 2 );
+        assertEquals( 2, parts.size() );
+        assertArrayEquals( new double[] { 5, 5, 10, 5 }, parts.get( 0 ), 0 );
+        assertArrayEquals( new double[] { 10, 8, 5, 8 }, parts.get( 1 ), 0 );
+    }
+
+    @Test
+    public void testClipLineStringSegmentPassingThrough() {
+        List<double[]> parts = clipper.clipLineString( new double[] { -5, -5, 15, 15 }, 2 );
+        assertEquals( 1, parts.size() );
+        assertArrayEquals( new double[] { 0, 0, 10, 10 }, parts.get( 0 ), 0 );
+    }
+
+    @Test
+    public void testClipLineStringOutside() {
+        List<double[]> parts = clipper.clipLineString( new double[] { -5, 5, -5, 15, 5, 15 }, 2 );
+        assertEquals( 0, parts.size() );
+    }
+
+    @Test
+    public void testClipRing() {
+        double[] ring = { 5, 5, 15, 5, 15, 15, 5, 15, 5, 5 };
+        assertRingEquals( new double[] { 5, 5, 10, 5, 10, 10, 5, 10, 5, 5 }, clipper.clipRing( ring, 2 ) );
+    }
+
+    @Test
+    public void testClipRingKeepsOrientation() {
+        double[] clockwise = { 5, 5, 5, 15, 15, 15, 15, 5, 5, 5 };
+        assertEquals( -25, getSignedArea( clipper.clipRing( clockwise, 2 ) ), 1E-9 );
+        double[] counterClockwise = { 5, 5, 15, 5, 15, 15, 5, 15, 5, 5 };
+        assertEquals( 25, getSignedArea( clipper.clipRing( counterClockwise, 2 ) ), 1E-9 );
+    }
+
+    @Test
+    public void testClipRingThreeDimensional() {
+        double[] ring = { 5, 5, 1, 15, 5, 1, 15, 15, 1, 5, 15, 1, 5, 5, 1 };
+        assertRingEquals( new double[] { 5, 5, 10, 5, 10, 10, 5, 10, 5, 5 }, clipper.clipRing( ring, 3 ) );
+    }
+
+    @Test
+    public void testClipRingAroundCorner() {
+        // L-shaped ring that wraps around the corner (10,10) without overlapping the rectangle
+        double[] ring = { 12, -5, 20, -5, 20, 20, -5, 20, -5, 12, 12, 12, 12, -5 };
+        assertNull( clipper.clipRing( ring, 2 ) );
+    }
+
+    @Test
+    public void testClipRingContainingRectangle() {
+        double[] ring = { -5, -5, 15, -5, 15, 15, -5, 15, -5, -5 };
+        assertRingEquals( new double[] { 0, 0, 10, 0, 10, 10, 0, 10, 0, 0 }, clipper.clipRing( ring, 2 ) );
+    }
+
+    private static double getSignedArea( double[] ring ) {
+        double area = 0;
+        for ( int i = 2; i < ring.length; i += 2 ) {
+            area += ( ring[i - 2] * ring[i + 1] - ring[i] * ring[i - 1] );
+        }
+        return area / 2;
+    }
+
+    /**
+     * Clipping may start the resulting ring at a different vertex, so the expected ring is compared to all rotations.
+     */
+    private static void assertRingEquals( double[] expected, double[] actual ) {
+        assertEquals( expected.length, actual.length );
+        int numPoints = expected.length / 2 - 1;
+        for ( int offset = 0; offset < numPoints; ++offset ) {
+            boolean equal = true;
+            for ( int i = 0; i < numPoints && equal; ++i ) {
+                int j = ( i + offset ) % numPoints;
+                equal = expected[2 * i] == actual[2 * j] && expected[2 * i + 1] == actual[2 * j + 1];
+            }
+            if ( equal ) {
+                return;
+            }
+        }
+        fail( "Rings differ: " + Arrays.toString( expected ) + " vs. " + Arrays.toString( actual ) );
+    }
+
+}
@@ -0,0 +1,117 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.labelplacement;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.rendering.r2d.Label;
+import org.deegree.rendering.r2d.LabelGenerator;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AutoLabelPlacement}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class AutoLabelPlacementTest {
+
+    private final LabelGenerator generator = new LabelGenerator();
+
+    @Test
+    public void testLabelsAtSamePoint()
+                            throws Exception {
+        // there are three positions around a point that do not overlap each other
+        List<Label> labels = new ArrayList<Label>();
+        labels.add( generator.createLabel( "first", 100, 100, 0, 0 ) );
+        labels.add( generator.createLabel( "second", 100, 100, 0, 0 ) );
+        labels.add( generator.createLabel( "third", 100, 100, 0, 0 ) );
+        labels.add( generator.createLabel( "far away", 500, 500, 0, 0 ) );
+        assertTrue( overlap( labels.get( 0 ), labels.get( 1 ) ) );
+        new AutoLabelPlacement( labels, generator.getRenderer() );
+        assertNoOverlaps( labels );
+    }
+
+    @Test
+    public void testNearbyLabels()
+                            throws Exception {
+        // points closer than the label width, one label moves below the other
+        List<Label> labels = new ArrayList<Label>();
+        labels.add( generator.createLabel( "a long label", 100, 100, 2, 0 ) );
+        labels.add( generator.createLabel( "a long label", 120, 100, 2, 0 ) );
+        assertTrue( overlap( labels.get( 0 ), labels.get( 1 ) ) );
+        new AutoLabelPlacement( labels, generator.getRenderer() );
+        assertNoOverlaps( labels );
+    }
+
+    @Test
+    public void testLabelsWithoutAutoPlacementAreKept()
+                            throws Exception {
+        List<Label> labels = new ArrayList<Label>();
+        labels.add( generator.createLabel( "first", 100, 100, 0, 0 ) );
+        labels.add( generator.createLabel( "second", 100, 100, 0, 0 ) );
+        labels.get( 1 ).getStyling().auto = false;
+        Point2D.Double pos = labels.get( 1 ).getDrawPosition();
+        new AutoLabelPlacement( labels, generator.getRenderer() );
+        assertSame( pos, labels.get( 1 ).getDrawPosition() );
+    }
+
+    private static void assertNoOverlaps( List<Label> labels ) {
+        for ( int i = 0; i < labels.size(); i++ ) {
+            for ( int j = i + 1; j < labels.size(); j++ ) {
+                assertFalse( "labels " + i + " and " + j + " overlap", overlap( labels.get( i ), labels.get( j ) ) );
+            }
+        }
+    }
+
+    private static boolean overlap( Label label, Label other ) {
+        return getBox( label ).intersects( getBox( other ) );
+    }
+
+    private static Rectangle2D getBox( Label label ) {
+        Point2D.Double pos = label.getDrawPosition();
+        Rectangle2D bounds = label.getLayout().getBounds();
+        return new Rectangle2D.Double( pos.x, pos.y - bounds.getHeight(), bounds.getWidth(), bounds.getHeight() );
+    }
+
+}
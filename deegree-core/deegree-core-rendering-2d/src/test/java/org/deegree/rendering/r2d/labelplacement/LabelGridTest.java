@@ -0,0 +1,144 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.labelplacement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.rendering.r2d.LabelGenerator;
+import org.deegree.style.utils.UomCalculator;
+import org.junit.Test;
+
+/**
+ * Tests that {@link LabelGrid} finds the same neighbours as comparing every label with every other label.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LabelGridTest {
+
+    private static final UomCalculator UOM = new UomCalculator( 0.28, 1 );
+
+    private final LabelGenerator generator = new LabelGenerator();
+
+    @Test
+    public void testEmpty() {
+        assertEquals( 0, LabelGrid.findNeighbours( Collections.<PointLabelPositionOptions> emptyList() ).length );
+    }
+
+    @Test
+    public void testSingleLabel() {
+        List<PointLabelPositionOptions> labels = new ArrayList<PointLabelPositionOptions>();
+        labels.add( new PointLabelPositionOptions( generator.createLabel( "label", 10, 10, 2, 0 ), UOM ) );
+        int[][] neighbours = LabelGrid.findNeighbours( labels );
+        assertEquals( 1, neighbours.length );
+        assertEquals( 0, neighbours[0].length );
+    }
+
+    @Test
+    public void testSparseLabels() {
+        assertSameAsBruteForce( randomLabels( new Random( 1 ), 300, 5000, 0 ) );
+    }
+
+    @Test
+    public void testDenseLabels() {
+        assertSameAsBruteForce( randomLabels( new Random( 2 ), 300, 300, 0 ) );
+    }
+
+    @Test
+    public void testRotatedLabels() {
+        assertSameAsBruteForce( randomLabels( new Random( 3 ), 300, 1000, 1 ) );
+    }
+
+    @Test
+    public void testMixedLabels() {
+        Random rnd = new Random( 4 );
+        for ( int i = 0; i < 10; i++ ) {
+            assertSameAsBruteForce( randomLabels( rnd, 1 + rnd.nextInt( 200 ), 50 + rnd.nextInt( 2000 ), 0.3 ) );
+        }
+    }
+
+    @Test
+    public void testLabelsAtSamePoint() {
+        List<PointLabelPositionOptions> labels = new ArrayList<PointLabelPositionOptions>();
+        for ( int i = 0; i < 20; i++ ) {
+            labels.add( new PointLabelPositionOptions( generator.createLabel( "label " + i, 100, 100, 0, i * 18 ),
+                                                       UOM ) );
+        }
+        assertSameAsBruteForce( labels );
+    }
+
+    private List<PointLabelPositionOptions> randomLabels( Random rnd, int num, int extent, double rotatedFraction ) {
+        List<PointLabelPositionOptions> labels = new ArrayList<PointLabelPositionOptions>( num );
+        for ( int i = 0; i < num; i++ ) {
+            StringBuilder text = new StringBuilder( "L" );
+            int length = rnd.nextInt( 15 );
+            for ( int j = 0; j < length; j++ ) {
+                text.append( (char) ( 'a' + rnd.nextInt( 26 ) ) );
+            }
+            double rotation = rnd.nextDouble() < rotatedFraction ? rnd.nextDouble() * 360 : 0;
+            labels.add( new PointLabelPositionOptions( generator.createLabel( text.toString(),
+                                                                              rnd.nextDouble() * extent,
+                                                                              rnd.nextDouble() * extent,
+                                                                              rnd.nextInt( 10 ), rotation ), UOM ) );
+        }
+        return labels;
+    }
+
+    private static void assertSameAsBruteForce( List<PointLabelPositionOptions> labels ) {
+        int[][] neighbours = LabelGrid.findNeighbours( labels );
+        assertEquals( labels.size(), neighbours.length );
+        for ( int i = 0; i < labels.size(); i++ ) {
+            List<Integer> expected = new ArrayList<Integer>();
+            for ( int j = 0; j < labels.size(); j++ ) {
+                if ( j != i && labels.get( i ).intersectsAny( labels.get( j ) ) ) {
+                    expected.add( j );
+                }
+            }
+            int[] expectedArray = new int[expected.size()];
+            for ( int k = 0; k < expectedArray.length; k++ ) {
+                expectedArray[k] = expected.get( k );
+            }
+            assertArrayEquals( "neighbours of label " + i, expectedArray, neighbours[i] );
+        }
+    }
+
+}
@@ -59,6 +59,7 @@ import org.deegree.filter.MatchAction;
 import org.deegree.filter.Operator;
 import org.deegree.filter.OperatorFilter;
 import org.deegree.filter.comparison.ComparisonOperator;
+import org.deegree.filter.comparison.LikePattern;
 import org.deegree.filter.comparison.PropertyIsBetween;
 import org.deegree.filter.comparison.PropertyIsEqualTo;
 import org.deegree.filter.comparison.PropertyIsGreaterThan;
@@ -573,6 +574,11 @@ public abstract class AbstractWhereBuilder {
 
         SQLExpression propName = toProtoSQL( op.getExpression() );
 
+        SQLOperation equality = toEqualityIfLiteral( op, propName );
+        if ( equality != null ) {
+            return equality;
+        }
+
         IsLikeString specialString = new IsLikeString( literal, wildCard, singleChar, escape );
         String sqlEncoded = specialString.toSQL( !op.isMatchCase() );
 
@@ -597,6 +603,40 @@ public abstract class AbstractWhereBuilder {
         return builder.toOperation();
     }
 
+    /**
+     * Translates the given {@link PropertyIsLike} into a plain equality comparison, if it matches case and its pattern
+     * is a literal without wildcards. In contrast to <code>LIKE</code>, such a comparison can always be answered using
+     * a regular index.
+     * 
+     * @param op
+     *            comparison operator to be translated, must not be <code>null</code>
+     * @param propName
+     *            translated expression of the operator, must not be <code>null</code>
+     * @return corresponding SQL expression, <code>null</code> if the operator has to be translated to <code>LIKE</code>
+     */
+    protected SQLOperation toEqualityIfLiteral( PropertyIsLike op, SQLExpression propName ) {
+        if ( !op.isMatchCase() || propName.isMultiValued() ) {
+            return null;
+        }
+        LikePattern pattern;
+        try {
+            pattern = op.getLiteralPattern();
+        } catch ( FilterEvaluationException e ) {
+            // e.g. multi-character wildCard, singleChar or escapeChar: left to the LIKE translation
+            return null;
+        }
+        if ( pattern == null || !pattern.isLiteral() ) {
+            return null;
+        }
+        SQLOperationBuilder builder = new SQLOperationBuilder( BOOLEAN );
+        builder.add( propName );
+        builder.add( " = " );
+        PrimitiveType pt = new PrimitiveType( STRING );
+        PrimitiveValue value = new PrimitiveValue( pattern.getLiteralPrefix(), pt );
+        builder.add( new SQLArgument( value, new DefaultPrimitiveConverter( pt, null, false ) ) );
+        return builder.toOperation();
+    }
+
     /**
      * Translates the given {@link LogicalOperator} into an {@link SQLOperation}.
      * 
@@ -0,0 +1,122 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.sqldialect.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.xml.CommonNamespaces;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.spatial.SpatialOperator;
+import org.deegree.sqldialect.filter.expression.SQLOperation;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the translation of {@link PropertyIsLike} operators by the {@link AbstractWhereBuilder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class AbstractWhereBuilderTest {
+
+    private AbstractWhereBuilder whereBuilder;
+
+    @Before
+    public void setup()
+                            throws FilterEvaluationException {
+        PropertyNameMapper mapper = new PropertyNameMapper() {
+
+            @Override
+            public PropertyNameMapping getSpatialMapping( ValueReference propName, TableAliasManager aliasManager ) {
+                return new PropertyNameMapping( null, null, propName.getAsText(), "table" );
+            }
+
+            @Override
+            public PropertyNameMapping getMapping( ValueReference propName, TableAliasManager aliasManager ) {
+                return new PropertyNameMapping( null, null, propName.getAsText(), "table" );
+            }
+        };
+        whereBuilder = new AbstractWhereBuilder( null, mapper, null, null ) {
+            @Override
+            protected SQLOperation toProtoSQL( SpatialOperator op ) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Test
+    public void testLiteralIsComparedForEquality()
+                            throws UnmappableException, FilterEvaluationException {
+        SQLOperation sql = whereBuilder.toProtoSQL( isLike( "HOWELL!*CITY", "*", true ) );
+        assertEquals( "table.shortdesc = ?", sql.getSQL().toString() );
+        assertEquals( 1, sql.getArguments().size() );
+        assertEquals( "HOWELL*CITY", sql.getArguments().get( 0 ).getValue().toString() );
+    }
+
+    @Test
+    public void testWildCardUsesLike()
+                            throws UnmappableException, FilterEvaluationException {
+        SQLOperation sql = whereBuilder.toProtoSQL( isLike( "HOWELL*", "*", true ) );
+        assertEquals( "table.shortdesc LIKE ?", sql.getSQL().toString() );
+    }
+
+    @Test
+    public void testIgnoreCaseUsesLike()
+                            throws UnmappableException, FilterEvaluationException {
+        SQLOperation sql = whereBuilder.toProtoSQL( isLike( "HOWELLCITY", "*", false ) );
+        assertEquals( "LOWER (table.shortdesc) LIKE ?", sql.getSQL().toString() );
+    }
+
+    /**
+     * The equality shortcut must not change how unsupported patterns are handled by the LIKE translation.
+     */
+    @Test(expected = FilterEvaluationException.class)
+    public void testMultiCharacterWildCardIsLeftToLike()
+                            throws UnmappableException, FilterEvaluationException {
+        whereBuilder.toProtoSQL( isLike( "HOWELLCITY", "**", true ) );
+    }
+
+    private static PropertyIsLike isLike( String pattern, String wildCard, boolean matchCase ) {
+        ValueReference propName = new ValueReference( "shortdesc", CommonNamespaces.getNamespaceContext() );
+        return new PropertyIsLike( propName, new Literal<PrimitiveValue>( pattern ), wildCard, "#", "!", matchCase,
+                                   null );
+    }
+
+}
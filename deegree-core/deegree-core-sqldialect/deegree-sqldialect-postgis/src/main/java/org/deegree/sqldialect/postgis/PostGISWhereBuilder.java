@@ -172,6 +172,11 @@ public class PostGISWhereBuilder extends AbstractWhereBuilder {
 
         SQLExpression propName = toProtoSQL( op.getExpression() );
 
+        SQLOperation equality = toEqualityIfLiteral( op, propName );
+        if ( equality != null ) {
+            return equality;
+        }
+
         IsLikeString specialString = new IsLikeString( literal, wildCard, singleChar, escape );
         String sqlEncoded = specialString.toSQL( !op.isMatchCase() );
 
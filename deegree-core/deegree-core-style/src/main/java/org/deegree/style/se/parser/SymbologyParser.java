@@ -660,16 +660,29 @@ public class SymbologyParser {
     public <T> Pair<String, Continuation<T>> updateOrContinue( XMLStreamReader in, String name, T obj,
                                                                final Updater<T> updater, Continuation<T> contn )
                             throws XMLStreamException {
+        return updateOrContinue( in, name, obj, updater, contn, true );
+    }
+
+    /**
+     * If foldLiterals is true, values consisting of text and literal expressions only are evaluated once and used to
+     * update obj directly, so no continuation is needed for them.
+     */
+    private <T> Pair<String, Continuation<T>> updateOrContinue( XMLStreamReader in, String name, T obj,
+                                                                final Updater<T> updater, Continuation<T> contn,
+                                                                boolean foldLiterals )
+                            throws XMLStreamException {
         StringBuilder xmlText = collectXMLSnippets ? new StringBuilder() : null;
 
         if ( in.getLocalName().endsWith( name ) ) {
             final LinkedList<Pair<String, Pair<Expression, String>>> text = new LinkedList<Pair<String, Pair<Expression, String>>>(); // no
             // real 'alternative', have we?
             boolean textOnly = true;
+            boolean literalsOnly = true;
             while ( !( in.isEndElement() && in.getLocalName().endsWith( name ) ) ) {
                 in.next();
                 if ( in.isStartElement() ) {
                     Expression expr = parseExpression( in );
+                    literalsOnly &= expr.getType() == Expression.Type.LITERAL;
                     if ( collectXMLSnippets ) {
                         StringWriter sw = new StringWriter();
                         XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter( sw );
@@ -705,32 +718,13 @@ public class SymbologyParser {
                               in.getLocation().getColumnNumber() );
                 }
                 updater.update( obj, text.isEmpty() ? "" : text.getFirst().first );
+            } else if ( foldLiterals && literalsOnly ) {
+                updater.update( obj, evaluateText( text, null, null ) );
             } else {
                 contn = new Continuation<T>( contn ) {
                     @Override
                     public void updateStep( T base, Feature f, XPathEvaluator<Feature> evaluator ) {
-                        StringBuilder tmp = new StringBuilder();
-                        for ( Pair<String, Pair<Expression, String>> p : text ) {
-                            if ( p.first != null ) {
-                                tmp.append( p.first );
-                            }
-                            if ( p.second != null ) {
-                                try {
-                                    TypedObjectNode[] evald = p.second.first.evaluate( f, evaluator );
-                                    if ( evald.length == 0 ) {
-                                        LOG.warn( "The following expression in a style evaluated to null:\n'{}'",
-                                                  p.second.second );
-                                    } else {
-                                        tmp.append( evald[0] );
-                                    }
-                                } catch ( FilterEvaluationException e ) {
-                                    LOG.warn( "Evaluating the following expression resulted in an error '{}':\n'{}'",
-                                              e.getLocalizedMessage(), p.second.second );
-                                }
-                            }
-                        }
-
-                        updater.update( base, tmp.toString() );
+                        updater.update( base, evaluateText( text, f, evaluator ) );
                     }
                 };
             }
@@ -739,6 +733,30 @@ public class SymbologyParser {
         return new Pair<String, Continuation<T>>( collectXMLSnippets ? xmlText.toString().trim() : null, contn );
     }
 
+    private static String evaluateText( List<Pair<String, Pair<Expression, String>>> text, Feature f,
+                                        XPathEvaluator<Feature> evaluator ) {
+        StringBuilder tmp = new StringBuilder();
+        for ( Pair<String, Pair<Expression, String>> p : text ) {
+            if ( p.first != null ) {
+                tmp.append( p.first );
+            }
+            if ( p.second != null ) {
+                try {
+                    TypedObjectNode[] evald = p.second.first.evaluate( f, evaluator );
+                    if ( evald.length == 0 ) {
+                        LOG.warn( "The following expression in a style evaluated to null:\n'{}'", p.second.second );
+                    } else {
+                        tmp.append( evald[0] );
+                    }
+                } catch ( FilterEvaluationException e ) {
+                    LOG.warn( "Evaluating the following expression resulted in an error '{}':\n'{}'",
+                              e.getLocalizedMessage(), p.second.second );
+                }
+            }
+        }
+        return tmp.toString();
+    }
+
     /**
      * @param in
      * @param uom
@@ -770,7 +788,7 @@ public class SymbologyParser {
                                                                                                          String val ) {
                                                                                          obj.append( val );
                                                                                      }
-                                                                                 }, null );
+                                                                                 }, null, false );
                 xmlText = res.first;
                 label = res.second;
             } else if ( in.getLocalName().equals( "LabelPlacement" ) ) {
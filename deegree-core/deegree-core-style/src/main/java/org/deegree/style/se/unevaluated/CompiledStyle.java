@@ -0,0 +1,358 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.style.se.unevaluated;
+
+import static java.util.Collections.singletonList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LinkedList;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.utils.DoublePair;
+import org.deegree.commons.utils.Pair;
+import org.deegree.feature.Feature;
+import org.deegree.filter.Filter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.XPathEvaluator;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.multi.MultiCurve;
+import org.deegree.geometry.multi.MultiLineString;
+import org.deegree.geometry.multi.MultiPoint;
+import org.deegree.geometry.multi.MultiPolygon;
+import org.deegree.geometry.multi.MultiSurface;
+import org.deegree.geometry.primitive.Curve;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Surface;
+import org.deegree.style.se.parser.SymbologyParser;
+import org.deegree.style.se.parser.SymbologyParser.FilterContinuation;
+import org.deegree.style.se.unevaluated.Style.InsertContinuation;
+import org.deegree.style.styling.LineStyling;
+import org.deegree.style.styling.PointStyling;
+import org.deegree.style.styling.PolygonStyling;
+import org.deegree.style.styling.Styling;
+import org.deegree.style.styling.TextStyling;
+import org.slf4j.Logger;
+
+/**
+ * Evaluation plan of a {@link Style}, see {@link Style#compile()}.
+ * <p>
+ * Produces the same results as {@link Style#evaluate(Feature, XPathEvaluator)}, but is meant to be used for many
+ * features: the rules are flattened into arrays (with the labels of the symbolizers attached), rules without
+ * symbolizers are dropped, the operands of logical rule filters are ordered cheapest first, and the results are
+ * written into a reusable {@link Result}. Symbolizers that do not depend on the feature return their shared styling.
+ * A plan is immutable and can be used by multiple threads, each with its own {@link Result}.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CompiledStyle {
+
+    private static final Logger LOG = getLogger( CompiledStyle.class );
+
+    private final QName featureType;
+
+    // null if the default style is used, or if the style contains rules that cannot be compiled
+    private final Rule[] rules;
+
+    // only used for styles containing rules that cannot be compiled
+    private final List<Continuation<LinkedList<Symbolizer<?>>>> continuations;
+
+    private final Map<Symbolizer<TextStyling>, Continuation<StringBuffer>> labels;
+
+    private final PointStyling defaultPointStyle;
+
+    private final LineStyling defaultLineStyle;
+
+    private final PolygonStyling defaultPolygonStyle;
+
+    /**
+     * Creates a plan for the default style.
+     */
+    CompiledStyle( PointStyling defaultPointStyle, LineStyling defaultLineStyle, PolygonStyling defaultPolygonStyle ) {
+        this.defaultPointStyle = defaultPointStyle;
+        this.defaultLineStyle = defaultLineStyle;
+        this.defaultPolygonStyle = defaultPolygonStyle;
+        this.featureType = null;
+        this.rules = null;
+        this.continuations = null;
+        this.labels = null;
+    }
+
+    CompiledStyle( List<Pair<Continuation<LinkedList<Symbolizer<?>>>, DoublePair>> styleRules,
+                   Map<Symbolizer<TextStyling>, Continuation<StringBuffer>> labels, QName featureType ) {
+        this.featureType = featureType;
+        this.labels = labels;
+        this.defaultPointStyle = null;
+        this.defaultLineStyle = null;
+        this.defaultPolygonStyle = null;
+
+        boolean compilable = true;
+        List<Rule> compiled = new ArrayList<Rule>( styleRules.size() );
+        List<Continuation<LinkedList<Symbolizer<?>>>> all = new ArrayList<Continuation<LinkedList<Symbolizer<?>>>>();
+        for ( Pair<Continuation<LinkedList<Symbolizer<?>>>, DoublePair> rule : styleRules ) {
+            Continuation<LinkedList<Symbolizer<?>>> contn = rule.first;
+            all.add( contn );
+            if ( contn.getClass() == FilterContinuation.class ) {
+                FilterContinuation filterContn = (FilterContinuation) contn;
+                // a matching rule without symbolizers does not even affect else filters
+                if ( !filterContn.getSymbolizers().isEmpty() ) {
+                    compiled.add( new Rule( filterContn.filter, filterContn.getSymbolizers(), labels ) );
+                }
+            } else if ( contn.getClass() == InsertContinuation.class ) {
+                Symbolizer<?> symbolizer = (Symbolizer<?>) ( (InsertContinuation<?, ?>) contn ).value;
+                compiled.add( new Rule( null, singletonList( symbolizer ), labels ) );
+            } else {
+                compilable = false;
+            }
+        }
+        if ( !compilable ) {
+            LOG.debug( "Style contains rules that cannot be compiled, evaluating them one by one." );
+            rules = null;
+            continuations = all;
+        } else {
+            rules = compiled.toArray( new Rule[compiled.size()] );
+            continuations = null;
+        }
+    }
+
+    /**
+     * Evaluates the style for a feature.
+     * 
+     * @param f
+     *            the feature to evaluate
+     * @param evaluator
+     *            used to evaluate filters and expressions
+     * @param result
+     *            is cleared and filled with the stylings, geometries and label texts, in the same order as
+     *            {@link Style#evaluate(Feature, XPathEvaluator)} returns them, never <code>null</code>
+     */
+    public void evaluate( Feature f, XPathEvaluator<Feature> evaluator, Result result ) {
+        result.clear();
+        if ( rules == null && continuations == null ) {
+            evaluateDefault( f, result );
+            return;
+        }
+
+        if ( featureType != null && f != null && !f.getType().getName().equals( featureType ) ) {
+            LOG.debug( "Not using style because feature type constraint does not match." );
+            return;
+        }
+
+        select( f, evaluator, result );
+
+        String text = null;
+        for ( int i = 0; i < result.symbolizers.size(); ++i ) {
+            Symbolizer<?> symbolizer = result.symbolizers.get( i );
+            List<Geometry> geometries = new ArrayList<Geometry>( 1 );
+            symbolizer.evaluateGeometries( f, evaluator, geometries );
+            Styling<?> styling = symbolizer.evaluateStyling( f, evaluator );
+
+            Continuation<StringBuffer> label = result.labels.get( i );
+            if ( label != null ) {
+                result.text.setLength( 0 );
+                label.evaluate( result.text, f, evaluator );
+                text = result.text.toString();
+            }
+            result.add( styling, geometries, text );
+        }
+        result.symbolizers.clear();
+        result.labels.clear();
+    }
+
+    private void select( Feature f, XPathEvaluator<Feature> evaluator, Result result ) {
+        if ( rules == null ) {
+            LinkedList<Symbolizer<?>> selected = result.selected;
+            for ( Continuation<LinkedList<Symbolizer<?>>> contn : continuations ) {
+                contn.evaluate( selected, f, evaluator );
+            }
+            for ( Symbolizer<?> symbolizer : selected ) {
+                result.symbolizers.add( symbolizer );
+                result.labels.add( labels.get( symbolizer ) );
+            }
+            selected.clear();
+            return;
+        }
+
+        for ( Rule rule : rules ) {
+            if ( rule.matches( f, evaluator, result.symbolizers.isEmpty() ) ) {
+                for ( int i = 0; i < rule.symbolizers.length; ++i ) {
+                    result.symbolizers.add( rule.symbolizers[i] );
+                    result.labels.add( rule.labels[i] );
+                }
+            }
+        }
+    }
+
+    private void evaluateDefault( Feature f, Result result ) {
+        List<Property> geoms = f.getGeometryProperties();
+        if ( geoms == null ) {
+            return;
+        }
+        for ( Property p : geoms ) {
+            Geometry geom = (Geometry) p.getValue();
+            if ( geom instanceof Point || geom instanceof MultiPoint ) {
+                result.add( defaultPointStyle, singletonList( geom ), null );
+            } else if ( geom instanceof Curve || geom instanceof MultiCurve<?> || geom instanceof MultiLineString ) {
+                result.add( defaultLineStyle, singletonList( geom ), null );
+            } else if ( geom instanceof Surface || geom instanceof MultiSurface<?> || geom instanceof MultiPolygon
+                        || geom instanceof Envelope ) {
+                result.add( defaultPolygonStyle, singletonList( geom ), null );
+            } else {
+                LOG.error( "Geometries of type '{}' are not supported/known. Please report!", geom.getClass() );
+            }
+        }
+    }
+
+    /**
+     * A rule with its symbolizers and their labels.
+     */
+    private static class Rule {
+
+        // the filter as configured, used for error messages
+        private final Filter filter;
+
+        private final Filter reordered;
+
+        private final boolean elseFilter;
+
+        private final Symbolizer<?>[] symbolizers;
+
+        private final Continuation<StringBuffer>[] labels;
+
+        @SuppressWarnings("unchecked")
+        Rule( Filter filter, List<Symbolizer<?>> symbolizers,
+              Map<Symbolizer<TextStyling>, Continuation<StringBuffer>> labels ) {
+            this.filter = filter;
+            this.elseFilter = filter == SymbologyParser.ELSEFILTER;
+            this.reordered = elseFilter ? filter : FilterCosts.reorder( filter );
+            this.symbolizers = symbolizers.toArray( new Symbolizer<?>[symbolizers.size()] );
+            this.labels = new Continuation[this.symbolizers.length];
+            for ( int i = 0; i < this.symbolizers.length; ++i ) {
+                this.labels[i] = labels.get( this.symbolizers[i] );
+            }
+        }
+
+        boolean matches( Feature f, XPathEvaluator<Feature> evaluator, boolean nothingSelected ) {
+            if ( filter == null || f == null ) {
+                return true;
+            }
+            if ( elseFilter ) {
+                return nothingSelected;
+            }
+            try {
+                return reordered.evaluate( f, evaluator );
+            } catch ( FilterEvaluationException e ) {
+                LOG.warn( "Evaluating the following expression resulted in an error '{}':\n'{}'",
+                          e.getLocalizedMessage(), filter.toString() );
+                LOG.debug( "Stack trace:", e );
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reusable buffer for the results of {@link CompiledStyle#evaluate(Feature, XPathEvaluator, Result)}. The
+     * geometry lists are created per evaluation, so they (and the stylings) can be kept by the caller.
+     */
+    public static class Result {
+
+        private final ArrayList<Styling<?>> stylings = new ArrayList<Styling<?>>();
+
+        private final ArrayList<List<Geometry>> geometries = new ArrayList<List<Geometry>>();
+
+        private final ArrayList<String> texts = new ArrayList<String>();
+
+        // the following are only used during the evaluation
+        final ArrayList<Symbolizer<?>> symbolizers = new ArrayList<Symbolizer<?>>();
+
+        final ArrayList<Continuation<StringBuffer>> labels = new ArrayList<Continuation<StringBuffer>>();
+
+        final LinkedList<Symbolizer<?>> selected = new LinkedList<Symbolizer<?>>();
+
+        final StringBuffer text = new StringBuffer();
+
+        /**
+         * @return the number of stylings
+         */
+        public int size() {
+            return stylings.size();
+        }
+
+        /**
+         * @param index
+         * @return the styling at the given index
+         */
+        public Styling<?> getStyling( int index ) {
+            return stylings.get( index );
+        }
+
+        /**
+         * @param index
+         * @return the geometries to render with the styling at the given index, may be empty
+         */
+        public List<Geometry> getGeometries( int index ) {
+            return geometries.get( index );
+        }
+
+        /**
+         * @param index
+         * @return the label text for the styling at the given index, may be <code>null</code>
+         */
+        public String getText( int index ) {
+            return texts.get( index );
+        }
+
+        void add( Styling<?> styling, List<Geometry> geoms, String text ) {
+            stylings.add( styling );
+            geometries.add( geoms );
+            texts.add( text );
+        }
+
+        void clear() {
+            stylings.clear();
+            geometries.clear();
+            texts.clear();
+        }
+    }
+
+}
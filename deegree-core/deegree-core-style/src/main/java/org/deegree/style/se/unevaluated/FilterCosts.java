@@ -0,0 +1,233 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.style.se.unevaluated;
+
+import org.deegree.filter.Expression;
+import org.deegree.filter.Filter;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.ComparisonOperator;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.logical.And;
+import org.deegree.filter.logical.LogicalOperator;
+import org.deegree.filter.logical.Not;
+import org.deegree.filter.logical.Or;
+import org.deegree.filter.spatial.SpatialOperator;
+
+/**
+ * Reorders the operands of <code>And</code> and <code>Or</code> operators so that cheap tests (e.g. property
+ * comparisons) are evaluated before expensive ones (e.g. spatial operators or functions). As the logical operators
+ * stop evaluating at the first operand that decides the result, the expensive tests are skipped for many objects.
+ * <p>
+ * Operands which may fail to evaluate (everything but comparisons of literals and property values) are never moved in
+ * front of an operand which preceded them, as this could turn a deciding operand into a skipped one and a matching
+ * filter into a failing one.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class FilterCosts {
+
+    private FilterCosts() {
+        // avoid instantiation
+    }
+
+    /**
+     * @param filter
+     *            may be <code>null</code>
+     * @return a filter that is equivalent to the given one, with cheapest operands first, the given filter if nothing
+     *         can be reordered
+     */
+    static Filter reorder( Filter filter ) {
+        if ( !( filter instanceof OperatorFilter ) ) {
+            return filter;
+        }
+        Operator root = ( (OperatorFilter) filter ).getOperator();
+        Operator reordered = reorder( root );
+        return reordered == root ? filter : new OperatorFilter( reordered );
+    }
+
+    /**
+     * @param operator
+     *            never <code>null</code>
+     * @return an operator that is equivalent to the given one, with cheapest operands first, the given operator if
+     *         nothing can be reordered
+     */
+    static Operator reorder( Operator operator ) {
+        if ( operator instanceof Not ) {
+            Operator param = ( (Not) operator ).getParameter();
+            Operator reordered = reorder( param );
+            return reordered == param ? operator : new Not( reordered );
+        }
+        if ( !( operator instanceof And || operator instanceof Or ) ) {
+            return operator;
+        }
+        Operator[] params = ( (LogicalOperator) operator ).getParams();
+        Operator[] reordered = new Operator[params.length];
+        for ( int i = 0; i < params.length; ++i ) {
+            reordered[i] = reorder( params[i] );
+        }
+        // stable insertion sort, so operands of equal costs keep their order, operands which may fail are only
+        // passed by cheaper ones, but never move forward themselves
+        for ( int i = 1; i < reordered.length; ++i ) {
+            Operator op = reordered[i];
+            if ( mayFail( op ) ) {
+                continue;
+            }
+            int cost = cost( op );
+            int j = i;
+            while ( j > 0 && cost( reordered[j - 1] ) > cost ) {
+                reordered[j] = reordered[j - 1];
+                --j;
+            }
+            reordered[j] = op;
+        }
+        for ( int i = 0; i < params.length; ++i ) {
+            if ( params[i] != reordered[i] ) {
+                return operator instanceof And ? new And( reordered ) : new Or( reordered );
+            }
+        }
+        return operator;
+    }
+
+    /**
+     * @param operator
+     *            never <code>null</code>
+     * @return <code>false</code>, if evaluating the operator cannot throw an exception (comparisons of literals and
+     *         property values and logical combinations of them), <code>true</code> otherwise
+     */
+    static boolean mayFail( Operator operator ) {
+        if ( operator instanceof ComparisonOperator ) {
+            if ( operator instanceof PropertyIsLike ) {
+                PropertyIsLike like = (PropertyIsLike) operator;
+                if ( !isSingleChar( like.getWildCard() ) || !isSingleChar( like.getSingleChar() )
+                     || !isSingleChar( like.getEscapeChar() ) ) {
+                    return true;
+                }
+            }
+            for ( Expression param : ( (ComparisonOperator) operator ).getParams() ) {
+                Expression.Type type = param == null ? null : param.getType();
+                if ( type != Expression.Type.LITERAL && type != Expression.Type.VALUE_REFERENCE ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if ( operator instanceof Not ) {
+            return mayFail( ( (Not) operator ).getParameter() );
+        }
+        if ( operator instanceof And || operator instanceof Or ) {
+            for ( Operator param : ( (LogicalOperator) operator ).getParams() ) {
+                if ( mayFail( param ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isSingleChar( String s ) {
+        return s != null && s.length() == 1;
+    }
+
+    /**
+     * @param operator
+     *            never <code>null</code>
+     * @return the estimated relative cost of evaluating the operator for a single object
+     */
+    static int cost( Operator operator ) {
+        if ( operator.getType() == null ) {
+            return 10;
+        }
+        switch ( operator.getType() ) {
+        case COMPARISON:
+            ComparisonOperator comparison = (ComparisonOperator) operator;
+            int cost = comparison.getSubType() == ComparisonOperator.SubType.PROPERTY_IS_LIKE ? 5 : 1;
+            for ( Expression param : comparison.getParams() ) {
+                cost += cost( param );
+            }
+            return cost;
+        case LOGICAL:
+            if ( operator instanceof Not ) {
+                return cost( ( (Not) operator ).getParameter() );
+            }
+            cost = 0;
+            for ( Operator param : ( (LogicalOperator) operator ).getParams() ) {
+                cost += cost( param );
+            }
+            return cost;
+        case SPATIAL:
+            cost = 50;
+            for ( Object param : ( (SpatialOperator) operator ).getParams() ) {
+                if ( param instanceof Expression ) {
+                    cost += cost( (Expression) param );
+                }
+            }
+            return cost;
+        default:
+            return 10;
+        }
+    }
+
+    private static int cost( Expression expr ) {
+        if ( expr == null ) {
+            return 0;
+        }
+        int cost;
+        switch ( expr.getType() ) {
+        case LITERAL:
+            return 0;
+        case VALUE_REFERENCE:
+            return 2;
+        case FUNCTION:
+        case CUSTOM:
+            cost = 10;
+            break;
+        default:
+            cost = 1;
+        }
+        Expression[] params = expr.getParams();
+        if ( params != null ) {
+            for ( Expression param : params ) {
+                cost += cost( param );
+            }
+        }
+        return cost;
+    }
+
+}
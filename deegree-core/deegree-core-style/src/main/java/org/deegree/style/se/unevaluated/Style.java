@@ -281,6 +281,19 @@ public class Style implements Copyable<Style> {
         return (LinkedList) res;
     }
 
+    /**
+     * Creates an evaluation plan for this style, which is better suited to evaluate many features than
+     * {@link #evaluate(Feature, XPathEvaluator)}. Later changes of the rules are not reflected by the plan.
+     * 
+     * @return the evaluation plan, never <code>null</code>
+     */
+    public CompiledStyle compile() {
+        if ( useDefault ) {
+            return new CompiledStyle( defaultPointStyle, defaultLineStyle, defaultPolygonStyle );
+        }
+        return new CompiledStyle( rules, labels, featureType );
+    }
+
     /**
      * @return the live list of rules
      */
@@ -38,6 +38,7 @@ package org.deegree.style.se.unevaluated;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -174,6 +175,19 @@ public class Symbolizer<T extends Styling<T>> {
      */
     public Pair<T, LinkedList<Geometry>> evaluate( Feature f, XPathEvaluator<Feature> evaluator ) {
         LinkedList<Geometry> geoms = new LinkedList<Geometry>();
+        evaluateGeometries( f, evaluator, geoms );
+        return new Pair<T, LinkedList<Geometry>>( evaluateStyling( f, evaluator ), geoms );
+    }
+
+    /**
+     * Adds the geometries of the given feature that this symbolizer applies to.
+     * 
+     * @param f
+     * @param evaluator
+     * @param geoms
+     *            the collection to add the geometries to, never <code>null</code>
+     */
+    void evaluateGeometries( Feature f, XPathEvaluator<Feature> evaluator, Collection<Geometry> geoms ) {
         if ( geometry != null && evaluator != null ) {
             try {
                 TypedObjectNode[] os = geometry.evaluate( f, evaluator );
@@ -222,37 +236,30 @@ public class Symbolizer<T extends Styling<T>> {
                 LOG.warn( "Style was applied to a feature without a geometry." );
             }
         }
+    }
 
+    /**
+     * @param f
+     * @param evaluator
+     * @return the styling for the given feature, the shared evaluated styling if it does not depend on the feature
+     */
+    T evaluateStyling( Feature f, XPathEvaluator<Feature> evaluator ) {
         if ( f == null ) {
-            return new Pair<T, LinkedList<Geometry>>( evaluated == null ? base.copy() : evaluated.copy(), geoms );
+            return evaluated == null ? base.copy() : evaluated.copy();
         }
 
-        // String id = f.getId();
-        // if ( id != null && cache.containsKey( id ) ) {
-        // return new Pair<T, LinkedList<Geometry>>( cache.get( id ), geoms );
-        // }
-
         if ( evaluated != null ) {
-            Pair<T, LinkedList<Geometry>> pair = new Pair<T, LinkedList<Geometry>>( evaluated, geoms );
-            // if ( id != null ) {
-            // cache.put( id, pair.first );
-            // }
-            return pair;
+            return evaluated;
         }
 
         T evald = base.copy();
-        Pair<T, LinkedList<Geometry>> pair = new Pair<T, LinkedList<Geometry>>( evald, geoms );
         if ( next == null ) {
             LOG.warn( "Something wrong with SE/SLD parsing. No continuation found, and no evaluated style." );
-            return pair;
+            return evald;
         }
 
         next.evaluate( evald, f, evaluator );
-        // if ( id != null ) {
-        // cache.put( id, pair.first );
-        // }
-
-        return pair;
+        return evald;
     }
 
     /**
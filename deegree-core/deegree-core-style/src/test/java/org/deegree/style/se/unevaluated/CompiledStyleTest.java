@@ -0,0 +1,276 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.style.se.unevaluated;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static java.util.Arrays.asList;
+import static org.deegree.commons.tom.primitive.BaseType.DECIMAL;
+import static org.deegree.commons.tom.primitive.BaseType.STRING;
+import static org.deegree.commons.utils.JavaUtils.generateToString;
+import static org.deegree.feature.types.property.GeometryPropertyType.CoordinateDimension.DIM_2;
+import static org.deegree.feature.types.property.GeometryPropertyType.GeometryType.GEOMETRY;
+import static org.deegree.feature.types.property.ValueRepresentation.INLINE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.gml.property.PropertyType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.utils.DoublePair;
+import org.deegree.commons.utils.Pair;
+import org.deegree.commons.utils.Triple;
+import org.deegree.feature.Feature;
+import org.deegree.feature.GenericFeature;
+import org.deegree.feature.property.GenericProperty;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.feature.types.property.GeometryPropertyType;
+import org.deegree.feature.types.property.SimplePropertyType;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.XPathEvaluator;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.style.se.parser.SymbologyParser;
+import org.deegree.style.se.parser.SymbologyParser.FilterContinuation;
+import org.deegree.style.styling.LineStyling;
+import org.deegree.style.styling.Styling;
+import org.deegree.style.styling.TextStyling;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link CompiledStyle} produces the same results as {@link Style#evaluate(Feature, XPathEvaluator)}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CompiledStyleTest {
+
+    private static final PropertyType TYPE = new SimplePropertyType( new QName( "type" ), 1, 1, STRING, null, null );
+
+    private static final PropertyType NAME = new SimplePropertyType( new QName( "name" ), 0, 1, STRING, null, null );
+
+    private static final PropertyType WIDTH = new SimplePropertyType( new QName( "width" ), 1, 1, DECIMAL, null,
+                                                                      null );
+
+    private static final PropertyType GEOM = new GeometryPropertyType( new QName( "geom" ), 1, 1, null, null,
+                                                                       GEOMETRY, DIM_2, INLINE );
+
+    private static final GenericFeatureType WAY = new GenericFeatureType( new QName( "Way" ), asList( TYPE, NAME,
+                                                                                                     WIDTH, GEOM ),
+                                                                          false );
+
+    private final XPathEvaluator<Feature> evaluator = new TypedObjectNodeXPathEvaluator();
+
+    private Style style;
+
+    private List<Feature> features;
+
+    @Before
+    public void setup()
+                            throws Exception {
+        XMLStreamReader in = XMLInputFactory.newInstance().createXMLStreamReader( CompiledStyleTest.class.getResource( "compiledstyle.xml" ).toString(),
+                                                                                  CompiledStyleTest.class.getResourceAsStream( "compiledstyle.xml" ) );
+        in.next();
+        style = SymbologyParser.INSTANCE.parse( in );
+        in.close();
+
+        features = new ArrayList<Feature>();
+        // matches the first rule by type
+        features.add( way( "w1", "road", "Main Street", "5" ) );
+        // matches the river rule, with labels
+        features.add( way( "w2", "river", "Rhine", "2" ) );
+        // matches the first rule by width only
+        features.add( way( "w3", "path", "Trail", "20" ) );
+        // matches the rule without symbolizers, so the else rule applies
+        features.add( way( "w4", "path", "Track", "1" ) );
+        // matches the else rule, has no name
+        features.add( way( "w5", "field", null, "1" ) );
+        features.add( way( "w6", "river", "Main", "3" ) );
+    }
+
+    @Test
+    public void testEvaluatesLikeStyle() {
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+        for ( Feature f : features ) {
+            compiled.evaluate( f, evaluator, result );
+            assertSameResult( f.getId(), style.evaluate( f, evaluator ), result );
+        }
+    }
+
+    @Test
+    public void testElseFilter() {
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+        for ( Feature f : features.subList( 3, 5 ) ) {
+            compiled.evaluate( f, evaluator, result );
+            assertSameResult( f.getId(), style.evaluate( f, evaluator ), result );
+            assertEquals( 2, result.size() );
+            assertEquals( Color.BLACK, ( (LineStyling) result.getStyling( 0 ) ).stroke.color );
+        }
+        // the else rule does not apply if another rule matched
+        compiled.evaluate( features.get( 0 ), evaluator, result );
+        assertEquals( 2, result.size() );
+        assertEquals( Color.RED, ( (LineStyling) result.getStyling( 0 ) ).stroke.color );
+    }
+
+    @Test
+    public void testLabels() {
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+        Feature river = features.get( 1 );
+        compiled.evaluate( river, evaluator, result );
+        assertSameResult( river.getId(), style.evaluate( river, evaluator ), result );
+        assertEquals( 3, result.size() );
+        assertNull( result.getText( 0 ) );
+        assertTrue( result.getStyling( 1 ) instanceof TextStyling );
+        assertEquals( "Rhine", result.getText( 1 ) );
+        assertTrue( result.getStyling( 2 ) instanceof TextStyling );
+        assertTrue( result.getText( 2 ).contains( "Name:" ) );
+        assertTrue( result.getText( 2 ).contains( "Rhine" ) );
+        assertEquals( 1, result.getGeometries( 1 ).size() );
+    }
+
+    @Test
+    public void testLiteralFolding() {
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+
+        // only literals: all features share the styling
+        compiled.evaluate( features.get( 1 ), evaluator, result );
+        Styling<?> river = result.getStyling( 0 );
+        assertEquals( 3.0, ( (LineStyling) river ).stroke.width, 0 );
+        assertEquals( Color.BLUE, ( (LineStyling) river ).stroke.color );
+        compiled.evaluate( features.get( 5 ), evaluator, result );
+        assertSame( river, result.getStyling( 0 ) );
+        assertSame( river, style.evaluate( features.get( 5 ), evaluator ).getFirst().first );
+
+        // depends on a property: every feature gets its own styling
+        compiled.evaluate( features.get( 0 ), evaluator, result );
+        LineStyling road = (LineStyling) result.getStyling( 0 );
+        assertEquals( 5.0, road.stroke.width, 0 );
+        compiled.evaluate( features.get( 2 ), evaluator, result );
+        LineStyling path = (LineStyling) result.getStyling( 0 );
+        assertEquals( 20.0, path.stroke.width, 0 );
+        assertNotSame( road, path );
+        assertEquals( Color.RED, road.stroke.color );
+        assertEquals( Color.RED, path.stroke.color );
+    }
+
+    @Test
+    public void testCustomContinuationFallback() {
+        final List<Symbolizer<?>> riverSymbolizers = ( (FilterContinuation) style.getRules().get( 1 ).first ).getSymbolizers();
+        Continuation<LinkedList<Symbolizer<?>>> custom = new Continuation<LinkedList<Symbolizer<?>>>() {
+            @Override
+            public void updateStep( LinkedList<Symbolizer<?>> base, Feature f, XPathEvaluator<Feature> evaluator ) {
+                if ( f != null && f.getId().equals( "w5" ) ) {
+                    base.addAll( riverSymbolizers );
+                }
+            }
+        };
+        // before the else rule, so it also affects whether the else rule applies
+        DoublePair scales = new DoublePair( NEGATIVE_INFINITY, POSITIVE_INFINITY );
+        style.getRules().add( 3, new Pair<Continuation<LinkedList<Symbolizer<?>>>, DoublePair>( custom, scales ) );
+
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+        for ( Feature f : features ) {
+            compiled.evaluate( f, evaluator, result );
+            assertSameResult( f.getId(), style.evaluate( f, evaluator ), result );
+        }
+
+        compiled.evaluate( features.get( 4 ), evaluator, result );
+        assertEquals( 3, result.size() );
+        assertEquals( Color.BLUE, ( (LineStyling) result.getStyling( 0 ) ).stroke.color );
+    }
+
+    @Test
+    public void testDefaultStyle() {
+        Style defaultStyle = new Style();
+        CompiledStyle compiled = defaultStyle.compile();
+        CompiledStyle.Result result = new CompiledStyle.Result();
+        for ( Feature f : features ) {
+            compiled.evaluate( f, evaluator, result );
+            assertSameResult( f.getId(), defaultStyle.evaluate( f, evaluator ), result );
+            assertEquals( 1, result.size() );
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void assertSameResult( String id, LinkedList<Triple<Styling, LinkedList<Geometry>, String>> expected,
+                                          CompiledStyle.Result actual ) {
+        assertEquals( id, expected.size(), actual.size() );
+        int i = 0;
+        for ( Triple<Styling, LinkedList<Geometry>, String> triple : expected ) {
+            Styling<?> styling = actual.getStyling( i );
+            assertSame( id, triple.first.getClass(), styling.getClass() );
+            assertEquals( id, generateToString( triple.first ), generateToString( styling ) );
+            List<Geometry> geometries = actual.getGeometries( i );
+            assertEquals( id, triple.second.size(), geometries.size() );
+            for ( int j = 0; j < geometries.size(); ++j ) {
+                assertSame( id, triple.second.get( j ), geometries.get( j ) );
+            }
+            assertEquals( id, triple.third, actual.getText( i ) );
+            ++i;
+        }
+    }
+
+    private static Feature way( String id, String type, String name, String width ) {
+        List<Property> props = new ArrayList<Property>();
+        props.add( new GenericProperty( TYPE, new PrimitiveValue( type ) ) );
+        if ( name != null ) {
+            props.add( new GenericProperty( NAME, new PrimitiveValue( name ) ) );
+        }
+        props.add( new GenericProperty( WIDTH, new PrimitiveValue( new BigDecimal( width ) ) ) );
+        props.add( new GenericProperty( GEOM, new GeometryFactory().createPoint( null, 7.1, 50.7, null ) ) );
+        return new GenericFeature( WAY, id, props, null );
+    }
+
+}
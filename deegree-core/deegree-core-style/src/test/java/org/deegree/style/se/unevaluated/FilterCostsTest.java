@@ -0,0 +1,161 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.style.se.unevaluated;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.filter.Expression;
+import org.deegree.filter.Filter;
+import org.deegree.filter.MatchAction;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.PropertyIsEqualTo;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Function;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.And;
+import org.deegree.filter.logical.Not;
+import org.deegree.filter.logical.Or;
+import org.deegree.filter.spatial.Intersects;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FilterCosts}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FilterCostsTest {
+
+    private static Operator equalTo( String property, String value ) {
+        return new PropertyIsEqualTo( new ValueReference( new QName( property ) ),
+                                      new Literal<PrimitiveValue>( value ), true, MatchAction.ANY );
+    }
+
+    private static Operator intersects() {
+        return new Intersects( new ValueReference( new QName( "geom" ) ), null );
+    }
+
+    private static Operator like( String property, String pattern ) {
+        return new PropertyIsLike( new ValueReference( new QName( property ) ), new Literal<PrimitiveValue>( pattern ),
+                                   "*", "#", "!", true, MatchAction.ANY );
+    }
+
+    private static Operator functionEqualTo( String value ) {
+        Function function = new Function( "unknown", Collections.<Expression> emptyList() );
+        return new PropertyIsEqualTo( function, new Literal<PrimitiveValue>( value ), true, MatchAction.ANY );
+    }
+
+    @Test
+    public void testComparisonCheaperThanSpatial() {
+        assertTrue( FilterCosts.cost( equalTo( "a", "1" ) ) < FilterCosts.cost( intersects() ) );
+    }
+
+    @Test
+    public void testAndCheapestFirst() {
+        Operator spatial = intersects();
+        Operator comparison = equalTo( "a", "1" );
+        And reordered = (And) FilterCosts.reorder( new And( spatial, comparison ) );
+        assertSame( comparison, reordered.getParams()[0] );
+        assertSame( spatial, reordered.getParams()[1] );
+    }
+
+    @Test
+    public void testNestedOrInNot() {
+        Operator spatial = intersects();
+        Operator comparison = equalTo( "a", "1" );
+        Not reordered = (Not) FilterCosts.reorder( new Not( new Or( spatial, comparison ) ) );
+        Or or = (Or) reordered.getParameter();
+        assertSame( comparison, or.getParams()[0] );
+        assertSame( spatial, or.getParams()[1] );
+    }
+
+    @Test
+    public void testEqualCostsKeepOrder() {
+        Operator first = equalTo( "a", "1" );
+        Operator second = equalTo( "b", "2" );
+        Operator and = new And( first, second );
+        assertSame( and, FilterCosts.reorder( and ) );
+    }
+
+    @Test
+    public void testUnchangedFilterIsReturned() {
+        Filter filter = new OperatorFilter( new And( equalTo( "a", "1" ), intersects() ) );
+        assertSame( filter, FilterCosts.reorder( filter ) );
+        assertNull( FilterCosts.reorder( (Filter) null ) );
+    }
+
+    @Test
+    public void testMayFail() {
+        assertFalse( FilterCosts.mayFail( equalTo( "a", "1" ) ) );
+        assertFalse( FilterCosts.mayFail( new Not( new Or( like( "a", "1*" ), equalTo( "b", "2" ) ) ) ) );
+        assertTrue( FilterCosts.mayFail( functionEqualTo( "1" ) ) );
+        assertTrue( FilterCosts.mayFail( intersects() ) );
+        assertTrue( FilterCosts.mayFail( new And( equalTo( "a", "1" ), intersects() ) ) );
+    }
+
+    /**
+     * An operand which may fail must not be moved in front of a more expensive one, e.g. <code>Or</code> would not
+     * match anymore if the function fails, although the first operand is true.
+     */
+    @Test
+    public void testOperandWhichMayFailIsNotMovedForward() {
+        Operator expensive = new Or( like( "a", "1*" ), like( "b", "2*" ) );
+        Operator mayFail = functionEqualTo( "1" );
+        assertTrue( FilterCosts.cost( mayFail ) < FilterCosts.cost( expensive ) );
+        Operator or = new Or( expensive, mayFail );
+        assertSame( or, FilterCosts.reorder( or ) );
+    }
+
+    @Test
+    public void testCheapOperandPassesOperandWhichMayFail() {
+        Operator mayFail = functionEqualTo( "1" );
+        Operator comparison = equalTo( "a", "1" );
+        Or reordered = (Or) FilterCosts.reorder( new Or( mayFail, comparison ) );
+        assertSame( comparison, reordered.getParams()[0] );
+        assertSame( mayFail, reordered.getParams()[1] );
+    }
+
+}
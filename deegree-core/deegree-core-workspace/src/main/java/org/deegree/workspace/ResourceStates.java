@@ -27,11 +27,12 @@
 ----------------------------------------------------------------------------*/
 package org.deegree.workspace;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * This class can be used to manage the states of the various resources.
+ * This class can be used to manage the states of the various resources. Safe for use by multiple threads (resources
+ * may be initialized concurrently).
  * 
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  * 
@@ -42,17 +43,21 @@ public class ResourceStates {
     private Map<ResourceIdentifier<? extends Resource>, ResourceState> map;
 
     public ResourceStates() {
-        map = new HashMap<ResourceIdentifier<? extends Resource>, ResourceState>();
+        map = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, ResourceState>();
     }
 
     /**
      * @param id
      *            may not be <code>null</code>
      * @param state
-     *            may not be <code>null</code>
+     *            may be <code>null</code> (state is unknown)
      */
     public void setState( ResourceIdentifier<? extends Resource> id, ResourceState state ) {
-        map.put( id, state );
+        if ( state == null ) {
+            map.remove( id );
+        } else {
+            map.put( id, state );
+        }
     }
 
     /**
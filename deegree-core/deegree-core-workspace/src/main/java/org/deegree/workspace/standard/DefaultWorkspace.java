@@ -47,6 +47,7 @@ import static org.deegree.workspace.ResourceStates.ResourceState.Error;
 import static org.deegree.workspace.ResourceStates.ResourceState.Initialized;
 import static org.deegree.workspace.ResourceStates.ResourceState.Prepared;
 import static org.deegree.workspace.ResourceStates.ResourceState.Scanned;
+import static java.lang.System.currentTimeMillis;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.File;
@@ -56,11 +57,23 @@ import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deegree.workspace.Destroyable;
 import org.deegree.workspace.ErrorHandler;
@@ -69,6 +82,7 @@ import org.deegree.workspace.LocationHandler;
 import org.deegree.workspace.PreparedResources;
 import org.deegree.workspace.Resource;
 import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceException;
 import org.deegree.workspace.ResourceIdentifier;
 import org.deegree.workspace.ResourceInitException;
 import org.deegree.workspace.ResourceLocation;
@@ -85,6 +99,12 @@ import org.slf4j.Logger;
 
 /**
  * Directory based workspace implementation.
+ * <p>
+ * When initializing all resources, independent resources can be built and initialized concurrently: a resource is
+ * started as soon as all of its (soft) dependencies have been processed. This is enabled by setting the system
+ * property <code>DEEGREE_WORKSPACE_INIT_THREADS</code> to the number of threads to use. By default, resources are
+ * initialized sequentially, as not all resource implementations may be safe to initialize concurrently.
+ * </p>
  * 
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  * 
@@ -94,6 +114,10 @@ public class DefaultWorkspace implements Workspace {
 
     private static final Logger LOG = getLogger( DefaultWorkspace.class );
 
+    private static final String VAR_INIT_THREADS = "DEEGREE_WORKSPACE_INIT_THREADS";
+
+    private static final int SLOWEST_RESOURCES_REPORTED = 10;
+
     private final File directory;
 
     private ClassLoader moduleClassLoader;
@@ -133,47 +157,234 @@ public class DefaultWorkspace implements Workspace {
         LOG.info( "Building and initializing resources." );
         LOG.info( "--------------------------------------------------------------------------------" );
 
+        initResources( prepared, getConfiguredInitThreads() );
+    }
+
+    /**
+     * Builds and initializes the prepared resources in dependency order.
+     * 
+     * @param prepared
+     *            prepared resources, must not be <code>null</code>
+     * @param threads
+     *            number of threads to use, <code>1</code> initializes the resources sequentially
+     */
+    void initResources( PreparedResources prepared, int threads ) {
         // probably better to implement an insert bulk operation on the graph
         for ( ResourceMetadata<? extends Resource> md : prepared.getMetadata() ) {
             graph.insertNode( md );
         }
 
-        outer: for ( ResourceMetadata<? extends Resource> md : graph.toSortedList() ) {
-            if ( states.getState( md.getIdentifier() ) == Deactivated ) {
-                LOG.warn( "Not building resource {} (deactivated).", md.getIdentifier() );
-                continue;
+        List<ResourceMetadata<? extends Resource>> sorted = graph.toSortedList();
+        Map<ResourceIdentifier<? extends Resource>, Long> durations = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, Long>();
+        long begin = currentTimeMillis();
+        if ( threads > 1 && sorted.size() > 1 ) {
+            initConcurrently( sorted, prepared, durations, threads );
+        } else {
+            for ( ResourceMetadata<? extends Resource> md : sorted ) {
+                initResource( md, prepared, durations );
             }
-            LOG.info( "Building resource {}.", md.getIdentifier() );
-            for ( ResourceIdentifier<? extends Resource> dep : md.getDependencies() ) {
-                if ( states.getState( dep ) != Initialized ) {
-                    states.setState( md.getIdentifier(), Error );
-                    String msg = "Dependent resource " + dep + " failed to initialize.";
-                    LOG.error( "Unable to build resource {}: " + msg, md.getIdentifier() );
-                    errors.registerError( md.getIdentifier(), msg );
-                    continue outer;
-                }
+        }
+        logTimingReport( sorted, durations, currentTimeMillis() - begin, threads );
+    }
+
+    /**
+     * Builds and initializes the given resources using a pool of worker threads. A resource is submitted as soon as
+     * all of its dependencies have been processed (successfully or not).
+     */
+    private void initConcurrently( List<ResourceMetadata<? extends Resource>> sorted, final PreparedResources prepared,
+                                   final Map<ResourceIdentifier<? extends Resource>, Long> durations, int threads ) {
+        Map<ResourceIdentifier<? extends Resource>, Integer> pendingDependencies = new HashMap<ResourceIdentifier<? extends Resource>, Integer>();
+        List<ResourceMetadata<? extends Resource>> ready = new ArrayList<ResourceMetadata<? extends Resource>>();
+        for ( ResourceMetadata<? extends Resource> md : sorted ) {
+            int numDependencies = getDependencyNodes( graph.getNode( md.getIdentifier() ) ).size();
+            if ( numDependencies == 0 ) {
+                ready.add( md );
+            } else {
+                pendingDependencies.put( md.getIdentifier(), numDependencies );
             }
-            try {
-                Resource res = prepared.getBuilder( md.getIdentifier() ).build();
-                if ( res == null ) {
-                    errors.registerError( md.getIdentifier(), "Unable to prepare." );
-                    states.setState( md.getIdentifier(), Error );
-                    LOG.error( "Unable to build resource {}.", md.getIdentifier() );
-                    continue;
+        }
+
+        LOG.info( "Using {} threads.", threads );
+        ExecutorService executor = Executors.newFixedThreadPool( threads, new InitThreads() );
+        CompletionService<ResourceMetadata<? extends Resource>> completion = new ExecutorCompletionService<ResourceMetadata<? extends Resource>>(
+                                                                                                                                                  executor );
+        try {
+            int running = 0;
+            for ( ResourceMetadata<? extends Resource> md : ready ) {
+                completion.submit( new ResourceInitTask( md, prepared, durations ) );
+                running++;
+            }
+            while ( running > 0 ) {
+                ResourceMetadata<? extends Resource> done = completion.take().get();
+                running--;
+                for ( ResourceNode<? extends Resource> dependent : graph.getNode( done.getIdentifier() ).getDependents() ) {
+                    ResourceIdentifier<? extends Resource> id = dependent.getMetadata().getIdentifier();
+                    Integer pending = pendingDependencies.get( id );
+                    if ( pending == null ) {
+                        continue;
+                    }
+                    if ( pending == 1 ) {
+                        pendingDependencies.remove( id );
+                        completion.submit( new ResourceInitTask( dependent.getMetadata(), prepared, durations ) );
+                        running++;
+                    } else {
+                        pendingDependencies.put( id, pending - 1 );
+                    }
                 }
-                states.setState( md.getIdentifier(), Built );
-                LOG.info( "Initializing resource {}.", md.getIdentifier() );
-                res.init();
-                states.setState( md.getIdentifier(), Initialized );
-                resources.put( res.getMetadata().getIdentifier(), res );
-            } catch ( Exception ex ) {
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException( "Interrupted while initializing resources." );
+        } catch ( ExecutionException e ) {
+            // only errors can get here, exceptions are handled by initResource
+            if ( e.getCause() instanceof Error ) {
+                throw (Error) e.getCause();
+            }
+            throw new ResourceException( "Unable to initialize resources: " + e.getCause().getMessage(), e );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Set<ResourceNode<? extends Resource>> getDependencyNodes( ResourceNode<? extends Resource> node ) {
+        Set<ResourceNode<? extends Resource>> nodes = new LinkedHashSet<ResourceNode<? extends Resource>>();
+        nodes.addAll( node.getDependencies() );
+        nodes.addAll( node.getSoftDependencies() );
+        return nodes;
+    }
+
+    private void initResource( ResourceMetadata<? extends Resource> md, PreparedResources prepared,
+                               Map<ResourceIdentifier<? extends Resource>, Long> durations ) {
+        if ( states.getState( md.getIdentifier() ) == Deactivated ) {
+            LOG.warn( "Not building resource {} (deactivated).", md.getIdentifier() );
+            return;
+        }
+        LOG.info( "Building resource {}.", md.getIdentifier() );
+        for ( ResourceIdentifier<? extends Resource> dep : md.getDependencies() ) {
+            if ( states.getState( dep ) != Initialized ) {
                 states.setState( md.getIdentifier(), Error );
-                String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+                String msg = "Dependent resource " + dep + " failed to initialize.";
+                LOG.error( "Unable to build resource {}: " + msg, md.getIdentifier() );
                 errors.registerError( md.getIdentifier(), msg );
-                LOG.error( msg );
-                LOG.trace( "Stack trace:", ex );
+                return;
             }
         }
+        long begin = currentTimeMillis();
+        try {
+            Resource res = prepared.getBuilder( md.getIdentifier() ).build();
+            if ( res == null ) {
+                errors.registerError( md.getIdentifier(), "Unable to prepare." );
+                states.setState( md.getIdentifier(), Error );
+                LOG.error( "Unable to build resource {}.", md.getIdentifier() );
+                return;
+            }
+            states.setState( md.getIdentifier(), Built );
+            LOG.info( "Initializing resource {}.", md.getIdentifier() );
+            res.init();
+            states.setState( md.getIdentifier(), Initialized );
+            resources.put( res.getMetadata().getIdentifier(), res );
+            LOG.info( "Initialized resource {} ({} ms).", md.getIdentifier(), currentTimeMillis() - begin );
+        } catch ( Exception ex ) {
+            states.setState( md.getIdentifier(), Error );
+            String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+            errors.registerError( md.getIdentifier(), msg );
+            LOG.error( msg );
+            LOG.trace( "Stack trace:", ex );
+        } finally {
+            durations.put( md.getIdentifier(), currentTimeMillis() - begin );
+        }
+    }
+
+    /**
+     * Logs the slowest resources and the critical path, i.e. the chain of dependencies with the highest accumulated
+     * initialization time (a lower bound for the startup time, regardless of the number of threads).
+     */
+    private void logTimingReport( List<ResourceMetadata<? extends Resource>> sorted,
+                                  final Map<ResourceIdentifier<? extends Resource>, Long> durations, long total,
+                                  int threads ) {
+        LOG.info( "--------------------------------------------------------------------------------" );
+        LOG.info( "Initialized {} resources in {} ms ({} threads).", new Object[] { durations.size(), total, threads } );
+        if ( durations.isEmpty() ) {
+            return;
+        }
+
+        // sorted list is in dependency order, so the path times of the dependencies are known
+        Map<ResourceIdentifier<? extends Resource>, Long> pathTimes = new HashMap<ResourceIdentifier<? extends Resource>, Long>();
+        Map<ResourceIdentifier<? extends Resource>, ResourceIdentifier<? extends Resource>> predecessors = new HashMap<ResourceIdentifier<? extends Resource>, ResourceIdentifier<? extends Resource>>();
+        ResourceIdentifier<? extends Resource> last = null;
+        for ( ResourceMetadata<? extends Resource> md : sorted ) {
+            ResourceIdentifier<? extends Resource> id = md.getIdentifier();
+            ResourceIdentifier<? extends Resource> predecessor = null;
+            long pathTime = 0;
+            for ( ResourceNode<? extends Resource> dep : getDependencyNodes( graph.getNode( id ) ) ) {
+                Long depTime = pathTimes.get( dep.getMetadata().getIdentifier() );
+                if ( depTime != null && depTime > pathTime ) {
+                    pathTime = depTime;
+                    predecessor = dep.getMetadata().getIdentifier();
+                }
+            }
+            pathTime += getDuration( durations, id );
+            pathTimes.put( id, pathTime );
+            predecessors.put( id, predecessor );
+            if ( last == null || pathTime > pathTimes.get( last ) ) {
+                last = id;
+            }
+        }
+        List<String> path = new ArrayList<String>();
+        for ( ResourceIdentifier<? extends Resource> id = last; id != null; id = predecessors.get( id ) ) {
+            path.add( id + " (" + getDuration( durations, id ) + " ms)" );
+        }
+        Collections.reverse( path );
+        LOG.info( "Critical path ({} ms): {}", pathTimes.get( last ), join( path, " -> " ) );
+
+        List<ResourceIdentifier<? extends Resource>> slowest = new ArrayList<ResourceIdentifier<? extends Resource>>(
+                                                                                                                     durations.keySet() );
+        Collections.sort( slowest, new Comparator<ResourceIdentifier<? extends Resource>>() {
+            @Override
+            public int compare( ResourceIdentifier<? extends Resource> o1, ResourceIdentifier<? extends Resource> o2 ) {
+                return durations.get( o2 ).compareTo( durations.get( o1 ) );
+            }
+        } );
+        LOG.info( "Slowest resources:" );
+        for ( ResourceIdentifier<? extends Resource> id : slowest.subList( 0, Math.min( slowest.size(),
+                                                                                         SLOWEST_RESOURCES_REPORTED ) ) ) {
+            LOG.info( " - {}: {} ms", id, durations.get( id ) );
+        }
+    }
+
+    private static long getDuration( Map<ResourceIdentifier<? extends Resource>, Long> durations,
+                                     ResourceIdentifier<? extends Resource> id ) {
+        Long duration = durations.get( id );
+        return duration != null ? duration : 0;
+    }
+
+    private static String join( List<String> parts, String separator ) {
+        StringBuilder sb = new StringBuilder();
+        for ( String part : parts ) {
+            if ( sb.length() > 0 ) {
+                sb.append( separator );
+            }
+            sb.append( part );
+        }
+        return sb.toString();
+    }
+
+    private static int getConfiguredInitThreads() {
+        int defaultThreads = 1;
+        String threads = System.getProperty( VAR_INIT_THREADS );
+        if ( threads != null ) {
+            try {
+                int value = Integer.parseInt( threads.trim() );
+                if ( value > 0 ) {
+                    return value;
+                }
+            } catch ( NumberFormatException e ) {
+                // fall through
+            }
+            LOG.warn( "Ignoring invalid value '{}' of {}, using {}.", new Object[] { threads, VAR_INIT_THREADS,
+                                                                                   defaultThreads } );
+        }
+        return defaultThreads;
     }
 
     @Override
@@ -315,7 +526,7 @@ public class DefaultWorkspace implements Workspace {
         wsModules = new ArrayList<ModuleInfo>();
         resourceManagers = new HashMap<Class<? extends ResourceProvider<? extends Resource>>, ResourceManager<? extends Resource>>();
         resourceMetadata = new HashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
-        resources = new HashMap<ResourceIdentifier<? extends Resource>, Resource>();
+        resources = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, Resource>();
         initializables.clear();
         graph = new ResourceGraph();
         states = new ResourceStates();
@@ -556,4 +767,41 @@ public class DefaultWorkspace implements Workspace {
         return locationHandler;
     }
 
+    private class ResourceInitTask implements Callable<ResourceMetadata<? extends Resource>> {
+
+        private final ResourceMetadata<? extends Resource> md;
+
+        private final PreparedResources prepared;
+
+        private final Map<ResourceIdentifier<? extends Resource>, Long> durations;
+
+        private ResourceInitTask( ResourceMetadata<? extends Resource> md, PreparedResources prepared,
+                                  Map<ResourceIdentifier<? extends Resource>, Long> durations ) {
+            this.md = md;
+            this.prepared = prepared;
+            this.durations = durations;
+        }
+
+        @Override
+        public ResourceMetadata<? extends Resource> call() {
+            initResource( md, prepared, durations );
+            return md;
+        }
+    }
+
+    private static class InitThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, "workspace-init-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            t.setContextClassLoader( contextClassLoader );
+            return t;
+        }
+    }
+
 }
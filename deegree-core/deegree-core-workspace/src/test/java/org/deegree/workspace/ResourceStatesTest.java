@@ -0,0 +1,93 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace;
+
+import static org.deegree.workspace.ResourceStates.ResourceState.Error;
+import static org.deegree.workspace.ResourceStates.ResourceState.Initialized;
+import static org.deegree.workspace.ResourceStates.ResourceState.Prepared;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.deegree.workspace.standard.DefaultResourceIdentifier;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ResourceStates}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ResourceStatesTest {
+
+    @Test
+    public void testUnknownState() {
+        ResourceStates states = new ResourceStates();
+        assertNull( states.getState( id( "a" ) ) );
+    }
+
+    @Test
+    public void testSetState() {
+        ResourceStates states = new ResourceStates();
+        states.setState( id( "a" ), Prepared );
+        states.setState( id( "b" ), Error );
+        states.setState( id( "a" ), Initialized );
+        assertEquals( Initialized, states.getState( id( "a" ) ) );
+        assertEquals( Error, states.getState( id( "b" ) ) );
+    }
+
+    @Test
+    public void testSetNullStateRemoves() {
+        ResourceStates states = new ResourceStates();
+        states.setState( id( "a" ), Initialized );
+        states.setState( id( "b" ), Initialized );
+        states.setState( id( "a" ), null );
+        assertNull( states.getState( id( "a" ) ) );
+        assertEquals( Initialized, states.getState( id( "b" ) ) );
+    }
+
+    @Test
+    public void testSetNullStateOnUnknownId() {
+        ResourceStates states = new ResourceStates();
+        states.setState( id( "a" ), null );
+        assertNull( states.getState( id( "a" ) ) );
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static ResourceIdentifier<Resource> id( String id ) {
+        return new DefaultResourceIdentifier<Resource>( (Class) ResourceProvider.class, id );
+    }
+
+}
@@ -0,0 +1,280 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace.standard;
+
+import static org.deegree.workspace.ResourceStates.ResourceState.Error;
+import static org.deegree.workspace.ResourceStates.ResourceState.Initialized;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deegree.workspace.PreparedResources;
+import org.deegree.workspace.Resource;
+import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceIdentifier;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.ResourceProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for building and initializing resources in dependency order (sequentially and concurrently) in
+ * {@link DefaultWorkspace}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DefaultWorkspaceTest {
+
+    private File dir;
+
+    private DefaultWorkspace workspace;
+
+    private TestResources prepared;
+
+    private final List<String> initialized = Collections.synchronizedList( new ArrayList<String>() );
+
+    private final List<String> built = Collections.synchronizedList( new ArrayList<String>() );
+
+    @Before
+    public void setUp()
+                            throws IOException {
+        dir = File.createTempFile( "workspace", "" );
+        dir.delete();
+        dir.mkdir();
+        workspace = new DefaultWorkspace( dir );
+        workspace.startup();
+        prepared = new TestResources( workspace );
+    }
+
+    @After
+    public void tearDown() {
+        dir.delete();
+    }
+
+    @Test
+    public void testDependencyGraphSequentially() {
+        addDependencyGraph();
+        workspace.initResources( prepared, 1 );
+        assertDependencyGraphInitialized();
+    }
+
+    @Test
+    public void testDependencyGraphConcurrently() {
+        addDependencyGraph();
+        workspace.initResources( prepared, 4 );
+        assertDependencyGraphInitialized();
+    }
+
+    @Test
+    public void testFailingResourceSequentially() {
+        addFailingResources();
+        workspace.initResources( prepared, 1 );
+        assertFailingResources();
+    }
+
+    @Test
+    public void testFailingResourceConcurrently() {
+        addFailingResources();
+        workspace.initResources( prepared, 4 );
+        assertFailingResources();
+    }
+
+    private void addDependencyGraph() {
+        // d depends on b and c, which both depend on a, e is independent
+        add( "a", false );
+        add( "b", false, "a" );
+        add( "c", false, "a" );
+        add( "d", false, "b", "c" );
+        add( "e", false );
+    }
+
+    private void assertDependencyGraphInitialized() {
+        assertEquals( 5, initialized.size() );
+        for ( String id : new String[] { "a", "b", "c", "d", "e" } ) {
+            assertEquals( Initialized, workspace.getStates().getState( id( id ) ) );
+            assertNotNull( getResource( id ) );
+        }
+        assertBefore( "a", "b" );
+        assertBefore( "a", "c" );
+        assertBefore( "b", "d" );
+        assertBefore( "c", "d" );
+        assertFalse( workspace.getErrorHandler().hasErrors() );
+    }
+
+    private void addFailingResources() {
+        // b fails to initialize, c depends on b, d is independent
+        add( "a", false );
+        add( "b", true, "a" );
+        add( "c", false, "b" );
+        add( "d", false );
+    }
+
+    private void assertFailingResources() {
+        assertEquals( Initialized, workspace.getStates().getState( id( "a" ) ) );
+        assertEquals( Initialized, workspace.getStates().getState( id( "d" ) ) );
+        assertNotNull( getResource( "d" ) );
+
+        assertEquals( Error, workspace.getStates().getState( id( "b" ) ) );
+        assertNull( getResource( "b" ) );
+        List<String> errors = workspace.getErrorHandler().getErrors( id( "b" ) );
+        assertEquals( 1, errors.size() );
+        assertTrue( errors.get( 0 ).contains( "init of b failed" ) );
+
+        // the dependent of the failed resource is not even built
+        assertEquals( Error, workspace.getStates().getState( id( "c" ) ) );
+        assertNull( getResource( "c" ) );
+        assertFalse( built.contains( "c" ) );
+        errors = workspace.getErrorHandler().getErrors( id( "c" ) );
+        assertEquals( 1, errors.size() );
+        assertTrue( errors.get( 0 ).contains( "failed to initialize" ) );
+    }
+
+    private void assertBefore( String first, String second ) {
+        assertTrue( first + " must be initialized before " + second,
+                    initialized.indexOf( first ) < initialized.indexOf( second ) );
+    }
+
+    @SuppressWarnings("unchecked")
+    private Resource getResource( String id ) {
+        return workspace.getResource( (Class) ResourceProvider.class, id );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ResourceIdentifier<Resource> id( String id ) {
+        return new DefaultResourceIdentifier<Resource>( (Class) ResourceProvider.class, id );
+    }
+
+    private void add( String id, final boolean fail, String... dependencies ) {
+        final TestMetadata md = new TestMetadata( id( id ) );
+        for ( String dependency : dependencies ) {
+            md.dependencies.add( id( dependency ) );
+        }
+        prepared.add( md, new ResourceBuilder<Resource>() {
+            @Override
+            public Resource build() {
+                built.add( md.getIdentifier().getId() );
+                return new TestResource( md, fail );
+            }
+        } );
+    }
+
+    private static class TestMetadata extends AbstractResourceMetadata<Resource> {
+
+        TestMetadata( ResourceIdentifier<Resource> id ) {
+            super( null, new DefaultResourceLocation<Resource>( new File( "/tmp/" ), id ), null );
+        }
+
+        @Override
+        public ResourceBuilder<Resource> prepare() {
+            return null;
+        }
+    }
+
+    private class TestResource implements Resource {
+
+        private final ResourceMetadata<Resource> metadata;
+
+        private final boolean fail;
+
+        TestResource( ResourceMetadata<Resource> metadata, boolean fail ) {
+            this.metadata = metadata;
+            this.fail = fail;
+        }
+
+        @Override
+        public ResourceMetadata<? extends Resource> getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void init() {
+            if ( fail ) {
+                throw new IllegalStateException( "init of " + metadata.getIdentifier().getId() + " failed" );
+            }
+            initialized.add( metadata.getIdentifier().getId() );
+        }
+
+        @Override
+        public void destroy() {
+            // nothing to do
+        }
+    }
+
+    /**
+     * Prepared resources that are not backed by workspace metadata.
+     */
+    private static class TestResources extends PreparedResources {
+
+        private final Map<ResourceIdentifier<? extends Resource>, ResourceBuilder<? extends Resource>> builders = new LinkedHashMap<ResourceIdentifier<? extends Resource>, ResourceBuilder<? extends Resource>>();
+
+        private final Map<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>> metadata = new LinkedHashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
+
+        TestResources( DefaultWorkspace workspace ) {
+            super( workspace );
+        }
+
+        void add( ResourceMetadata<Resource> md, ResourceBuilder<Resource> builder ) {
+            builders.put( md.getIdentifier(), builder );
+            metadata.put( md.getIdentifier(), md );
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Resource> ResourceBuilder<T> getBuilder( ResourceIdentifier<T> id ) {
+            return (ResourceBuilder<T>) builders.get( id );
+        }
+
+        @Override
+        public Set<ResourceMetadata<? extends Resource>> getMetadata() {
+            return new LinkedHashSet<ResourceMetadata<? extends Resource>>( metadata.values() );
+        }
+    }
+
+}
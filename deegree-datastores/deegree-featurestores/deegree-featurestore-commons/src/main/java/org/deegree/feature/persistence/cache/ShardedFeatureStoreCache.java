@@ -0,0 +1,286 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.deegree.commons.tom.gml.GMLObject;
+import org.deegree.feature.persistence.FeatureStore;
+
+/**
+ * {@link FeatureStoreCache} that splits the cached objects into independently locked segments (shards), each with
+ * least-recently-used eviction.
+ * <p>
+ * In contrast to {@link SimpleFeatureStoreCache}, lookups only contend with lookups of the same shard, and objects are
+ * strongly referenced, so eviction only depends on the configured limits: the maximum number of entries (distributed
+ * evenly among the shards) and an optional time-to-live. The numbers of hits, misses and evictions are counted.
+ * </p>
+ * 
+ * @see FeatureStore
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ShardedFeatureStoreCache implements FeatureStoreCache {
+
+    private final Shard[] shards;
+
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new {@link ShardedFeatureStoreCache} instance.
+     * 
+     * @param maxEntries
+     *            maximum number of cached objects, must be positive
+     * @param ttlMillis
+     *            time (in milliseconds) after which an object is evicted, <code>0</code> or less means no expiry
+     * @param numShards
+     *            number of shards, will be rounded up to the next power of two, if less than one, a default based
+     *            on the number of available processors is used
+     */
+    public ShardedFeatureStoreCache( int maxEntries, long ttlMillis, int numShards ) {
+        if ( numShards < 1 ) {
+            numShards = 4 * Runtime.getRuntime().availableProcessors();
+        }
+        int n = 1;
+        while ( n < numShards && n < ( 1 << 16 ) ) {
+            n <<= 1;
+        }
+        // do not use more shards than entries, otherwise the limit would be exceeded
+        while ( n > 1 && n > maxEntries ) {
+            n >>= 1;
+        }
+        shards = new Shard[n];
+        // the first shards take the remainder, so the capacities add up to maxEntries
+        int perShard = maxEntries / n;
+        int remainder = maxEntries % n;
+        for ( int i = 0; i < n; i++ ) {
+            shards[i] = new Shard( Math.max( 1, i < remainder ? perShard + 1 : perShard ) );
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public GMLObject get( String id ) {
+        GMLObject obj = getShard( id ).get( id );
+        if ( obj == null ) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return obj;
+    }
+
+    @Override
+    public void add( GMLObject obj ) {
+        String id = obj.getId();
+        getShard( id ).put( id, obj );
+    }
+
+    @Override
+    public void remove( String id ) {
+        getShard( id ).remove( id );
+    }
+
+    @Override
+    public void clear() {
+        for ( Shard shard : shards ) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * @return the number of currently cached objects (including expired objects that have not been evicted yet)
+     */
+    public int size() {
+        int size = 0;
+        for ( Shard shard : shards ) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups that returned an object
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that did not return an object
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of objects that have been evicted because of the size limit or the time-to-live
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedFeatureStoreCache{shards=" + shards.length + ", size=" + size() + ", hits=" + hits
+               + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private Shard getShard( String id ) {
+        int h = id.hashCode();
+        // spread higher bits, as the shard index only uses the lower ones
+        h ^= ( h >>> 16 );
+        return shards[h & ( shards.length - 1 )];
+    }
+
+    private static class Entry {
+
+        private final GMLObject obj;
+
+        private final long created;
+
+        private Entry( GMLObject obj, long created ) {
+            this.obj = obj;
+            this.created = created;
+        }
+    }
+
+    private class Shard {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final LinkedHashMap<String, Entry> map;
+
+        private Shard( final int maxEntries ) {
+            map = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+
+                private static final long serialVersionUID = -5406478364470417094L;
+
+                @Override
+                protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest ) {
+                    if ( size() > maxEntries ) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private GMLObject get( String id ) {
+            lock.lock();
+            try {
+                Entry entry = map.get( id );
+                if ( entry == null ) {
+                    return null;
+                }
+                if ( ttlMillis > 0 && System.currentTimeMillis() - entry.created > ttlMillis ) {
+                    map.remove( id );
+                    evictions.incrementAndGet();
+                    return null;
+                }
+                return entry.obj;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put( String id, GMLObject obj ) {
+            long now = ttlMillis > 0 ? System.currentTimeMillis() : 0;
+            lock.lock();
+            try {
+                map.put( id, new Entry( obj, now ) );
+                if ( ttlMillis > 0 ) {
+                    expire( now );
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // entries are kept in access order, so expired entries are only found reliably at the head if they have not
+        // been accessed since, this just limits the amount of stale entries that linger around
+        private void expire( long now ) {
+            Iterator<Entry> iter = map.values().iterator();
+            while ( iter.hasNext() ) {
+                Entry entry = iter.next();
+                if ( now - entry.created <= ttlMillis ) {
+                    break;
+                }
+                iter.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        private void remove( String id ) {
+            lock.lock();
+            try {
+                map.remove( id );
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                map.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
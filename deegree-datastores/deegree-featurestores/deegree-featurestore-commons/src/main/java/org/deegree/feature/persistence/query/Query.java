@@ -80,7 +80,9 @@ public class Query {
         /** If present, the store can use a different LOD for the scale. */
         HINT_SCALE,
         /** If present, the store can simplify geometries according to the resolution. */
-        HINT_RESOLUTION
+        HINT_RESOLUTION,
+        /** If present, the store may abort the query after the given number of milliseconds. */
+        HINT_TIMEOUT
     }
 
     private final TypeName[] typeNames;
@@ -194,6 +196,22 @@ public class Query {
         return hints.get( code );
     }
 
+    /**
+     * Sets a hint for processing the query.
+     * 
+     * @param code
+     *            hint to be set, must not be <code>null</code>
+     * @param value
+     *            value of the hint, <code>null</code> removes the hint
+     */
+    public void setHint( QueryHint code, Object value ) {
+        if ( value == null ) {
+            hints.remove( code );
+        } else {
+            hints.put( code, value );
+        }
+    }
+
     /**
      * Tries to extract a {@link BBOX} constraint from the query {@link Filter} that can be used as a pre-filtering step
      * to narrow the result set.
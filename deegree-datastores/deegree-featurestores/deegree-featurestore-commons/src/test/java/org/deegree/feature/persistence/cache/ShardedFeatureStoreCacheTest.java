@@ -0,0 +1,203 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.deegree.commons.tom.gml.GMLObject;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ShardedFeatureStoreCache}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ShardedFeatureStoreCacheTest {
+
+    @Test
+    public void testAddAndGet() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 0, 4 );
+        GMLObject a = object( "a" );
+        GMLObject b = object( "b" );
+        cache.add( a );
+        cache.add( b );
+        assertSame( a, cache.get( "a" ) );
+        assertSame( b, cache.get( "b" ) );
+        assertNull( cache.get( "c" ) );
+        assertEquals( 2, cache.size() );
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 3, 0, 1 );
+        GMLObject a = object( "a" );
+        cache.add( a );
+        cache.add( object( "b" ) );
+        cache.add( object( "c" ) );
+        // access a, so b becomes the least recently used entry
+        assertSame( a, cache.get( "a" ) );
+        cache.add( object( "d" ) );
+        assertEquals( 3, cache.size() );
+        assertNull( cache.get( "b" ) );
+        assertSame( a, cache.get( "a" ) );
+        assertEquals( "c", cache.get( "c" ).getId() );
+        assertEquals( "d", cache.get( "d" ).getId() );
+        assertEquals( 1, cache.getEvictions() );
+    }
+
+    @Test
+    public void testEvictsPerShard() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 8, 0, 4 );
+        for ( int i = 0; i < 100; i++ ) {
+            cache.add( object( "id" + i ) );
+        }
+        // each of the four shards holds at most two entries
+        assertTrue( cache.size() <= 8 );
+        assertEquals( 100 - cache.size(), cache.getEvictions() );
+        // the most recently added object is always kept by its shard
+        assertEquals( "id99", cache.get( "id99" ).getId() );
+    }
+
+    @Test
+    public void testShardCapacitiesAddUpToMaxEntries() {
+        // 10 entries in four shards: two shards hold three entries, two shards hold two
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 10, 0, 4 );
+        for ( int i = 0; i < 1000; i++ ) {
+            cache.add( object( "id" + i ) );
+        }
+        assertEquals( 10, cache.size() );
+        assertEquals( 990, cache.getEvictions() );
+    }
+
+    @Test
+    public void testShardsDoNotExceedMaxEntries() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 2, 0, 16 );
+        for ( int i = 0; i < 10; i++ ) {
+            cache.add( object( "id" + i ) );
+        }
+        assertTrue( cache.size() <= 2 );
+    }
+
+    @Test
+    public void testTimeToLive()
+                            throws InterruptedException {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 50, 1 );
+        cache.add( object( "a" ) );
+        assertEquals( "a", cache.get( "a" ).getId() );
+        Thread.sleep( 100 );
+        assertNull( cache.get( "a" ) );
+        assertEquals( 0, cache.size() );
+        assertEquals( 1, cache.getEvictions() );
+    }
+
+    @Test
+    public void testTimeToLiveExpiresStaleEntriesOnAdd()
+                            throws InterruptedException {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 50, 1 );
+        cache.add( object( "a" ) );
+        cache.add( object( "b" ) );
+        Thread.sleep( 100 );
+        cache.add( object( "c" ) );
+        assertEquals( 1, cache.size() );
+        assertEquals( 2, cache.getEvictions() );
+        assertEquals( "c", cache.get( "c" ).getId() );
+    }
+
+    @Test
+    public void testNoTimeToLive()
+                            throws InterruptedException {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 0, 1 );
+        cache.add( object( "a" ) );
+        Thread.sleep( 20 );
+        assertEquals( "a", cache.get( "a" ).getId() );
+        assertEquals( 0, cache.getEvictions() );
+    }
+
+    @Test
+    public void testRemove() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 0, 4 );
+        cache.add( object( "a" ) );
+        cache.add( object( "b" ) );
+        cache.remove( "a" );
+        cache.remove( "unknown" );
+        assertNull( cache.get( "a" ) );
+        assertEquals( "b", cache.get( "b" ).getId() );
+        assertEquals( 1, cache.size() );
+        assertEquals( 0, cache.getEvictions() );
+    }
+
+    @Test
+    public void testClear() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 0, 4 );
+        for ( int i = 0; i < 10; i++ ) {
+            cache.add( object( "id" + i ) );
+        }
+        cache.clear();
+        assertEquals( 0, cache.size() );
+        for ( int i = 0; i < 10; i++ ) {
+            assertNull( cache.get( "id" + i ) );
+        }
+        assertEquals( 0, cache.getEvictions() );
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        ShardedFeatureStoreCache cache = new ShardedFeatureStoreCache( 100, 0, 4 );
+        cache.add( object( "a" ) );
+        cache.get( "a" );
+        cache.get( "a" );
+        cache.get( "b" );
+        assertEquals( 2, cache.getHits() );
+        assertEquals( 1, cache.getMisses() );
+        cache.remove( "a" );
+        cache.get( "a" );
+        assertEquals( 2, cache.getHits() );
+        assertEquals( 2, cache.getMisses() );
+    }
+
+    private static GMLObject object( String id ) {
+        GMLObject obj = mock( GMLObject.class );
+        when( obj.getId() ).thenReturn( id );
+        return obj;
+    }
+
+}
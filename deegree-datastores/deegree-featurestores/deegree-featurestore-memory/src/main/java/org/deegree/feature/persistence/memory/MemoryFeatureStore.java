@@ -35,7 +35,10 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.feature.persistence.memory;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import javax.xml.namespace.QName;
@@ -43,7 +46,6 @@ import javax.xml.namespace.QName;
 import org.deegree.commons.tom.gml.GMLObject;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.db.ConnectionProvider;
-import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.i18n.Messages;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
@@ -56,6 +58,7 @@ import org.deegree.feature.stream.FeatureInputStream;
 import org.deegree.feature.types.AppSchema;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.expression.ValueReference;
 import org.deegree.geometry.Envelope;
 import org.deegree.workspace.Resource;
 import org.deegree.workspace.ResourceMetadata;
@@ -83,7 +86,7 @@ public class MemoryFeatureStore implements FeatureStore {
 
     private DefaultLockManager lockManager;
 
-    private StoredFeatures storedFeatures;
+    private volatile StoredFeatures storedFeatures;
 
     private MemoryFeatureStoreMetadata metadata;
 
@@ -99,10 +102,29 @@ public class MemoryFeatureStore implements FeatureStore {
      */
     MemoryFeatureStore( AppSchema schema, ICRS storageCRS, MemoryFeatureStoreMetadata metadata,
                         ConnectionProvider lockConnection ) throws FeatureStoreException {
+        this( schema, storageCRS, metadata, lockConnection, new HashMap<FeatureType, List<ValueReference>>() );
+    }
+
+    /**
+     * Creates a new {@link MemoryFeatureStore} instance for the given {@link AppSchema}.
+     * 
+     * @param schema
+     *            application schema, must not be <code>null</code>
+     * @param storageCRS
+     *            crs used for stored geometries, may be <code>null</code> (no transformation on inserts)
+     * @param metadata
+     * @param lockConnection
+     * @param ftToIndexedProps
+     *            properties to build attribute indexes for (per feature type), must not be <code>null</code>
+     * @throws FeatureStoreException
+     */
+    MemoryFeatureStore( AppSchema schema, ICRS storageCRS, MemoryFeatureStoreMetadata metadata,
+                        ConnectionProvider lockConnection, Map<FeatureType, List<ValueReference>> ftToIndexedProps )
+                            throws FeatureStoreException {
         this.schema = schema;
         this.storageCRS = storageCRS;
         this.metadata = metadata;
-        this.storedFeatures = new StoredFeatures( schema, storageCRS, null );
+        this.storedFeatures = new StoredFeatures( schema, storageCRS, ftToIndexedProps );
         // TODO
         lockManager = new DefaultLockManager( this, lockConnection );
     }
@@ -207,7 +229,7 @@ public class MemoryFeatureStore implements FeatureStore {
             }
         }
 
-        StoredFeatures workingCopy = new StoredFeatures( schema, storageCRS, storedFeatures );
+        StoredFeatures workingCopy = new StoredFeatures( storedFeatures );
         this.activeTransaction = new MemoryFeatureStoreTransaction( this, workingCopy, lockManager );
         this.transactionHolder = Thread.currentThread();
         return this.activeTransaction;
@@ -257,15 +279,7 @@ public class MemoryFeatureStore implements FeatureStore {
 
     @Override
     public Envelope calcEnvelope( QName ftName ) {
-        Envelope ftEnv = null;
-        FeatureType ft = schema.getFeatureType( ftName );
-        if ( ft != null ) {
-            FeatureCollection fc = storedFeatures.getFeatures( ft );
-            if ( fc != null ) {
-                ftEnv = fc.getEnvelope();
-            }
-        }
-        return ftEnv;
+        return storedFeatures.getEnvelope( ftName );
     }
 
     @Override
@@ -45,6 +45,7 @@ import static org.deegree.protocol.wfs.transaction.action.IDGenMode.USE_EXISTING
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,10 +61,13 @@ import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
 import org.deegree.feature.persistence.memory.jaxb.GMLVersionType;
 import org.deegree.feature.persistence.memory.jaxb.MemoryFeatureStoreConfig;
+import org.deegree.feature.persistence.memory.jaxb.MemoryFeatureStoreConfig.AttributeIndex;
 import org.deegree.feature.persistence.memory.jaxb.MemoryFeatureStoreConfig.GMLFeatureCollection;
 import org.deegree.feature.persistence.memory.jaxb.MemoryFeatureStoreConfig.GMLSchema;
 import org.deegree.feature.persistence.memory.jaxb.MemoryFeatureStoreConfig.NamespaceHint;
 import org.deegree.feature.types.AppSchema;
+import org.deegree.feature.types.FeatureType;
+import org.deegree.filter.expression.ValueReference;
 import org.deegree.gml.GMLInputFactory;
 import org.deegree.gml.GMLStreamReader;
 import org.deegree.gml.GMLVersion;
@@ -133,9 +137,11 @@ public class MemoryFeatureStoreBuilder implements ResourceBuilder<FeatureStore>
             throw new ResourceInitException( msg, e );
         }
 
+        Map<FeatureType, List<ValueReference>> ftToIndexedProps = getIndexedProps( schema,
+                                                                                   config.getAttributeIndex() );
         try {
             ConnectionProvider lockProvider = workspace.getResource( ConnectionProviderProvider.class, "LOCK_DB" );
-            fs = new MemoryFeatureStore( schema, storageCRS, metadata, lockProvider );
+            fs = new MemoryFeatureStore( schema, storageCRS, metadata, lockProvider, ftToIndexedProps );
         } catch ( FeatureStoreException ex ) {
             throw new ResourceInitException( ex.getLocalizedMessage(), ex );
         }
@@ -165,6 +171,28 @@ public class MemoryFeatureStoreBuilder implements ResourceBuilder<FeatureStore>
         return fs;
     }
 
+    private static Map<FeatureType, List<ValueReference>> getIndexedProps( AppSchema schema,
+                                                                           List<AttributeIndex> indexes ) {
+        Map<FeatureType, List<ValueReference>> ftToIndexedProps = new HashMap<FeatureType, List<ValueReference>>();
+        for ( AttributeIndex index : indexes ) {
+            FeatureType ft = schema.getFeatureType( index.getFeatureType() );
+            if ( ft == null ) {
+                String msg = "Cannot create attribute index: feature type '" + index.getFeatureType()
+                             + "' is not defined in the application schema.";
+                throw new ResourceInitException( msg );
+            }
+            List<ValueReference> props = ftToIndexedProps.get( ft );
+            if ( props == null ) {
+                props = new ArrayList<ValueReference>();
+                ftToIndexedProps.put( ft, props );
+            }
+            props.add( new ValueReference( index.getProperty() ) );
+            LOG.debug( "Attribute index on property '" + index.getProperty() + "' of feature type '" + ft.getName()
+                       + "'." );
+        }
+        return ftToIndexedProps;
+    }
+
     private static Map<String, String> getHintMap( List<NamespaceHint> hints ) {
         Map<String, String> prefixToNs = new HashMap<String, String>();
         for ( NamespaceHint namespaceHint : hints ) {
@@ -0,0 +1,186 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.memory;
+
+import static org.deegree.gml.schema.WellKnownGMLTypes.GML311_FEATURECOLLECTION;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.feature.AbstractFeatureCollection;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.property.GenericProperty;
+
+/**
+ * Read-only {@link FeatureCollection} that is backed by the stored features of a {@link StoredTypeFeatures} instance.
+ * <p>
+ * In contrast to {@link org.deegree.feature.GenericFeatureCollection}, the members are not copied, so creating an
+ * instance is cheap even for large stores. All modifying methods throw an {@link UnsupportedOperationException}.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class StoredFeatureCollection extends AbstractFeatureCollection {
+
+    private final Collection<Feature> members;
+
+    /**
+     * Creates a new {@link StoredFeatureCollection} instance.
+     * 
+     * @param members
+     *            member features, must not be <code>null</code> and must not be modified afterwards
+     */
+    StoredFeatureCollection( Collection<Feature> members ) {
+        super( null, GML311_FEATURECOLLECTION, null );
+        this.members = Collections.unmodifiableCollection( members );
+    }
+
+    @Override
+    public QName getName() {
+        return ft.getName();
+    }
+
+    @Override
+    public List<Property> getProperties() {
+        List<Property> props = new ArrayList<Property>( members.size() );
+        for ( Feature feature : members ) {
+            props.add( new GenericProperty( getType().getMemberDeclarations().get( 0 ), null, feature ) );
+        }
+        return props;
+    }
+
+    @Override
+    public List<Property> getProperties( QName propName ) {
+        if ( propName.equals( getType().getMemberDeclarations().get( 0 ) ) ) {
+            return getProperties();
+        }
+        return new ArrayList<Property>();
+    }
+
+    @Override
+    public List<Property> getGeometryProperties() {
+        return new ArrayList<Property>();
+    }
+
+    @Override
+    public void setProperties( List<Property> props )
+                            throws IllegalArgumentException {
+        throw new UnsupportedOperationException( "Stored feature collections are read-only." );
+    }
+
+    @Override
+    public void setPropertyValue( QName propName, int occurrence, TypedObjectNode value ) {
+        throw new UnsupportedOperationException( "Stored feature collections are read-only." );
+    }
+
+    // -----------------------------------------------------------------------
+    // implementation of Collection<Feature>
+    // -----------------------------------------------------------------------
+
+    @Override
+    public Iterator<Feature> iterator() {
+        return members.iterator();
+    }
+
+    @Override
+    public boolean add( Feature e ) {
+        return members.add( e );
+    }
+
+    @Override
+    public boolean addAll( Collection<? extends Feature> c ) {
+        return members.addAll( c );
+    }
+
+    @Override
+    public void clear() {
+        members.clear();
+    }
+
+    @Override
+    public boolean contains( Object o ) {
+        return members.contains( o );
+    }
+
+    @Override
+    public boolean containsAll( Collection<?> c ) {
+        return members.containsAll( c );
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    @Override
+    public boolean remove( Object o ) {
+        return members.remove( o );
+    }
+
+    @Override
+    public boolean removeAll( Collection<?> c ) {
+        return members.removeAll( c );
+    }
+
+    @Override
+    public boolean retainAll( Collection<?> c ) {
+        return members.retainAll( c );
+    }
+
+    @Override
+    public int size() {
+        return members.size();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return members.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray( T[] a ) {
+        return members.toArray( a );
+    }
+}
@@ -32,10 +32,9 @@
  http://www.geographie.uni-bonn.de/deegree/
 
  e-mail: info@deegree.org
- ----------------------------------------------------------------------------*/
 package org.deegree.feature.persistence.memory;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -44,18 +43,16 @@ import java.util.Set;
 
 import javax.xml.namespace.QName;
 
-import org.deegree.commons.index.RTree;
 import org.deegree.commons.tom.Reference;
 import org.deegree.commons.tom.gml.GMLObject;
-import org.deegree.commons.utils.Pair;
 import org.deegree.cs.coordinatesystems.ICRS;
-import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.Features;
 import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.query.Query;
+import org.deegree.feature.persistence.transaction.FeatureUpdater;
 import org.deegree.feature.stream.FeatureInputStream;
 import org.deegree.feature.stream.MemoryFeatureInputStream;
 import org.deegree.feature.types.AppSchema;
@@ -64,17 +61,29 @@ import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
 import org.deegree.filter.FilterEvaluationException;
 import org.deegree.filter.IdFilter;
 import org.deegree.filter.ResourceId;
+import org.deegree.filter.expression.ValueReference;
 import org.deegree.filter.sort.SortProperty;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
 import org.deegree.gml.utils.GMLObjectVisitor;
 import org.deegree.gml.utils.GMLObjectWalker;
+import org.deegree.protocol.wfs.transaction.action.ParsedPropertyReplacement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Encapsulates stored feature instances plus index structures for id and spatial queries.
+ * <p>
+ * Instances are versions of the store content: a working copy is created for every transaction (see
+ * {@link #StoredFeatures(StoredFeatures)}) and published by the feature store when the transaction is
+ * committed. The features, the spatial indexes and the id lookup table of the former version are shared, only the
+ * changes (delta) are copied, so creating and committing a working copy is proportional to the size of the delta. If
+ * the delta grows too large, it is merged into new shared structures on {@link #commit()}. Published versions are
+ * never modified, so readers can access them without locking.
+ * </p>
+ * 
+ * @see StoredTypeFeatures
  * 
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
  * @author last edited by: $Author$
@@ -85,49 +94,60 @@ class StoredFeatures {
 
     private static final Logger LOG = LoggerFactory.getLogger( StoredFeatures.class );
 
+    // maximum number of changes that are kept as delta (before the shared structures are rebuilt)
+    private static final int MAX_DELTA_SIZE = 1024;
+
     private final AppSchema schema;
 
     private final ICRS storageCRS;
 
     private final TypedObjectNodeXPathEvaluator evaluator = new TypedObjectNodeXPathEvaluator();
 
-    private final Map<FeatureType, FeatureCollection> ftToFeatures = new HashMap<FeatureType, FeatureCollection>();
+    private final Map<FeatureType, List<ValueReference>> ftToIndexedProps;
+
+    private final Map<FeatureType, StoredTypeFeatures> ftToFeatures = new HashMap<FeatureType, StoredTypeFeatures>();
 
-    private final Map<String, GMLObject> idToObject = new HashMap<String, GMLObject>();
+    // shared between versions, never modified
+    private Map<String, GMLObject> idToObject;
 
-    private final Map<FeatureType, RTree<Feature>> ftToIndex = new HashMap<FeatureType, RTree<Feature>>();
+    // changes to idToObject, null values mark removed objects
+    private final Map<String, GMLObject> idToObjectDelta = new HashMap<String, GMLObject>();
 
     /**
-     * Creates a new {@link StoredFeatures} instance.
+     * Creates a new empty {@link StoredFeatures} instance.
      * 
      * @param schema
      *            application schema, must not be <code>null</code>
      * @param storageCRS
      *            target CRS for stored geometries, can be <code>null</code> (no CRS normalization)
-     * @param former
-     *            stored features to copy from, can be <code>null</code> (new instance will be empty)
-     * @throws FeatureStoreException
+     * @param ftToIndexedProps
+     *            properties to build attribute indexes for (per feature type), must not be <code>null</code>
      */
-    StoredFeatures( AppSchema schema, ICRS storageCRS, StoredFeatures former ) throws FeatureStoreException {
+    StoredFeatures( AppSchema schema, ICRS storageCRS, Map<FeatureType, List<ValueReference>> ftToIndexedProps ) {
         this.schema = schema;
         this.storageCRS = storageCRS;
-        initFtToFeaturesMap( schema, former );
-        try {
-            rebuildIndexes();
-        } catch ( UnknownCRSException e ) {
-            throw new FeatureStoreException( e.getMessage(), e );
+        this.ftToIndexedProps = ftToIndexedProps;
+        for ( FeatureType ft : schema.getFeatureTypes( null, true, false ) ) {
+            ftToFeatures.put( ft, new StoredTypeFeatures() );
         }
+        idToObject = new HashMap<String, GMLObject>();
     }
 
-    private void initFtToFeaturesMap( AppSchema schema, StoredFeatures former ) {
-        for ( FeatureType ft : schema.getFeatureTypes( null, true, false ) ) {
-            FeatureCollection fc = new GenericFeatureCollection();
-            if ( former != null ) {
-                FeatureCollection oldFc = former.ftToFeatures.get( ft );
-                fc.addAll( oldFc );
-            }
-            ftToFeatures.put( ft, fc );
+    /**
+     * Creates a new {@link StoredFeatures} instance (working copy) that shares the structures of the given instance.
+     * 
+     * @param former
+     *            stored features to copy from, must not be <code>null</code>
+     */
+    StoredFeatures( StoredFeatures former ) {
+        this.schema = former.schema;
+        this.storageCRS = former.storageCRS;
+        this.ftToIndexedProps = former.ftToIndexedProps;
+        for ( Map.Entry<FeatureType, StoredTypeFeatures> entry : former.ftToFeatures.entrySet() ) {
+            ftToFeatures.put( entry.getKey(), new StoredTypeFeatures( entry.getValue() ) );
         }
+        idToObject = former.idToObject;
+        idToObjectDelta.putAll( former.idToObjectDelta );
     }
 
     /**
@@ -135,10 +155,11 @@ class StoredFeatures {
      * 
      * @param ft
      *            feature type, must not be <code>null</code>
-     * @return stored features of the given type, never <code>null</code>
+     * @return stored features of the given type (new collection), can be <code>null</code> (type not stored)
      */
     FeatureCollection getFeatures( FeatureType ft ) {
-        return ftToFeatures.get( ft );
+        StoredTypeFeatures features = ftToFeatures.get( ft );
+        return features != null ? features.getFeatures() : null;
     }
 
     /**
@@ -168,11 +189,17 @@ class StoredFeatures {
             }
 
             // determine / filter features
-            fc = ftToFeatures.get( ft );
+            StoredTypeFeatures features = ftToFeatures.get( ft );
 
             // perform index filtering
-            Envelope ftEnv = ftToFeatures.get( ft ).getEnvelope();
-            if ( query.getPrefilterBBoxEnvelope() != null && ftEnv != null && storageCRS != null ) {
+            List<Feature> candidates = null;
+            if ( query.getFilter() != null ) {
+                candidates = features.getCandidates( query.getFilter() );
+            }
+            if ( candidates != null ) {
+                fc = new GenericFeatureCollection( null, candidates );
+            } else if ( query.getPrefilterBBoxEnvelope() != null && storageCRS != null
+                        && features.getEnvelope() != null ) {
                 Envelope prefilterBox = query.getPrefilterBBoxEnvelope();
                 if ( prefilterBox.getCoordinateSystem() != null
                      && !prefilterBox.getCoordinateSystem().equals( storageCRS ) ) {
@@ -184,9 +211,10 @@ class StoredFeatures {
                     }
                 }
 
-                float[] floats = toFloats( prefilterBox );
-                RTree<Feature> index = ftToIndex.get( ft );
-                fc = new GenericFeatureCollection( null, index.query( floats ) );
+                float[] floats = StoredTypeFeatures.toFloats( prefilterBox );
+                fc = new GenericFeatureCollection( null, features.query( floats ) );
+            } else {
+                fc = features.getFeatures();
             }
 
             if ( query.getFilter() != null ) {
@@ -200,7 +228,7 @@ class StoredFeatures {
             }
             Set<Feature> features = new HashSet<Feature>();
             for ( ResourceId id : ( (IdFilter) query.getFilter() ).getSelectedIds() ) {
-                GMLObject object = idToObject.get( id.getRid() );
+                GMLObject object = getObjectById( id.getRid() );
                 if ( object != null && object instanceof Feature ) {
                     features.add( (Feature) object );
                 }
@@ -218,6 +246,9 @@ class StoredFeatures {
     }
 
     GMLObject getObjectById( String id ) {
+        if ( idToObjectDelta.containsKey( id ) ) {
+            return idToObjectDelta.get( id );
+        }
         return idToObject.get( id );
     }
 
@@ -229,64 +260,103 @@ class StoredFeatures {
      * @return envelope, can be <code>null</code>
      */
     Envelope getEnvelope( QName ftName ) {
-        return ftToFeatures.get( schema.getFeatureType( ftName ) ).getEnvelope();
+        FeatureType ft = schema.getFeatureType( ftName );
+        StoredTypeFeatures features = ft != null ? ftToFeatures.get( ft ) : null;
+        return features != null ? features.getEnvelope() : null;
     }
 
     /**
-     * Adds the given {@link Feature} instance and updates the index structures.
+     * Adds the given {@link Feature} instance and updates the spatial index and the id lookup table.
      * 
-     * @param features
+     * @param feature
      *            feature to be added, must not be <code>null</code> and must have an id (as well as every geometry)
      */
     void addFeature( Feature feature ) {
         FeatureType ft = feature.getType();
-        FeatureCollection fc = ftToFeatures.get( ft );
-        if ( fc == null ) {
-            fc = new GenericFeatureCollection();
-            ftToFeatures.put( ft, fc );
-        }
-        fc.add( feature );
-        idToObject.put( feature.getId(), feature );
-        if ( feature.getEnvelope() != null ) {
-            RTree<Feature> rTree = ftToIndex.get( ft );
-            float[] insertBox = toFloats( feature.getEnvelope() );
-            if ( rTree == null ) {
-                rTree = new RTree<Feature>( insertBox, 16 );
-            }
-            rTree.insert( insertBox, feature );
+        StoredTypeFeatures features = ftToFeatures.get( ft );
+        if ( features == null ) {
+            features = new StoredTypeFeatures();
+            ftToFeatures.put( ft, features );
         }
+        features.add( feature );
+        addIds( feature );
     }
 
     /**
-     * Removes the given {@link Feature} instance and updates the index structures.
+     * Removes the given {@link Feature} instance and updates the spatial index and the id lookup table.
      * 
      * @param feature
      *            feature to be removed, must not be <code>null</code>
      */
     void removeFeature( Feature feature ) {
-        idToObject.remove( feature.getId() );
-        FeatureType ft = feature.getType();
-        RTree<Feature> rTree = ftToIndex.get( ft );
-        if ( rTree != null ) {
-            rTree.remove( feature );
+        removeIds( feature );
+        StoredTypeFeatures features = ftToFeatures.get( feature.getType() );
+        if ( features != null ) {
+            features.remove( feature );
         }
-        FeatureCollection fc = ftToFeatures.get( ft );
-        if ( fc != null ) {
-            fc.remove( feature );
+    }
+
+    /**
+     * Updates the properties of the given (stored) {@link Feature} instance and updates the spatial index and the id
+     * lookup table.
+     * 
+     * @param feature
+     *            feature to be updated, must not be <code>null</code>
+     * @param replacementProps
+     *            properties to be replaced, must not be <code>null</code>
+     * @throws FeatureStoreException
+     */
+    void updateFeature( Feature feature, List<ParsedPropertyReplacement> replacementProps )
+                            throws FeatureStoreException {
+        removeIds( feature );
+        try {
+            new FeatureUpdater().update( feature, replacementProps );
+        } finally {
+            addIds( feature );
+            StoredTypeFeatures features = ftToFeatures.get( feature.getType() );
+            if ( features != null ) {
+                features.update( feature );
+            }
         }
     }
 
-    void rebuildIndexes()
-                            throws UnknownCRSException {
+    /**
+     * Prepares this working copy for publication. If the number of changes exceeds a threshold, the changes are merged
+     * into new shared structures (features, spatial and attribute indexes and id lookup table).
+     * 
+     * @throws FeatureStoreException
+     *             if the attribute indexes cannot be built
+     */
+    void commit()
+                            throws FeatureStoreException {
+        int deltaSize = idToObjectDelta.size();
+        int baseSize = idToObject.size();
+        for ( StoredTypeFeatures features : ftToFeatures.values() ) {
+            deltaSize += features.getDeltaSize();
+            baseSize += features.getBaseSize();
+        }
+        if ( deltaSize > MAX_DELTA_SIZE || deltaSize > baseSize ) {
+            rebuildIndexes();
+        } else {
+            LOG.debug( "Keeping {} changes as delta.", deltaSize );
+        }
+    }
 
+    private void rebuildIndexes()
+                            throws FeatureStoreException {
         long begin = System.currentTimeMillis();
-        rebuildFeatureCollectionEnvelopes();
+        for ( Map.Entry<FeatureType, StoredTypeFeatures> entry : ftToFeatures.entrySet() ) {
+            List<ValueReference> indexedProps = ftToIndexedProps.get( entry.getKey() );
+            if ( indexedProps == null ) {
+                indexedProps = Collections.emptyList();
+            }
+            try {
+                entry.setValue( entry.getValue().compact( indexedProps ) );
+            } catch ( FilterEvaluationException e ) {
+                throw new FeatureStoreException( "Unable to build attribute index: " + e.getMessage(), e );
+            }
+        }
         long elapsed = System.currentTimeMillis() - begin;
-        LOG.debug( "Recalculating bounding boxes took {} [ms]", elapsed );
-
-        begin = System.currentTimeMillis();
-        rebuildRtrees();
-        elapsed = System.currentTimeMillis() - begin;
         LOG.debug( "Building spatial indexes took {} [ms]", elapsed );
 
         begin = System.currentTimeMillis();
@@ -295,71 +365,76 @@ class StoredFeatures {
         LOG.debug( "Building id lookup table took {} [ms]", elapsed );
     }
 
-    private void rebuildFeatureCollectionEnvelopes() {
-        for ( FeatureCollection fc : ftToFeatures.values() ) {
-            fc.setEnvelope( fc.calcEnvelope() );
+    private void rebuildIdToObjectMap() {
+        idToObject = new HashMap<String, GMLObject>();
+        idToObjectDelta.clear();
+        GMLObjectVisitor visitor = new IdVisitor( idToObject, null );
+        for ( StoredTypeFeatures features : ftToFeatures.values() ) {
+            for ( Feature f : features.getFeatures() ) {
+                new GMLObjectWalker( visitor ).traverse( f );
+            }
         }
     }
 
-    private void rebuildRtrees() {
-        ftToIndex.clear();
-        for ( FeatureType ft : ftToFeatures.keySet() ) {
-            FeatureCollection fc = ftToFeatures.get( ft );
-            Envelope env = fc.getEnvelope();
-            if ( env != null ) {
-                RTree<Feature> index = new RTree<Feature>( toFloats( env ), 16 );
-                List<Pair<float[], Feature>> fBboxes = new ArrayList<Pair<float[], Feature>>( fc.size() );
-                for ( Feature f : fc ) {
-                    Envelope fEnv = f.getEnvelope();
-                    if ( fEnv != null ) {
-                        float[] floats = toFloats( fEnv );
-                        fBboxes.add( new Pair<float[], Feature>( floats, f ) );
-                    }
-                }
-                index.insertBulk( fBboxes );
-                ftToIndex.put( ft, index );
-            }
-        }
+    private void addIds( Feature feature ) {
+        new GMLObjectWalker( new IdVisitor( idToObjectDelta, null ) ).traverse( feature );
     }
 
-    private void rebuildIdToObjectMap() {
-        idToObject.clear();
-        GMLObjectVisitor visitor = new GMLObjectVisitor() {
-            @Override
-            public boolean visitGeometry( Geometry geom ) {
-                idToObject.put( geom.getId(), geom );
-                return true;
+    private void removeIds( Feature feature ) {
+        // nested features are stored on their own, so only the ids of the feature itself and its geometries are removed
+        new GMLObjectWalker( new IdVisitor( idToObjectDelta, feature ) ).traverse( feature );
+    }
+
+    /**
+     * Registers the ids of visited geometries and features (or marks them as removed).
+     */
+    private static class IdVisitor implements GMLObjectVisitor {
+
+        private final Map<String, GMLObject> idToObject;
+
+        private final Feature removedFeature;
+
+        IdVisitor( Map<String, GMLObject> idToObject, Feature removedFeature ) {
+            this.idToObject = idToObject;
+            this.removedFeature = removedFeature;
+        }
+
+        @Override
+        public boolean visitGeometry( Geometry geom ) {
+            if ( geom.getId() != null ) {
+                idToObject.put( geom.getId(), removedFeature != null ? null : geom );
             }
+            return true;
+        }
 
-            @Override
-            public boolean visitFeature( Feature feature ) {
-                if ( feature instanceof Reference<?> ) {
+        @Override
+        public boolean visitFeature( Feature feature ) {
+            if ( feature instanceof Reference<?> ) {
+                return false;
+            }
+            if ( removedFeature != null ) {
+                if ( feature != removedFeature ) {
                     return false;
                 }
-                idToObject.put( feature.getId(), feature );
-                return true;
-            }
-
-            @Override
-            public boolean visitObject( GMLObject o ) {
+                if ( feature.getId() != null ) {
+                    idToObject.put( feature.getId(), null );
+                }
                 return true;
             }
-
-            @Override
-            public boolean visitReference( Reference<?> ref ) {
-                return false;
+            if ( feature.getId() != null ) {
+                idToObject.put( feature.getId(), feature );
             }
-        };
+            return true;
+        }
 
-        for ( FeatureCollection fc : ftToFeatures.values() ) {
-            for ( Feature f : fc ) {
-                new GMLObjectWalker( visitor ).traverse( f );
-            }
+        @Override
+        public boolean visitObject( GMLObject o ) {
+            return true;
         }
-    }
 
-    private float[] toFloats( Envelope env ) {
-        return new float[] { (float) env.getMin().get0(), (float) env.getMin().get1(), (float) env.getMax().get0(),
-                            (float) env.getMax().get1() };
+        @Override
+        public boolean visitReference( Reference<?> ref ) {
+            return false;
+        }
     }
 }
@@ -0,0 +1,426 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.memory;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.deegree.commons.index.StaticRTree;
+import org.deegree.commons.utils.Pair;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.Filter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.index.AttributeIndex;
+import org.deegree.geometry.Envelope;
+
+/**
+ * Stored features of a single feature type, organized as a shared (immutable) base plus a small delta.
+ * <p>
+ * The base list and its spatial index are never modified once they have been built, so they can be shared between all
+ * versions of the store. The same applies to the (optional) attribute index of the base. Every version only owns its
+ * delta (added, removed and modified features), which is copied when a new working copy is created.
+ * {@link #compact(List)} merges the delta into a new base.
+ * </p>
+ * 
+ * @see StoredFeatures
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class StoredTypeFeatures {
+
+    private final List<Feature> base;
+
+    private final StaticRTree<Feature> baseIndex;
+
+    private final AttributeIndex<Feature> baseAttributeIndex;
+
+    // features of the base that have been removed
+    private final Set<Feature> removed;
+
+    // features of the base whose geometries have been modified (the base index is outdated for these)
+    private final Set<Feature> modified;
+
+    // features that have been added since the base has been built
+    private final Set<Feature> added;
+
+    private Envelope envelope;
+
+    private boolean envelopeValid;
+
+    /**
+     * Creates a new empty {@link StoredTypeFeatures} instance.
+     */
+    StoredTypeFeatures() {
+        this.base = Collections.emptyList();
+        this.baseIndex = null;
+        this.baseAttributeIndex = null;
+        this.removed = newIdentitySet();
+        this.modified = newIdentitySet();
+        this.added = new LinkedHashSet<Feature>();
+    }
+
+    private StoredTypeFeatures( List<Feature> base, List<ValueReference> indexedProps )
+                            throws FilterEvaluationException {
+        this.base = base;
+        this.baseIndex = buildIndex( base );
+        this.baseAttributeIndex = buildAttributeIndex( base, indexedProps );
+        this.removed = newIdentitySet();
+        this.modified = newIdentitySet();
+        this.added = new LinkedHashSet<Feature>();
+    }
+
+    /**
+     * Creates a new {@link StoredTypeFeatures} instance that shares the base of the given instance and copies its delta.
+     * 
+     * @param former
+     *            instance to copy from, must not be <code>null</code>
+     */
+    StoredTypeFeatures( StoredTypeFeatures former ) {
+        this.base = former.base;
+        this.baseIndex = former.baseIndex;
+        this.baseAttributeIndex = former.baseAttributeIndex;
+        this.removed = newIdentitySet();
+        this.removed.addAll( former.removed );
+        this.modified = newIdentitySet();
+        this.modified.addAll( former.modified );
+        this.added = new LinkedHashSet<Feature>( former.added );
+        synchronized ( former ) {
+            this.envelope = former.envelope;
+            this.envelopeValid = former.envelopeValid;
+        }
+    }
+
+    /**
+     * Returns a new instance whose base contains all features of this instance and that has an empty delta.
+     * 
+     * @param indexedProps
+     *            properties to build attribute indexes for, must not be <code>null</code>
+     * @return compacted instance, never <code>null</code>
+     * @throws FilterEvaluationException
+     *             if the values of an indexed property cannot be determined
+     */
+    StoredTypeFeatures compact( List<ValueReference> indexedProps )
+                            throws FilterEvaluationException {
+        StoredTypeFeatures compacted = new StoredTypeFeatures( getFeatureList(), indexedProps );
+        synchronized ( this ) {
+            compacted.envelope = envelope;
+            compacted.envelopeValid = envelopeValid;
+        }
+        return compacted;
+    }
+
+    /**
+     * Returns the number of changes that have been performed since the base has been built.
+     * 
+     * @return number of changes
+     */
+    int getDeltaSize() {
+        return removed.size() + modified.size() + added.size();
+    }
+
+    /**
+     * Returns the number of features in the base.
+     * 
+     * @return number of features in the base
+     */
+    int getBaseSize() {
+        return base.size();
+    }
+
+    void add( Feature feature ) {
+        if ( removed.remove( feature ) ) {
+            modified.add( feature );
+        } else if ( !added.add( feature ) ) {
+            return;
+        }
+        synchronized ( this ) {
+            if ( envelopeValid ) {
+                Envelope featureEnv = feature.getEnvelope();
+                if ( featureEnv != null ) {
+                    envelope = envelope == null ? featureEnv : envelope.merge( featureEnv );
+                }
+            }
+        }
+    }
+
+    void remove( Feature feature ) {
+        if ( !added.remove( feature ) ) {
+            modified.remove( feature );
+            removed.add( feature );
+        }
+        invalidateEnvelope();
+    }
+
+    /**
+     * Notifies this instance that the geometries of the given (stored) feature have been modified.
+     * 
+     * @param feature
+     *            modified feature, must not be <code>null</code>
+     */
+    void update( Feature feature ) {
+        if ( !added.contains( feature ) && !removed.contains( feature ) ) {
+            modified.add( feature );
+        }
+        invalidateEnvelope();
+    }
+
+    /**
+     * Returns a read-only view of the stored features.
+     * <p>
+     * The features are not copied: if the delta does not contain added or removed features, the view is backed by the
+     * base directly, otherwise it merges the base and the delta on iteration. The view reflects later changes to this
+     * instance, so it must not be iterated while the instance is being modified.
+     * </p>
+     * 
+     * @return read-only view of the stored features, never <code>null</code>
+     */
+    FeatureCollection getFeatures() {
+        Collection<Feature> members = base;
+        if ( !removed.isEmpty() || !added.isEmpty() ) {
+            members = new MergedFeatures();
+        }
+        FeatureCollection fc = new StoredFeatureCollection( members );
+        fc.setEnvelope( getEnvelope() );
+        return fc;
+    }
+
+    /**
+     * Returns the stored features with bounding boxes that intersect the given bounding box.
+     * 
+     * @param bbox
+     *            bounding box (minx, miny, maxx, maxy), must not be <code>null</code>
+     * @return matching features, never <code>null</code>
+     */
+    List<Feature> query( float[] bbox ) {
+        List<Feature> features = new ArrayList<Feature>();
+        if ( baseIndex != null ) {
+            for ( Feature f : baseIndex.query( bbox ) ) {
+                if ( !removed.contains( f ) && !modified.contains( f ) ) {
+                    features.add( f );
+                }
+            }
+        }
+        addIntersecting( modified, bbox, features );
+        addIntersecting( added, bbox, features );
+        return features;
+    }
+
+    /**
+     * Returns the stored features that may match the given filter, determined using the attribute index.
+     * 
+     * @param filter
+     *            filter, must not be <code>null</code>
+     * @return candidates (the filter still has to be evaluated), <code>null</code> if the attribute index cannot be
+     *         used for the filter
+     * @throws FilterEvaluationException
+     */
+    List<Feature> getCandidates( Filter filter )
+                            throws FilterEvaluationException {
+        if ( baseAttributeIndex == null ) {
+            return null;
+        }
+        List<Feature> baseCandidates = baseAttributeIndex.getCandidates( filter );
+        if ( baseCandidates == null ) {
+            return null;
+        }
+        List<Feature> candidates = new ArrayList<Feature>( baseCandidates.size() + modified.size() + added.size() );
+        for ( Feature f : baseCandidates ) {
+            if ( !removed.contains( f ) && !modified.contains( f ) ) {
+                candidates.add( f );
+            }
+        }
+        // the attribute index is outdated for modified features
+        candidates.addAll( modified );
+        candidates.addAll( added );
+        return candidates;
+    }
+
+    /**
+     * Returns the envelope of the stored features.
+     * 
+     * @return envelope of the stored features, can be <code>null</code>
+     */
+    synchronized Envelope getEnvelope() {
+        if ( !envelopeValid ) {
+            envelope = new StoredFeatureCollection( new MergedFeatures() ).calcEnvelope();
+            envelopeValid = true;
+        }
+        return envelope;
+    }
+
+    private synchronized void invalidateEnvelope() {
+        envelope = null;
+        envelopeValid = false;
+    }
+
+    private List<Feature> getFeatureList() {
+        List<Feature> features = new ArrayList<Feature>( base.size() - removed.size() + added.size() );
+        if ( removed.isEmpty() ) {
+            features.addAll( base );
+        } else {
+            for ( Feature f : base ) {
+                if ( !removed.contains( f ) ) {
+                    features.add( f );
+                }
+            }
+        }
+        features.addAll( added );
+        return features;
+    }
+
+    /**
+     * Read-only view of the base (without the removed features) followed by the added features.
+     */
+    private class MergedFeatures extends AbstractCollection<Feature> {
+
+        @Override
+        public Iterator<Feature> iterator() {
+            return new Iterator<Feature>() {
+
+                private final Iterator<Feature> baseIter = base.iterator();
+
+                private final Iterator<Feature> addedIter = added.iterator();
+
+                private Feature next = advance();
+
+                private Feature advance() {
+                    while ( baseIter.hasNext() ) {
+                        Feature f = baseIter.next();
+                        if ( !removed.contains( f ) ) {
+                            return f;
+                        }
+                    }
+                    return addedIter.hasNext() ? addedIter.next() : null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Feature next() {
+                    if ( next == null ) {
+                        throw new NoSuchElementException();
+                    }
+                    Feature f = next;
+                    next = advance();
+                    return f;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return base.size() - removed.size() + added.size();
+        }
+
+        @Override
+        public boolean contains( Object o ) {
+            return added.contains( o ) || ( !removed.contains( o ) && base.contains( o ) );
+        }
+    }
+
+    private static void addIntersecting( Set<Feature> candidates, float[] bbox, List<Feature> features ) {
+        for ( Feature f : candidates ) {
+            Envelope env = f.getEnvelope();
+            if ( env != null ) {
+                float[] fBbox = toFloats( env );
+                if ( fBbox[0] <= bbox[2] && fBbox[2] >= bbox[0] && fBbox[1] <= bbox[3] && fBbox[3] >= bbox[1] ) {
+                    features.add( f );
+                }
+            }
+        }
+    }
+
+    private static StaticRTree<Feature> buildIndex( List<Feature> features ) {
+        List<Pair<float[], Feature>> fBboxes = new ArrayList<Pair<float[], Feature>>( features.size() );
+        for ( Feature f : features ) {
+            Envelope fEnv = f.getEnvelope();
+            if ( fEnv != null ) {
+                fBboxes.add( new Pair<float[], Feature>( toFloats( fEnv ), f ) );
+            }
+        }
+        if ( fBboxes.isEmpty() ) {
+            return null;
+        }
+        StaticRTree<Feature> index = new StaticRTree<Feature>();
+        index.insertBulk( fBboxes );
+        return index;
+    }
+
+    private static AttributeIndex<Feature> buildAttributeIndex( List<Feature> features,
+                                                                List<ValueReference> indexedProps )
+                            throws FilterEvaluationException {
+        if ( indexedProps.isEmpty() ) {
+            return null;
+        }
+        AttributeIndex<Feature> index = new AttributeIndex<Feature>( new TypedObjectNodeXPathEvaluator() );
+        for ( ValueReference propName : indexedProps ) {
+            index.addValueIndex( propName );
+        }
+        for ( Feature f : features ) {
+            index.add( f );
+        }
+        return index;
+    }
+
+    static float[] toFloats( Envelope env ) {
+        return new float[] { (float) env.getMin().get0(), (float) env.getMin().get1(), (float) env.getMax().get0(),
+                            (float) env.getMax().get1() };
+    }
+
+    private static Set<Feature> newIdentitySet() {
+        return Collections.newSetFromMap( new IdentityHashMap<Feature, Boolean>() );
+    }
+}
@@ -187,6 +187,26 @@ public class MemoryFeatureStoreTest {
         Assert.assertEquals( 2, fc.size() );
     }
 
+    @Test
+    public void testDeleteIsIsolatedUntilCommit()
+                            throws FilterEvaluationException, FeatureStoreException {
+        TypeName[] typeNames = new TypeName[] { new TypeName(
+                                                              QName.valueOf( "{http://www.deegree.org/app}Philosopher" ),
+                                                              null ) };
+        Query query = new Query( typeNames, null, null, null, null );
+
+        FeatureStoreTransaction ta = store.acquireTransaction();
+        Assert.assertEquals( 1, ta.performDelete( new IdFilter( "PHILOSOPHER_1" ), null ) );
+        Assert.assertEquals( 7, store.query( query ).toCollection().size() );
+        Assert.assertNotNull( store.getObjectById( "PHILOSOPHER_1" ) );
+        ta.commit();
+
+        Assert.assertEquals( 6, store.query( query ).toCollection().size() );
+        Assert.assertNull( store.getObjectById( "PHILOSOPHER_1" ) );
+        Assert.assertNotNull( store.getObjectById( "PHILOSOPHER_2" ) );
+        Assert.assertNotNull( store.getObjectById( "MULTIPOLYGON_1" ) );
+    }
+
     @Test
     public void testGetObjectByIdFeature() {
         Object o = store.getObjectById( "PHILOSOPHER_7" );
@@ -45,20 +45,21 @@ import static org.deegree.feature.types.property.GeometryPropertyType.GeometryTy
 import static org.deegree.geometry.utils.GeometryUtils.createEnvelope;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.deegree.commons.index.PackedRTree;
 import org.deegree.commons.index.SpatialIndex;
 import org.deegree.commons.utils.Pair;
+import org.deegree.commons.utils.nio.MappedFile;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.feature.types.property.GeometryPropertyType.GeometryType;
 import org.deegree.geometry.Envelope;
@@ -215,27 +216,21 @@ public class SHPReader {
 
     private boolean recordNumStartsWith0 = false;
 
-    private RandomAccessFile file;
-
-    private FileChannel channel;
-
-    // buffer is not thread-safe (needs to be duplicated for every thread)
-    private final ByteBuffer sharedBuffer;
+    // files > 2 GB are mapped in segments, every record is accessed through its own (thread-local) view
+    private final MappedFile file;
 
     /**
      * @param inFile
      * @param crs
      * @param rtree
+     *            index of the record positions, if it is {@link Closeable}, it will be closed by {@link #close()}
      * @param startsWithZero
      * @throws IOException
      */
     public SHPReader( RandomAccessFile inFile, ICRS crs, SpatialIndex<Long> rtree, boolean startsWithZero )
                             throws IOException {
-        file = inFile;
-        channel = file.getChannel();
-        sharedBuffer = channel.map( MapMode.READ_ONLY, 0, file.length() );
-        ByteBuffer buffer = sharedBuffer.asReadOnlyBuffer();
-        buffer.order( ByteOrder.BIG_ENDIAN );
+        file = new MappedFile( inFile );
+        ByteBuffer buffer = file.getBuffer( 0, 100 );
         this.crs = crs;
         this.rtree = rtree;
         this.recordNumStartsWith0 = startsWithZero;
@@ -360,14 +355,11 @@ public class SHPReader {
 
         LOG.debug( "Querying shp with bbox {}", bbox );
 
-        ByteBuffer buffer = sharedBuffer.asReadOnlyBuffer();
-        buffer.order( ByteOrder.LITTLE_ENDIAN );
         List<Long> pointers = (List<Long>) rtree.query( createEnvelope( bbox ) );
         List<Pair<Integer, Long>> recNums = new ArrayList<Pair<Integer, Long>>( pointers.size() );
         Collections.sort( pointers );
         for ( Long ptr : pointers ) {
-            buffer.position( (int) ( ptr - 8 ) );
-            int num = getBEInt( buffer );
+            int num = getBuffer( ptr - 8, 4 ).getInt();
             if ( num == 0 && !recordNumStartsWith0 && rtree != null ) {
                 LOG.error( "PLEASE NOTE THIS: Detected that the shape file starts counting record numbers at 0 and not at 1 as specified!" );
                 LOG.error( "PLEASE NOTE THIS: This should not happen any more, and is a bug! Please report this along with the data!" );
@@ -397,15 +389,13 @@ public class SHPReader {
     public LinkedList<Pair<Integer, Geometry>> query( Envelope bbox, boolean withGeometry, boolean exact ) {
 
         LOG.debug( "Querying shp with bbox {}", bbox );
-        ByteBuffer buffer = sharedBuffer.asReadOnlyBuffer();
-        buffer.order( ByteOrder.LITTLE_ENDIAN );
 
         LinkedList<Pair<Integer, Geometry>> list = new LinkedList<Pair<Integer, Geometry>>();
 
         List<Long> pointers = (List<Long>) rtree.query( createEnvelope( bbox ) );
         Collections.sort( pointers );
         for ( Long ptr : pointers ) {
-            buffer.position( (int) ( ptr - 8 ) );
+            ByteBuffer buffer = getRecord( ptr );
 
             int num = getBEInt( buffer );
             if ( num == 0 && !recordNumStartsWith0 ) {
@@ -512,52 +502,68 @@ public class SHPReader {
      * @return a list of all envelopes (minx, miny, maxx, maxy)
      */
     public Pair<ArrayList<Pair<float[], Long>>, Boolean> readEnvelopes() {
-        ByteBuffer buffer = sharedBuffer.asReadOnlyBuffer();
-        buffer.order( ByteOrder.LITTLE_ENDIAN );
         ArrayList<Pair<float[], Long>> list = new ArrayList<Pair<float[], Long>>();
-        boolean startsFromZero = false;
+        boolean startsFromZero = readEnvelopes( list, null );
+        return new Pair<ArrayList<Pair<float[], Long>>, Boolean>( list, startsFromZero );
+    }
 
-        buffer.position( 100 );
+    /**
+     * Adds the envelopes of all records (with double precision) to the given builder. Records without geometry are
+     * added as unbounded entries, so they are returned by every query (as for {@link #readEnvelopes()}).
+     * 
+     * @param builder
+     *            must not be <code>null</code>
+     * @return true, if the record numbers start with zero
+     */
+    public boolean readEnvelopes( PackedRTree.Builder builder ) {
+        return readEnvelopes( null, builder );
+    }
+
+    private boolean readEnvelopes( List<Pair<float[], Long>> list, PackedRTree.Builder builder ) {
+        boolean startsFromZero = false;
 
-        while ( buffer.position() + 1 < buffer.capacity() ) {
-            int recNum = getBEInt( buffer );
+        long size = file.size();
+        long recordPos = 100;
+        while ( recordPos + 8 <= size ) {
+            ByteBuffer header = getBuffer( recordPos, 8 );
+            int recNum = header.getInt();
             if ( !startsFromZero ) {
                 startsFromZero = recNum == 0;
             }
-            int length = getBEInt( buffer ) * 2; // bah, 16 bit length units here as well!
-            long pos = buffer.position();
-            int type = buffer.getInt();
-            switch ( type ) {
-            case NULL:
-                list.add( new Pair<float[], Long>( null, pos ) );
-                break;
-            case POINT: {
-                double x = buffer.getDouble();
-                double y = buffer.getDouble();
-                Pair<float[], Long> p = new Pair<float[], Long>( new float[] { (float) x, (float) y, (float) x,
-                                                                              (float) y }, pos );
-                list.add( p );
-                break;
-            }
-            default: {
-                Pair<float[], Long> p = new Pair<float[], Long>( new float[] { (float) buffer.getDouble(),
-                                                                              (float) buffer.getDouble(),
-                                                                              (float) buffer.getDouble(),
-                                                                              (float) buffer.getDouble() }, pos );
-                list.add( p );
+            int length = header.getInt() * 2; // bah, 16 bit length units here as well!
+            long pos = recordPos + 8;
+            // ignore truncated records, this seems to happen with some broken shape files
+            ByteBuffer buffer = getBuffer( pos, (int) Math.min( 36, size - pos ) );
+            buffer.order( ByteOrder.LITTLE_ENDIAN );
+            if ( buffer.remaining() < 4 ) {
                 break;
             }
+            int type = buffer.getInt();
+            if ( type == NULL ) {
+                if ( list != null ) {
+                    list.add( new Pair<float[], Long>( null, pos ) );
+                } else {
+                    builder.addUnbounded( pos );
+                }
+            } else {
+                if ( buffer.remaining() < ( type == POINT ? 16 : 32 ) ) {
+                    break;
+                }
+                double minx = buffer.getDouble();
+                double miny = buffer.getDouble();
+                double maxx = type == POINT ? minx : buffer.getDouble();
+                double maxy = type == POINT ? miny : buffer.getDouble();
+                if ( list != null ) {
+                    list.add( new Pair<float[], Long>( new float[] { (float) minx, (float) miny, (float) maxx,
+                                                                    (float) maxy }, pos ) );
+                } else {
+                    builder.add( minx, miny, maxx, maxy, pos );
+                }
             }
-
-            try {
-                buffer.position( (int) ( pos + length ) );
-            } catch ( IllegalArgumentException e ) {
-                // ignore it, this seems to happen with some broken shape files
-                return new Pair<ArrayList<Pair<float[], Long>>, Boolean>( list, startsFromZero );
-            }
+            recordPos = pos + length;
         }
 
-        return new Pair<ArrayList<Pair<float[], Long>>, Boolean>( list, startsFromZero );
+        return startsFromZero;
     }
 
     /**
@@ -570,10 +576,8 @@ public class SHPReader {
     public Geometry readGeometry( long ptr ) {
 
         LOG.trace( "Retrieving geometry at position {}", ptr );
-        ByteBuffer buffer = sharedBuffer.asReadOnlyBuffer();
-        buffer.order( ByteOrder.LITTLE_ENDIAN );
-
-        buffer.position( (int) ( ptr - 4 ) );
+        ByteBuffer buffer = getRecord( ptr );
+        buffer.position( 4 );
 
         int length = getBEInt( buffer ) * 2; // bah, 16 bit length units here as well!
         int type = buffer.getInt();
@@ -665,6 +669,25 @@ public class SHPReader {
         }
     }
 
+    /**
+     * Returns a little endian view of the record whose content starts at the given position. The view starts at the
+     * record header.
+     */
+    private ByteBuffer getRecord( long ptr ) {
+        int length = getBuffer( ptr - 4, 4 ).getInt() * 2;
+        ByteBuffer buffer = getBuffer( ptr - 8, (int) Math.min( 8L + length, file.size() - ptr + 8 ) );
+        buffer.order( ByteOrder.LITTLE_ENDIAN );
+        return buffer;
+    }
+
+    private ByteBuffer getBuffer( long pos, int length ) {
+        try {
+            return file.getBuffer( pos, length );
+        } catch ( IOException e ) {
+            throw new IllegalStateException( "Could not map shape file range: " + e.getLocalizedMessage(), e );
+        }
+    }
+
     private final static int getBEInt( ByteBuffer buffer ) {
         buffer.order( BIG_ENDIAN );
         int result = buffer.getInt();
@@ -1190,13 +1213,15 @@ public class SHPReader {
     }
 
     /**
-     * Closes the underlying file channel and random access file.
+     * Closes the underlying file channel and random access file (and the index, if it is {@link Closeable}).
      * 
      * @throws IOException
      */
     public void close()
                             throws IOException {
-        channel.close();
         file.close();
+        if ( rtree instanceof Closeable ) {
+            ( (Closeable) rtree ).close();
+        }
     }
 }
@@ -62,6 +62,7 @@ import javax.xml.namespace.QName;
 
 import org.apache.commons.io.IOUtils;
 import org.deegree.commons.annotations.LoggingNotes;
+import org.deegree.commons.index.PackedRTree;
 import org.deegree.commons.index.RTree;
 import org.deegree.commons.tom.gml.GMLObject;
 import org.deegree.commons.tom.gml.property.Property;
@@ -155,6 +156,8 @@ public class ShapeFeatureStore implements FeatureStore {
 
     private boolean generateAlphanumericIndexes;
 
+    private final boolean packedSpatialIndex;
+
     private String fidPrefix;
 
     private final List<Mapping> mappings;
@@ -185,6 +188,39 @@ public class ShapeFeatureStore implements FeatureStore {
     public ShapeFeatureStore( String shpName, ICRS crs, Charset encoding, String ftNamespace, String localFtName,
                               String ftPrefix, boolean generateAlphanumericIndexes, FeatureStoreCache cache,
                               List<Mapping> mappings, ResourceMetadata<FeatureStore> metadata ) {
+        this( shpName, crs, encoding, ftNamespace, localFtName, ftPrefix, generateAlphanumericIndexes, cache,
+              mappings, metadata, false );
+    }
+
+    /**
+     * Creates a new {@link ShapeFeatureStore} instance from the given parameters.
+     * 
+     * @param shpName
+     *            name of the shape file to be loaded, may omit the ".shp" extension, must not be <code>null</code
+     * @param crs
+     *            crs used by the shape file, must not be <code>null</code>
+     * @param encoding
+     *            encoding used in the dbf file, can be <code>null</code> (encoding guess mode)
+     * @param ftNamespace
+     *            namespace to be used for the feature type, must not be <code>null</code>
+     * @param localFtName
+     *            if null, the shape file base name will be used
+     * @param ftPrefix
+     * @param generateAlphanumericIndexes
+     *            whether to copy the dbf into a h2 database for indexing
+     * @param cache
+     *            used for caching retrieved feature instances, can be <code>null</code> (will create a default cache)
+     * @param mappings
+     *            may be null, in which case the original DBF names and 'geometry' will be used
+     * @param packedSpatialIndex
+     *            whether to use a memory mapped {@link PackedRTree} (.prt file) instead of a heap based {@link RTree}
+     *            (.rti file)
+     */
+    public ShapeFeatureStore( String shpName, ICRS crs, Charset encoding, String ftNamespace, String localFtName,
+                              String ftPrefix, boolean generateAlphanumericIndexes, FeatureStoreCache cache,
+                              List<Mapping> mappings, ResourceMetadata<FeatureStore> metadata,
+                              boolean packedSpatialIndex ) {
+        this.packedSpatialIndex = packedSpatialIndex;
         this.shpName = shpName;
         this.crs = crs;
         this.encoding = encoding;
@@ -247,6 +283,10 @@ public class ShapeFeatureStore implements FeatureStore {
 
         shp = null;
 
+        if ( packedSpatialIndex ) {
+            return getPackedSHP( forceIndexRebuild );
+        }
+
         File rtfile = new File( shpName + ".rti" );
         RandomAccessFile raf = new RandomAccessFile( shpFile, "r" );
 
@@ -275,6 +315,32 @@ public class ShapeFeatureStore implements FeatureStore {
         return shp;
     }
 
+    private SHPReader getPackedSHP( boolean forceIndexRebuild )
+                            throws IOException {
+        File indexFile = new File( shpName + ".prt" );
+        RandomAccessFile raf = new RandomAccessFile( shpFile, "r" );
+
+        if ( indexFile.exists() && !( indexFile.lastModified() < shpFile.lastModified() ) && !forceIndexRebuild ) {
+            try {
+                LOG.debug( "Mapping packed RTree from disk." );
+                PackedRTree rtree = PackedRTree.open( indexFile );
+                return new SHPReader( raf, crs, rtree, rtree.getExtraFlag() );
+            } catch ( IOException e ) {
+                LOG.debug( "Stack trace:", e );
+                LOG.warn( "Existing packed rtree index could not be read. Generating a new one..." );
+            }
+        }
+
+        LOG.debug( "Building packed rtree index for '{}'", new File( shpName ).getName() );
+        SHPReader reader = new SHPReader( raf, crs, null, false );
+        PackedRTree.Builder builder = new PackedRTree.Builder();
+        boolean startsWithZero = reader.readEnvelopes( builder );
+        builder.write( indexFile, startsWithZero );
+        LOG.debug( "done building index." );
+        PackedRTree rtree = PackedRTree.open( indexFile );
+        return new SHPReader( raf, crs, rtree, startsWithZero );
+    }
+
     /**
      * @param shapeReader
      */
@@ -129,10 +129,11 @@ public class ShapeFeatureStoreBuilder implements ResourceBuilder<FeatureStore> {
         }
 
         Boolean genIdx = config.isGenerateAlphanumericIndexes();
+        Boolean packedIdx = config.isPackedSpatialIndex();
         return new ShapeFeatureStore( shapeFileName, crs, cs, config.getFeatureTypeNamespace(),
                                       config.getFeatureTypeName(), config.getFeatureTypePrefix(), genIdx == null
                                                                                                   || genIdx, null,
-                                      mappings, metadata );
+                                      mappings, metadata, packedIdx != null && packedIdx );
     }
 
 }
@@ -38,6 +38,7 @@ package org.deegree.feature.persistence.sql;
 import static org.deegree.commons.xml.CommonNamespaces.OGCNS;
 import static org.deegree.commons.xml.CommonNamespaces.XLNNS;
 import static org.deegree.commons.xml.CommonNamespaces.XSINS;
+import static org.deegree.feature.persistence.query.Query.QueryHint.HINT_TIMEOUT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.lang.reflect.Constructor;
@@ -48,9 +49,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -58,6 +61,7 @@ import java.util.NoSuchElementException;
 import javax.xml.namespace.QName;
 
 import org.deegree.commons.annotations.LoggingNotes;
+import org.deegree.commons.jdbc.DetachedRow;
 import org.deegree.commons.jdbc.ResultSetIterator;
 import org.deegree.commons.jdbc.SQLIdentifier;
 import org.deegree.commons.jdbc.TableName;
@@ -70,6 +74,7 @@ import org.deegree.commons.tom.primitive.PrimitiveType;
 import org.deegree.commons.tom.primitive.PrimitiveValue;
 import org.deegree.commons.tom.sql.ParticleConverter;
 import org.deegree.commons.tom.sql.SQLValueMangler;
+import org.deegree.commons.utils.CloseableIterator;
 import org.deegree.commons.utils.JDBCUtils;
 import org.deegree.commons.utils.Pair;
 import org.deegree.commons.utils.kvp.InvalidParameterValueException;
@@ -86,6 +91,7 @@ import org.deegree.feature.persistence.FeatureStoreManager;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
 import org.deegree.feature.persistence.cache.BBoxCache;
 import org.deegree.feature.persistence.cache.FeatureStoreCache;
+import org.deegree.feature.persistence.cache.ShardedFeatureStoreCache;
 import org.deegree.feature.persistence.cache.SimpleFeatureStoreCache;
 import org.deegree.feature.persistence.lock.DefaultLockManager;
 import org.deegree.feature.persistence.lock.LockManager;
@@ -195,6 +201,8 @@ public class SQLFeatureStore implements FeatureStore {
 
     private boolean nullEscalation;
 
+    private final boolean batchedJoinFetching;
+
     private final SqlFeatureStoreMetadata metadata;
 
     private final Workspace workspace;
@@ -226,12 +234,26 @@ public class SQLFeatureStore implements FeatureStore {
         readAutoCommit = config.getJDBCConnId().isReadAutoCommit() != null ? config.getJDBCConnId().isReadAutoCommit()
                                                                           : !dialect.requiresTransactionForCursorMode();
         LOG.debug( "Read auto commit: " + readAutoCommit );
+        batchedJoinFetching = config.isBatchedJoinFetching() != null && config.isBatchedJoinFetching();
+        LOG.debug( "Batched join fetching: " + batchedJoinFetching );
 
-        if ( config.getFeatureCache() != null ) {
-            cache = new SimpleFeatureStoreCache( DEFAULT_CACHE_SIZE );
-        } else {
-            cache = null;
+        cache = createCache( config.getFeatureCache() );
+    }
+
+    private FeatureStoreCache createCache( SQLFeatureStoreJAXB.FeatureCache cacheConfig ) {
+        if ( cacheConfig == null ) {
+            return null;
         }
+        int maxEntries = cacheConfig.getMaxEntries() != null ? cacheConfig.getMaxEntries().intValue()
+                                                             : DEFAULT_CACHE_SIZE;
+        if ( "sharded".equals( cacheConfig.getType() ) ) {
+            long ttl = cacheConfig.getTimeToLive() != null ? cacheConfig.getTimeToLive().longValue() * 1000 : 0;
+            int shards = cacheConfig.getShards() != null ? cacheConfig.getShards().intValue() : 0;
+            LOG.debug( "Feature cache: sharded, max entries: " + maxEntries + ", time to live: " + ttl + " ms" );
+            return new ShardedFeatureStoreCache( maxEntries, ttl, shards );
+        }
+        LOG.debug( "Feature cache: simple, max entries: " + maxEntries );
+        return new SimpleFeatureStoreCache( maxEntries );
     }
 
     private void initConverters() {
@@ -614,7 +636,9 @@ public class SQLFeatureStore implements FeatureStore {
 
     @Override
     public void destroy() {
-        // nothing to do
+        if ( cache instanceof ShardedFeatureStoreCache ) {
+            LOG.debug( "Feature cache statistics: " + cache );
+        }
     }
 
     @Override
@@ -729,6 +753,7 @@ public class SQLFeatureStore implements FeatureStore {
                 long begin = System.currentTimeMillis();
                 stmt = conn.prepareStatement( sql.toString() );
                 LOG.debug( "Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin );
+                applyQueryTimeout( stmt, query );
 
                 int i = 1;
                 if ( wb.getWhere() != null ) {
@@ -796,6 +821,7 @@ public class SQLFeatureStore implements FeatureStore {
             long begin = System.currentTimeMillis();
             stmt = conn.prepareStatement( sql.toString() );
             LOG.debug( "Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin );
+            applyQueryTimeout( stmt, query );
 
             int i = 1;
             stmt.setShort( i++, getSchema().getFtId( ftName ) );
@@ -822,6 +848,16 @@ public class SQLFeatureStore implements FeatureStore {
         return hits;
     }
 
+    private void applyQueryTimeout( Statement stmt, Query query )
+                            throws SQLException {
+        Object timeout = query.getHint( HINT_TIMEOUT );
+        if ( timeout instanceof Number && ( (Number) timeout ).longValue() > 0 ) {
+            // JDBC query timeouts are specified in seconds
+            long millis = ( (Number) timeout ).longValue();
+            stmt.setQueryTimeout( (int) Math.min( Integer.MAX_VALUE, ( millis + 999 ) / 1000 ) );
+        }
+    }
+
     @Override
     public int[] queryHits( Query[] queries )
                             throws FeatureStoreException, FilterEvaluationException {
@@ -1057,8 +1093,8 @@ public class SQLFeatureStore implements FeatureStore {
             conn = getConnection();
 
             String tableAlias = "X1";
-            FeatureBuilder builder = new FeatureBuilderRelational( this, ft, ftMapping, conn, tableAlias,
-                                                                   nullEscalation );
+            FeatureBuilderRelational builder = new FeatureBuilderRelational( this, ft, ftMapping, conn, tableAlias,
+                                                                             nullEscalation );
             List<String> columns = builder.getInitialSelectList();
             StringBuilder sql = new StringBuilder( "SELECT " );
             sql.append( columns.get( 0 ) );
@@ -1109,7 +1145,7 @@ public class SQLFeatureStore implements FeatureStore {
             begin = System.currentTimeMillis();
             rs = stmt.executeQuery();
             LOG.debug( "Executing SELECT took {} [ms] ", System.currentTimeMillis() - begin );
-            result = new IteratorFeatureInputStream( new FeatureResultSetIterator( builder, rs, conn, stmt ) );
+            result = new IteratorFeatureInputStream( getRelationalIterator( builder, rs, conn, stmt ) );
         } catch ( Exception e ) {
             release( rs, stmt, conn );
             String msg = "Error performing query by id filter (relational mode): " + e.getMessage();
@@ -1312,8 +1348,8 @@ public class SQLFeatureStore implements FeatureStore {
             LOG.debug( "WHERE clause: " + wb.getWhere() );
             LOG.debug( "ORDER BY clause: " + wb.getOrderBy() );
 
-            FeatureBuilder builder = new FeatureBuilderRelational( this, ft, ftMapping, conn, ftTableAlias,
-                                                                   nullEscalation );
+            FeatureBuilderRelational builder = new FeatureBuilderRelational( this, ft, ftMapping, conn,
+                                                                             ftTableAlias, nullEscalation );
             List<String> columns = builder.getInitialSelectList();
 
             BlobMapping blobMapping = getSchema().getBlobMapping();
@@ -1377,7 +1413,7 @@ public class SQLFeatureStore implements FeatureStore {
             rs = stmt.executeQuery();
             LOG.debug( "Executing SELECT took {} [ms] ", System.currentTimeMillis() - begin );
 
-            result = new IteratorFeatureInputStream( new FeatureResultSetIterator( builder, rs, conn, stmt ) );
+            result = new IteratorFeatureInputStream( getRelationalIterator( builder, rs, conn, stmt ) );
         } catch ( InvalidParameterValueException e ) {
             release( rs, stmt, conn );
             String msg = "Error performing query by operator filter: " + e.getMessage();
@@ -1511,6 +1547,14 @@ public class SQLFeatureStore implements FeatureStore {
         return dialect;
     }
 
+    private CloseableIterator<Feature> getRelationalIterator( FeatureBuilderRelational builder, ResultSet rs,
+                                                              Connection conn, Statement stmt ) {
+        if ( batchedJoinFetching ) {
+            return new BatchedFeatureResultSetIterator( builder, rs, conn, stmt );
+        }
+        return new FeatureResultSetIterator( builder, rs, conn, stmt );
+    }
+
     private class FeatureResultSetIterator extends ResultSetIterator<Feature> {
 
         private final FeatureBuilder builder;
@@ -1541,6 +1585,101 @@ public class SQLFeatureStore implements FeatureStore {
         }
     }
 
+    /**
+     * {@link CloseableIterator} that reads pages of rows (page size is the fetch size) and builds the features of each
+     * page using {@link FeatureBuilderRelational#buildFeatures(List)}, so joined tables are fetched once per page.
+     */
+    private class BatchedFeatureResultSetIterator implements CloseableIterator<Feature> {
+
+        private final FeatureBuilderRelational builder;
+
+        private final ResultSet rs;
+
+        private final Connection conn;
+
+        private final Statement stmt;
+
+        private String[] columnLabels;
+
+        private Iterator<Feature> page;
+
+        private boolean exhausted;
+
+        BatchedFeatureResultSetIterator( FeatureBuilderRelational builder, ResultSet rs, Connection conn,
+                                         Statement stmt ) {
+            this.builder = builder;
+            this.rs = rs;
+            this.conn = conn;
+            this.stmt = stmt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( page != null && page.hasNext() ) {
+                return true;
+            }
+            if ( exhausted ) {
+                return false;
+            }
+            try {
+                if ( columnLabels == null ) {
+                    columnLabels = DetachedRow.getColumnLabels( rs );
+                }
+                int pageSize = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+                List<ResultSet> rows = new ArrayList<ResultSet>( pageSize );
+                while ( rows.size() < pageSize ) {
+                    if ( !rs.next() ) {
+                        exhausted = true;
+                        break;
+                    }
+                    rows.add( DetachedRow.copyCurrentRow( rs, columnLabels ) );
+                }
+                if ( rows.isEmpty() ) {
+                    return false;
+                }
+                page = builder.buildFeatures( rows ).iterator();
+            } catch ( SQLException e ) {
+                // try to close everything
+                close();
+                // wrap as unchecked exception
+                throw new RuntimeException( e.getMessage(), e );
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Feature next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            release( rs, stmt, conn );
+        }
+
+        @Override
+        public List<Feature> getAsListAndClose() {
+            return (List<Feature>) getAsCollectionAndClose( new LinkedList<Feature>() );
+        }
+
+        @Override
+        public Collection<Feature> getAsCollectionAndClose( Collection<Feature> collection ) {
+            while ( hasNext() ) {
+                collection.add( next() );
+            }
+            close();
+            return collection;
+        }
+    }
+
     @Override
     public ResourceMetadata<? extends Resource> getMetadata() {
         return metadata;
@@ -44,6 +44,7 @@ import static org.jaxen.saxpath.Axis.CHILD;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -51,6 +52,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +68,7 @@ import org.apache.xerces.xs.XSAttributeUse;
 import org.apache.xerces.xs.XSComplexTypeDefinition;
 import org.apache.xerces.xs.XSElementDeclaration;
 import org.apache.xerces.xs.XSObjectList;
+import org.deegree.commons.jdbc.DetachedRow;
 import org.deegree.commons.jdbc.SQLIdentifier;
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.genericxml.GenericXMLElement;
@@ -128,6 +131,9 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
     private static final Logger LOG = LoggerFactory.getLogger( FeatureBuilderRelational.class );
 
+    // maximum number of join keys per batched SELECT (keeps IN lists within the limits of all supported DBMS)
+    private static final int MAX_KEYS_PER_BATCH = 500;
+
     private final SQLFeatureStore fs;
 
     private final FeatureType ft;
@@ -146,6 +152,12 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
     private final boolean nullEscalation;
 
+    // joined rows fetched in advance for the current page of features (keyed by mapping and join key)
+    private final Map<Mapping, Map<List<Object>, List<ResultSet>>> prefetchedRows = new IdentityHashMap<Mapping, Map<List<Object>, List<ResultSet>>>();
+
+    // column indexes of the joined rows fetched in advance (keyed by mapping)
+    private final Map<Mapping, LinkedHashMap<String, Integer>> prefetchedColumns = new IdentityHashMap<Mapping, LinkedHashMap<String, Integer>>();
+
     /**
      * Creates a new {@link FeatureBuilderRelational} instance.
      * 
@@ -258,13 +270,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
         Feature feature = null;
         try {
-            String gmlId = ftMapping.getFidMapping().getPrefix();
-            List<Pair<SQLIdentifier, BaseType>> fidColumns = ftMapping.getFidMapping().getColumns();
-            gmlId += rs.getObject( qualifiedSqlExprToRsIdx.get( tableAlias + "." + fidColumns.get( 0 ).first ) );
-            for ( int i = 1; i < fidColumns.size(); i++ ) {
-                gmlId += ftMapping.getFidMapping().getDelimiter()
-                         + rs.getObject( qualifiedSqlExprToRsIdx.get( tableAlias + "." + fidColumns.get( i ).first ) );
-            }
+            String gmlId = getGmlId( rs );
             if ( fs.getCache() != null ) {
                 feature = (Feature) fs.getCache().get( gmlId );
             }
@@ -298,6 +304,220 @@ public class FeatureBuilderRelational implements FeatureBuilder {
         return feature;
     }
 
+    /**
+     * Builds {@link Feature} instances from a page of (detached) rows, fetching the rows of joined tables for the whole
+     * page at once.
+     * <p>
+     * Instead of performing a subsequent SELECT for every joined table and every single feature (see
+     * {@link #buildFeature(ResultSet)}), a single SELECT (with an <code>IN</code> list of the join keys) is performed per
+     * joined table and page. This also applies to nested joins.
+     * </p>
+     * 
+     * @param rows
+     *            rows of the initial SELECT (see {@link #getInitialSelectList()}), each must be positioned on the row and
+     *            stay valid during the call (e.g. by using {@link DetachedRow}), must not be <code>null</code>
+     * @return created {@link Feature} instances (in the order of the rows), never <code>null</code>
+     * @throws SQLException
+     */
+    public List<Feature> buildFeatures( List<ResultSet> rows )
+                            throws SQLException {
+        List<Feature> features = new ArrayList<Feature>( rows.size() );
+        try {
+            List<ResultSet> uncachedRows = rows;
+            if ( fs.getCache() != null ) {
+                uncachedRows = new ArrayList<ResultSet>( rows.size() );
+                for ( ResultSet row : rows ) {
+                    if ( fs.getCache().get( getGmlId( row ) ) == null ) {
+                        uncachedRows.add( row );
+                    }
+                }
+            }
+            if ( !uncachedRows.isEmpty() ) {
+                long begin = System.currentTimeMillis();
+                prefetchJoinedRows( ftMapping.getMappings(), uncachedRows, qualifiedSqlExprToRsIdx );
+                LOG.debug( "Fetching joined rows for {} features took {} [ms]", uncachedRows.size(),
+                           System.currentTimeMillis() - begin );
+            }
+            for ( ResultSet row : rows ) {
+                features.add( buildFeature( row ) );
+            }
+        } finally {
+            prefetchedRows.clear();
+            prefetchedColumns.clear();
+        }
+        return features;
+    }
+
+    private String getGmlId( ResultSet rs )
+                            throws SQLException {
+        String gmlId = ftMapping.getFidMapping().getPrefix();
+        List<Pair<SQLIdentifier, BaseType>> fidColumns = ftMapping.getFidMapping().getColumns();
+        gmlId += rs.getObject( qualifiedSqlExprToRsIdx.get( tableAlias + "." + fidColumns.get( 0 ).first ) );
+        for ( int i = 1; i < fidColumns.size(); i++ ) {
+            gmlId += ftMapping.getFidMapping().getDelimiter()
+                     + rs.getObject( qualifiedSqlExprToRsIdx.get( tableAlias + "." + fidColumns.get( i ).first ) );
+        }
+        return gmlId;
+    }
+
+    private void prefetchJoinedRows( List<Mapping> mappings, List<ResultSet> parentRows,
+                                     LinkedHashMap<String, Integer> parentColToRsIdx )
+                            throws SQLException {
+        for ( Mapping mapping : mappings ) {
+            if ( !( mapping instanceof FeatureMapping ) && mapping.getJoinedTable() != null ) {
+                List<ResultSet> joinedRows = fetchJoinedRows( mapping.getJoinedTable().get( 0 ), mapping, parentRows,
+                                                              parentColToRsIdx );
+                if ( mapping instanceof CompoundMapping && !joinedRows.isEmpty() ) {
+                    prefetchJoinedRows( ( (CompoundMapping) mapping ).getParticles(), joinedRows,
+                                        prefetchedColumns.get( mapping ) );
+                }
+            } else if ( mapping instanceof CompoundMapping ) {
+                prefetchJoinedRows( ( (CompoundMapping) mapping ).getParticles(), parentRows, parentColToRsIdx );
+            }
+        }
+    }
+
+    private List<ResultSet> fetchJoinedRows( TableJoin jc, Mapping mapping, List<ResultSet> parentRows,
+                                             LinkedHashMap<String, Integer> parentColToRsIdx )
+                            throws SQLException {
+
+        LinkedHashMap<String, Integer> rsToIdx = getSubsequentSelectColumns( mapping );
+        for ( SQLIdentifier keyColumn : jc.getToColumns() ) {
+            addColumn( rsToIdx, tableAlias + "." + keyColumn );
+        }
+
+        // distinct join keys (normalized key -> values to bind)
+        Map<List<Object>, List<Object>> keys = new LinkedHashMap<List<Object>, List<Object>>();
+        for ( ResultSet parentRow : parentRows ) {
+            List<Object> key = getJoinKey( parentRow, jc.getFromColumns(), parentColToRsIdx );
+            if ( key != null ) {
+                List<Object> values = new ArrayList<Object>( jc.getFromColumns().size() );
+                for ( SQLIdentifier keyColumn : jc.getFromColumns() ) {
+                    values.add( parentRow.getObject( parentColToRsIdx.get( tableAlias + "." + keyColumn ) ) );
+                }
+                keys.put( key, values );
+            }
+        }
+
+        // every requested key is registered, so keys without joined rows can be told apart from keys that have not
+        // been prefetched (e.g. for rows that were in the cache when the page was prefetched)
+        Map<List<Object>, List<ResultSet>> keyToRows = new HashMap<List<Object>, List<ResultSet>>();
+        for ( List<Object> key : keys.keySet() ) {
+            keyToRows.put( key, new ArrayList<ResultSet>() );
+        }
+        List<ResultSet> joinedRows = new ArrayList<ResultSet>();
+        List<List<Object>> batch = new ArrayList<List<Object>>();
+        for ( List<Object> values : keys.values() ) {
+            batch.add( values );
+            if ( batch.size() == MAX_KEYS_PER_BATCH ) {
+                fetchJoinedRowsBatch( jc, rsToIdx, batch, keyToRows, joinedRows );
+                batch.clear();
+            }
+        }
+        if ( !batch.isEmpty() ) {
+            fetchJoinedRowsBatch( jc, rsToIdx, batch, keyToRows, joinedRows );
+        }
+        prefetchedRows.put( mapping, keyToRows );
+        prefetchedColumns.put( mapping, rsToIdx );
+        return joinedRows;
+    }
+
+    private void fetchJoinedRowsBatch( TableJoin jc, LinkedHashMap<String, Integer> rsToIdx, List<List<Object>> keys,
+                                       Map<List<Object>, List<ResultSet>> keyToRows, List<ResultSet> joinedRows )
+                            throws SQLException {
+
+        StringBuilder sql = new StringBuilder();
+        appendSelectFrom( sql, jc, rsToIdx );
+        sql.append( " WHERE " );
+        List<SQLIdentifier> keyColumns = jc.getToColumns();
+        if ( keyColumns.size() == 1 ) {
+            sql.append( keyColumns.get( 0 ) );
+            sql.append( " IN (" );
+            for ( int i = 0; i < keys.size(); i++ ) {
+                if ( i > 0 ) {
+                    sql.append( ',' );
+                }
+                sql.append( '?' );
+            }
+            sql.append( ')' );
+        } else {
+            for ( int i = 0; i < keys.size(); i++ ) {
+                if ( i > 0 ) {
+                    sql.append( " OR " );
+                }
+                sql.append( '(' );
+                boolean first = true;
+                for ( SQLIdentifier keyColumn : keyColumns ) {
+                    if ( !first ) {
+                        sql.append( " AND " );
+                    }
+                    sql.append( keyColumn );
+                    sql.append( " = ?" );
+                    first = false;
+                }
+                sql.append( ')' );
+            }
+        }
+        appendOrderBy( sql, jc );
+        LOG.debug( "SQL: {}", sql );
+
+        PreparedStatement stmt = null;
+        ResultSet rs2 = null;
+        try {
+            long begin = System.currentTimeMillis();
+            stmt = conn.prepareStatement( sql.toString() );
+            LOG.debug( "Preparing batched subsequent SELECT took {} [ms] ", System.currentTimeMillis() - begin );
+            int i = 1;
+            for ( List<Object> key : keys ) {
+                for ( Object value : key ) {
+                    stmt.setObject( i++, value );
+                }
+            }
+            begin = System.currentTimeMillis();
+            rs2 = stmt.executeQuery();
+            LOG.debug( "Executing batched SELECT took {} [ms] ", System.currentTimeMillis() - begin );
+            String[] columnLabels = DetachedRow.getColumnLabels( rs2 );
+            while ( rs2.next() ) {
+                ResultSet row = DetachedRow.copyCurrentRow( rs2, columnLabels );
+                List<Object> key = getJoinKey( row, keyColumns, rsToIdx );
+                List<ResultSet> rows = keyToRows.get( key );
+                if ( rows != null ) {
+                    rows.add( row );
+                    joinedRows.add( row );
+                }
+            }
+        } catch ( Throwable t ) {
+            String msg = "Error performing batched subsequent SELECT: " + t.getMessage();
+            LOG.error( msg, t );
+            throw new SQLException( msg, t );
+        } finally {
+            close( rs2, stmt, null, LOG );
+        }
+    }
+
+    /**
+     * Returns the normalized values of the given key columns, so keys of parent and joined rows can be matched even if
+     * the JDBC driver returns different number types for them.
+     * 
+     * @return normalized key, <code>null</code> if any of the key columns is <code>NULL</code>
+     */
+    private List<Object> getJoinKey( ResultSet rs, List<SQLIdentifier> keyColumns,
+                                     LinkedHashMap<String, Integer> colToRsIdx )
+                            throws SQLException {
+        List<Object> key = new ArrayList<Object>( keyColumns.size() );
+        for ( SQLIdentifier keyColumn : keyColumns ) {
+            Object value = rs.getObject( colToRsIdx.get( tableAlias + "." + keyColumn ) );
+            if ( value == null ) {
+                return null;
+            }
+            if ( value instanceof Number ) {
+                value = new BigDecimal( value.toString() ).stripTrailingZeros();
+            }
+            key.add( value );
+        }
+        return key;
+    }
+
     private String toIdPrefix( ValueReference propName ) {
         String s = propName.getAsText();
         s = s.replace( "/", "_" );
@@ -400,6 +620,27 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
         if ( !( mapping instanceof FeatureMapping ) && mapping.getJoinedTable() != null ) {
             List<TypedObjectNode> values = new ArrayList<TypedObjectNode>();
+            Map<List<Object>, List<ResultSet>> keyToRows = prefetchedRows.get( mapping );
+            if ( keyToRows != null ) {
+                List<Object> key = getJoinKey( rs, mapping.getJoinedTable().get( 0 ).getFromColumns(), colToRsIdx );
+                if ( key == null ) {
+                    return values;
+                }
+                List<ResultSet> joinedRows = keyToRows.get( key );
+                if ( joinedRows != null ) {
+                    LinkedHashMap<String, Integer> joinedColToRsIdx = prefetchedColumns.get( mapping );
+                    int i = 0;
+                    for ( ResultSet joinedRow : joinedRows ) {
+                        TypedObjectNode particle = buildParticle( mapping, joinedRow, joinedColToRsIdx, idPrefix + "_"
+                                                                                                         + ( i++ ) );
+                        if ( particle != null ) {
+                            values.add( particle );
+                        }
+                    }
+                    return values;
+                }
+                // not prefetched (e.g. evicted from the cache after prefetching), fall back to a subsequent SELECT
+            }
             ResultSet rs2 = null;
             try {
                 Pair<ResultSet, LinkedHashMap<String, Integer>> p = getJoinedResultSet( mapping.getJoinedTable().get( 0 ),
@@ -693,21 +934,10 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
         LinkedHashMap<String, Integer> rsToIdx = getSubsequentSelectColumns( mapping );
 
-        StringBuilder sql = new StringBuilder( "SELECT " );
-        boolean first = true;
-        for ( String column : rsToIdx.keySet() ) {
-            if ( !first ) {
-                sql.append( ',' );
-            }
-            sql.append( column );
-            first = false;
-        }
-        sql.append( " FROM " );
-        sql.append( jc.getToTable() );
-        sql.append( ' ' );
-        sql.append( tableAlias );
+        StringBuilder sql = new StringBuilder();
+        appendSelectFrom( sql, jc, rsToIdx );
         sql.append( " WHERE " );
-        first = true;
+        boolean first = true;
         for ( SQLIdentifier keyColumn : jc.getToColumns() ) {
             if ( !first ) {
                 sql.append( " AND " );
@@ -716,22 +946,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
             sql.append( " = ?" );
             first = false;
         }
-        if ( jc.getOrderColumns() != null && !jc.getOrderColumns().isEmpty() ) {
-            sql.append( " ORDER BY " );
-            first = true;
-            for ( SQLIdentifier orderColumn : jc.getOrderColumns() ) {
-                if ( !first ) {
-                    sql.append( "," );
-                }
-                if ( orderColumn.toString().endsWith( "-" ) ) {
-                    sql.append( orderColumn.toString().substring( 0, orderColumn.toString().length() - 1 ) );
-                    sql.append( " DESC" );
-                } else {
-                    sql.append( orderColumn );
-                }
-                first = false;
-            }
-        }
+        appendOrderBy( sql, jc );
         LOG.debug( "SQL: {}", sql );
 
         PreparedStatement stmt = null;
@@ -759,6 +974,41 @@ public class FeatureBuilderRelational implements FeatureBuilder {
         return new Pair<ResultSet, LinkedHashMap<String, Integer>>( rs2, rsToIdx );
     }
 
+    private void appendSelectFrom( StringBuilder sql, TableJoin jc, LinkedHashMap<String, Integer> rsToIdx ) {
+        sql.append( "SELECT " );
+        boolean first = true;
+        for ( String column : rsToIdx.keySet() ) {
+            if ( !first ) {
+                sql.append( ',' );
+            }
+            sql.append( column );
+            first = false;
+        }
+        sql.append( " FROM " );
+        sql.append( jc.getToTable() );
+        sql.append( ' ' );
+        sql.append( tableAlias );
+    }
+
+    private void appendOrderBy( StringBuilder sql, TableJoin jc ) {
+        if ( jc.getOrderColumns() != null && !jc.getOrderColumns().isEmpty() ) {
+            sql.append( " ORDER BY " );
+            boolean first = true;
+            for ( SQLIdentifier orderColumn : jc.getOrderColumns() ) {
+                if ( !first ) {
+                    sql.append( "," );
+                }
+                if ( orderColumn.toString().endsWith( "-" ) ) {
+                    sql.append( orderColumn.toString().substring( 0, orderColumn.toString().length() - 1 ) );
+                    sql.append( " DESC" );
+                } else {
+                    sql.append( orderColumn );
+                }
+                first = false;
+            }
+        }
+    }
+
     private QName getChildElementStepAsQName( ValueReference ref ) {
         QName qName = null;
         Expr xpath = ref.getAsXPath();
@@ -0,0 +1,348 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql.rules;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.jdbc.SQLIdentifier;
+import org.deegree.commons.jdbc.TableName;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.GMLObject;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.gml.property.PropertyType;
+import org.deegree.commons.tom.primitive.BaseType;
+import org.deegree.commons.tom.primitive.PrimitiveType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.tom.sql.ParticleConverter;
+import org.deegree.commons.utils.Pair;
+import org.deegree.feature.Feature;
+import org.deegree.feature.persistence.cache.FeatureStoreCache;
+import org.deegree.feature.persistence.sql.FeatureTypeMapping;
+import org.deegree.feature.persistence.sql.SQLFeatureStore;
+import org.deegree.feature.persistence.sql.expressions.TableJoin;
+import org.deegree.feature.persistence.sql.id.FIDMapping;
+import org.deegree.feature.property.ExtraProps;
+import org.deegree.feature.types.FeatureType;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.sqldialect.filter.DBField;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the batched feature assembly of {@link FeatureBuilderRelational}. The parent table holds the feature ids, a
+ * joined table holds any number of values per feature.
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+public class FeatureBuilderRelationalTest {
+
+    private static final QName VALUE = new QName( "value" );
+
+    // joined table: parentid -> values
+    private final Map<Integer, List<String>> joinedTable = new HashMap<Integer, List<String>>();
+
+    private final List<String> executedSql = new ArrayList<String>();
+
+    private final Map<String, List<Property>> builtFeatures = new HashMap<String, List<Property>>();
+
+    private final TestCache cache = new TestCache();
+
+    private FeatureBuilderRelational builder;
+
+    @Before
+    public void setUp()
+                            throws Exception {
+        joinedTable.put( 1, Arrays.asList( "a1", "a2" ) );
+        joinedTable.put( 2, singletonList( "b1" ) );
+        joinedTable.put( 3, singletonList( "c1" ) );
+
+        TableJoin join = new TableJoin( new TableName( "parent" ), new TableName( "child" ), singletonList( "id" ),
+                                        singletonList( "parentid" ), Collections.<String> emptyList(), false,
+                                        null );
+        PrimitiveMapping mapping = new PrimitiveMapping( new ValueReference( VALUE ), true, new DBField( "value" ),
+                                                         new PrimitiveType( BaseType.STRING ), singletonList( join ),
+                                                         null );
+        List<Pair<SQLIdentifier, BaseType>> fidColumns = new ArrayList<Pair<SQLIdentifier, BaseType>>();
+        fidColumns.add( new Pair<SQLIdentifier, BaseType>( new SQLIdentifier( "id" ), BaseType.INTEGER ) );
+        FIDMapping fidMapping = new FIDMapping( "F_", "_", fidColumns, null );
+        FeatureTypeMapping ftMapping = new FeatureTypeMapping( new QName( "Parent" ), new TableName( "parent" ),
+                                                               fidMapping, Collections.<Mapping> singletonList( mapping ) );
+
+        ParticleConverter<?> converter = mock( ParticleConverter.class );
+        when( converter.getSelectSnippet( "X" ) ).thenReturn( "X.value" );
+        doAnswer( new Answer<TypedObjectNode>() {
+            @Override
+            public TypedObjectNode answer( InvocationOnMock invocation )
+                                    throws Throwable {
+                ResultSet rs = (ResultSet) invocation.getArguments()[0];
+                return new PrimitiveValue( rs.getObject( (Integer) invocation.getArguments()[1] ) );
+            }
+        } ).when( converter ).toParticle( any( ResultSet.class ), anyInt() );
+
+        SQLFeatureStore fs = mock( SQLFeatureStore.class );
+        when( fs.getNamespaceContext() ).thenReturn( Collections.<String, String> emptyMap() );
+        when( fs.getCache() ).thenReturn( cache );
+        doReturn( converter ).when( fs ).getConverter( any( Mapping.class ) );
+
+        PropertyType pt = mock( PropertyType.class );
+        when( pt.getName() ).thenReturn( VALUE );
+        FeatureType ft = mock( FeatureType.class );
+        when( ft.getPropertyDeclaration( VALUE ) ).thenReturn( pt );
+        when( ft.newFeatureInstance( anyString(), anyList(), any( ExtraProps.class ) ) ).thenAnswer( new Answer<Feature>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Feature answer( InvocationOnMock invocation ) {
+                String id = (String) invocation.getArguments()[0];
+                builtFeatures.put( id, (List<Property>) invocation.getArguments()[1] );
+                Feature feature = mock( Feature.class );
+                when( feature.getId() ).thenReturn( id );
+                return feature;
+            }
+        } );
+
+        builder = new FeatureBuilderRelational( fs, ft, ftMapping, createConnection(), "X", false );
+        builder.getInitialSelectList();
+    }
+
+    @Test
+    public void testBuildFeaturesFetchesJoinedRowsOnce()
+                            throws Exception {
+        List<Feature> features = builder.buildFeatures( parentRows( 1, 2, 3 ) );
+
+        assertEquals( 3, features.size() );
+        assertEquals( 1, executedSql.size() );
+        assertEquals( Arrays.asList( "a1", "a2" ), values( "F_1" ) );
+        assertEquals( singletonList( "b1" ), values( "F_2" ) );
+        assertEquals( singletonList( "c1" ), values( "F_3" ) );
+        assertSame( features.get( 0 ), cache.get( "F_1" ) );
+    }
+
+    @Test
+    public void testBuildFeaturesWithCachedAndEvictedFeatures()
+                            throws Exception {
+        Feature cached = mock( Feature.class );
+        when( cached.getId() ).thenReturn( "F_2" );
+        cache.add( cached );
+        Feature evicted = mock( Feature.class );
+        when( evicted.getId() ).thenReturn( "F_3" );
+        cache.add( evicted );
+        // F_3 is found while the page is prefetched, but evicted before the feature itself is built
+        cache.evictAfterGet.add( "F_3" );
+
+        List<Feature> features = builder.buildFeatures( parentRows( 1, 2, 3 ) );
+
+        assertEquals( 3, features.size() );
+        assertSame( cached, features.get( 1 ) );
+        assertEquals( Arrays.asList( "a1", "a2" ), values( "F_1" ) );
+        assertFalse( builtFeatures.containsKey( "F_2" ) );
+        // rebuilt with its joined rows, using a subsequent SELECT
+        assertEquals( singletonList( "c1" ), values( "F_3" ) );
+        assertEquals( 2, executedSql.size() );
+        assertTrue( executedSql.get( 0 ).contains( " IN (?)" ) );
+        assertTrue( executedSql.get( 1 ).contains( "parentid = ?" ) );
+    }
+
+    @Test
+    public void testBuildFeaturesWithoutJoinedRows()
+                            throws Exception {
+        List<Feature> features = builder.buildFeatures( parentRows( 1, 4 ) );
+
+        assertEquals( 2, features.size() );
+        assertEquals( Collections.<String> emptyList(), values( "F_4" ) );
+        assertEquals( 1, executedSql.size() );
+    }
+
+    private List<String> values( String fid ) {
+        List<String> values = new ArrayList<String>();
+        for ( Property prop : builtFeatures.get( fid ) ) {
+            values.add( ( (PrimitiveValue) prop.getValue() ).getAsText() );
+        }
+        return values;
+    }
+
+    private List<ResultSet> parentRows( int... ids )
+                            throws Exception {
+        List<ResultSet> rows = new ArrayList<ResultSet>();
+        for ( int id : ids ) {
+            List<Object[]> row = new ArrayList<Object[]>();
+            row.add( new Object[] { id } );
+            ResultSet rs = resultSet( new String[] { "id" }, row );
+            rs.next();
+            rows.add( rs );
+        }
+        return rows;
+    }
+
+    private Connection createConnection()
+                            throws Exception {
+        Connection conn = mock( Connection.class );
+        when( conn.prepareStatement( anyString() ) ).thenAnswer( new Answer<PreparedStatement>() {
+            @Override
+            public PreparedStatement answer( InvocationOnMock invocation )
+                                    throws Throwable {
+                executedSql.add( (String) invocation.getArguments()[0] );
+                return createStatement();
+            }
+        } );
+        return conn;
+    }
+
+    private PreparedStatement createStatement()
+                            throws Exception {
+        final List<Object> params = new ArrayList<Object>();
+        PreparedStatement stmt = mock( PreparedStatement.class );
+        doAnswer( new Answer<Void>() {
+            @Override
+            public Void answer( InvocationOnMock invocation ) {
+                params.add( invocation.getArguments()[1] );
+                return null;
+            }
+        } ).when( stmt ).setObject( anyInt(), any() );
+        when( stmt.executeQuery() ).thenAnswer( new Answer<ResultSet>() {
+            @Override
+            public ResultSet answer( InvocationOnMock invocation ) {
+                List<Object[]> rows = new ArrayList<Object[]>();
+                for ( Object param : params ) {
+                    Integer parentId = ( (Number) param ).intValue();
+                    if ( joinedTable.containsKey( parentId ) ) {
+                        for ( String value : joinedTable.get( parentId ) ) {
+                            rows.add( new Object[] { value, parentId } );
+                        }
+                    }
+                }
+                return resultSet( new String[] { "value", "parentid" }, rows );
+            }
+        } );
+        return stmt;
+    }
+
+    private static ResultSet resultSet( final String[] labels, final List<Object[]> rows ) {
+        InvocationHandler handler = new InvocationHandler() {
+
+            private int row = -1;
+
+            @Override
+            public Object invoke( Object proxy, Method method, Object[] args )
+                                    throws Throwable {
+                String name = method.getName();
+                if ( name.equals( "next" ) ) {
+                    return ++row < rows.size();
+                } else if ( name.equals( "getObject" ) ) {
+                    return rows.get( row )[(Integer) args[0] - 1];
+                } else if ( name.equals( "getMetaData" ) ) {
+                    ResultSetMetaData md = mock( ResultSetMetaData.class );
+                    when( md.getColumnCount() ).thenReturn( labels.length );
+                    for ( int i = 0; i < labels.length; i++ ) {
+                        when( md.getColumnLabel( i + 1 ) ).thenReturn( labels[i] );
+                    }
+                    return md;
+                } else if ( name.equals( "getStatement" ) ) {
+                    return mock( PreparedStatement.class );
+                } else if ( name.equals( "close" ) ) {
+                    return null;
+                }
+                throw new UnsupportedOperationException( name );
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance( FeatureBuilderRelationalTest.class.getClassLoader(),
+                                                   new Class<?>[] { ResultSet.class }, handler );
+    }
+
+    private static class TestCache implements FeatureStoreCache {
+
+        private final Map<String, GMLObject> objects = new HashMap<String, GMLObject>();
+
+        private final Set<String> evictAfterGet = new HashSet<String>();
+
+        @Override
+        public GMLObject get( String id ) {
+            GMLObject obj = objects.get( id );
+            if ( evictAfterGet.remove( id ) ) {
+                objects.remove( id );
+            }
+            return obj;
+        }
+
+        @Override
+        public void add( GMLObject obj ) {
+            objects.put( obj.getId(), obj );
+        }
+
+        @Override
+        public void remove( String id ) {
+            objects.remove( id );
+        }
+
+        @Override
+        public void clear() {
+            objects.clear();
+        }
+    }
+
+}
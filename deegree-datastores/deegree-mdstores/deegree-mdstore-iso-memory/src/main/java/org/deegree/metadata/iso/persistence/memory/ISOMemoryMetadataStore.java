@@ -42,8 +42,10 @@ import java.util.List;
 import javax.xml.namespace.QName;
 
 import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.index.AttributeIndex;
 import org.deegree.metadata.MetadataRecord;
 import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.ISORecordEvaluator;
 import org.deegree.metadata.persistence.MetadataQuery;
 import org.deegree.metadata.persistence.MetadataResultSet;
 import org.deegree.metadata.persistence.MetadataStore;
@@ -81,9 +83,26 @@ public class ISOMemoryMetadataStore implements MetadataStore<ISORecord> {
     public ISOMemoryMetadataStore( List<File> recordDirectories, File transactionalDirectory,
                                    ResourceMetadata<MetadataStore<? extends MetadataRecord>> metadata )
                             throws IOException {
+        this( recordDirectories, transactionalDirectory, metadata,
+              new AttributeIndex<ISORecord>( new ISORecordEvaluator() ) );
+    }
+
+    /**
+     * 
+     * @param recordDirectories
+     *            never <code>null</code> but may be empty when no directories exists
+     * @param transactionalDirectory
+     *            directory to store inserted records, can be <code>null</code> if transactions are not allowed
+     * @param attributeIndex
+     *            index for the queryables that should be indexed (without records), never <code>null</code>
+     * @throws IOException
+     */
+    public ISOMemoryMetadataStore( List<File> recordDirectories, File transactionalDirectory,
+                                   ResourceMetadata<MetadataStore<? extends MetadataRecord>> metadata,
+                                   AttributeIndex<ISORecord> attributeIndex ) throws IOException {
         this.insertDirectory = transactionalDirectory;
         this.metadata = metadata;
-        storedIsoRecords = new StoredISORecords( recordDirectories );
+        storedIsoRecords = new StoredISORecords( recordDirectories, attributeIndex );
     }
 
     @Override
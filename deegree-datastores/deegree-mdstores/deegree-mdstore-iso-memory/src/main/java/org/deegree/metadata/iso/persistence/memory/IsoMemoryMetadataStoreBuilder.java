@@ -45,8 +45,13 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.index.AttributeIndex;
 import org.deegree.metadata.MetadataRecord;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.ISORecordEvaluator;
 import org.deegree.metadata.iso.persistence.memory.jaxb.ISOMemoryMetadataStoreConfig;
+import org.deegree.metadata.iso.persistence.memory.jaxb.ISOMemoryMetadataStoreConfig.IndexedQueryable;
 import org.deegree.metadata.persistence.MetadataStore;
 import org.deegree.workspace.ResourceBuilder;
 import org.deegree.workspace.ResourceInitException;
@@ -86,7 +91,16 @@ public class IsoMemoryMetadataStoreBuilder implements ResourceBuilder<MetadataSt
                 insertDirectory = recordDirectories.get( 0 );
             }
 
-            return new ISOMemoryMetadataStore( recordDirectories, insertDirectory, metadata );
+            AttributeIndex<ISORecord> attributeIndex = new AttributeIndex<ISORecord>( new ISORecordEvaluator() );
+            for ( IndexedQueryable queryable : config.getIndexedQueryable() ) {
+                ValueReference propName = new ValueReference( queryable.getValue() );
+                if ( queryable.isTokenized() ) {
+                    attributeIndex.addTokenIndex( propName );
+                } else {
+                    attributeIndex.addValueIndex( propName );
+                }
+            }
+            return new ISOMemoryMetadataStore( recordDirectories, insertDirectory, metadata, attributeIndex );
         } catch ( Exception e ) {
             String msg = "Error setting up iso memory meatadata store from configuration: " + e.getMessage();
             throw new ResourceInitException( msg, e );
@@ -47,9 +47,11 @@ import org.apache.axiom.om.OMElement;
 import org.deegree.commons.xml.XMLAdapter;
 import org.deegree.filter.Filter;
 import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.index.AttributeIndex;
 import org.deegree.metadata.MetadataRecord;
 import org.deegree.metadata.MetadataRecordFactory;
 import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.ISORecordEvaluator;
 import org.deegree.metadata.persistence.MetadataQuery;
 import org.deegree.metadata.persistence.MetadataResultSet;
 import org.slf4j.Logger;
@@ -71,10 +73,13 @@ public class StoredISORecords {
 
     private final LinkedHashMap<String, ISORecord> identifierToRecord = new LinkedHashMap<String, ISORecord>();
 
+    private final AttributeIndex<ISORecord> attributeIndex;
+
     /**
      * Creates an empty store.
      */
     StoredISORecords() {
+        this.attributeIndex = new AttributeIndex<ISORecord>( new ISORecordEvaluator() );
     }
 
     /**
@@ -85,6 +90,21 @@ public class StoredISORecords {
      * @throws IOException 
      */
     StoredISORecords( List<File> recordDirectories ) throws IOException {
+        this( recordDirectories, new AttributeIndex<ISORecord>( new ISORecordEvaluator() ) );
+    }
+
+    /**
+     * Creates a store and reads all records from the passed directories
+     * 
+     * @param recordDirectories
+     *            directories to read records from
+     * @param attributeIndex
+     *            index for the queryables that should be indexed, must not be <code>null</code> and must not contain
+     *            any records
+     * @throws IOException
+     */
+    StoredISORecords( List<File> recordDirectories, AttributeIndex<ISORecord> attributeIndex ) throws IOException {
+        this.attributeIndex = attributeIndex;
         addRecords( recordDirectories );
     }
 
@@ -126,7 +146,7 @@ public class StoredISORecords {
      */
     public boolean deleteRecord( String identifier ) {
         if ( identifierToRecord.containsKey( identifier ) ) {
-            identifierToRecord.remove( identifier );
+            unindex( identifierToRecord.remove( identifier ) );
             identifierToFile.remove( identifier );
             return true;
         }
@@ -154,9 +174,18 @@ public class StoredISORecords {
                 LOG.debug( "Ignore record {}, fileIdentifier is null.", file != null ? file.getName() : "" );
                 return null;
             }
-            if ( identifierToRecord.containsKey( identifier ) ) {
+            ISORecord oldRecord = identifierToRecord.get( identifier );
+            if ( oldRecord != null ) {
                 LOG.debug( "Overwrite record with fileIdentifier {}.", identifier );
             }
+            if ( oldRecord != record && !attributeIndex.isEmpty() ) {
+                // an overwritten record keeps its position in storage order, so must the index
+                if ( oldRecord != null ) {
+                    attributeIndex.replace( oldRecord, record );
+                } else {
+                    attributeIndex.add( record );
+                }
+            }
             identifierToRecord.put( identifier, record );
             identifierToFile.put( identifier, file );
             return identifier;
@@ -166,6 +195,33 @@ public class StoredISORecords {
         return null;
     }
 
+    private void unindex( ISORecord record ) {
+        if ( attributeIndex.isEmpty() ) {
+            return;
+        }
+        try {
+            attributeIndex.remove( record );
+        } catch ( FilterEvaluationException e ) {
+            // cannot happen: the same values could be determined when the record has been added
+            LOG.warn( "Unable to remove record {} from attribute index: {}", record.getIdentifier(), e.getMessage() );
+        }
+    }
+
+    /**
+     * Returns the records that may match the given filter (in storage order), using the attribute index if possible.
+     * The index returns its candidates in insertion order, which matches the storage order as overwritten records are
+     * replaced in place.
+     */
+    private Iterable<ISORecord> getCandidates( Filter filter )
+                            throws FilterEvaluationException {
+        List<ISORecord> candidates = attributeIndex.getCandidates( filter );
+        if ( candidates == null ) {
+            return identifierToRecord.values();
+        }
+        LOG.debug( "Attribute index selected {} of {} records.", candidates.size(), identifierToRecord.size() );
+        return candidates;
+    }
+
     /**
      * Requests all records with the passed ids.
      * 
@@ -210,7 +266,7 @@ public class StoredISORecords {
         }
         List<ISORecord> result = new ArrayList<ISORecord>( maxRecords );
         int matched = 1;
-        for ( ISORecord record : identifierToRecord.values() ) {
+        for ( ISORecord record : getCandidates( filter ) ) {
             if ( record.eval( filter ) ) {
                 if ( matched >= startPosition ) {
                     result.add( record );
@@ -262,7 +318,7 @@ public class StoredISORecords {
         if ( filter == null ) {
             result.addAll( identifierToRecord.values() );
         } else {
-            for ( ISORecord record : identifierToRecord.values() ) {
+            for ( ISORecord record : getCandidates( filter ) ) {
                 if ( record.eval( filter ) ) {
                     result.add( record );
                 }
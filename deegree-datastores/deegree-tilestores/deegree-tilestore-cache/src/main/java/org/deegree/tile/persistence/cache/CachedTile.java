@@ -50,10 +50,6 @@ import java.io.InputStream;
 
 import javax.imageio.ImageIO;
 
-import net.sf.ehcache.Cache;
-import net.sf.ehcache.Element;
-
-import org.apache.commons.io.IOUtils;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
@@ -75,15 +71,15 @@ public class CachedTile implements Tile {
 
     private final Tile tile;
 
-    private final Cache cache;
+    private final TileDataLoader loader;
 
     private final String key;
 
     private byte[] data;
 
-    public CachedTile( Tile tile, Cache cache, String key ) {
+    public CachedTile( Tile tile, TileDataLoader loader, String key ) {
         this.tile = tile;
-        this.cache = cache;
+        this.loader = loader;
         this.key = key;
     }
 
@@ -117,23 +113,7 @@ public class CachedTile implements Tile {
 
     private synchronized byte[] getData() {
         if ( data == null ) {
-            Element elem = cache.get( key );
-            if ( elem == null ) {
-                try {
-                    InputStream is = tile.getAsStream();
-                    if ( is == null ) {
-                        data = new byte[] {};
-                    } else {
-                        data = IOUtils.toByteArray( is );
-                    }
-                    cache.put( new Element( key, data ) );
-                } catch ( IOException e ) {
-                    LOG.trace( e.getMessage(), e );
-                    throw new TileIOException( e.getMessage(), e );
-                }
-            } else {
-                data = (byte[]) elem.getValue();
-            }
+            data = loader.getData( key, tile );
         }
         return data;
     }
@@ -40,6 +40,8 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence.cache;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -60,6 +62,7 @@ import org.deegree.tile.persistence.TileStore;
 import org.deegree.tile.persistence.TileStoreTransaction;
 import org.deegree.workspace.Resource;
 import org.deegree.workspace.ResourceMetadata;
+import org.slf4j.Logger;
 
 /**
  * {@link TileStore} that acts as a caching proxy to another {@link TileStore}.
@@ -71,12 +74,16 @@ import org.deegree.workspace.ResourceMetadata;
  */
 public class CachingTileStore implements TileStore {
 
+    private static final Logger LOG = getLogger( CachingTileStore.class );
+
     private final TileStore tileStore;
 
     private final CacheManager cacheManager;
 
     private final Cache cache;
 
+    private final TileDataLoader loader;
+
     private Map<String, TileDataSet> tileMatrixSets;
 
     private ResourceMetadata<TileStore> metadata;
@@ -87,6 +94,7 @@ public class CachingTileStore implements TileStore {
         this.cacheManager = cacheManager;
         this.metadata = metadata;
         this.cache = cacheManager.getCache( cacheName );
+        this.loader = new TileDataLoader( cache );
     }
 
     @Override
@@ -97,7 +105,7 @@ public class CachingTileStore implements TileStore {
             TileDataSet cachedDataset = tileStore.getTileDataSet( id );
             List<TileDataLevel> list = new ArrayList<TileDataLevel>();
             for ( TileDataLevel tm : cachedDataset.getTileDataLevels() ) {
-                list.add( new CachingTileMatrix( tm, cache ) );
+                list.add( new CachingTileMatrix( tm, loader ) );
             }
             TileDataSet cachingDataset = new DefaultTileDataSet( list, cachedDataset.getTileMatrixSet(),
                                                                  cachedDataset.getNativeImageFormat() );
@@ -143,6 +151,8 @@ public class CachingTileStore implements TileStore {
      *            may be null, in which case all objects will be removed from the cache
      */
     public long invalidateCache( String tileMatrixSet, Envelope envelope ) {
+        LOG.debug( "Invalidating cache (hits: {}, loads: {}, coalesced requests: {}).",
+                   new Object[] { loader.getHits(), loader.getLoads(), loader.getCoalesced() } );
         if ( envelope == null ) {
             int size = cache.getSize();
             cache.removeAll();
@@ -165,6 +175,28 @@ public class CachingTileStore implements TileStore {
         return cnt;
     }
 
+    /**
+     * @return number of tile requests that were answered from the cache
+     */
+    public long getCacheHits() {
+        return loader.getHits();
+    }
+
+    /**
+     * @return number of tile requests that loaded the tile from the cached tile store
+     */
+    public long getCacheLoads() {
+        return loader.getLoads();
+    }
+
+    /**
+     * @return number of tile requests that missed the cache, but waited for the load of a concurrent request for the
+     *         same tile instead of requesting it from the cached tile store again
+     */
+    public long getCoalescedRequests() {
+        return loader.getCoalesced();
+    }
+
     @Override
     public TileStoreTransaction acquireTransaction( String id ) {
         throw new UnsupportedOperationException( "CachingTileStore does not support transactions." );
@@ -0,0 +1,196 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+ http://www.occamlabs.de/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.tile.persistence.cache;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.Element;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.slf4j.Logger;
+
+/**
+ * Loads tile data through a {@link Cache}, making sure that concurrent cache misses for the same key result in a single
+ * request to the cached {@link Tile}.
+ * <p>
+ * The first miss for a key loads the data from the cached tile and puts it into the cache, concurrent misses for the
+ * same key wait for this load to finish and share its result (or failure).
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileDataLoader {
+
+    private static final Logger LOG = getLogger( TileDataLoader.class );
+
+    private final Cache cache;
+
+    private final ConcurrentMap<String, FutureTask<byte[]>> loading = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong loads = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param cache
+     *            cache to use, must not be <code>null</code>
+     */
+    public TileDataLoader( Cache cache ) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the data for the given key, either from the cache or from the given tile.
+     * 
+     * @param key
+     *            cache key, must not be <code>null</code>
+     * @param tile
+     *            tile to load the data from on a cache miss, must not be <code>null</code>
+     * @return tile data, never <code>null</code>
+     * @throws TileIOException
+     *             if loading the data from the tile failed
+     */
+    public byte[] getData( final String key, final Tile tile )
+                            throws TileIOException {
+        Element elem = cache.get( key );
+        if ( elem != null ) {
+            hits.incrementAndGet();
+            return (byte[]) elem.getValue();
+        }
+        FutureTask<byte[]> task = new FutureTask<byte[]>( new Callable<byte[]>() {
+            @Override
+            public byte[] call()
+                                    throws IOException {
+                return load( key, tile );
+            }
+        } );
+        FutureTask<byte[]> inProgress = loading.putIfAbsent( key, task );
+        if ( inProgress != null ) {
+            coalesced.incrementAndGet();
+            LOG.debug( "Waiting for tile '{}' that is already being loaded.", key );
+            return await( inProgress );
+        }
+        try {
+            task.run();
+            return await( task );
+        } finally {
+            loading.remove( key, task );
+        }
+    }
+
+    private byte[] load( String key, Tile tile )
+                            throws IOException {
+        // the data may have been put into the cache while this thread was waiting to become the loader
+        Element elem = cache.get( key );
+        if ( elem != null ) {
+            hits.incrementAndGet();
+            return (byte[]) elem.getValue();
+        }
+        loads.incrementAndGet();
+        byte[] data;
+        InputStream is = tile.getAsStream();
+        if ( is == null ) {
+            data = new byte[] {};
+        } else {
+            try {
+                data = IOUtils.toByteArray( is );
+            } finally {
+                IOUtils.closeQuietly( is );
+            }
+        }
+        cache.put( new Element( key, data ) );
+        return data;
+    }
+
+    private byte[] await( FutureTask<byte[]> task ) {
+        try {
+            return task.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new TileIOException( "Interrupted while waiting for tile data.", e );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            LOG.trace( cause.getMessage(), cause );
+            if ( cause instanceof TileIOException ) {
+                throw (TileIOException) cause;
+            }
+            throw new TileIOException( cause.getMessage(), cause );
+        }
+    }
+
+    /**
+     * @return number of requests that were answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests that loaded the data from the cached tile store
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * @return number of requests that missed the cache, but shared the load of a concurrent request for the same key
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,261 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.Configuration;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TileDataLoader}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileDataLoaderTest {
+
+    private static final byte[] DATA = new byte[] { 1, 2, 3, 4 };
+
+    private CacheManager manager;
+
+    private Cache cache;
+
+    private TileDataLoader loader;
+
+    @Before
+    public void setup() {
+        manager = new CacheManager( new Configuration().name( "TileDataLoaderTest" ) );
+        cache = new Cache( "tiles", 100, false, true, 0, 0 );
+        manager.addCache( cache );
+        loader = new TileDataLoader( cache );
+    }
+
+    @After
+    public void shutdown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void testLoadAndHit() {
+        TestTile tile = new TestTile( null, 0 );
+        assertArrayEquals( DATA, loader.getData( "key", tile ) );
+        assertArrayEquals( DATA, loader.getData( "key", tile ) );
+        assertEquals( 1, tile.requests.get() );
+        assertEquals( 1, loader.getLoads() );
+        assertEquals( 1, loader.getHits() );
+    }
+
+    @Test
+    public void testConcurrentRequestsLoadOnce()
+                            throws Exception {
+        final int numRequests = 8;
+        // the first request blocks while loading until all other requests wait for its result
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final TestTile tile = new TestTile( release, 0 );
+        ExecutorService executor = Executors.newFixedThreadPool( numRequests );
+        try {
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for ( int i = 0; i < numRequests; i++ ) {
+                results.add( executor.submit( new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() {
+                        return loader.getData( "key", tile );
+                    }
+                } ) );
+            }
+            long timeout = System.currentTimeMillis() + 10000;
+            while ( loader.getCoalesced() < numRequests - 1 ) {
+                if ( System.currentTimeMillis() > timeout ) {
+                    fail( "Requests were not coalesced." );
+                }
+                Thread.sleep( 10 );
+            }
+            release.countDown();
+            for ( Future<byte[]> result : results ) {
+                assertArrayEquals( DATA, result.get( 10, TimeUnit.SECONDS ) );
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals( 1, tile.requests.get() );
+        assertEquals( 1, loader.getLoads() );
+        assertEquals( numRequests - 1, loader.getCoalesced() );
+        assertArrayEquals( DATA, (byte[]) cache.get( "key" ).getValue() );
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        TestTile tile = new TestTile( null, 1 );
+        try {
+            loader.getData( "key", tile );
+            fail( "Expected TileIOException." );
+        } catch ( TileIOException e ) {
+            assertEquals( "Loading failed.", e.getMessage() );
+        }
+        assertNull( cache.get( "key" ) );
+        assertArrayEquals( DATA, loader.getData( "key", tile ) );
+        assertEquals( 2, tile.requests.get() );
+        assertEquals( 2, loader.getLoads() );
+        assertArrayEquals( DATA, (byte[]) cache.get( "key" ).getValue() );
+    }
+
+    @Test
+    public void testConcurrentRequestsShareFailure()
+                            throws Exception {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final TestTile tile = new TestTile( release, 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try {
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for ( int i = 0; i < 2; i++ ) {
+                results.add( executor.submit( new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() {
+                        return loader.getData( "key", tile );
+                    }
+                } ) );
+            }
+            long timeout = System.currentTimeMillis() + 10000;
+            while ( loader.getCoalesced() < 1 ) {
+                if ( System.currentTimeMillis() > timeout ) {
+                    fail( "Requests were not coalesced." );
+                }
+                Thread.sleep( 10 );
+            }
+            release.countDown();
+            for ( Future<byte[]> result : results ) {
+                try {
+                    result.get( 10, TimeUnit.SECONDS );
+                    fail( "Expected TileIOException." );
+                } catch ( ExecutionException e ) {
+                    assertTrue( e.getCause() instanceof TileIOException );
+                }
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals( 1, tile.requests.get() );
+        assertNull( cache.get( "key" ) );
+        // the failure is not remembered, the next request loads again
+        assertArrayEquals( DATA, loader.getData( "key", tile ) );
+        assertEquals( 2, tile.requests.get() );
+    }
+
+    private static class TestTile implements Tile {
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private final CountDownLatch release;
+
+        private final int failures;
+
+        /**
+         * @param release
+         *            if not <code>null</code>, requests block until it is released
+         * @param failures
+         *            number of requests that fail before the data is returned
+         */
+        private TestTile( CountDownLatch release, int failures ) {
+            this.release = release;
+            this.failures = failures;
+        }
+
+        @Override
+        public InputStream getAsStream()
+                                throws TileIOException {
+            int request = requests.incrementAndGet();
+            if ( release != null ) {
+                try {
+                    release.await();
+                } catch ( InterruptedException e ) {
+                    throw new TileIOException( e );
+                }
+            }
+            if ( request <= failures ) {
+                throw new TileIOException( "Loading failed." );
+            }
+            return new ByteArrayInputStream( DATA );
+        }
+
+        @Override
+        public BufferedImage getAsImage()
+                                throws TileIOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Envelope getEnvelope() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FeatureCollection getFeatures( int i, int j, int limit )
+                                throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -33,6 +33,10 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -42,6 +46,7 @@ import org.deegree.tile.Tile;
 import org.deegree.tile.TileDataLevel;
 import org.deegree.tile.TileDataSet;
 import org.deegree.workspace.ResourceMetadata;
+import org.slf4j.Logger;
 
 /**
  * Generic implementation of {@link TileStore}.
@@ -54,6 +59,8 @@ import org.deegree.workspace.ResourceMetadata;
  */
 public class GenericTileStore implements TileStore {
 
+    private static final Logger LOG = getLogger( GenericTileStore.class );
+
     private final Map<String, TileDataSet> tileDataSets;
 
     private ResourceMetadata<TileStore> metadata;
@@ -83,7 +90,19 @@ public class GenericTileStore implements TileStore {
 
     @Override
     public void destroy() {
-        // nothing to destroy
+        // tile data levels may hold open files
+        for ( TileDataSet set : tileDataSets.values() ) {
+            for ( TileDataLevel level : set.getTileDataLevels() ) {
+                if ( level instanceof Closeable ) {
+                    try {
+                        ( (Closeable) level ).close();
+                    } catch ( IOException e ) {
+                        LOG.warn( "Unable to close tile data level {}: {}", level.getMetadata().getIdentifier(),
+                                  e.getLocalizedMessage() );
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -33,10 +33,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 
-import javax.imageio.ImageIO;
-
 import org.deegree.commons.gdal.GdalDataset;
 import org.deegree.commons.gdal.GdalDatasetPool;
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
@@ -120,7 +119,7 @@ class GdalTile implements Tile {
                 formatName = imageFormat;
             }
             BufferedImage img = dataset.extractRegion( tileEnvelope, pixelsX, pixelsY, false );
-            ImageIO.write( img, formatName, bos );
+            ImageEncoders.write( img, formatName, bos );
         } catch ( Exception e ) {
             e.printStackTrace();
             throw new TileIOException( "Error retrieving image: " + e.getMessage(), e );
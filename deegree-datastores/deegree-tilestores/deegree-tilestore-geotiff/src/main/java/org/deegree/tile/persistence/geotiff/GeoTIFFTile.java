@@ -48,10 +48,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Hashtable;
 
-import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 
 import org.apache.commons.pool.impl.GenericObjectPool;
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
@@ -59,7 +59,8 @@ import org.deegree.tile.TileIOException;
 
 /**
  * A {@link Tile} that is read from a GeoTIFF/BigTIFF file, through ImageIO/imageio-ext. Uses an object pool to cache
- * readers (they take a long time to startup). </p>
+ * readers (they take a long time to startup). If a {@link NativeTileReader} is available, the stream is served from
+ * the compressed tile data without decoding the image. </p>
  * 
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  * @author last edited by: $Author: mschneider $
@@ -78,9 +79,17 @@ public class GeoTIFFTile implements Tile {
 
     private final GenericObjectPool readerPool;
 
+    private final NativeTileReader nativeTileReader;
+
     public GeoTIFFTile( GenericObjectPool readerPool, int imageIndex, int x, int y, Envelope envelope, int sizeX,
                         int sizeY ) {
+        this( readerPool, null, imageIndex, x, y, envelope, sizeX, sizeY );
+    }
+
+    GeoTIFFTile( GenericObjectPool readerPool, NativeTileReader nativeTileReader, int imageIndex, int x, int y,
+                 Envelope envelope, int sizeX, int sizeY ) {
         this.readerPool = readerPool;
+        this.nativeTileReader = nativeTileReader;
         this.imageIndex = imageIndex;
         this.x = x;
         this.y = y;
@@ -127,9 +136,19 @@ public class GeoTIFFTile implements Tile {
     @Override
     public InputStream getAsStream()
                             throws TileIOException {
+        if ( nativeTileReader != null ) {
+            try {
+                byte[] data = nativeTileReader.readTile( x, y );
+                if ( data != null ) {
+                    return new ByteArrayInputStream( data );
+                }
+            } catch ( IOException e ) {
+                throw new TileIOException( "Error retrieving image: " + e.getMessage(), e );
+            }
+        }
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         try {
-            ImageIO.write( getAsImage(), "png", bos );
+            ImageEncoders.write( getAsImage(), "png", bos );
         } catch ( IOException e ) {
             throw new TileIOException( "Error retrieving image: " + e.getMessage(), e );
         }
@@ -40,14 +40,21 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence.geotiff;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
+import javax.imageio.ImageReader;
+
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.GeometryFactory;
 import org.deegree.tile.TileDataLevel;
 import org.deegree.tile.TileMatrix;
+import org.slf4j.Logger;
 
 /**
  * The <code>GeoTIFFTileMatrix</code> is a tile matrix handing out GeoTIFFTile tiles. It uses an object pool shared
@@ -59,7 +66,9 @@ import org.deegree.tile.TileMatrix;
  * @version $Revision: 31882 $, $Date: 2011-09-15 02:05:04 +0200 (Thu, 15 Sep 2011) $
  */
 
-public class GeoTIFFTileDataLevel implements TileDataLevel {
+public class GeoTIFFTileDataLevel implements TileDataLevel, Closeable {
+
+    private static final Logger LOG = getLogger( GeoTIFFTileDataLevel.class );
 
     private final TileMatrix metadata;
 
@@ -71,8 +80,35 @@ public class GeoTIFFTileDataLevel implements TileDataLevel {
 
     private final int xoff, yoff, numx, numy;
 
+    private final File file;
+
+    private final String format;
+
+    private volatile boolean nativeTileReaderInitialized;
+
+    private NativeTileReader nativeTileReader;
+
     public GeoTIFFTileDataLevel( TileMatrix metadata, File file, int imageIndex, int xoff, int yoff, int numx, int numy ) {
+        this( metadata, file, imageIndex, xoff, yoff, numx, numy, null );
+    }
+
+    /**
+     * @param metadata
+     * @param file
+     * @param imageIndex
+     * @param xoff
+     * @param yoff
+     * @param numx
+     * @param numy
+     * @param format
+     *            the image format of the tile data set, tiles are served without decoding if the TIFF tiles are
+     *            compressed compatibly (see {@link NativeTileReader}), may be <code>null</code>
+     */
+    public GeoTIFFTileDataLevel( TileMatrix metadata, File file, int imageIndex, int xoff, int yoff, int numx,
+                                 int numy, String format ) {
         this.metadata = metadata;
+        this.file = file;
+        this.format = format;
         this.imageIndex = imageIndex;
         ImageReaderFactory fac = new ImageReaderFactory( file );
         this.readerPool = new GenericObjectPool( fac );
@@ -108,12 +144,56 @@ public class GeoTIFFTileDataLevel implements TileDataLevel {
         double minx = width * x + env.getMin().get0();
         double miny = env.getMax().get1() - height * y;
         Envelope envelope = fac.createEnvelope( minx, miny, minx + width, miny - height, env.getCoordinateSystem() );
-        return new GeoTIFFTile( readerPool, imageIndex, (int) x, (int) y, envelope, (int) metadata.getTilePixelsX(),
-                                (int) metadata.getTilePixelsY() );
+        return new GeoTIFFTile( readerPool, getNativeTileReader(), imageIndex, (int) x, (int) y, envelope,
+                                (int) metadata.getTilePixelsX(), (int) metadata.getTilePixelsY() );
+    }
+
+    private NativeTileReader getNativeTileReader() {
+        if ( !nativeTileReaderInitialized ) {
+            synchronized ( this ) {
+                if ( !nativeTileReaderInitialized ) {
+                    ImageReader reader = null;
+                    try {
+                        reader = (ImageReader) readerPool.borrowObject();
+                        nativeTileReader = NativeTileReader.create( reader, imageIndex, file, format,
+                                                                    (int) metadata.getTilePixelsX(),
+                                                                    (int) metadata.getTilePixelsY() );
+                    } catch ( Exception e ) {
+                        LOG.debug( "Unable to inspect tile layout of {}: {}", file, e.getLocalizedMessage() );
+                    } finally {
+                        try {
+                            readerPool.returnObject( reader );
+                        } catch ( Exception e ) {
+                            // ignore closing error
+                        }
+                    }
+                    nativeTileReaderInitialized = true;
+                }
+            }
+        }
+        return nativeTileReader;
     }
 
     @Override
     public List<String> getStyles() {
         return null;
     }
+
+    /**
+     * Releases the pooled image readers and the file opened for reading tiles natively.
+     */
+    @Override
+    public void close()
+                            throws IOException {
+        try {
+            readerPool.close();
+        } catch ( Exception e ) {
+            LOG.debug( "Unable to close image readers of {}: {}", file, e.getLocalizedMessage() );
+        }
+        synchronized ( this ) {
+            if ( nativeTileReader != null ) {
+                nativeTileReader.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,434 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.geotiff;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.slf4j.LoggerFactory.getLogger;
+import it.geosolutions.imageio.plugins.tiff.TIFFField;
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+
+import org.slf4j.Logger;
+
+/**
+ * Reads the compressed bytes of single tiles of a tiled TIFF image directly from the file, using the
+ * <code>TileOffsets</code>/<code>TileByteCounts</code> tags.
+ * <p>
+ * This allows to serve tiles without decoding and re-encoding them through ImageIO:
+ * <ul>
+ * <li>JPEG compressed tiles (YCbCr or grayscale) are served as JPEG as they are, the <code>JPEGTables</code> are
+ * merged into the tile stream if present.</li>
+ * <li>Deflate compressed tiles (8 bit, chunky, no predictor, grayscale/RGB with optional alpha) are inflated and
+ * written as PNG, without converting the samples.</li>
+ * </ul>
+ * Instances are only created for images whose layout supports one of the cases above and whose tile size matches the
+ * tile matrix, see {@link #create(ImageReader, int, File, String, int, int)}.
+ * </p>
+ *
+ * @author last edited by: $Author$
+ *
+ * @version $Revision$, $Date$
+ */
+class NativeTileReader {
+
+    private static final Logger LOG = getLogger( NativeTileReader.class );
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+
+    private static final int TAG_COMPRESSION = 259;
+
+    private static final int TAG_PHOTOMETRIC = 262;
+
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+
+    private static final int TAG_PREDICTOR = 317;
+
+    private static final int TAG_TILE_WIDTH = 322;
+
+    private static final int TAG_TILE_LENGTH = 323;
+
+    private static final int TAG_TILE_OFFSETS = 324;
+
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+
+    private static final int TAG_EXTRA_SAMPLES = 338;
+
+    private static final int TAG_JPEG_TABLES = 347;
+
+    private static final int COMPRESSION_JPEG = 7;
+
+    private static final int COMPRESSION_DEFLATE = 8;
+
+    private static final int COMPRESSION_DEFLATE_OLD = 32946;
+
+    private static final int PHOTOMETRIC_MIN_IS_BLACK = 1;
+
+    private static final int PHOTOMETRIC_RGB = 2;
+
+    private static final int PHOTOMETRIC_YCBCR = 6;
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+    private final File file;
+
+    private final boolean jpeg;
+
+    private final int tileWidth, tileHeight, tilesAcross, samples, pngColorType;
+
+    private final long[] offsets, byteCounts;
+
+    private final byte[] jpegTables;
+
+    private volatile FileChannel channel;
+
+    private boolean closed;
+
+    NativeTileReader( File file, boolean jpeg, int tileWidth, int tileHeight, int tilesAcross, int samples,
+                      int pngColorType, long[] offsets, long[] byteCounts, byte[] jpegTables ) {
+        this.file = file;
+        this.jpeg = jpeg;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.tilesAcross = tilesAcross;
+        this.samples = samples;
+        this.pngColorType = pngColorType;
+        this.offsets = offsets;
+        this.byteCounts = byteCounts;
+        this.jpegTables = jpegTables;
+    }
+
+    /**
+     * Inspects the TIFF tags of the given image and creates a native tile reader if tiles can be served in the
+     * requested format without decoding.
+     *
+     * @param reader
+     *            reader positioned on the TIFF file, never <code>null</code>
+     * @param imageIndex
+     *            index of the image in the TIFF file
+     * @param file
+     *            the TIFF file, never <code>null</code>
+     * @param format
+     *            the image format tiles are served in, may be <code>null</code>
+     * @param sizeX
+     *            tile width of the tile matrix in pixels
+     * @param sizeY
+     *            tile height of the tile matrix in pixels
+     * @return a native tile reader, or <code>null</code>, if tiles need to be decoded
+     */
+    static NativeTileReader create( ImageReader reader, int imageIndex, File file, String format, int sizeX, int sizeY ) {
+        if ( format == null ) {
+            return null;
+        }
+        try {
+            IIOMetadata md = reader.getImageMetadata( imageIndex );
+            if ( !( md instanceof TIFFImageMetadata ) ) {
+                return null;
+            }
+            TIFFImageMetadata tiff = (TIFFImageMetadata) md;
+            int tileWidth = getInt( tiff, TAG_TILE_WIDTH, -1 );
+            int tileHeight = getInt( tiff, TAG_TILE_LENGTH, -1 );
+            if ( tileWidth != sizeX || tileHeight != sizeY ) {
+                return null;
+            }
+            if ( getInt( tiff, TAG_PLANAR_CONFIGURATION, 1 ) != 1 || !isEightBit( tiff ) ) {
+                return null;
+            }
+            int compression = getInt( tiff, TAG_COMPRESSION, 1 );
+            int photometric = getInt( tiff, TAG_PHOTOMETRIC, -1 );
+            int samples = getInt( tiff, TAG_SAMPLES_PER_PIXEL, 1 );
+            boolean jpeg;
+            int pngColorType = -1;
+            byte[] jpegTables = null;
+            if ( compression == COMPRESSION_JPEG && format.equalsIgnoreCase( "image/jpeg" ) ) {
+                // RGB encoded JPEG streams would be interpreted as YCbCr by any standalone decoder
+                boolean ycbcr = photometric == PHOTOMETRIC_YCBCR && samples == 3;
+                boolean gray = photometric == PHOTOMETRIC_MIN_IS_BLACK && samples == 1;
+                if ( !ycbcr && !gray ) {
+                    return null;
+                }
+                TIFFField tables = tiff.getTIFFField( TAG_JPEG_TABLES );
+                if ( tables != null ) {
+                    jpegTables = tables.getAsBytes();
+                }
+                jpeg = true;
+            } else if ( ( compression == COMPRESSION_DEFLATE || compression == COMPRESSION_DEFLATE_OLD )
+                        && format.equalsIgnoreCase( "image/png" ) ) {
+                if ( getInt( tiff, TAG_PREDICTOR, 1 ) != 1 ) {
+                    return null;
+                }
+                pngColorType = getPngColorType( tiff, photometric, samples );
+                if ( pngColorType == -1 ) {
+                    return null;
+                }
+                jpeg = false;
+            } else {
+                return null;
+            }
+            TIFFField offsetField = tiff.getTIFFField( TAG_TILE_OFFSETS );
+            TIFFField countField = tiff.getTIFFField( TAG_TILE_BYTE_COUNTS );
+            if ( offsetField == null || countField == null || offsetField.getCount() != countField.getCount() ) {
+                return null;
+            }
+            long[] offsets = new long[offsetField.getCount()];
+            long[] byteCounts = new long[offsets.length];
+            for ( int i = 0; i < offsets.length; ++i ) {
+                offsets[i] = offsetField.getAsLong( i );
+                byteCounts[i] = countField.getAsLong( i );
+            }
+            int width = getInt( tiff, TAG_IMAGE_WIDTH, reader.getWidth( imageIndex ) );
+            int tilesAcross = ( width + tileWidth - 1 ) / tileWidth;
+            LOG.debug( "Serving {} tiles of image {} in {} without decoding.", new Object[] { format, imageIndex,
+                                                                                             file } );
+            return new NativeTileReader( file, jpeg, tileWidth, tileHeight, tilesAcross, samples, pngColorType,
+                                         offsets, byteCounts, jpegTables );
+        } catch ( Exception e ) {
+            LOG.debug( "Unable to determine native tile layout of image {}: {}", imageIndex, e.getLocalizedMessage() );
+            LOG.trace( "Stack trace:", e );
+        }
+        return null;
+    }
+
+    private static int getInt( TIFFImageMetadata tiff, int tag, int defaultValue ) {
+        TIFFField field = tiff.getTIFFField( tag );
+        return field == null ? defaultValue : field.getAsInt( 0 );
+    }
+
+    private static boolean isEightBit( TIFFImageMetadata tiff ) {
+        TIFFField field = tiff.getTIFFField( TAG_BITS_PER_SAMPLE );
+        if ( field == null ) {
+            // default is 1 bit
+            return false;
+        }
+        for ( int i = 0; i < field.getCount(); ++i ) {
+            if ( field.getAsInt( i ) != 8 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getPngColorType( TIFFImageMetadata tiff, int photometric, int samples ) {
+        if ( samples == 2 || samples == 4 ) {
+            // PNG only knows about unassociated alpha
+            TIFFField extra = tiff.getTIFFField( TAG_EXTRA_SAMPLES );
+            if ( extra == null || extra.getCount() != 1 || extra.getAsInt( 0 ) != 2 ) {
+                return -1;
+            }
+        }
+        if ( photometric == PHOTOMETRIC_MIN_IS_BLACK ) {
+            return samples == 1 ? 0 : samples == 2 ? 4 : -1;
+        }
+        if ( photometric == PHOTOMETRIC_RGB ) {
+            return samples == 3 ? 2 : samples == 4 ? 6 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the encoded tile.
+     *
+     * @param x
+     *            tile column in the TIFF image
+     * @param y
+     *            tile row in the TIFF image
+     * @return the encoded tile, or <code>null</code> if the tile is not stored in the file (sparse TIFF) and needs to
+     *         be decoded
+     * @throws IOException
+     */
+    byte[] readTile( int x, int y )
+                            throws IOException {
+        int idx = y * tilesAcross + x;
+        if ( idx < 0 || idx >= offsets.length || byteCounts[idx] <= 0 || offsets[idx] <= 0 ) {
+            return null;
+        }
+        byte[] data = read( offsets[idx], (int) byteCounts[idx] );
+        return jpeg ? toJpeg( data ) : toPng( data );
+    }
+
+    private byte[] read( long offset, int length )
+                            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate( length );
+        FileChannel ch = getChannel();
+        while ( buf.hasRemaining() ) {
+            // positional reads do not touch the channel position, so the channel can be shared
+            if ( ch.read( buf, offset + buf.position() ) < 0 ) {
+                throw new EOFException( "Unexpected end of file while reading tile from " + file + "." );
+            }
+        }
+        return buf.array();
+    }
+
+    private FileChannel getChannel()
+                            throws IOException {
+        FileChannel ch = channel;
+        if ( ch == null ) {
+            synchronized ( this ) {
+                if ( closed ) {
+                    throw new IOException( "Native tile reader for " + file + " has been closed." );
+                }
+                ch = channel;
+                if ( ch == null ) {
+                    ch = FileChannel.open( file.toPath(), READ );
+                    channel = ch;
+                }
+            }
+        }
+        return ch;
+    }
+
+    /**
+     * Closes the file, if it has been opened. Tiles cannot be read afterwards.
+     *
+     * @throws IOException
+     */
+    synchronized void close()
+                            throws IOException {
+        closed = true;
+        FileChannel ch = channel;
+        channel = null;
+        if ( ch != null ) {
+            ch.close();
+        }
+    }
+
+    private byte[] toJpeg( byte[] data ) {
+        // abbreviated streams: tables (without EOI) are inserted after the SOI marker of the tile
+        if ( jpegTables == null || jpegTables.length <= 4 ) {
+            return data;
+        }
+        int tablesLength = jpegTables.length - 4;
+        byte[] res = new byte[data.length + tablesLength];
+        System.arraycopy( data, 0, res, 0, 2 );
+        System.arraycopy( jpegTables, 2, res, 2, tablesLength );
+        System.arraycopy( data, 2, res, 2 + tablesLength, data.length - 2 );
+        return res;
+    }
+
+    private byte[] toPng( byte[] data )
+                            throws IOException {
+        int rowLength = tileWidth * samples;
+        byte[] pixels = new byte[rowLength * tileHeight];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput( data );
+            int read = 0;
+            while ( read < pixels.length && !inflater.finished() ) {
+                int n = inflater.inflate( pixels, read, pixels.length - read );
+                if ( n == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) ) {
+                    break;
+                }
+                read += n;
+            }
+            if ( read != pixels.length ) {
+                throw new IOException( "Tile data of " + file + " is truncated." );
+            }
+        } catch ( DataFormatException e ) {
+            throw new IOException( "Invalid deflate stream in " + file + ": " + e.getMessage(), e );
+        } finally {
+            inflater.end();
+        }
+
+        ByteArrayOutputStream idat = new ByteArrayOutputStream( data.length + tileHeight );
+        Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+        try {
+            DeflaterOutputStream dos = new DeflaterOutputStream( idat, deflater, 8192 );
+            for ( int row = 0; row < tileHeight; ++row ) {
+                // filter type none, the samples are copied unchanged
+                dos.write( 0 );
+                dos.write( pixels, row * rowLength, rowLength );
+            }
+            dos.finish();
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream( idat.size() + 64 );
+        DataOutputStream out = new DataOutputStream( bos );
+        out.write( PNG_SIGNATURE );
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream( 13 );
+        DataOutputStream header = new DataOutputStream( ihdr );
+        header.writeInt( tileWidth );
+        header.writeInt( tileHeight );
+        header.writeByte( 8 );
+        header.writeByte( pngColorType );
+        header.writeByte( 0 );
+        header.writeByte( 0 );
+        header.writeByte( 0 );
+        writeChunk( out, "IHDR", ihdr.toByteArray() );
+        writeChunk( out, "IDAT", idat.toByteArray() );
+        writeChunk( out, "IEND", new byte[0] );
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    private static void writeChunk( DataOutputStream out, String type, byte[] data )
+                            throws IOException {
+        byte[] typeBytes = type.getBytes( "US-ASCII" );
+        CRC32 crc = new CRC32();
+        crc.update( typeBytes );
+        crc.update( data );
+        out.writeInt( data.length );
+        out.write( typeBytes );
+        out.write( data );
+        out.writeInt( (int) crc.getValue() );
+    }
+
+}
@@ -0,0 +1,293 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.geotiff;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the PNG and JPEG framing of tiles read by {@link NativeTileReader}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class NativeTileReaderTest {
+
+    private static final int TILE_WIDTH = 5;
+
+    private static final int TILE_HEIGHT = 3;
+
+    private File file;
+
+    @Before
+    public void setUp()
+                            throws IOException {
+        file = File.createTempFile( "tiles", ".tif" );
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testPngGray()
+                            throws IOException {
+        assertPngTiles( 1, 0 );
+    }
+
+    @Test
+    public void testPngGrayAlpha()
+                            throws IOException {
+        assertPngTiles( 2, 4 );
+    }
+
+    @Test
+    public void testPngRgb()
+                            throws IOException {
+        assertPngTiles( 3, 2 );
+    }
+
+    @Test
+    public void testPngRgbAlpha()
+                            throws IOException {
+        assertPngTiles( 4, 6 );
+    }
+
+    @Test
+    public void testJpegWithTables()
+                            throws IOException {
+        byte[] jpeg = encodeJpeg();
+        ByteArrayOutputStream tables = new ByteArrayOutputStream();
+        ByteArrayOutputStream tile = new ByteArrayOutputStream();
+        splitJpeg( jpeg, tables, tile );
+        byte[] tileData = tile.toByteArray();
+        NativeTileReader reader = createReader( true, 1, -1, tables.toByteArray(), new byte[0], tileData );
+        try {
+            byte[] merged = reader.readTile( 1, 0 );
+            assertEquals( tileData.length + tables.size() - 4, merged.length );
+            assertSamePixels( decode( jpeg ), decode( merged ) );
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testJpegWithoutTables()
+                            throws IOException {
+        byte[] jpeg = encodeJpeg();
+        NativeTileReader reader = createReader( true, 1, -1, null, jpeg );
+        try {
+            assertArrayEquals( jpeg, reader.readTile( 0, 0 ) );
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testSparseTiles()
+                            throws IOException {
+        NativeTileReader reader = createReader( false, 3, 2, null, new byte[0], deflate( samples( 3, 0 ) ) );
+        try {
+            assertNull( reader.readTile( 0, 0 ) );
+            assertNotNull( reader.readTile( 1, 0 ) );
+            assertNull( reader.readTile( 0, 1 ) );
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadAfterClose()
+                            throws IOException {
+        NativeTileReader reader = createReader( false, 3, 2, null, deflate( samples( 3, 0 ) ) );
+        reader.close();
+        reader.readTile( 0, 0 );
+    }
+
+    private void assertPngTiles( int samples, int pngColorType )
+                            throws IOException {
+        byte[] first = samples( samples, 0 );
+        byte[] second = samples( samples, 1 );
+        NativeTileReader reader = createReader( false, samples, pngColorType, null, deflate( first ),
+                                                deflate( second ) );
+        try {
+            assertPixels( first, samples, decode( reader.readTile( 0, 0 ) ) );
+            assertPixels( second, samples, decode( reader.readTile( 1, 0 ) ) );
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertPixels( byte[] expected, int samples, BufferedImage img ) {
+        assertEquals( TILE_WIDTH, img.getWidth() );
+        assertEquals( TILE_HEIGHT, img.getHeight() );
+        assertEquals( samples, img.getRaster().getNumBands() );
+        int[] pixel = new int[samples];
+        for ( int y = 0; y < TILE_HEIGHT; ++y ) {
+            for ( int x = 0; x < TILE_WIDTH; ++x ) {
+                img.getRaster().getPixel( x, y, pixel );
+                for ( int i = 0; i < samples; ++i ) {
+                    assertEquals( expected[( y * TILE_WIDTH + x ) * samples + i] & 0xff, pixel[i] );
+                }
+            }
+        }
+    }
+
+    private static void assertSamePixels( BufferedImage expected, BufferedImage actual ) {
+        assertEquals( expected.getWidth(), actual.getWidth() );
+        assertEquals( expected.getHeight(), actual.getHeight() );
+        for ( int y = 0; y < expected.getHeight(); ++y ) {
+            for ( int x = 0; x < expected.getWidth(); ++x ) {
+                assertEquals( expected.getRGB( x, y ), actual.getRGB( x, y ) );
+            }
+        }
+    }
+
+    /**
+     * Writes the tiles to the file (one row, after an 8 byte header) and creates a reader for them, empty tiles are
+     * stored as sparse tiles.
+     */
+    private NativeTileReader createReader( boolean jpeg, int samples, int pngColorType, byte[] jpegTables,
+                                           byte[]... tiles )
+                            throws IOException {
+        long[] offsets = new long[tiles.length];
+        long[] byteCounts = new long[tiles.length];
+        OutputStream out = new FileOutputStream( file );
+        try {
+            out.write( new byte[8] );
+            long offset = 8;
+            for ( int i = 0; i < tiles.length; ++i ) {
+                if ( tiles[i].length > 0 ) {
+                    offsets[i] = offset;
+                    byteCounts[i] = tiles[i].length;
+                    out.write( tiles[i] );
+                    offset += tiles[i].length;
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return new NativeTileReader( file, jpeg, TILE_WIDTH, TILE_HEIGHT, tiles.length, samples, pngColorType,
+                                     offsets, byteCounts, jpegTables );
+    }
+
+    private static byte[] samples( int samples, int seed ) {
+        byte[] data = new byte[TILE_WIDTH * TILE_HEIGHT * samples];
+        for ( int i = 0; i < data.length; ++i ) {
+            data[i] = (byte) ( i * 37 + seed * 101 );
+        }
+        return data;
+    }
+
+    private static byte[] deflate( byte[] data ) {
+        // TIFF deflate tiles are zlib streams of the plain samples, without row filter bytes
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput( data );
+            deflater.finish();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[256];
+            while ( !deflater.finished() ) {
+                bos.write( buf, 0, deflater.deflate( buf ) );
+            }
+            return bos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] encodeJpeg()
+                            throws IOException {
+        BufferedImage img = new BufferedImage( 16, 16, BufferedImage.TYPE_3BYTE_BGR );
+        for ( int y = 0; y < 16; ++y ) {
+            for ( int x = 0; x < 16; ++x ) {
+                img.setRGB( x, y, ( x * 16 ) << 16 | ( y * 16 ) << 8 | 128 );
+            }
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write( img, "jpeg", bos );
+        return bos.toByteArray();
+    }
+
+    /**
+     * Splits a JPEG stream like a TIFF writer does: the quantization and Huffman tables go into a tables-only stream
+     * (SOI, tables, EOI), the tile keeps the frame and scan (application markers are dropped).
+     */
+    private static void splitJpeg( byte[] jpeg, ByteArrayOutputStream tables, ByteArrayOutputStream tile ) {
+        tables.write( jpeg, 0, 2 );
+        tile.write( jpeg, 0, 2 );
+        int pos = 2;
+        while ( ( jpeg[pos + 1] & 0xff ) != 0xda ) {
+            int marker = jpeg[pos + 1] & 0xff;
+            int length = 2 + ( ( jpeg[pos + 2] & 0xff ) << 8 | ( jpeg[pos + 3] & 0xff ) );
+            if ( marker == 0xdb || marker == 0xc4 ) {
+                tables.write( jpeg, pos, length );
+            } else if ( marker < 0xe0 || marker > 0xef ) {
+                tile.write( jpeg, pos, length );
+            }
+            pos += length;
+        }
+        tile.write( jpeg, pos, jpeg.length - pos );
+        tables.write( 0xff );
+        tables.write( 0xd9 );
+    }
+
+    private static BufferedImage decode( byte[] data )
+                            throws IOException {
+        BufferedImage img = ImageIO.read( new ByteArrayInputStream( data ) );
+        assertNotNull( img );
+        return img;
+    }
+
+}
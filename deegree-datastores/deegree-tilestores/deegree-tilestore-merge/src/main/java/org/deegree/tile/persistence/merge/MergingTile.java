@@ -46,8 +46,7 @@ import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
@@ -119,7 +118,7 @@ class MergingTile implements Tile {
                 g.drawImage( img, 0, 0, null );
                 img = noTransparency;
             }
-            ImageIO.write( img, "jpeg", output );
+            ImageEncoders.write( img, "jpeg", output );
         } catch ( IOException e ) {
             throw new TileIOException( e );
         }
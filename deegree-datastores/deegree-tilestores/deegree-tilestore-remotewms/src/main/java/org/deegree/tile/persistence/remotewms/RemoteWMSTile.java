@@ -58,6 +58,7 @@ import javax.imageio.ImageIO;
 import org.apache.commons.io.IOUtils;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.utils.RequestUtils;
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
@@ -137,7 +138,7 @@ class RemoteWMSTile implements Tile {
             if ( outputFormat != null ) {
                 BufferedImage img = ImageIO.read( map );
                 ByteArrayOutputStream out = new ByteArrayOutputStream();
-                ImageIO.write( img, outputFormat, out );
+                ImageEncoders.write( img, outputFormat, out );
                 out.close();
                 return new ByteArrayInputStream( out.toByteArray() );
             }
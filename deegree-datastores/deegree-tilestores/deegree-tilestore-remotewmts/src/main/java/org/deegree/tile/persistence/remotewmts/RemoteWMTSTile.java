@@ -58,6 +58,7 @@ import javax.imageio.ImageIO;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.ows.metadata.operation.Operation;
 import org.deegree.commons.utils.RequestUtils;
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.protocol.ows.http.CloseRequiredInputStream;
@@ -161,7 +162,7 @@ class RemoteWMTSTile implements Tile {
         BufferedImage img = getAsImage();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
-            ImageIO.write( img, recodedOutputFormat, out );
+            ImageEncoders.write( img, recodedOutputFormat, out );
             out.close();
         } catch ( IOException e ) {
             throw new TileIOException( "Error recoding remote WMTS tile image: " + e.getMessage(), e );
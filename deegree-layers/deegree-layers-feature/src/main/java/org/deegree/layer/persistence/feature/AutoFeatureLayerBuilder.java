@@ -49,6 +49,7 @@ import java.util.Map;
 import org.deegree.commons.config.ResourceInitException;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreProvider;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.layer.Layer;
 import org.deegree.layer.metadata.LayerMetadata;
@@ -78,9 +79,13 @@ class AutoFeatureLayerBuilder {
 
     private ResourceMetadata<LayerStore> metadata;
 
-    AutoFeatureLayerBuilder( Workspace workspace, ResourceMetadata<LayerStore> metadata ) {
+    private FeaturePrefetchExecutor prefetchExecutor;
+
+    AutoFeatureLayerBuilder( Workspace workspace, ResourceMetadata<LayerStore> metadata,
+                             FeaturePrefetchExecutor prefetchExecutor ) {
         this.workspace = workspace;
         this.metadata = metadata;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     MultipleLayerStore createInAutoMode( AutoLayers auto )
@@ -130,7 +135,7 @@ class AutoFeatureLayerBuilder {
             styles.put( "default", new Style() );
         }
         md.setStyles( styles );
-        Layer l = new FeatureLayer( md, store, ft.getName(), null, null, null );
+        Layer l = new FeatureLayer( md, store, ft.getName(), null, null, null, prefetchExecutor );
         map.put( name, l );
     }
 
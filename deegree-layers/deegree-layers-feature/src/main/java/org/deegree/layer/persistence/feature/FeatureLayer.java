@@ -54,6 +54,7 @@ import javax.xml.namespace.QName;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.query.Query;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
 import org.deegree.feature.types.AppSchemas;
 import org.deegree.filter.Expression;
 import org.deegree.filter.Filters;
@@ -90,10 +91,30 @@ public class FeatureLayer extends AbstractLayer {
 
     private final DimensionFilterBuilder dimFilterBuilder;
 
+    private final FeaturePrefetchExecutor prefetchExecutor;
+
     public FeatureLayer( LayerMetadata md, FeatureStore featureStore, QName featureType, OperatorFilter filter,
                          List<SortProperty> sortBy, List<SortProperty> sortByFeatureInfo ) {
+        this( md, featureStore, featureType, filter, sortBy, sortByFeatureInfo, FeaturePrefetchExecutor.getDefault() );
+    }
+
+    /**
+     * @param md
+     * @param featureStore
+     * @param featureType
+     * @param filter
+     * @param sortBy
+     * @param sortByFeatureInfo
+     * @param prefetchExecutor
+     *            used to read features while rendering, shut down when the layer is destroyed unless it is the
+     *            default executor, must not be <code>null</code>
+     */
+    public FeatureLayer( LayerMetadata md, FeatureStore featureStore, QName featureType, OperatorFilter filter,
+                         List<SortProperty> sortBy, List<SortProperty> sortByFeatureInfo,
+                         FeaturePrefetchExecutor prefetchExecutor ) {
         super( md );
         this.featureStore = featureStore;
+        this.prefetchExecutor = prefetchExecutor;
         this.featureType = featureType;
         this.filter = filter;
         if ( sortBy != null ) {
@@ -149,7 +170,7 @@ public class FeatureLayer extends AbstractLayer {
         Integer maxFeats = query.getRenderingOptions().getMaxFeatures( getMetadata().getName() );
         final int maxFeatures = maxFeats == null ? -1 : maxFeats;
 
-        return new FeatureLayerData( queries, featureStore, maxFeatures, style, ftName );
+        return new FeatureLayerData( queries, featureStore, maxFeatures, style, ftName, prefetchExecutor );
     }
 
     @Override
@@ -186,7 +207,16 @@ public class FeatureLayer extends AbstractLayer {
 
         LOG.debug( "Finished querying the feature store(s)." );
 
-        return new FeatureLayerData( queries, featureStore, query.getFeatureCount(), style, featureType );
+        return new FeatureLayerData( queries, featureStore, query.getFeatureCount(), style, featureType,
+                                     prefetchExecutor );
+    }
+
+    @Override
+    public void destroy() {
+        // the executor is shared with the other layers of the store, but these are destroyed at the same time
+        if ( !prefetchExecutor.isDefault() ) {
+            prefetchExecutor.shutdown();
+        }
     }
 
 }
@@ -50,7 +50,7 @@ import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.query.Query;
 import org.deegree.feature.stream.FeatureInputStream;
-import org.deegree.feature.stream.ThreadedFeatureInputStream;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
 import org.deegree.feature.types.AppSchemas;
 import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
 import org.deegree.filter.FilterEvaluationException;
@@ -81,8 +81,25 @@ public class FeatureLayerData implements LayerData {
 
     private final FeatureStore featureStore;
 
+    private final FeaturePrefetchExecutor prefetchExecutor;
+
     public FeatureLayerData( List<Query> queries, FeatureStore featureStore, int maxFeatures, Style style, QName ftName ) {
+        this( queries, featureStore, maxFeatures, style, ftName, FeaturePrefetchExecutor.getDefault() );
+    }
+
+    /**
+     * @param queries
+     * @param featureStore
+     * @param maxFeatures
+     * @param style
+     * @param ftName
+     * @param prefetchExecutor
+     *            used to read the features while rendering, must not be <code>null</code>
+     */
+    public FeatureLayerData( List<Query> queries, FeatureStore featureStore, int maxFeatures, Style style,
+                             QName ftName, FeaturePrefetchExecutor prefetchExecutor ) {
         this.queries = queries;
+        this.prefetchExecutor = prefetchExecutor;
         this.featureStore = featureStore;
         this.maxFeatures = maxFeatures;
         this.style = style;
@@ -98,9 +115,8 @@ public class FeatureLayerData implements LayerData {
     public void render( RenderContext context ) throws InterruptedException {
         FeatureInputStream features = null;
         try {
-            // TODO Should this always be done on this level? What about queueSize value?
             features = featureStore.query( queries.toArray( new Query[queries.size()] ) );
-            features = new ThreadedFeatureInputStream( features, 100 );
+            features = prefetchExecutor.prefetch( features );
 
             FeatureStreamRenderer renderer = new FeatureStreamRenderer( context, maxFeatures, evaluator );
             renderer.renderFeatureStream( features, style );
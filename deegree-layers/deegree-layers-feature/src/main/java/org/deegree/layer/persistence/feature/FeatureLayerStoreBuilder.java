@@ -31,8 +31,10 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreProvider;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
 import org.deegree.layer.persistence.LayerStore;
 import org.deegree.layer.persistence.feature.jaxb.FeatureLayers;
+import org.deegree.layer.persistence.feature.jaxb.FeatureLayers.Prefetch;
 import org.deegree.workspace.ResourceBuilder;
 import org.deegree.workspace.ResourceInitException;
 import org.deegree.workspace.ResourceMetadata;
@@ -64,9 +66,10 @@ public class FeatureLayerStoreBuilder implements ResourceBuilder<LayerStore> {
 
     @Override
     public LayerStore build() {
+        FeaturePrefetchExecutor prefetchExecutor = buildPrefetchExecutor();
         try {
             if ( config.getAutoLayers() != null ) {
-                AutoFeatureLayerBuilder builder = new AutoFeatureLayerBuilder( workspace, metadata );
+                AutoFeatureLayerBuilder builder = new AutoFeatureLayerBuilder( workspace, metadata, prefetchExecutor );
                 return builder.createInAutoMode( config.getAutoLayers() );
             }
 
@@ -79,11 +82,30 @@ public class FeatureLayerStoreBuilder implements ResourceBuilder<LayerStore> {
                                                  + " is not available." );
             }
 
-            ManualFeatureLayerBuilder builder = new ManualFeatureLayerBuilder( config, metadata, store, workspace );
+            ManualFeatureLayerBuilder builder = new ManualFeatureLayerBuilder( config, metadata, store, workspace,
+                                                                               prefetchExecutor );
             return builder.buildFeatureLayers();
         } catch ( Exception e ) {
+            prefetchExecutor.shutdown();
             throw new ResourceInitException( "Could not parse layer configuration file: " + e.getLocalizedMessage(), e );
         }
     }
 
+    private FeaturePrefetchExecutor buildPrefetchExecutor() {
+        String id = metadata.getIdentifier().getId();
+        Prefetch prefetch = config.getPrefetch();
+        if ( prefetch == null ) {
+            return new FeaturePrefetchExecutor( id, FeaturePrefetchExecutor.DEFAULT_THREADS,
+                                                FeaturePrefetchExecutor.DEFAULT_MAX_QUEUED,
+                                                FeaturePrefetchExecutor.DEFAULT_QUEUE_SIZE,
+                                                FeaturePrefetchExecutor.DEFAULT_BATCH_SIZE );
+        }
+        try {
+            return new FeaturePrefetchExecutor( id, prefetch.getThreads(), prefetch.getMaxQueued(),
+                                                prefetch.getQueueSize(), prefetch.getBatchSize() );
+        } catch ( IllegalArgumentException e ) {
+            throw new ResourceInitException( e.getLocalizedMessage(), e );
+        }
+    }
+
 }
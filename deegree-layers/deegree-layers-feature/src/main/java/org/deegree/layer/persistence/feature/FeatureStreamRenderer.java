@@ -43,20 +43,16 @@ package org.deegree.layer.persistence.feature;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-
-import org.deegree.commons.utils.Triple;
 import org.deegree.feature.Feature;
 import org.deegree.feature.stream.FeatureInputStream;
 import org.deegree.filter.XPathEvaluator;
-import org.deegree.geometry.Geometry;
 import org.deegree.rendering.r2d.labelplacement.AutoLabelPlacement;
 import org.deegree.rendering.r2d.Renderer;
 import org.deegree.rendering.r2d.TextRenderer;
 import org.deegree.rendering.r2d.LabelRenderer;
 import org.deegree.rendering.r2d.Label;
 import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.style.se.unevaluated.CompiledStyle;
 import org.deegree.style.se.unevaluated.Style;
 import org.deegree.style.styling.Styling;
 import org.deegree.style.styling.TextStyling;
@@ -95,20 +91,24 @@ class FeatureStreamRenderer {
         LabelRenderer labelRenderer = context.getLabelRenderer();
         //ArrayList<Label> labelList = new ArrayList<Label>();
         
+        CompiledStyle compiled = style.compile();
+        CompiledStyle.Result evalds = new CompiledStyle.Result();
+
         for ( Feature f : features ) {
             if ( Thread.interrupted() ) {
                 throw new InterruptedException();
             }
             try {
-                LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evalds = style.evaluate( f,
-                                                                                                   (XPathEvaluator<Feature>) evaluator );
-                for ( Triple<Styling, LinkedList<Geometry>, String> evald : evalds ) {
-                    if ( evald.first instanceof TextStyling ) {
+                compiled.evaluate( f, (XPathEvaluator<Feature>) evaluator, evalds );
+                for ( int i = 0; i < evalds.size(); ++i ) {
+                    Styling<?> styling = evalds.getStyling( i );
+                    if ( styling instanceof TextStyling ) {
                         //textRenderer.render( (TextStyling) evald.first, evald.third, evald.second );
                        // labelList.addAll( 
-                        labelRenderer.createLabel( (TextStyling) evald.first, evald.third, evald.second );
+                        labelRenderer.createLabel( (TextStyling) styling, evalds.getText( i ),
+                                                   evalds.getGeometries( i ) );
                     } else {
-                        renderer.render( evald.first, evald.second );
+                        renderer.render( styling, evalds.getGeometries( i ) );
                     }
                 }
             } catch ( Throwable e ) {
@@ -55,6 +55,7 @@ import javax.xml.stream.XMLStreamException;
 import org.deegree.commons.utils.Pair;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
 import org.deegree.filter.OperatorFilter;
 import org.deegree.filter.sort.SortProperty;
 import org.deegree.layer.Layer;
@@ -85,12 +86,15 @@ class ManualFeatureLayerBuilder {
 
     private Workspace workspace;
 
+    private FeaturePrefetchExecutor prefetchExecutor;
+
     ManualFeatureLayerBuilder( FeatureLayers lays, ResourceMetadata<LayerStore> metadata, FeatureStore store,
-                               Workspace workspace ) {
+                               Workspace workspace, FeaturePrefetchExecutor prefetchExecutor ) {
         this.lays = lays;
         this.metadata = metadata;
         this.store = store;
         this.workspace = workspace;
+        this.prefetchExecutor = prefetchExecutor;
     }
 
     MultipleLayerStore buildFeatureLayers()
@@ -118,7 +122,7 @@ class ManualFeatureLayerBuilder {
             Pair<Map<String, Style>, Map<String, Style>> p = parseStyles( workspace, lay.getName(), lay.getStyleRef() );
             md.setStyles( p.first );
             md.setLegendStyles( p.second );
-            Layer l = new FeatureLayer( md, store, featureType, filter, sortBy, sortByFeatureInfo );
+            Layer l = new FeatureLayer( md, store, featureType, filter, sortBy, sortByFeatureInfo, prefetchExecutor );
             map.put( lay.getName(), l );
         }
         return new MultipleLayerStore( map, metadata );
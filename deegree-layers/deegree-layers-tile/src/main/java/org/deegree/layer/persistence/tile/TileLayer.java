@@ -43,10 +43,12 @@ package org.deegree.layer.persistence.tile;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.cs.coordinatesystems.ICRS;
@@ -76,8 +78,23 @@ public class TileLayer extends AbstractLayer {
     // maps crs to tile matrix set ids
     private final Map<ICRS, String> coordinateSystems = new LinkedHashMap<ICRS, String>();
 
+    // maps tile matrix set ids to executors used to fetch tiles concurrently
+    private final Map<String, ThreadPoolExecutor> prefetchExecutors;
+
     public TileLayer( LayerMetadata md, List<TileDataSet> datasets ) {
+        this( md, datasets, Collections.<String, ThreadPoolExecutor> emptyMap() );
+    }
+
+    /**
+     * @param md
+     * @param datasets
+     * @param prefetchExecutors
+     *            executors used to fetch and decode tiles concurrently, keyed by tile matrix set id, tiles of tile
+     *            data sets without executor are fetched sequentially, never <code>null</code>
+     */
+    public TileLayer( LayerMetadata md, List<TileDataSet> datasets, Map<String, ThreadPoolExecutor> prefetchExecutors ) {
         super( md );
+        this.prefetchExecutors = prefetchExecutors;
         for ( TileDataSet tds : datasets ) {
             coordinateSystems.put( tds.getTileMatrixSet().getSpatialMetadata().getCoordinateSystems().get( 0 ),
                                    tds.getTileMatrixSet().getIdentifier() );
@@ -101,7 +118,12 @@ public class TileLayer extends AbstractLayer {
         TileDataSet data = tileDataSets.get( tds );
 
         Iterator<Tile> tiles = data.getTiles( env, query.getResolution() );
-        return new TileLayerData( tiles );
+        ThreadPoolExecutor executor = prefetchExecutors.get( tds );
+        if ( executor == null ) {
+            return new TileLayerData( tiles );
+        }
+        // keep the pool busy while the renderer draws the tiles that are already available
+        return new TileLayerData( tiles, executor, 2 * executor.getMaximumPoolSize() );
     }
 
     @Override
@@ -128,4 +150,12 @@ public class TileLayer extends AbstractLayer {
     public boolean isStyleApplicable( StyleRef style ) {
         return true;
     }
+
+    @Override
+    public void destroy() {
+        // executors may be shared with other layers of the store, but these are destroyed at the same time
+        for ( ThreadPoolExecutor executor : prefetchExecutors.values() ) {
+            executor.shutdownNow();
+        }
+    }
 }
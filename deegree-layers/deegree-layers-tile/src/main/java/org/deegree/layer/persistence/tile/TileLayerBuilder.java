@@ -45,10 +45,17 @@ import static org.deegree.commons.ows.metadata.DescriptionConverter.fromJaxb;
 import static org.deegree.geometry.metadata.SpatialMetadataConverter.fromJaxb;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deegree.commons.ows.metadata.Description;
 import org.deegree.commons.utils.DoublePair;
@@ -80,12 +87,16 @@ class TileLayerBuilder {
 
     private Workspace workspace;
 
+    // tile fetching executors are shared among all layers that use the same tile store
+    private final Map<String, ThreadPoolExecutor> prefetchExecutors = new HashMap<String, ThreadPoolExecutor>();
+
     TileLayerBuilder( Workspace workspace ) {
         this.workspace = workspace;
     }
 
     TileLayer createLayer( TileLayerType cfg ) {
         List<TileDataSet> datasets = new ArrayList<TileDataSet>();
+        Map<String, ThreadPoolExecutor> executors = new HashMap<String, ThreadPoolExecutor>();
         Envelope envelope = null;
         Set<ICRS> crsSet = new LinkedHashSet<ICRS>();
         for ( TileLayerType.TileDataSet tds : cfg.getTileDataSet() ) {
@@ -106,6 +117,11 @@ class TileLayerBuilder {
 
             datasets.add( dataset );
 
+            if ( tds.getPrefetchThreads() != null ) {
+                ThreadPoolExecutor executor = getPrefetchExecutor( id, tds.getPrefetchThreads() );
+                executors.put( dataset.getTileMatrixSet().getIdentifier(), executor );
+            }
+
             SpatialMetadata smd = dataset.getTileMatrixSet().getSpatialMetadata();
             crsSet.addAll( smd.getCoordinateSystems() );
             Envelope env = smd.getEnvelope();
@@ -132,7 +148,32 @@ class TileLayerBuilder {
             md.setScaleDenominators( p );
         }
         md.setMetadataId( cfg.getMetadataSetId() );
-        return new TileLayer( md, datasets );
+        return new TileLayer( md, datasets, executors );
+    }
+
+    private ThreadPoolExecutor getPrefetchExecutor( final String tileStoreId, BigInteger threads ) {
+        int numThreads = threads.min( BigInteger.valueOf( Integer.MAX_VALUE ) ).intValue();
+        ThreadPoolExecutor executor = prefetchExecutors.get( tileStoreId );
+        if ( executor == null ) {
+            ThreadFactory factory = new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread( Runnable r ) {
+                    Thread t = new Thread( r, "tile-prefetch-" + tileStoreId + "-" + count.incrementAndGet() );
+                    t.setDaemon( true );
+                    return t;
+                }
+            };
+            executor = (ThreadPoolExecutor) Executors.newFixedThreadPool( numThreads, factory );
+            prefetchExecutors.put( tileStoreId, executor );
+            LOG.debug( "Fetching tiles of tile store {} using {} threads.", tileStoreId, numThreads );
+        } else if ( executor.getMaximumPoolSize() < numThreads ) {
+            // the limit applies per tile store, use the highest configured value
+            executor.setMaximumPoolSize( numThreads );
+            executor.setCorePoolSize( numThreads );
+        }
+        return executor;
     }
 
 }
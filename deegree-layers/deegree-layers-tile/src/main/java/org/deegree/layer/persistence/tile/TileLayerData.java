@@ -40,16 +40,34 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.layer.persistence.tile;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
 import org.deegree.layer.LayerData;
 import org.deegree.rendering.r2d.TileRenderer;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.slf4j.Logger;
 
 /**
  * <code>TileLayerData</code>
+ * <p>
+ * If an executor is given, tiles are fetched and decoded concurrently on the executor, while they are still handed to
+ * the tile renderer in iteration order. The number of tiles that are fetched ahead is bounded by the given prefetch
+ * limit.
+ * </p>
  * 
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  * @author last edited by: $Author: mschneider $
@@ -59,17 +77,73 @@ import org.deegree.tile.Tile;
 
 public class TileLayerData implements LayerData {
 
+    private static final Logger LOG = getLogger( TileLayerData.class );
+
     private final Iterator<Tile> tiles;
 
+    private final ExecutorService executor;
+
+    private final int prefetchLimit;
+
     public TileLayerData( Iterator<Tile> tiles ) {
+        this( tiles, null, 0 );
+    }
+
+    /**
+     * @param tiles
+     *            tiles to render, never <code>null</code>
+     * @param executor
+     *            executor to fetch and decode tiles on, if <code>null</code>, tiles are fetched sequentially
+     * @param prefetchLimit
+     *            maximum number of tiles that are fetched ahead of the renderer
+     */
+    public TileLayerData( Iterator<Tile> tiles, ExecutorService executor, int prefetchLimit ) {
         this.tiles = tiles;
+        this.executor = executor;
+        this.prefetchLimit = Math.max( 1, prefetchLimit );
     }
 
     @Override
-    public void render( RenderContext context ) {
+    public void render( RenderContext context )
+                            throws InterruptedException {
         TileRenderer renderer = context.getTileRenderer();
-        while ( tiles.hasNext() ) {
-            renderer.render( tiles.next() );
+        if ( executor == null ) {
+            while ( tiles.hasNext() ) {
+                renderer.render( tiles.next() );
+            }
+            return;
+        }
+        Deque<Future<Tile>> pending = new ArrayDeque<Future<Tile>>();
+        try {
+            while ( tiles.hasNext() || !pending.isEmpty() ) {
+                while ( pending.size() < prefetchLimit && tiles.hasNext() ) {
+                    pending.add( executor.submit( new TileFetcher( tiles.next() ) ) );
+                }
+                renderer.render( getTile( pending.poll() ) );
+            }
+        } catch ( InterruptedException e ) {
+            LOG.debug( "Interrupted while waiting for tiles." );
+            throw e;
+        } finally {
+            for ( Future<Tile> f : pending ) {
+                f.cancel( true );
+            }
+        }
+    }
+
+    private static Tile getTile( Future<Tile> future )
+                            throws InterruptedException {
+        try {
+            return future.get();
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException( cause );
         }
     }
 
@@ -78,4 +152,73 @@ public class TileLayerData implements LayerData {
         return null;
     }
 
+    /**
+     * Fetches and decodes a tile, the result can be passed to the tile renderer.
+     */
+    private static class TileFetcher implements Callable<Tile> {
+
+        private final Tile tile;
+
+        TileFetcher( Tile tile ) {
+            this.tile = tile;
+        }
+
+        @Override
+        public Tile call() {
+            if ( tile == null ) {
+                return null;
+            }
+            try {
+                return new DecodedTile( tile, tile.getAsImage(), null );
+            } catch ( TileIOException e ) {
+                // the renderer takes care of reporting broken tiles
+                return new DecodedTile( tile, null, e );
+            }
+        }
+    }
+
+    /**
+     * Tile with an already decoded image (or the exception that occurred while decoding it).
+     */
+    private static class DecodedTile implements Tile {
+
+        private final Tile tile;
+
+        private final BufferedImage image;
+
+        private final TileIOException exception;
+
+        DecodedTile( Tile tile, BufferedImage image, TileIOException exception ) {
+            this.tile = tile;
+            this.image = image;
+            this.exception = exception;
+        }
+
+        @Override
+        public BufferedImage getAsImage()
+                                throws TileIOException {
+            if ( exception != null ) {
+                throw exception;
+            }
+            return image;
+        }
+
+        @Override
+        public InputStream getAsStream()
+                                throws TileIOException {
+            return tile.getAsStream();
+        }
+
+        @Override
+        public Envelope getEnvelope() {
+            return tile.getEnvelope();
+        }
+
+        @Override
+        public FeatureCollection getFeatures( int i, int j, int limit )
+                                throws UnsupportedOperationException {
+            return tile.getFeatures( i, j, limit );
+        }
+    }
+
 }
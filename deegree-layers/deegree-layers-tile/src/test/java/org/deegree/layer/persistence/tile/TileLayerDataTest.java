@@ -0,0 +1,240 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.layer.persistence.tile;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.rendering.r2d.TileRenderer;
+import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent tile prefetching of {@link TileLayerData}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileLayerDataTest {
+
+    private ExecutorService executor;
+
+    private final List<Tile> rendered = new ArrayList<Tile>();
+
+    private RenderContext context;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool( 8 );
+        context = mock( RenderContext.class );
+        when( context.getTileRenderer() ).thenReturn( new TileRenderer() {
+            @Override
+            public void render( Tile tile ) {
+                rendered.add( tile );
+            }
+        } );
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testTilesAreRenderedInIterationOrder()
+                            throws Exception {
+        List<TestTile> tiles = new ArrayList<TestTile>();
+        for ( int i = 0; i < 10; i++ ) {
+            // earlier tiles take longer to decode, so they complete out of order
+            tiles.add( new TestTile( 10 - i, null, null ) );
+        }
+        new TileLayerData( new ArrayList<Tile>( tiles ).iterator(), executor, 4 ).render( context );
+
+        assertEquals( tiles.size(), rendered.size() );
+        for ( int i = 0; i < tiles.size(); i++ ) {
+            assertSame( tiles.get( i ).image, rendered.get( i ).getAsImage() );
+        }
+    }
+
+    @Test
+    public void testTilesAreDecodedConcurrently()
+                            throws Exception {
+        CountDownLatch decoding = new CountDownLatch( 2 );
+        List<Tile> tiles = new ArrayList<Tile>();
+        tiles.add( new TestTile( 0, decoding, null ) );
+        tiles.add( new TestTile( 0, decoding, null ) );
+        new TileLayerData( tiles.iterator(), executor, 2 ).render( context );
+
+        // each tile waits until the other one is being decoded, so the images are only there if both ran at once
+        assertEquals( 2, rendered.size() );
+        for ( Tile tile : rendered ) {
+            assertTrue( tile.getAsImage() != null );
+        }
+    }
+
+    @Test
+    public void testPrefetchLimit()
+                            throws Exception {
+        AtomicInteger decoding = new AtomicInteger();
+        AtomicInteger maxDecoding = new AtomicInteger();
+        List<Tile> tiles = new ArrayList<Tile>();
+        for ( int i = 0; i < 20; i++ ) {
+            tiles.add( new CountingTile( decoding, maxDecoding ) );
+        }
+        new TileLayerData( tiles.iterator(), executor, 3 ).render( context );
+
+        assertEquals( 20, rendered.size() );
+        assertTrue( maxDecoding.get() <= 3 );
+    }
+
+    @Test
+    public void testDecodingFailureIsHandedToRenderer()
+                            throws Exception {
+        TileIOException e = new TileIOException( "Broken tile." );
+        List<Tile> tiles = new ArrayList<Tile>();
+        tiles.add( new TestTile( 0, null, e ) );
+        new TileLayerData( tiles.iterator(), executor, 2 ).render( context );
+
+        assertEquals( 1, rendered.size() );
+        try {
+            rendered.get( 0 ).getAsImage();
+            fail( "Expected the decoding exception." );
+        } catch ( TileIOException actual ) {
+            assertSame( e, actual );
+        }
+    }
+
+    private static class TestTile implements Tile {
+
+        private final BufferedImage image = new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB );
+
+        private final long delay;
+
+        private final CountDownLatch decoding;
+
+        private final TileIOException exception;
+
+        TestTile( long delay, CountDownLatch decoding, TileIOException exception ) {
+            this.delay = delay;
+            this.decoding = decoding;
+            this.exception = exception;
+        }
+
+        @Override
+        public BufferedImage getAsImage()
+                                throws TileIOException {
+            try {
+                Thread.sleep( delay );
+                if ( decoding != null ) {
+                    decoding.countDown();
+                    if ( !decoding.await( 5, SECONDS ) ) {
+                        return null;
+                    }
+                }
+            } catch ( InterruptedException e ) {
+                throw new TileIOException( e );
+            }
+            if ( exception != null ) {
+                throw exception;
+            }
+            return image;
+        }
+
+        @Override
+        public InputStream getAsStream() {
+            return null;
+        }
+
+        @Override
+        public Envelope getEnvelope() {
+            return null;
+        }
+
+        @Override
+        public FeatureCollection getFeatures( int i, int j, int limit ) {
+            return null;
+        }
+    }
+
+    private static class CountingTile extends TestTile {
+
+        private final AtomicInteger decoding;
+
+        private final AtomicInteger maxDecoding;
+
+        CountingTile( AtomicInteger decoding, AtomicInteger maxDecoding ) {
+            super( 5, null, null );
+            this.decoding = decoding;
+            this.maxDecoding = maxDecoding;
+        }
+
+        @Override
+        public BufferedImage getAsImage()
+                                throws TileIOException {
+            int current = decoding.incrementAndGet();
+            try {
+                int max;
+                while ( ( max = maxDecoding.get() ) < current && !maxDecoding.compareAndSet( max, current ) ) {
+                    // retry
+                }
+                return super.getAsImage();
+            } finally {
+                decoding.decrementAndGet();
+            }
+        }
+    }
+
+}
@@ -46,8 +46,13 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.deegree.commons.utils.ComparablePair;
 import org.deegree.commons.utils.ConfigManager;
@@ -59,11 +64,22 @@ import org.deegree.cs.persistence.CRSManager;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.GeometryFactory;
 import org.deegree.geometry.GeometryTransformer;
+import org.deegree.services.OWS;
+import org.deegree.services.OWSProvider;
+import org.deegree.services.controller.metrics.LatencyHistogram.Snapshot;
+import org.deegree.services.controller.metrics.RequestMetrics;
+import org.deegree.services.controller.metrics.RequestMetrics.Measurement;
+import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.h2.util.IOUtils;
 import org.slf4j.Logger;
 
 /**
  * Keeps track of request and runtime statistics for the {@link OGCFrontController}.
+ * <p>
+ * The request counters and latencies are kept by {@link RequestMetrics} (lock-free, per service / operation / resource).
+ * Incoming KVP requests are appended to <code>requests.txt</code> by a background thread, so request threads never wait
+ * for the file.
+ * </p>
  * 
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
  * @author last edited by: $Author$
@@ -74,13 +90,11 @@ public class FrontControllerStats {
 
     private static final Logger LOG = getLogger( FrontControllerStats.class );
 
-    private static long numDispatched;
+    private static final int MAX_QUEUED_KVP_REQUESTS = 10000;
 
-    private static long numFinished;
+    private static final String[] RESOURCE_PARAMS = { "LAYERS", "LAYER", "TYPENAME", "TYPENAMES" };
 
-    private static double averageResponseTime;
-
-    private static double maxResponseTime;
+    private static final BlockingQueue<String> kvpRequests = new LinkedBlockingQueue<String>( MAX_QUEUED_KVP_REQUESTS );
 
     private static Envelope bbox;
 
@@ -92,61 +106,109 @@ public class FrontControllerStats {
      * Called by the {@link OGCFrontController} to indicate that a new request has just been dispatched to an
      * {@link AbstractOWS}.
      * 
-     * @return current time
+     * @param ows
+     *            service the request is dispatched to, must not be <code>null</code>
+     * @param operation
+     *            requested operation, can be <code>null</code>
+     * @param resources
+     *            requested layers / feature types, can be <code>null</code>
+     * @return measurement to be passed to {@link #requestFinished(Measurement, HttpResponseBuffer, boolean)}
+     */
+    static Measurement requestDispatched( OWS ows, String operation, Collection<String> resources ) {
+        return RequestMetrics.getInstance().start( ows.getMetadata().getIdentifier().getId(),
+                                                   getOperationLabel( ows, operation ), resources );
+    }
+
+    /**
+     * Returns the name of the given operation as declared by the service, so differently cased requests are counted
+     * as one operation. Operations unknown to the service are counted as {@link RequestMetrics#OTHER}, so clients
+     * cannot create new series with arbitrary request names.
+     * 
+     * @param ows
+     *            service the request is dispatched to, must not be <code>null</code>
+     * @param operation
+     *            requested operation, can be <code>null</code>
+     * @return name of the operation, <code>null</code> if the operation is <code>null</code>
      */
-    synchronized static long requestDispatched() {
-        numDispatched++;
-        return System.currentTimeMillis();
+    static String getOperationLabel( OWS ows, String operation ) {
+        if ( operation == null ) {
+            return null;
+        }
+        String name = operation.trim();
+        Object provider = ows.getMetadata().getProvider();
+        if ( provider instanceof OWSProvider ) {
+            ImplementationMetadata<?> md = ( (OWSProvider) provider ).getImplementationMetadata();
+            if ( md != null ) {
+                for ( String handled : md.getHandledRequests() ) {
+                    if ( handled.equalsIgnoreCase( name ) ) {
+                        return handled;
+                    }
+                }
+            }
+        }
+        return RequestMetrics.OTHER;
     }
 
     /**
      * Called by the {@link OGCFrontController} to indicate that a dispatched request has been finished.
      * 
-     * @param dispatchTime
-     *            time when the request has been dispatched
+     * @param measurement
+     *            measurement returned by {@link #requestDispatched(OWS, String, Collection)}
+     * @param response
+     *            response of the request
+     * @param completed
+     *            <code>false</code>, if the service failed with an exception
      */
-    synchronized static void requestFinished( long dispatchTime ) {
-        long duration = System.currentTimeMillis() - dispatchTime;
-        if ( duration > maxResponseTime ) {
-            maxResponseTime = duration;
+    static void requestFinished( Measurement measurement, HttpResponseBuffer response, boolean completed ) {
+        measurement.finish( response.getBytesWritten(), !completed || response.isExceptionSent() );
+    }
+
+    /**
+     * Returns the requested layers / feature types of a KVP request.
+     * 
+     * @param normalizedKVPParams
+     *            request parameters (keys in upper case), must not be <code>null</code>
+     * @return requested layers / feature types, may be empty, but never <code>null</code>
+     */
+    static List<String> getRequestedResources( Map<String, String> normalizedKVPParams ) {
+        List<String> resources = new ArrayList<String>();
+        for ( String param : RESOURCE_PARAMS ) {
+            String value = normalizedKVPParams.get( param );
+            if ( value == null ) {
+                continue;
+            }
+            for ( String resource : value.split( "," ) ) {
+                resource = resource.trim();
+                if ( !resource.isEmpty() && !resources.contains( resource ) ) {
+                    resources.add( resource );
+                }
+            }
         }
-        averageResponseTime = ( averageResponseTime * numFinished + duration ) / ( numFinished + 1 );
-        numFinished++;
+        return resources;
     }
 
     /**
+     * Queues the request for appending it to the requests file (the file is written by a background thread).
+     * 
      * @param request
      *            the query string
      * @param timestamp
      */
-    public synchronized static void incomingKVP( String request, long timestamp ) {
+    public static void incomingKVP( String request, long timestamp ) {
+        KVPRequestWriter.ensureStarted();
+        if ( !kvpRequests.offer( timestamp + " " + request ) ) {
+            LOG.debug( "Too many queued requests, not storing request '{}'.", request );
+        }
+    }
+
+    private static void storeKVPRequests( List<String> requests ) {
         try {
             OutputStream os = ConfigManager.getOutputResource( "requests.txt", true );
             PrintWriter out = new PrintWriter( new OutputStreamWriter( os, "UTF-8" ) );
-            out.println( timestamp + " " + request );
-            out.close();
-            if ( request.toUpperCase().contains( "REQUEST=GETMAP" ) ) {
-                try {
-                    Map<String, String> map = KVPUtils.getNormalizedKVPMap( request, "UTF-8" );
-                    if ( map.get( "LAYERS" ).equals( "statistics" ) ) {
-                        return;
-                    }
-                    double[] ds = splitAsDoubles( map.get( "BBOX" ), "," );
-                    Envelope newBox = fac.createEnvelope( ds[0], ds[1], ds[2], ds[3],
-                                                          CRSManager.getCRSRef( map.get( "SRS" ) ) );
-                    if ( bbox != null ) {
-                        bbox.merge( trans.transform( newBox ) );
-                    }
-                } catch ( UnsupportedEncodingException e ) {
-                    LOG.trace( "Stack trace:", e );
-                } catch ( IllegalArgumentException e ) {
-                    LOG.trace( "Stack trace:", e );
-                } catch ( TransformationException e ) {
-                    LOG.trace( "Stack trace:", e );
-                } catch ( UnknownCRSException e ) {
-                    LOG.trace( "Stack trace:", e );
-                }
+            for ( String request : requests ) {
+                out.println( request );
             }
+            out.close();
         } catch ( FileNotFoundException e ) {
             LOG.debug( "Could not find the file to store requests." );
             LOG.debug( " Probably the DEEGREE_HOME directory does not exist and could not be created." );
@@ -154,6 +216,36 @@ public class FrontControllerStats {
         } catch ( UnsupportedEncodingException e ) {
             LOG.trace( "Stack trace:", e );
         }
+        for ( String line : requests ) {
+            String request = line.substring( line.indexOf( ' ' ) + 1 );
+            if ( request.toUpperCase().contains( "REQUEST=GETMAP" ) ) {
+                mergeGetMapEnvelope( request );
+            }
+        }
+    }
+
+    private static synchronized void mergeGetMapEnvelope( String request ) {
+        if ( bbox == null ) {
+            return;
+        }
+        try {
+            Map<String, String> map = KVPUtils.getNormalizedKVPMap( request, "UTF-8" );
+            if ( map.get( "LAYERS" ).equals( "statistics" ) ) {
+                return;
+            }
+            double[] ds = splitAsDoubles( map.get( "BBOX" ), "," );
+            Envelope newBox = fac.createEnvelope( ds[0], ds[1], ds[2], ds[3],
+                                                  CRSManager.getCRSRef( map.get( "SRS" ) ) );
+            bbox.merge( trans.transform( newBox ) );
+        } catch ( UnsupportedEncodingException e ) {
+            LOG.trace( "Stack trace:", e );
+        } catch ( IllegalArgumentException e ) {
+            LOG.trace( "Stack trace:", e );
+        } catch ( TransformationException e ) {
+            LOG.trace( "Stack trace:", e );
+        } catch ( UnknownCRSException e ) {
+            LOG.trace( "Stack trace:", e );
+        }
     }
 
     /**
@@ -162,7 +254,7 @@ public class FrontControllerStats {
      * @return number of dispatched requests
      */
     public static long getDispatchedRequests() {
-        return numDispatched;
+        return RequestMetrics.getInstance().getTotal().getRequests();
     }
 
     /**
@@ -172,7 +264,7 @@ public class FrontControllerStats {
      * @return number of active requests
      */
     public static long getActiveRequests() {
-        return numDispatched - numFinished;
+        return RequestMetrics.getInstance().getTotal().getActive();
     }
 
     /**
@@ -181,7 +273,11 @@ public class FrontControllerStats {
      * @return the average response time
      */
     public static long getAverageResponseTime() {
-        return (long) averageResponseTime;
+        Snapshot snapshot = RequestMetrics.getInstance().getTotal().getLatency().getSnapshot();
+        if ( snapshot.getCount() == 0 ) {
+            return 0;
+        }
+        return snapshot.getSum() / snapshot.getCount() / 1000;
     }
 
     /**
@@ -190,7 +286,7 @@ public class FrontControllerStats {
      * @return the maximum response time
      */
     public static long getMaximumResponseTime() {
-        return (long) maxResponseTime;
+        return RequestMetrics.getInstance().getTotal().getLatency().getSnapshot().getMax() / 1000;
     }
 
     /**
@@ -301,4 +397,79 @@ public class FrontControllerStats {
         return bbox;
     }
 
+    /**
+     * Stops the background thread that appends the KVP requests to the requests file, after the queued requests have
+     * been written. Called by the {@link OGCFrontController} on shutdown, so the thread does not survive a redeploy.
+     */
+    public static void shutdown() {
+        KVPRequestWriter.shutdown();
+    }
+
+    /**
+     * Background thread that appends the queued KVP requests to the requests file.
+     */
+    private static class KVPRequestWriter extends Thread {
+
+        private static final Object LOCK = new Object();
+
+        private static volatile KVPRequestWriter instance;
+
+        private KVPRequestWriter() {
+            super( "deegree-request-log-writer" );
+            setDaemon( true );
+        }
+
+        static void ensureStarted() {
+            if ( instance != null ) {
+                return;
+            }
+            synchronized ( LOCK ) {
+                if ( instance == null ) {
+                    KVPRequestWriter writer = new KVPRequestWriter();
+                    writer.start();
+                    instance = writer;
+                }
+            }
+        }
+
+        static void shutdown() {
+            KVPRequestWriter writer;
+            synchronized ( LOCK ) {
+                writer = instance;
+                instance = null;
+            }
+            if ( writer == null ) {
+                return;
+            }
+            writer.interrupt();
+            try {
+                writer.join( 5000 );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<String> requests = new ArrayList<String>();
+            while ( true ) {
+                try {
+                    requests.add( kvpRequests.take() );
+                    kvpRequests.drainTo( requests );
+                    storeKVPRequests( requests );
+                } catch ( InterruptedException e ) {
+                    kvpRequests.drainTo( requests );
+                    if ( !requests.isEmpty() ) {
+                        storeKVPRequests( requests );
+                    }
+                    return;
+                } catch ( Exception e ) {
+                    LOG.debug( "Could not store requests: {}", e.getLocalizedMessage() );
+                    LOG.trace( "Stack trace:", e );
+                }
+                requests.clear();
+            }
+        }
+    }
+
 }
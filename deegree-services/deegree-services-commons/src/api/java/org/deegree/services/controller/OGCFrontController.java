@@ -102,18 +102,21 @@ import org.deegree.commons.config.ResourceInitException;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.tom.ows.Version;
 import org.deegree.commons.utils.DeegreeAALogoUtils;
+import org.deegree.commons.utils.image.ImageEncoders;
 import org.deegree.commons.utils.io.LoggingInputStream;
 import org.deegree.commons.utils.kvp.KVPUtils;
 import org.deegree.commons.xml.XMLAdapter;
 import org.deegree.commons.xml.XMLProcessingException;
 import org.deegree.commons.xml.stax.XMLInputFactoryUtils;
 import org.deegree.commons.xml.stax.XMLStreamUtils;
+import org.deegree.cs.persistence.TransformationRegistry;
 import org.deegree.feature.stream.ThreadedFeatureInputStream;
 import org.deegree.services.OWS;
 import org.deegree.services.OWSProvider;
 import org.deegree.services.OwsManager;
 import org.deegree.services.authentication.SecurityException;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.metrics.RequestMetrics.Measurement;
 import org.deegree.services.controller.security.SecurityConfiguration;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.controller.utils.LoggingHttpResponseWrapper;
@@ -802,12 +805,15 @@ public class OGCFrontController extends HttpServlet {
             }
 
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
-            long dispatchTime = FrontControllerStats.requestDispatched();
+            Measurement measurement = FrontControllerStats.requestDispatched( ows, request,
+                                                                              FrontControllerStats.getRequestedResources( normalizedKVPParams ) );
+            boolean completed = false;
             try {
                 watchTimeout( ows, request );
                 ows.doKVP( normalizedKVPParams, requestWrapper, response, multiParts );
+                completed = true;
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                FrontControllerStats.requestFinished( measurement, response, completed );
                 unwatchTimeout();
             }
         } catch ( SecurityException e ) {
@@ -889,12 +895,14 @@ public class OGCFrontController extends HttpServlet {
             }
             if ( ows != null ) {
                 LOG.debug( "Dispatching request to OWS: " + ows.getClass().getName() );
-                long dispatchTime = FrontControllerStats.requestDispatched();
+                Measurement measurement = FrontControllerStats.requestDispatched( ows, xmlStream.getLocalName(), null );
+                boolean completed = false;
                 try {
                     watchTimeout( ows, xmlStream.getLocalName() );
                     ows.doXML( xmlStream, requestWrapper, response, multiParts );
+                    completed = true;
                 } finally {
-                    FrontControllerStats.requestFinished( dispatchTime );
+                    FrontControllerStats.requestFinished( measurement, response, completed );
                     unwatchTimeout();
                 }
             }
@@ -1009,12 +1017,16 @@ public class OGCFrontController extends HttpServlet {
             }
 
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
-            long dispatchTime = FrontControllerStats.requestDispatched();
+            Measurement measurement = FrontControllerStats.requestDispatched( ows,
+                                                                              env.getSOAPBodyFirstElementLocalName(),
+                                                                              null );
+            boolean completed = false;
             try {
                 watchTimeout( ows, env.getSOAPBodyFirstElementLocalName() );
                 ows.doSOAP( env, requestWrapper, response, multiParts, factory );
+                completed = true;
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                FrontControllerStats.requestFinished( measurement, response, completed );
             }
         } catch ( SecurityException e ) {
             if ( credentialsProvider != null ) {
@@ -1399,6 +1411,9 @@ public class OGCFrontController extends HttpServlet {
             // just eat it
         }
         Executor.getInstance().shutdown();
+        ImageEncoders.shutdown();
+        FrontControllerStats.shutdown();
+        TransformationRegistry.getInstance().shutdown();
 
         LogFactory.releaseAll();
         LogManager.shutdown();
@@ -0,0 +1,197 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies (in microseconds) with a bounded relative error.
+ * <p>
+ * Values are counted in log-linear buckets: below 32 each value has its own bucket, above that every power of two is
+ * split into 32 buckets, so the reported percentiles are at most ~3% too high. Values above 2^37 microseconds (~38
+ * hours) are counted in the last bucket. Recording is wait-free (atomic increments only), {@link #getSnapshot()}
+ * provides a (not necessarily consistent) copy for computing percentiles.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 36;
+
+    static final int NUM_BUCKETS = SUB_BUCKETS + ( MAX_EXPONENT - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( NUM_BUCKETS );
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the given value.
+     * 
+     * @param micros
+     *            value to be recorded (negative values are recorded as <code>0</code>)
+     */
+    public void record( long micros ) {
+        long value = micros < 0 ? 0 : micros;
+        counts.incrementAndGet( getBucket( value ) );
+        count.increment();
+        sum.add( value );
+        long currentMax = max.get();
+        while ( value > currentMax && !max.compareAndSet( currentMax, value ) ) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Returns a copy of the current state.
+     * 
+     * @return copy of the current state, never <code>null</code>
+     */
+    public Snapshot getSnapshot() {
+        long[] copy = new long[NUM_BUCKETS];
+        long total = 0;
+        for ( int i = 0; i < copy.length; i++ ) {
+            copy[i] = counts.get( i );
+            total += copy[i];
+        }
+        return new Snapshot( copy, total, sum.sum(), max.get() );
+    }
+
+    static int getBucket( long value ) {
+        if ( value < SUB_BUCKETS ) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        if ( exponent > MAX_EXPONENT ) {
+            return NUM_BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) ( value >>> shift ) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long getHighestValue( int bucket ) {
+        if ( bucket < SUB_BUCKETS ) {
+            return bucket;
+        }
+        int shift = ( bucket - SUB_BUCKETS ) / SUB_BUCKETS;
+        int subBucket = ( bucket - SUB_BUCKETS ) % SUB_BUCKETS;
+        long lowest = ( (long) ( SUB_BUCKETS + subBucket ) ) << shift;
+        return lowest + ( 1L << shift ) - 1;
+    }
+
+    /**
+     * Copy of the state of a {@link LatencyHistogram}.
+     * 
+     * @author last edited by: $Author$
+     * 
+     * @version $Revision$, $Date$
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final long max;
+
+        private Snapshot( long[] counts, long count, long sum, long max ) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return sum of the recorded values
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return maximum recorded value, <code>0</code> if no value has been recorded
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the value below which the given fraction of the recorded values lies.
+         * 
+         * @param quantile
+         *            fraction, between <code>0</code> and <code>1</code>
+         * @return upper bound of the quantile (never above the maximum), <code>0</code> if no value has been recorded
+         */
+        public long getQuantile( double quantile ) {
+            if ( count == 0 ) {
+                return 0;
+            }
+            long rank = (long) Math.ceil( quantile * count );
+            if ( rank < 1 ) {
+                rank = 1;
+            }
+            long seen = 0;
+            for ( int i = 0; i < counts.length; i++ ) {
+                seen += counts[i];
+                if ( seen >= rank ) {
+                    return Math.min( getHighestValue( i ), max );
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.deegree.cs.persistence.TransformationRegistry;
+import org.deegree.feature.stream.FeaturePrefetchExecutor;
+
+/**
+ * Provides the {@link RequestMetrics} (and the statistics of the {@link TransformationRegistry} and the
+ * {@link FeaturePrefetchExecutor}s) in the Prometheus text exposition format, so they can be scraped by monitoring
+ * systems.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -3583217736391062812L;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Override
+    protected void doGet( HttpServletRequest request, HttpServletResponse response )
+                            throws ServletException, IOException {
+        response.setContentType( CONTENT_TYPE );
+        response.addHeader( "Cache-Control", "no-cache, no-store" );
+        PrintWriter out = new PrintWriter( new OutputStreamWriter( response.getOutputStream(), "UTF-8" ) );
+        RequestMetrics.getInstance().write( out );
+        writeTransformationRegistry( out );
+        writeFeaturePrefetchExecutors( out );
+        out.flush();
+    }
+
+    private static void writeTransformationRegistry( PrintWriter out ) {
+        TransformationRegistry registry = TransformationRegistry.getInstance();
+        out.println( "# HELP deegree_transformation_cache_hits_total Transformation chains taken from the cache." );
+        out.println( "# TYPE deegree_transformation_cache_hits_total counter" );
+        out.println( "deegree_transformation_cache_hits_total " + registry.getHits() );
+        out.println( "# TYPE deegree_transformation_cache_misses_total counter" );
+        out.println( "deegree_transformation_cache_misses_total " + registry.getMisses() );
+        out.println( "# TYPE deegree_transformation_cache_evictions_total counter" );
+        out.println( "deegree_transformation_cache_evictions_total " + registry.getEvictions() );
+        out.println( "# TYPE deegree_transformation_cache_size gauge" );
+        out.println( "deegree_transformation_cache_size " + registry.size() );
+    }
+
+    private static void writeFeaturePrefetchExecutors( PrintWriter out ) {
+        List<FeaturePrefetchExecutor> executors = FeaturePrefetchExecutor.getInstances();
+        out.println( "# HELP deegree_feature_prefetch_active Producer threads currently reading features." );
+        out.println( "# TYPE deegree_feature_prefetch_active gauge" );
+        for ( FeaturePrefetchExecutor executor : executors ) {
+            out.println( "deegree_feature_prefetch_active" + label( executor ) + executor.getActiveCount() );
+        }
+        out.println( "# HELP deegree_feature_prefetch_queued Producers waiting for a free thread." );
+        out.println( "# TYPE deegree_feature_prefetch_queued gauge" );
+        for ( FeaturePrefetchExecutor executor : executors ) {
+            out.println( "deegree_feature_prefetch_queued" + label( executor ) + executor.getQueuedCount() );
+        }
+        out.println( "# HELP deegree_feature_prefetch_threads Threads currently in the prefetch pool." );
+        out.println( "# TYPE deegree_feature_prefetch_threads gauge" );
+        for ( FeaturePrefetchExecutor executor : executors ) {
+            out.println( "deegree_feature_prefetch_threads" + label( executor ) + executor.getPoolSize() );
+        }
+        out.println( "# HELP deegree_feature_prefetch_rejected_total Streams not prefetched, the pool was saturated." );
+        out.println( "# TYPE deegree_feature_prefetch_rejected_total counter" );
+        for ( FeaturePrefetchExecutor executor : executors ) {
+            out.println( "deegree_feature_prefetch_rejected_total" + label( executor ) + executor.getRejectedCount() );
+        }
+    }
+
+    private static String label( FeaturePrefetchExecutor executor ) {
+        return "{store=\"" + RequestMetrics.escape( executor.getName() ) + "\"} ";
+    }
+
+}
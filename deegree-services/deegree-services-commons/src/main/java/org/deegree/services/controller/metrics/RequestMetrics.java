@@ -0,0 +1,322 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.metrics;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.deegree.services.controller.metrics.LatencyHistogram.Snapshot;
+
+/**
+ * Collects request metrics (number of requests, active requests, errors, response bytes and latency histograms) per
+ * service, operation and requested resource (layer or feature type).
+ * <p>
+ * The request path does not acquire any lock: series are looked up in a concurrent map and all counters are
+ * {@link java.util.concurrent.atomic.LongAdder}s or atomic arrays. As operation and resource names are provided by
+ * clients, the number of series is bounded: once the limit is reached, requests for new combinations are counted with
+ * operation/resource <code>_other</code>.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RequestMetrics {
+
+    /** Placeholder for operation/resource names, if the number of series is exhausted. */
+    public static final String OTHER = "_other";
+
+    static final int DEFAULT_MAX_SERIES = 1000;
+
+    private static final int MAX_NAME_LENGTH = 64;
+
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99, 0.999 };
+
+    private static final RequestMetrics INSTANCE = new RequestMetrics( DEFAULT_MAX_SERIES );
+
+    private final ConcurrentMap<List<String>, RequestSeries> operationSeries = new ConcurrentHashMap<List<String>, RequestSeries>();
+
+    private final ConcurrentMap<List<String>, RequestSeries> resourceSeries = new ConcurrentHashMap<List<String>, RequestSeries>();
+
+    private final RequestSeries total = new RequestSeries( "", "", null );
+
+    private final int maxSeries;
+
+    RequestMetrics( int maxSeries ) {
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * @return the global instance, never <code>null</code>
+     */
+    public static RequestMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the start of a request.
+     * 
+     * @param service
+     *            identifier of the service, can be <code>null</code>
+     * @param operation
+     *            name of the requested operation, can be <code>null</code>
+     * @param resources
+     *            requested layers or feature types, can be <code>null</code>
+     * @return measurement that has to be finished when the request has been processed, never <code>null</code>
+     */
+    public Measurement start( String service, String operation, Collection<String> resources ) {
+        String serviceName = normalize( service );
+        String operationName = normalize( operation );
+        RequestSeries[] series;
+        if ( resources == null || resources.isEmpty() ) {
+            series = new RequestSeries[2];
+        } else {
+            series = new RequestSeries[2 + resources.size()];
+            int i = 2;
+            for ( String resource : resources ) {
+                series[i++] = getSeries( resourceSeries, serviceName, operationName, normalize( resource ) );
+            }
+        }
+        series[0] = total;
+        series[1] = getSeries( operationSeries, serviceName, operationName, null );
+        for ( RequestSeries s : series ) {
+            s.started();
+        }
+        return new Measurement( series );
+    }
+
+    private RequestSeries getSeries( ConcurrentMap<List<String>, RequestSeries> map, String service,
+                                     String operation, String resource ) {
+        List<String> key = resource == null ? asKey( service, operation ) : asKey( service, operation, resource );
+        RequestSeries series = map.get( key );
+        if ( series != null ) {
+            return series;
+        }
+        if ( map.size() >= maxSeries ) {
+            if ( resource == null ) {
+                operation = OTHER;
+                key = asKey( service, operation );
+            } else {
+                resource = OTHER;
+                key = asKey( service, operation, resource );
+            }
+            series = map.get( key );
+            if ( series != null ) {
+                return series;
+            }
+        }
+        series = new RequestSeries( service, operation, resource );
+        RequestSeries existing = map.putIfAbsent( key, series );
+        return existing != null ? existing : series;
+    }
+
+    private static List<String> asKey( String... names ) {
+        List<String> key = new ArrayList<String>( names.length );
+        for ( String name : names ) {
+            key.add( name );
+        }
+        return key;
+    }
+
+    private static String normalize( String name ) {
+        if ( name == null ) {
+            return "";
+        }
+        String s = name.trim();
+        return s.length() > MAX_NAME_LENGTH ? s.substring( 0, MAX_NAME_LENGTH ) : s;
+    }
+
+    /**
+     * @return metrics of all requests, never <code>null</code>
+     */
+    public RequestSeries getTotal() {
+        return total;
+    }
+
+    /**
+     * @return metrics per service and operation, never <code>null</code>
+     */
+    public Collection<RequestSeries> getOperationSeries() {
+        return operationSeries.values();
+    }
+
+    /**
+     * @return metrics per service, operation and resource, never <code>null</code>
+     */
+    public Collection<RequestSeries> getResourceSeries() {
+        return resourceSeries.values();
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4).
+     * 
+     * @param out
+     *            writer to write to, must not be <code>null</code>
+     */
+    public void write( PrintWriter out ) {
+        writeFamily( out, "deegree_", "Requests per service and operation.", operationSeries.values() );
+        writeFamily( out, "deegree_resource_",
+                     "Requests per service, operation and layer/feature type (a request may count for several).",
+                     resourceSeries.values() );
+    }
+
+    private static void writeFamily( PrintWriter out, String prefix, String help, Collection<RequestSeries> series ) {
+        List<RequestSeries> list = new ArrayList<RequestSeries>( series );
+        List<Snapshot> snapshots = new ArrayList<Snapshot>( list.size() );
+        for ( RequestSeries s : list ) {
+            snapshots.add( s.getLatency().getSnapshot() );
+        }
+
+        out.println( "# HELP " + prefix + "requests_total " + help );
+        out.println( "# TYPE " + prefix + "requests_total counter" );
+        for ( RequestSeries s : list ) {
+            out.println( prefix + "requests_total" + labels( s, null ) + " " + s.getRequests() );
+        }
+        out.println( "# TYPE " + prefix + "requests_active gauge" );
+        for ( RequestSeries s : list ) {
+            out.println( prefix + "requests_active" + labels( s, null ) + " " + s.getActive() );
+        }
+        out.println( "# TYPE " + prefix + "request_errors_total counter" );
+        for ( RequestSeries s : list ) {
+            out.println( prefix + "request_errors_total" + labels( s, null ) + " " + s.getErrors() );
+        }
+        out.println( "# TYPE " + prefix + "response_bytes_total counter" );
+        for ( RequestSeries s : list ) {
+            out.println( prefix + "response_bytes_total" + labels( s, null ) + " " + s.getBytesOut() );
+        }
+        out.println( "# TYPE " + prefix + "request_duration_seconds summary" );
+        for ( int i = 0; i < list.size(); i++ ) {
+            RequestSeries s = list.get( i );
+            Snapshot snapshot = snapshots.get( i );
+            for ( double q : QUANTILES ) {
+                out.println( prefix + "request_duration_seconds" + labels( s, Double.toString( q ) ) + " "
+                             + seconds( snapshot.getQuantile( q ) ) );
+            }
+            out.println( prefix + "request_duration_seconds_sum" + labels( s, null ) + " " + seconds( snapshot.getSum() ) );
+            out.println( prefix + "request_duration_seconds_count" + labels( s, null ) + " " + snapshot.getCount() );
+        }
+        out.println( "# TYPE " + prefix + "request_duration_seconds_max gauge" );
+        for ( int i = 0; i < list.size(); i++ ) {
+            out.println( prefix + "request_duration_seconds_max" + labels( list.get( i ), null ) + " "
+                         + seconds( snapshots.get( i ).getMax() ) );
+        }
+    }
+
+    private static String labels( RequestSeries s, String quantile ) {
+        StringBuilder sb = new StringBuilder( "{service=\"" );
+        sb.append( escape( s.getService() ) ).append( "\",operation=\"" ).append( escape( s.getOperation() ) );
+        sb.append( '"' );
+        if ( s.getResource() != null ) {
+            sb.append( ",resource=\"" ).append( escape( s.getResource() ) ).append( '"' );
+        }
+        if ( quantile != null ) {
+            sb.append( ",quantile=\"" ).append( quantile ).append( '"' );
+        }
+        return sb.append( '}' ).toString();
+    }
+
+    static String escape( String value ) {
+        StringBuilder sb = new StringBuilder( value.length() );
+        for ( int i = 0; i < value.length(); i++ ) {
+            char c = value.charAt( i );
+            if ( c == '\\' || c == '"' ) {
+                sb.append( '\\' ).append( c );
+            } else if ( c == '\n' ) {
+                sb.append( "\\n" );
+            } else {
+                sb.append( c );
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String seconds( long micros ) {
+        return String.format( Locale.US, "%.6f", micros / 1000000.0 );
+    }
+
+    /**
+     * Measures a single request, see {@link RequestMetrics#start(String, String, Collection)}.
+     * 
+     * @author last edited by: $Author$
+     * 
+     * @version $Revision$, $Date$
+     */
+    public static class Measurement {
+
+        private final RequestSeries[] series;
+
+        private final long startNanos = System.nanoTime();
+
+        private boolean finished;
+
+        private Measurement( RequestSeries[] series ) {
+            this.series = series;
+        }
+
+        /**
+         * Registers the end of the request. Subsequent calls are ignored.
+         * 
+         * @param bytesOut
+         *            number of response bytes
+         * @param error
+         *            <code>true</code>, if the request failed or has been answered with an exception report
+         */
+        public void finish( long bytesOut, boolean error ) {
+            if ( finished ) {
+                return;
+            }
+            finished = true;
+            long micros = NANOSECONDS.toMicros( System.nanoTime() - startNanos );
+            for ( RequestSeries s : series ) {
+                s.finished( micros, bytesOut, error );
+            }
+        }
+
+        /**
+         * @return milliseconds since the start of the request
+         */
+        public long getElapsedMillis() {
+            return NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+        }
+    }
+
+}
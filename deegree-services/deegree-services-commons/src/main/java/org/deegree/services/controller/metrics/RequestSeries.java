@@ -0,0 +1,142 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request metrics of a single service / operation (and optionally resource, i.e. layer or feature type) combination.
+ * 
+ * @see RequestMetrics
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RequestSeries {
+
+    private final String service;
+
+    private final String operation;
+
+    private final String resource;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder active = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RequestSeries( String service, String operation, String resource ) {
+        this.service = service;
+        this.operation = operation;
+        this.resource = resource;
+    }
+
+    void started() {
+        requests.increment();
+        active.increment();
+    }
+
+    void finished( long micros, long bytes, boolean error ) {
+        active.decrement();
+        latency.record( micros );
+        bytesOut.add( bytes );
+        if ( error ) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @return identifier of the service, never <code>null</code>
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @return name of the operation, never <code>null</code>
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return layer or feature type, <code>null</code> for the series that covers all requests of the operation
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * @return number of dispatched requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of requests that are currently processed
+     */
+    public long getActive() {
+        return active.sum();
+    }
+
+    /**
+     * @return number of requests that failed or have been answered with an exception report
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return number of response bytes
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * @return latencies of the finished requests (in microseconds), never <code>null</code>
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+}
@@ -118,6 +118,13 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
 
     private final HttpServletResponse wrappee;
 
+    private ServletOutputStream unbufferedOutputStream;
+
+    // bytes that have been flushed from the buffer or written unbuffered (via getOutputStream())
+    private long bytesWritten;
+
+    private boolean exceptionSent;
+
     /**
      * @param response
      */
@@ -177,7 +184,10 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
     public ServletOutputStream getOutputStream()
                             throws IOException {
         if ( buffer == null ) {
-            return super.getOutputStream();
+            if ( unbufferedOutputStream == null ) {
+                unbufferedOutputStream = new CountingServletOutputStream( super.getOutputStream() );
+            }
+            return unbufferedOutputStream;
         }
         if ( returnType == ReturnType.NOT_DEFINED_YET ) {
             returnType = ReturnType.OUTPUT_STREAM;
@@ -309,6 +319,7 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
         }
         if ( buffer != null ) {
             buffer.flush();
+            bytesWritten += buffer.size();
             buffer.writeTo( super.getOutputStream() );
             buffer.reset();
         }
@@ -342,7 +353,28 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
         return buffer;
     }
 
+    /**
+     * Returns the number of bytes written so far (including the bytes that are still buffered). Output written
+     * unbuffered using {@link #getWriter()} is not included.
+     * 
+     * @return number of bytes written so far
+     */
+    public long getBytesWritten() {
+        if ( buffer != null ) {
+            return bytesWritten + buffer.size();
+        }
+        return bytesWritten;
+    }
+
+    /**
+     * @return <code>true</code>, if an exception report has been sent, <code>false</code> otherwise
+     */
+    public boolean isExceptionSent() {
+        return exceptionSent;
+    }
+
     public void setExceptionSent() {
+        exceptionSent = true;
         if ( wrappee instanceof LoggingHttpResponseWrapper ) {
             ( (LoggingHttpResponseWrapper) wrappee ).setExceptionSent();
         }
@@ -354,6 +386,51 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * ServletOutputStream that counts the bytes written to the unbuffered output stream.
+     */
+    private class CountingServletOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+
+        CountingServletOutputStream( ServletOutputStream out ) {
+            this.out = out;
+        }
+
+        @Override
+        public void write( byte[] b )
+                                throws IOException {
+            out.write( b );
+            bytesWritten += b.length;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+                                throws IOException {
+            out.write( b, off, len );
+            bytesWritten += len;
+        }
+
+        @Override
+        public void write( int b )
+                                throws IOException {
+            out.write( b );
+            bytesWritten++;
+        }
+
+        @Override
+        public void flush()
+                                throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close()
+                                throws IOException {
+            out.close();
+        }
+    }
+
     /**
      * This is a ServletOutputStream that uses our internal ByteArrayOutputStream to buffer all data.
      */
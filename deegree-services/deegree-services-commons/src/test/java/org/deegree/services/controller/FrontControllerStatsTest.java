@@ -0,0 +1,94 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.deegree.services.OWS;
+import org.deegree.services.OWSProvider;
+import org.deegree.services.controller.metrics.RequestMetrics;
+import org.deegree.workspace.ResourceMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FrontControllerStats}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FrontControllerStatsTest {
+
+    private enum TestRequestType {
+        GetCapabilities, GetMap
+    }
+
+    private static final ImplementationMetadata<TestRequestType> IMPLEMENTATION_METADATA = new ImplementationMetadata<TestRequestType>() {
+        {
+            handledRequests = TestRequestType.class;
+        }
+    };
+
+    private OWS ows;
+
+    @Before
+    public void setup() {
+        ows = mock( OWS.class );
+        ResourceMetadata<?> metadata = mock( ResourceMetadata.class );
+        OWSProvider provider = mock( OWSProvider.class );
+        doReturn( metadata ).when( ows ).getMetadata();
+        doReturn( provider ).when( metadata ).getProvider();
+        doReturn( IMPLEMENTATION_METADATA ).when( provider ).getImplementationMetadata();
+    }
+
+    @Test
+    public void testOperationLabelUsesDeclaredName() {
+        assertEquals( "GetMap", FrontControllerStats.getOperationLabel( ows, "GetMap" ) );
+        assertEquals( "GetMap", FrontControllerStats.getOperationLabel( ows, "GETMAP" ) );
+        assertEquals( "GetCapabilities", FrontControllerStats.getOperationLabel( ows, " getcapabilities " ) );
+    }
+
+    @Test
+    public void testUnknownOperationIsOther() {
+        assertEquals( RequestMetrics.OTHER, FrontControllerStats.getOperationLabel( ows, "GetMapXYZ" ) );
+        assertEquals( RequestMetrics.OTHER, FrontControllerStats.getOperationLabel( ows, "" ) );
+        assertNull( FrontControllerStats.getOperationLabel( ows, null ) );
+    }
+
+}
@@ -0,0 +1,138 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.metrics;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.deegree.services.controller.metrics.LatencyHistogram.Snapshot;
+import org.deegree.services.controller.metrics.RequestMetrics.Measurement;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RequestMetrics} and {@link LatencyHistogram}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RequestMetricsTest {
+
+    @Test
+    public void testBucketBounds() {
+        for ( long value : new long[] { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456, 99999999L } ) {
+            int bucket = LatencyHistogram.getBucket( value );
+            long highest = LatencyHistogram.getHighestValue( bucket );
+            assertTrue( highest >= value );
+            assertTrue( highest - value <= value / 32 );
+        }
+        assertEquals( LatencyHistogram.NUM_BUCKETS - 1, LatencyHistogram.getBucket( Long.MAX_VALUE ) );
+    }
+
+    @Test
+    public void testQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 1000; i++ ) {
+            histogram.record( i * 1000 );
+        }
+        Snapshot snapshot = histogram.getSnapshot();
+        assertEquals( 1000, snapshot.getCount() );
+        assertEquals( 1000000, snapshot.getMax() );
+        assertEquals( 500500000, snapshot.getSum() );
+        assertEquals( 500000, snapshot.getQuantile( 0.5 ), 500000 / 32 );
+        assertEquals( 990000, snapshot.getQuantile( 0.99 ), 990000 / 32 );
+        assertEquals( 1000000, snapshot.getQuantile( 1.0 ) );
+        assertEquals( 0, new LatencyHistogram().getSnapshot().getQuantile( 0.5 ) );
+    }
+
+    @Test
+    public void testSeries() {
+        RequestMetrics metrics = new RequestMetrics( 100 );
+        Measurement m = metrics.start( "wms", "GetMap", asList( "roads", "rivers" ) );
+        assertEquals( 1, metrics.getTotal().getActive() );
+        m.finish( 100, false );
+        m.finish( 100, false );
+        metrics.start( "wms", "GetMap", null ).finish( 50, true );
+
+        assertEquals( 2, metrics.getTotal().getRequests() );
+        assertEquals( 0, metrics.getTotal().getActive() );
+        assertEquals( 1, metrics.getOperationSeries().size() );
+        RequestSeries getMap = metrics.getOperationSeries().iterator().next();
+        assertEquals( 2, getMap.getRequests() );
+        assertEquals( 1, getMap.getErrors() );
+        assertEquals( 150, getMap.getBytesOut() );
+        assertEquals( 2, metrics.getResourceSeries().size() );
+        for ( RequestSeries s : metrics.getResourceSeries() ) {
+            assertEquals( 1, s.getRequests() );
+            assertEquals( 100, s.getBytesOut() );
+        }
+    }
+
+    @Test
+    public void testSeriesLimit() {
+        RequestMetrics metrics = new RequestMetrics( 2 );
+        for ( int i = 0; i < 10; i++ ) {
+            metrics.start( "wms", "op" + i, null ).finish( 0, false );
+        }
+        assertEquals( 3, metrics.getOperationSeries().size() );
+        boolean foundOther = false;
+        for ( RequestSeries s : metrics.getOperationSeries() ) {
+            if ( RequestMetrics.OTHER.equals( s.getOperation() ) ) {
+                assertEquals( 8, s.getRequests() );
+                foundOther = true;
+            }
+        }
+        assertTrue( foundOther );
+    }
+
+    @Test
+    public void testWrite() {
+        RequestMetrics metrics = new RequestMetrics( 100 );
+        metrics.start( "wfs", "GetFeature", asList( "app:\"Road\"" ) ).finish( 42, false );
+        StringWriter sw = new StringWriter();
+        PrintWriter out = new PrintWriter( sw );
+        metrics.write( out );
+        out.flush();
+        String text = sw.toString();
+        assertTrue( text.contains( "deegree_requests_total{service=\"wfs\",operation=\"GetFeature\"} 1" ) );
+        assertTrue( text.contains( "deegree_resource_response_bytes_total{service=\"wfs\",operation=\"GetFeature\",resource=\"app:\\\"Road\\\"\"} 42" ) );
+        assertTrue( text.contains( "deegree_request_duration_seconds{service=\"wfs\",operation=\"GetFeature\",quantile=\"0.99\"}" ) );
+    }
+
+}
@@ -62,9 +62,11 @@ import org.deegree.commons.xml.stax.XMLStreamUtils;
 import org.deegree.cs.CRSUtils;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.cs.persistence.CRSManager;
+import org.deegree.cs.persistence.TransformationRegistry;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.lock.LockHasExpiredException;
 import org.deegree.feature.types.FeatureType;
+import org.deegree.geometry.Envelope;
 import org.deegree.gml.GMLVersion;
 import org.deegree.gml.reference.matcher.BaseUrlReferencePatternMatcher;
 import org.deegree.gml.reference.matcher.MultipleReferencePatternMatcher;
@@ -174,6 +176,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import static org.apache.commons.lang.StringUtils.trim;
 import static org.deegree.commons.ows.exception.OWSException.INVALID_PARAMETER_VALUE;
@@ -319,6 +322,7 @@ public class WebFeatureService extends AbstractOWS {
         storedQueryHandler = new StoredQueryHandler( this, list );
 
         initQueryCRS( jaxbConfig.getQueryCRS() );
+        warmUpTransformations();
         initFormats( jaxbConfig.getAbstractFormat() );
         mdProvider = initMetadataProvider( serviceMetadata, jaxbConfig );
 
@@ -532,6 +536,31 @@ public class WebFeatureService extends AbstractOWS {
         defaultQueryCRS = this.queryCRS.get( 0 );
     }
 
+    /**
+     * Resolves the transformations from the storage crs of each feature store to the query crs in the background. The
+     * storage crs is taken from the envelope of the first feature type which has one.
+     */
+    private void warmUpTransformations() {
+        for ( final FeatureStore fs : service.getStores() ) {
+            TransformationRegistry.getInstance().warmUp( new Callable<ICRS>() {
+                @Override
+                public ICRS call()
+                                        throws Exception {
+                    for ( FeatureType ft : fs.getSchema().getFeatureTypes() ) {
+                        if ( ft.isAbstract() || !fs.isMapped( ft.getName() ) ) {
+                            continue;
+                        }
+                        Envelope env = fs.getEnvelope( ft.getName() );
+                        if ( env != null && env.getCoordinateSystem() != null ) {
+                            return env.getCoordinateSystem();
+                        }
+                    }
+                    return null;
+                }
+            }, queryCRS );
+        }
+    }
+
     private void initFormats( List<JAXBElement<? extends AbstractFormatType>> formatList ) {
 
         if ( formatList == null || formatList.isEmpty() ) {
@@ -50,6 +50,7 @@ import org.deegree.commons.xml.NamespaceBindings;
 import org.deegree.geometry.SFSProfiler;
 import org.deegree.geometry.io.CoordinateFormatter;
 import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FixedDecimalCoordinateFormatter;
 import org.deegree.geometry.linearization.MaxErrorCriterion;
 import org.deegree.gml.GMLVersion;
 import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
@@ -117,7 +118,7 @@ public class GmlFormat implements Format {
         this.master = master;
         this.options = new GmlFormatOptions( gmlVersion, null, null, null, false, false, master.getQueryMaxFeatures(),
                                              master.getCheckAreaOfUse(), null, null, gmlVersion.getMimeType(), false,
-                                             null, null, master.isEnableResponsePaging() );
+                                             null, null, master.isEnableResponsePaging(), 0 );
         this.dftHandler = new GmlDescribeFeatureTypeHandler( this );
         this.gfHandler = new GmlGetFeatureHandler( this );
         this.gpvHandler = new GmlGetPropertyValueHandler( this );
@@ -148,10 +149,14 @@ public class GmlFormat implements Format {
         GetFeatureResponse responseConfig = formatDef.getGetFeatureResponse();
         boolean exportOriginalSchema = false;
         NamespaceBindings prebindNamespaces = null;
+        long numberMatchedTimeout = 0;
         if ( responseConfig != null ) {
             if ( responseConfig.isDisableStreaming() != null ) {
                 disableStreaming = responseConfig.isDisableStreaming();
             }
+            if ( responseConfig.getNumberMatchedTimeout() != null ) {
+                numberMatchedTimeout = responseConfig.getNumberMatchedTimeout().longValue();
+            }
             if ( responseConfig.getContainerElement() != null ) {
                 responseContainerEl = responseConfig.getContainerElement();
             }
@@ -185,7 +190,12 @@ public class GmlFormat implements Format {
                 if ( formatterConf instanceof org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter ) {
                     LOG.info( "Setting up configured DecimalCoordinateFormatter." );
                     org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter decimalFormatterConf = (org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter) formatterConf;
-                    formatter = new DecimalCoordinateFormatter( decimalFormatterConf.getPlaces().intValue() );
+                    int places = decimalFormatterConf.getPlaces().intValue();
+                    if ( places >= 0 && places <= FixedDecimalCoordinateFormatter.MAX_PLACES ) {
+                        formatter = new FixedDecimalCoordinateFormatter( places );
+                    } else {
+                        formatter = new DecimalCoordinateFormatter( places );
+                    }
                 } else if ( formatterConf instanceof org.deegree.services.jaxb.wfs.CustomCoordinateFormatter ) {
                     LOG.info( "Setting up CustomCoordinateFormatter." );
                     org.deegree.services.jaxb.wfs.CustomCoordinateFormatter customFormatterConf = (org.deegree.services.jaxb.wfs.CustomCoordinateFormatter) formatterConf;
@@ -205,7 +215,7 @@ public class GmlFormat implements Format {
                                              disableStreaming, generateBoundedByForFeatures, queryMaxFeatures,
                                              checkAreaOfUse, formatter, appSchemaBaseURL, mimeType,
                                              exportOriginalSchema, geometrySimplifier, prebindNamespaces,
-                                             master.isEnableResponsePaging() );
+                                             master.isEnableResponsePaging(), numberMatchedTimeout );
 
         this.dftHandler = new GmlDescribeFeatureTypeHandler( this );
         this.gfHandler = new GmlGetFeatureHandler( this );
@@ -235,7 +245,7 @@ public class GmlFormat implements Format {
 
     @Override
     public void destroy() {
-        // nothing to do
+        gfHandler.destroy();
     }
 
     @Override
@@ -82,6 +82,8 @@ public class GmlFormatOptions {
 
     private final boolean enableResponsePaging;
 
+    private final long numberMatchedTimeout;
+
     /**
      * Creates a new {@link GmlFormatOptions} instance.
      * 
@@ -107,6 +109,9 @@ public class GmlFormatOptions {
      *            namespaces to bind in the root element of GetFeature responses, can be <code>null</code>
      * @param enableResponsePaging
      *            is response paging enabled
+     * @param numberMatchedTimeout
+     *            maximum time (in milliseconds) to wait for the concurrently determined number of matched features
+     *            when streaming WFS 2.0.0 responses, <code>0</code> disables the concurrent determination
      */
     public GmlFormatOptions( final GMLVersion gmlVersion, final QName responseContainerEl,
                              final QName responseFeatureMemberEl, final String schemaLocation,
@@ -114,7 +119,8 @@ public class GmlFormatOptions {
                              final int queryMaxFeatures, final boolean checkAreaOfUse,
                              final CoordinateFormatter formatter, final String appSchemaBaseURL, final String mimeType,
                              final boolean exportOriginalSchema, final SFSProfiler geometrySimplifier,
-                             final NamespaceBindings prebindNamespaces, final boolean enableResponsePaging ) {
+                             final NamespaceBindings prebindNamespaces, final boolean enableResponsePaging,
+                             final long numberMatchedTimeout ) {
         this.gmlVersion = gmlVersion;
         this.responseContainerEl = responseContainerEl;
         this.responseFeatureMemberEl = responseFeatureMemberEl;
@@ -130,6 +136,7 @@ public class GmlFormatOptions {
         this.geometrySimplifier = geometrySimplifier;
         this.prebindNamespaces = prebindNamespaces;
         this.enableResponsePaging = enableResponsePaging;
+        this.numberMatchedTimeout = numberMatchedTimeout;
     }
 
     /**
@@ -239,4 +246,12 @@ public class GmlFormatOptions {
         return enableResponsePaging;
     }
 
+    /**
+     * @return maximum time (in milliseconds) to wait for the concurrently determined number of matched features when
+     *         streaming WFS 2.0.0 responses, <code>0</code> if disabled
+     */
+    public long getNumberMatchedTimeout() {
+        return numberMatchedTimeout;
+    }
+
 }
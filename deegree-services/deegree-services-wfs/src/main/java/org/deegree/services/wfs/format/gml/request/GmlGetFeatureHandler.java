@@ -36,6 +36,7 @@
 package org.deegree.services.wfs.format.gml.request;
 
 import static java.math.BigInteger.ZERO;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
 import static org.deegree.commons.ows.exception.OWSException.OPERATION_PROCESSING_FAILED;
 import static org.deegree.commons.ows.exception.OWSException.OPTION_NOT_SUPPORTED;
@@ -43,6 +44,7 @@ import static org.deegree.commons.tom.datetime.ISO8601Converter.formatDateTime;
 import static org.deegree.commons.xml.CommonNamespaces.GML3_2_NS;
 import static org.deegree.commons.xml.CommonNamespaces.GMLNS;
 import static org.deegree.commons.xml.stax.XMLStreamUtils.writeNamespaceIfNotBound;
+import static org.deegree.feature.persistence.query.Query.QueryHint.HINT_TIMEOUT;
 import static org.deegree.gml.GMLOutputFactory.createGMLStreamWriter;
 import static org.deegree.gml.GMLVersion.GML_2;
 import static org.deegree.gml.GMLVersion.GML_32;
@@ -65,6 +67,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.FactoryConfigurationError;
@@ -126,6 +138,12 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger( GmlGetFeatureHandler.class );
 
+    // maximum number of concurrent hits queries, further requests are answered with numberMatched="unknown"
+    private static final int MAX_HITS_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+
+    // determines numberMatched concurrently to streaming the features, null if disabled
+    private final ThreadPoolExecutor hitsExecutor;
+
     /**
      * Creates a new {@link GmlGetFeatureHandler} instance.
      * 
@@ -134,6 +152,31 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
      */
     public GmlGetFeatureHandler( GmlFormat format ) {
         super( format );
+        if ( options.getNumberMatchedTimeout() > 0 ) {
+            ThreadFactory threadFactory = new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger( 1 );
+
+                @Override
+                public Thread newThread( Runnable r ) {
+                    Thread t = new Thread( r, "wfs-number-matched-" + threadNumber.getAndIncrement() );
+                    t.setDaemon( true );
+                    return t;
+                }
+            };
+            hitsExecutor = new ThreadPoolExecutor( 0, MAX_HITS_THREADS, 60, TimeUnit.SECONDS,
+                                                   new SynchronousQueue<Runnable>(), threadFactory );
+        } else {
+            hitsExecutor = null;
+        }
+    }
+
+    /**
+     * Releases the resources held by this handler.
+     */
+    public void destroy() {
+        if ( hitsExecutor != null ) {
+            hitsExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -287,8 +330,12 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
             writeFeatureMembersCached( request.getVersion(), gmlStream, analyzer, gmlVersion, returnMaxFeatures,
                                        startIndex, memberElementName, lock, responsePagingUris );
         } else {
+            Future<Hits> hits = null;
+            if ( hitsExecutor != null && request.getVersion().equals( VERSION_200 ) ) {
+                hits = retrieveHitsConcurrently( request );
+            }
             writeFeatureMembersStream( request.getVersion(), gmlStream, analyzer, gmlVersion, returnMaxFeatures,
-                                       startIndex, memberElementName, lock );
+                                       startIndex, memberElementName, lock, hits );
         }
 
         if ( !isGetFeatureById ) {
@@ -442,6 +489,69 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
         return new Hits( hitsTotal, queryHits, queryTimeStamps );
     }
 
+    private Future<Hits> retrieveHitsConcurrently( final GetFeature request )
+                            throws OWSException {
+        // the analyzer is not shared, so the hits query may run in parallel to the feature query
+        final QueryAnalyzer analyzer = new QueryAnalyzer( request.getQueries(), format.getMaster(),
+                                                          format.getMaster().getStoreManager(),
+                                                          options.isCheckAreaOfUse() );
+        // the result is not needed after the timeout, so the store may abort the hits query (and free the connection)
+        for ( List<Query> queries : analyzer.getQueries().values() ) {
+            for ( Query query : queries ) {
+                query.setHint( HINT_TIMEOUT, options.getNumberMatchedTimeout() );
+            }
+        }
+        return submitHits( new Callable<Hits>() {
+            @Override
+            public Hits call()
+                                    throws Exception {
+                return retrieveHits( request, analyzer );
+            }
+        } );
+    }
+
+    /**
+     * Submits the given hits query to the (bounded) hits executor.
+     * 
+     * @return the pending hits, <code>null</code> if there are too many concurrent hits queries
+     */
+    Future<Hits> submitHits( Callable<Hits> hitsQuery ) {
+        try {
+            return hitsExecutor.submit( hitsQuery );
+        } catch ( RejectedExecutionException e ) {
+            LOG.debug( "Too many concurrent hits queries, writing numberMatched 'unknown'." );
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of the numberMatched attribute, waiting for the hits query until the given deadline. If the
+     * hits are not available by then, the hits query is cancelled.
+     * 
+     * @param hits
+     *            pending hits, can be <code>null</code> (not determined)
+     * @param deadline
+     *            time (in milliseconds) until the hits are waited for
+     * @return number of matched features or <code>unknown</code>, never <code>null</code>
+     */
+    static String getNumberMatched( Future<Hits> hits, long deadline ) {
+        if ( hits == null ) {
+            return "unknown";
+        }
+        try {
+            long timeout = Math.max( 0, deadline - System.currentTimeMillis() );
+            return "" + hits.get( timeout, MILLISECONDS ).hitsTotal;
+        } catch ( TimeoutException e ) {
+            LOG.debug( "Number of matched features not available in time, writing 'unknown'." );
+        } catch ( ExecutionException e ) {
+            LOG.debug( "Determining the number of matched features failed: " + e.getCause().getMessage() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        hits.cancel( true );
+        return "unknown";
+    }
+
     private void prebindNamespaces( final XMLStreamWriter xmlStream, final NamespaceBindings prebindNamespaces )
                             throws XMLStreamException {
         if ( prebindNamespaces == null ) {
@@ -459,35 +569,44 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 
     private void writeFeatureMembersStream( Version wfsVersion, GMLStreamWriter gmlStream, QueryAnalyzer analyzer,
                                             GMLVersion outputFormat, int maxFeatures, int startIndex,
-                                            QName featureMemberEl, Lock lock )
+                                            QName featureMemberEl, Lock lock, Future<Hits> hits )
                             throws XMLStreamException, UnknownCRSException, TransformationException,
                             FeatureStoreException, FilterEvaluationException, FactoryConfigurationError {
 
+        long hitsDeadline = System.currentTimeMillis() + options.getNumberMatchedTimeout();
         XMLStreamWriter xmlStream = gmlStream.getXMLStream();
 
-        if ( wfsVersion.equals( VERSION_200 ) ) {
-            xmlStream.writeAttribute( "numberMatched", "unknown" );
-            xmlStream.writeAttribute( "numberReturned", "0" );
-            xmlStream.writeComment( "NOTE: numberReturned attribute should be 'unknown' as well, but this would not validate against the current version of the WFS 2.0 schema (change upcoming). See change request (CR 144): https://portal.opengeospatial.org/files?artifact_id=43925." );
-        }
+        Iterator<Map.Entry<FeatureStore, List<Query>>> fsToQueriesIter = analyzer.getQueries().entrySet().iterator();
+        // the first feature query is started before the header is written, so it runs concurrently to the hits query
+        FeatureInputStream rs = fsToQueriesIter.hasNext() ? query( fsToQueriesIter.next() ) : null;
+        boolean headerWritten = false;
+        try {
+            if ( wfsVersion.equals( VERSION_200 ) ) {
+                xmlStream.writeAttribute( "numberMatched", getNumberMatched( hits, hitsDeadline ) );
+                xmlStream.writeAttribute( "numberReturned", "0" );
+                xmlStream.writeComment( "NOTE: numberReturned attribute should be 'unknown' as well, but this would not validate against the current version of the WFS 2.0 schema (change upcoming). See change request (CR 144): https://portal.opengeospatial.org/files?artifact_id=43925." );
+            }
 
-        if ( outputFormat == GML_2 ) {
-            // "gml:boundedBy" is necessary for GML 2 schema compliance
-            xmlStream.writeStartElement( "gml", "boundedBy", GMLNS );
-            xmlStream.writeStartElement( GMLNS, "null" );
-            xmlStream.writeCharacters( "unknown" );
-            xmlStream.writeEndElement();
-            xmlStream.writeEndElement();
+            if ( outputFormat == GML_2 ) {
+                // "gml:boundedBy" is necessary for GML 2 schema compliance
+                xmlStream.writeStartElement( "gml", "boundedBy", GMLNS );
+                xmlStream.writeStartElement( GMLNS, "null" );
+                xmlStream.writeCharacters( "unknown" );
+                xmlStream.writeEndElement();
+                xmlStream.writeEndElement();
+            }
+            headerWritten = true;
+        } finally {
+            if ( !headerWritten && rs != null ) {
+                rs.close();
+            }
         }
 
         // retrieve and write result features
         int featuresAdded = 0;
         int featuresSkipped = 0;
         GmlXlinkOptions resolveState = gmlStream.getReferenceResolveStrategy().getResolveOptions();
-        for ( Map.Entry<FeatureStore, List<Query>> fsToQueries : analyzer.getQueries().entrySet() ) {
-            FeatureStore fs = fsToQueries.getKey();
-            Query[] queries = fsToQueries.getValue().toArray( new Query[fsToQueries.getValue().size()] );
-            FeatureInputStream rs = fs.query( queries );
+        while ( rs != null ) {
             try {
                 for ( Feature member : rs ) {
                     if ( lock != null && !lock.isLocked( member.getId() ) ) {
@@ -508,9 +627,17 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
                 LOG.debug( "Closing FeatureResultSet (stream)" );
                 rs.close();
             }
+            rs = fsToQueriesIter.hasNext() ? query( fsToQueriesIter.next() ) : null;
         }
     }
 
+    private FeatureInputStream query( Map.Entry<FeatureStore, List<Query>> fsToQueries )
+                            throws FeatureStoreException, FilterEvaluationException {
+        FeatureStore fs = fsToQueries.getKey();
+        Query[] queries = fsToQueries.getValue().toArray( new Query[fsToQueries.getValue().size()] );
+        return fs.query( queries );
+    }
+
     private void writeFeatureMembersCached( Version wfsVersion, GMLStreamWriter gmlStream, QueryAnalyzer analyzer,
                                             GMLVersion outputFormat, int maxFeatures, int startIndex,
                                             QName featureMemberEl, Lock lock, ResponsePagingUris responsePagingUris )
@@ -747,7 +874,7 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 
     }
 
-    private class Hits {
+    static class Hits {
 
         private final int hitsTotal;
 
@@ -755,7 +882,7 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 
         private final DateTime[] queryTimeStamps;
 
-        private Hits( int hitsTotal, int[] queryHits, DateTime[] queryTimeStamps ) {
+        Hits( int hitsTotal, int[] queryHits, DateTime[] queryTimeStamps ) {
             this.hitsTotal = hitsTotal;
             this.queryHits = queryHits;
             this.queryTimeStamps = queryTimeStamps;
@@ -0,0 +1,146 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.gml.request;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.deegree.gml.GMLVersion.GML_32;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.deegree.commons.tom.datetime.DateTime;
+import org.deegree.services.wfs.format.gml.GmlFormat;
+import org.deegree.services.wfs.format.gml.GmlFormatOptions;
+import org.deegree.services.wfs.format.gml.request.GmlGetFeatureHandler.Hits;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent determination of numberMatched in {@link GmlGetFeatureHandler}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GmlGetFeatureHandlerTest {
+
+    private GmlGetFeatureHandler handler;
+
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    @Before
+    public void setUp() {
+        GmlFormatOptions options = new GmlFormatOptions( GML_32, null, null, null, false, false, -1, false, null,
+                                                         null, "text/xml", false, null, null, false, 1000 );
+        GmlFormat format = mock( GmlFormat.class );
+        when( format.getGmlFormatOptions() ).thenReturn( options );
+        handler = new GmlGetFeatureHandler( format );
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        handler.destroy();
+    }
+
+    @Test
+    public void testNumberMatchedFromHitsQuery() {
+        Future<Hits> hits = handler.submitHits( new Callable<Hits>() {
+            @Override
+            public Hits call() {
+                return new Hits( 42, new int[] { 42 }, new DateTime[1] );
+            }
+        } );
+        assertEquals( "42", GmlGetFeatureHandler.getNumberMatched( hits, System.currentTimeMillis() + 5000 ) );
+    }
+
+    @Test
+    public void testNumberMatchedUnknownAfterDeadline()
+                            throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch( 1 );
+        Future<Hits> hits = handler.submitHits( new Callable<Hits>() {
+            @Override
+            public Hits call() {
+                try {
+                    release.await();
+                } catch ( InterruptedException e ) {
+                    interrupted.countDown();
+                }
+                return null;
+            }
+        } );
+        assertEquals( "unknown", GmlGetFeatureHandler.getNumberMatched( hits, System.currentTimeMillis() + 50 ) );
+        // the abandoned hits query is cancelled, so it does not keep running
+        assertTrue( interrupted.await( 5, SECONDS ) );
+    }
+
+    @Test
+    public void testNumberMatchedUnknownIfHitsQueryFails() {
+        Future<Hits> hits = handler.submitHits( new Callable<Hits>() {
+            @Override
+            public Hits call() {
+                throw new IllegalStateException( "Hits query failed." );
+            }
+        } );
+        assertEquals( "unknown", GmlGetFeatureHandler.getNumberMatched( hits, System.currentTimeMillis() + 5000 ) );
+    }
+
+    @Test
+    public void testNumberMatchedUnknownIfTooManyHitsQueries() {
+        Callable<Hits> blocking = new Callable<Hits>() {
+            @Override
+            public Hits call()
+                                    throws InterruptedException {
+                release.await();
+                return null;
+            }
+        };
+        // the hits executor is bounded, so submitting eventually fails instead of queueing the query
+        Future<Hits> hits = handler.submitHits( blocking );
+        for ( int i = 0; i < 10000 && hits != null; i++ ) {
+            hits = handler.submitHits( blocking );
+        }
+        assertNull( hits );
+        assertEquals( "unknown", GmlGetFeatureHandler.getNumberMatched( hits, System.currentTimeMillis() + 5000 ) );
+    }
+
+}
@@ -54,16 +54,25 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deegree.commons.annotations.LoggingNotes;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.utils.Pair;
+import org.deegree.cs.persistence.TransformationRegistry;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.Features;
 import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.filter.OperatorFilter;
+import org.deegree.geometry.metadata.SpatialMetadata;
 import org.deegree.layer.Layer;
 import org.deegree.layer.LayerData;
 import org.deegree.layer.LayerQuery;
@@ -71,9 +80,14 @@ import org.deegree.layer.LayerRef;
 import org.deegree.protocol.wms.filter.ScaleFunction;
 import org.deegree.protocol.wms.ops.GetFeatureInfoSchema;
 import org.deegree.protocol.wms.ops.GetLegendGraphic;
+import org.deegree.rendering.r2d.Label;
+import org.deegree.rendering.r2d.context.ImageRenderContext;
+import org.deegree.rendering.r2d.context.Java2DRenderContext;
+import org.deegree.rendering.r2d.context.LazyImageRenderContext;
 import org.deegree.rendering.r2d.context.MapOptions;
 import org.deegree.rendering.r2d.context.MapOptionsMaps;
 import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.rendering.r2d.context.RenderingInfo;
 import org.deegree.services.jaxb.wms.ServiceConfigurationType;
 import org.deegree.style.StyleRef;
 import org.deegree.style.se.unevaluated.Style;
@@ -113,6 +127,9 @@ public class MapService {
 
     private final GetLegendHandler getLegendHandler;
 
+    // renders the layers of GetMap requests concurrently, null if parallel layer rendering is not enabled
+    private final ExecutorService layerRenderingExecutor;
+
     /**
      * @param conf
      * @param adapter
@@ -127,6 +144,14 @@ public class MapService {
 
         defaultLayerOptions = builder.buildMapOptions();
 
+        int layerRenderingThreads = builder.getLayerRenderingThreads();
+        if ( layerRenderingThreads > 0 ) {
+            LOG.info( "Rendering up to {} layers of a GetMap request in parallel.", layerRenderingThreads );
+            layerRenderingExecutor = Executors.newFixedThreadPool( layerRenderingThreads, new LayerRenderingThreads() );
+        } else {
+            layerRenderingExecutor = null;
+        }
+
         if ( conf != null && conf.getThemeId() != null && !conf.getThemeId().isEmpty() ) {
             themes = new ArrayList<Theme>();
             newLayers = new HashMap<String, org.deegree.layer.Layer>();
@@ -141,6 +166,7 @@ public class MapService {
 
                     for ( org.deegree.layer.Layer l : Themes.getAllLayers( thm ) ) {
                         newLayers.put( l.getMetadata().getName(), l );
+                        warmUpTransformations( l );
                     }
                     for ( Theme theme : Themes.getAllThemes( thm ) ) {
                         themeMap.put( theme.getLayerMetadata().getName(), theme );
@@ -151,6 +177,17 @@ public class MapService {
         getLegendHandler = new GetLegendHandler( this );
     }
 
+    private static void warmUpTransformations( org.deegree.layer.Layer l ) {
+        SpatialMetadata smd = l.getMetadata().getSpatialMetadata();
+        if ( smd == null || smd.getEnvelope() == null || smd.getEnvelope().getCoordinateSystem() == null
+             || smd.getCoordinateSystems() == null ) {
+            return;
+        }
+        // layer data is usually transformed from its native crs into one of the advertised ones
+        TransformationRegistry.getInstance().warmUp( smd.getEnvelope().getCoordinateSystem(),
+                                                     smd.getCoordinateSystems() );
+    }
+
     /**
      * @return the list of themes if configuration is based on themes, else null
      */
@@ -210,19 +247,98 @@ public class MapService {
         ScaleFunction.getCurrentScaleValue().set( scale );
 
         List<LayerData> layerDataList = checkStyleValidAndBuildLayerDataList( gm, headers, scale, queryIter );
-        Iterator<MapOptions> optIter = mapOptions.iterator();
-        for ( LayerData d : layerDataList ) {
-            ctx.applyOptions( optIter.next() );
-            try {
-                d.render( ctx );
-            } catch ( InterruptedException e ) {
+        renderLayers( gm, layerDataList, mapOptions.iterator(), ctx );
+        ctx.optimizeAndDrawLabels();
+
+        ScaleFunction.getCurrentScaleValue().remove();
+    }
+
+    /**
+     * Renders the given layers into the context (in parallel, if configured and applicable). Labels are collected, but
+     * not drawn.
+     */
+    void renderLayers( org.deegree.protocol.wms.ops.GetMap gm, List<LayerData> layerDataList,
+                       Iterator<MapOptions> optIter, RenderContext ctx )
+                            throws OWSException {
+        if ( isParallelRenderingApplicable( layerDataList, ctx ) ) {
+            renderParallel( gm, layerDataList, optIter, ctx );
+        } else {
+            for ( LayerData d : layerDataList ) {
+                ctx.applyOptions( optIter.next() );
+                try {
+                    d.render( ctx );
+                } catch ( InterruptedException e ) {
+                    String msg = "Request time-out.";
+                    throw new OWSException( msg, NO_APPLICABLE_CODE );
+                }
+            }
+        }
+    }
+
+    private boolean isParallelRenderingApplicable( List<LayerData> layerDataList, RenderContext ctx ) {
+        // off-screen buffers only make sense for raster output
+        return layerRenderingExecutor != null && layerDataList.size() > 1
+               && ( ctx instanceof LazyImageRenderContext || ctx instanceof Java2DRenderContext );
+    }
+
+    /**
+     * Renders every layer into an own (transparent) off-screen buffer using the layer rendering executor. The buffers
+     * are composited in request order and the labels of all layers are handed over to the given context, so label
+     * placement still happens once for the whole map.
+     */
+    private void renderParallel( org.deegree.protocol.wms.ops.GetMap gm, List<LayerData> layerDataList,
+                                 Iterator<MapOptions> optIter, RenderContext ctx )
+                            throws OWSException {
+        RenderingInfo info = new RenderingInfo( "image/png", gm.getWidth(), gm.getHeight(), true, null,
+                                                gm.getBoundingBox(), gm.getPixelSize(), gm.getParameterMap() );
+        Double scale = ScaleFunction.getCurrentScaleValue().get();
+        List<MapOptions> layerOptions = new ArrayList<MapOptions>();
+        List<Future<Pair<BufferedImage, List<Label>>>> futures = new ArrayList<Future<Pair<BufferedImage, List<Label>>>>();
+        try {
+            for ( LayerData d : layerDataList ) {
+                MapOptions options = optIter.next();
+                layerOptions.add( options );
+                futures.add( layerRenderingExecutor.submit( new LayerRenderer( d, info, options, scale ) ) );
+            }
+            // obtaining the label renderer makes sure that lazy contexts are initialized (including background)
+            List<Label> labels = ctx.getLabelRenderer().getLabels();
+            Iterator<MapOptions> layerOptionsIter = layerOptions.iterator();
+            for ( Future<Pair<BufferedImage, List<Label>>> future : futures ) {
+                Pair<BufferedImage, List<Label>> layer = future.get();
+                ctx.applyOptions( layerOptionsIter.next() );
+                ctx.paintImage( layer.first );
+                labels.addAll( layer.second );
+            }
+        } catch ( InterruptedException e ) {
+            String msg = "Request time-out.";
+            throw new OWSException( msg, NO_APPLICABLE_CODE );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof InterruptedException ) {
                 String msg = "Request time-out.";
                 throw new OWSException( msg, NO_APPLICABLE_CODE );
             }
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new OWSException( cause.getMessage(), cause, NO_APPLICABLE_CODE );
+        } finally {
+            for ( Future<?> future : futures ) {
+                future.cancel( true );
+            }
         }
-        ctx.optimizeAndDrawLabels();
+    }
 
-        ScaleFunction.getCurrentScaleValue().remove();
+    /**
+     * Stops the threads used for parallel layer rendering (if any).
+     */
+    public void destroy() {
+        if ( layerRenderingExecutor != null ) {
+            layerRenderingExecutor.shutdownNow();
+        }
     }
 
     private List<LayerData> checkStyleValidAndBuildLayerDataList( org.deegree.protocol.wms.ops.GetMap gm,
@@ -405,4 +521,55 @@ public class MapService {
         return updateSequence;
     }
 
+
+    /**
+     * Renders a single layer into a transparent off-screen buffer.
+     */
+    private static class LayerRenderer implements Callable<Pair<BufferedImage, List<Label>>> {
+
+        private final LayerData data;
+
+        private final RenderingInfo info;
+
+        private final MapOptions options;
+
+        private final Double scale;
+
+        LayerRenderer( LayerData data, RenderingInfo info, MapOptions options, Double scale ) {
+            this.data = data;
+            this.info = info;
+            this.options = options;
+            this.scale = scale;
+        }
+
+        @Override
+        public Pair<BufferedImage, List<Label>> call()
+                                throws Exception {
+            BufferedImage image = ImageUtils.prepareImage( info.getFormat(), info.getWidth(), info.getHeight(), true,
+                                                           null );
+            RenderContext layerCtx = ImageRenderContext.createInstance( info, image, null );
+            ScaleFunction.getCurrentScaleValue().set( scale );
+            try {
+                layerCtx.applyOptions( options );
+                data.render( layerCtx );
+                return new Pair<BufferedImage, List<Label>>( image, layerCtx.getLabelRenderer().getLabels() );
+            } finally {
+                ScaleFunction.getCurrentScaleValue().remove();
+                layerCtx.close();
+            }
+        }
+    }
+
+    private static class LayerRenderingThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, "wms-layer-rendering-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        }
+    }
+
 }
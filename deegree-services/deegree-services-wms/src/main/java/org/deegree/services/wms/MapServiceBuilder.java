@@ -42,12 +42,16 @@
 package org.deegree.services.wms;
 
 import static org.deegree.rendering.r2d.context.MapOptions.Antialias.BOTH;
+import static org.deegree.rendering.r2d.context.MapOptions.Generalization.NONE;
 import static org.deegree.rendering.r2d.context.MapOptions.Interpolation.NEARESTNEIGHBOR;
 import static org.deegree.rendering.r2d.context.MapOptions.Quality.NORMAL;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.math.BigInteger;
+
 import org.deegree.rendering.r2d.context.MapOptions;
 import org.deegree.rendering.r2d.context.MapOptions.Antialias;
+import org.deegree.rendering.r2d.context.MapOptions.Generalization;
 import org.deegree.rendering.r2d.context.MapOptions.Interpolation;
 import org.deegree.rendering.r2d.context.MapOptions.Quality;
 import org.deegree.services.jaxb.wms.LayerOptionsType;
@@ -104,11 +108,30 @@ class MapServiceBuilder {
             } else {
                 LOG.debug( "Using default feature info radius of {}.", featureInfoRadius );
             }
-            return new MapOptions( quali, interpol, alias, maxFeatures, featureInfoRadius );
+            Generalization generalization = handleDefaultValue( sf == null ? null : sf.getGeneralization(),
+                                                                Generalization.class, NONE );
+            MapOptions options = new MapOptions( quali, interpol, alias, maxFeatures, featureInfoRadius );
+            options.setGeneralization( generalization );
+            return options;
         }
         return null;
     }
 
+    /**
+     * @return number of layers to render concurrently for GetMap requests, <code>0</code> if parallel layer rendering
+     *         is not enabled
+     */
+    int getLayerRenderingThreads() {
+        if ( conf == null || conf.getParallelLayerRendering() == null ) {
+            return 0;
+        }
+        BigInteger threads = conf.getParallelLayerRendering().getThreads();
+        if ( threads == null ) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return threads.intValue();
+    }
+
     private static <T extends Enum<T>> T handleDefaultValue( String val, Class<T> enumType, T defaultValue ) {
         if ( val == null ) {
             return defaultValue;
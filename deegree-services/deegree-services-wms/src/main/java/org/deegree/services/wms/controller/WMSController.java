@@ -127,6 +127,7 @@ import org.deegree.protocol.wms.ops.GetFeatureInfoSchema;
 import org.deegree.protocol.wms.ops.GetLegendGraphic;
 import org.deegree.protocol.wms.ops.GetMap;
 import org.deegree.rendering.r2d.ImageSerializer;
+import org.deegree.rendering.r2d.ImageSerializers;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.rendering.r2d.context.RenderingInfo;
 import org.deegree.services.OWS;
@@ -163,7 +164,6 @@ import org.deegree.services.wms.controller.plugins.DefaultOutputFormatProvider;
 import org.deegree.services.wms.controller.plugins.OutputFormatProvider;
 import org.deegree.services.wms.utils.GetMapLimitChecker;
 import org.deegree.style.StyleRef;
-import org.deegree.style.utils.ColorQuantizer;
 import org.deegree.workspace.ResourceInitException;
 import org.deegree.workspace.ResourceMetadata;
 import org.deegree.workspace.Workspace;
@@ -677,6 +677,9 @@ public class WMSController extends AbstractOWS {
         response.setContentType( format );
 
         ImageSerializer serializer = imageSerializers.get( format );
+        if ( serializer == null ) {
+            serializer = ImageSerializers.getDefaultSerializer( format );
+        }
         if ( serializer != null ) {
             serializer.serialize( null, img, response.getOutputStream() );
             return;
@@ -686,10 +689,6 @@ public class WMSController extends AbstractOWS {
         if ( format.equals( "x-ms-bmp" ) ) {
             format = "bmp";
         }
-        if ( format.equals( "png; subtype=8bit" ) || format.equals( "png; mode=8bit" ) ) {
-            img = ColorQuantizer.quantizeImage( img, 256, false, false );
-            format = "png";
-        }
         LOG.debug( "Sending in format " + format );
         if ( !write( img, format, response.getOutputStream() ) ) {
             throw new OWSException( get( "WMS.CANNOT_ENCODE_IMAGE", format ), OWSException.NO_APPLICABLE_CODE );
@@ -1180,7 +1179,9 @@ public class WMSController extends AbstractOWS {
 
     @Override
     public void destroy() {
-        // nothing to do
+        if ( service != null ) {
+            service.destroy();
+        }
     }
 
 }
@@ -0,0 +1,216 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wms;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.deegree.rendering.r2d.context.MapOptions.Antialias.NONE;
+import static org.deegree.rendering.r2d.context.MapOptions.Interpolation.NEARESTNEIGHBOR;
+import static org.deegree.rendering.r2d.context.MapOptions.Quality.NORMAL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.layer.LayerData;
+import org.deegree.protocol.wms.ops.GetMap;
+import org.deegree.rendering.r2d.context.ImageRenderContext;
+import org.deegree.rendering.r2d.context.MapOptions;
+import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+import org.deegree.services.jaxb.wms.ServiceConfigurationType;
+import org.deegree.services.jaxb.wms.ServiceConfigurationType.ParallelLayerRendering;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the parallel layer rendering of {@link MapService}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MapServiceTest {
+
+    private static final int SIZE = 10;
+
+    private MapService service;
+
+    private GetMap gm;
+
+    private BufferedImage image;
+
+    private RenderContext ctx;
+
+    @Before
+    public void setUp()
+                            throws Exception {
+        ServiceConfigurationType conf = new ServiceConfigurationType();
+        ParallelLayerRendering parallel = new ParallelLayerRendering();
+        parallel.setThreads( BigInteger.valueOf( 2 ) );
+        conf.setParallelLayerRendering( parallel );
+        service = new MapService( conf, null, 0 );
+
+        gm = mock( GetMap.class );
+        when( gm.getWidth() ).thenReturn( SIZE );
+        when( gm.getHeight() ).thenReturn( SIZE );
+        when( gm.getBoundingBox() ).thenReturn( new GeometryFactory().createEnvelope( 0, 0, SIZE, SIZE, null ) );
+        when( gm.getPixelSize() ).thenReturn( 0.00028 );
+        when( gm.getParameterMap() ).thenReturn( Collections.<String, String> emptyMap() );
+
+        image = new BufferedImage( SIZE, SIZE, TYPE_INT_ARGB );
+        RenderingInfo info = new RenderingInfo( "image/png", SIZE, SIZE, true, null, gm.getBoundingBox(),
+                                                gm.getPixelSize(), gm.getParameterMap() );
+        ctx = ImageRenderContext.createInstance( info, image, null );
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void testLayersAreRenderedConcurrently()
+                            throws Exception {
+        CountDownLatch rendering = new CountDownLatch( 2 );
+        List<Thread> threads = Collections.synchronizedList( new ArrayList<Thread>() );
+        FillingLayer first = new FillingLayer( Color.RED, SIZE, rendering, threads );
+        FillingLayer second = new FillingLayer( Color.BLUE, SIZE, rendering, threads );
+
+        render( first, second );
+
+        // each layer waits until the other one has started, so this only succeeds if both run at the same time
+        assertTrue( first.sawOther );
+        assertTrue( second.sawOther );
+        assertEquals( 2, threads.size() );
+        assertFalse( threads.contains( Thread.currentThread() ) );
+    }
+
+    @Test
+    public void testLayersAreCompositedInRequestOrder()
+                            throws Exception {
+        // the second layer only covers the left half, so the first one must stay visible on the right
+        render( new FillingLayer( Color.RED, SIZE, null, null ), new FillingLayer( Color.BLUE, SIZE / 2, null, null ) );
+
+        assertEquals( Color.BLUE.getRGB(), image.getRGB( 1, SIZE / 2 ) );
+        assertEquals( Color.RED.getRGB(), image.getRGB( SIZE - 1, SIZE / 2 ) );
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLayerFailureIsPropagated()
+                            throws Exception {
+        LayerData failing = new LayerData() {
+            @Override
+            public void render( RenderContext context ) {
+                throw new IllegalStateException( "Layer failed." );
+            }
+
+            @Override
+            public FeatureCollection info() {
+                return null;
+            }
+        };
+        render( new FillingLayer( Color.RED, SIZE, null, null ), failing );
+    }
+
+    private void render( LayerData... layers )
+                            throws OWSException {
+        List<MapOptions> options = new ArrayList<MapOptions>();
+        for ( int i = 0; i < layers.length; i++ ) {
+            options.add( new MapOptions( NORMAL, NEARESTNEIGHBOR, NONE, -1, 1 ) );
+        }
+        service.renderLayers( gm, Arrays.asList( layers ), options.iterator(), ctx );
+    }
+
+    /**
+     * Fills the left part of the map with a color, optionally waiting for other layers to start rendering.
+     */
+    private static class FillingLayer implements LayerData {
+
+        private final Color color;
+
+        private final int width;
+
+        private final CountDownLatch rendering;
+
+        private final List<Thread> threads;
+
+        private volatile boolean sawOther;
+
+        FillingLayer( Color color, int width, CountDownLatch rendering, List<Thread> threads ) {
+            this.color = color;
+            this.width = width;
+            this.rendering = rendering;
+            this.threads = threads;
+        }
+
+        @Override
+        public void render( RenderContext context )
+                                throws InterruptedException {
+            if ( rendering != null ) {
+                threads.add( Thread.currentThread() );
+                rendering.countDown();
+                sawOther = rendering.await( 5, SECONDS );
+            }
+            BufferedImage layer = new BufferedImage( SIZE, SIZE, TYPE_INT_ARGB );
+            Graphics2D g = layer.createGraphics();
+            g.setColor( color );
+            g.fillRect( 0, 0, width, SIZE );
+            g.dispose();
+            context.paintImage( layer );
+        }
+
+        @Override
+        public FeatureCollection info() {
+            return null;
+        }
+    }
+
+}
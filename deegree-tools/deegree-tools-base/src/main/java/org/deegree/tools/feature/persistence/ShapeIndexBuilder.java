@@ -0,0 +1,131 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.feature.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.index.PackedRTree;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.feature.persistence.shape.SHPReader;
+import org.deegree.tools.i18n.Messages;
+
+/**
+ * Builds the packed spatial index (.prt file) of shape files offline, so shape feature stores that are configured
+ * with <code>PackedSpatialIndex</code> can map it right away on startup.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@Tool("Builds the packed spatial index (.prt) of shape files")
+public class ShapeIndexBuilder {
+
+    private static final String OPT_NODE_SIZE = "nodesize";
+
+    private static void buildIndex( String shpName, int nodeSize )
+                            throws IOException {
+        String baseName = shpName.toLowerCase().endsWith( ".shp" ) ? shpName.substring( 0, shpName.length() - 4 )
+                                                                   : shpName;
+        File shpFile = new File( baseName + ".shp" );
+        File indexFile = new File( baseName + ".prt" );
+
+        long begin = System.currentTimeMillis();
+        System.out.print( "- Reading envelopes from '" + shpFile + "'..." );
+        PackedRTree.Builder builder = new PackedRTree.Builder( nodeSize );
+        SHPReader reader = new SHPReader( new RandomAccessFile( shpFile, "r" ), null, null, false );
+        boolean startsWithZero;
+        try {
+            startsWithZero = reader.readEnvelopes( builder );
+        } finally {
+            reader.close();
+        }
+        System.out.println( "done (" + builder.size() + " records)." );
+
+        System.out.print( "- Writing '" + indexFile + "'..." );
+        builder.write( indexFile, startsWithZero );
+        long elapsed = System.currentTimeMillis() - begin;
+        System.out.println( "done (" + elapsed + " [ms], " + indexFile.length() + " bytes)." );
+    }
+
+    /**
+     * @param args
+     * @throws IOException
+     */
+    public static void main( String[] args )
+                            throws IOException {
+
+        // for the moment, using the CLI API there is no way to respond to a help argument; see
+        // https://issues.apache.org/jira/browse/CLI-179
+        if ( args.length == 0 || ( args.length > 0 && ( args[0].contains( "help" ) || args[0].contains( "?" ) ) ) ) {
+            printHelp( initOptions() );
+        }
+
+        try {
+            CommandLine cmdline = new PosixParser().parse( initOptions(), args );
+            int nodeSize = CommandUtils.getIntOption( cmdline, OPT_NODE_SIZE, PackedRTree.DEFAULT_NODE_SIZE );
+            if ( cmdline.getArgs().length == 0 ) {
+                throw new ParseException( "No shape files specified." );
+            }
+            for ( String shpName : cmdline.getArgs() ) {
+                buildIndex( shpName, nodeSize );
+            }
+        } catch ( ParseException exp ) {
+            System.err.println( Messages.getMessage( "TOOL_COMMANDLINE_ERROR", exp.getMessage() ) );
+        }
+    }
+
+    private static Options initOptions() {
+        Options opts = new Options();
+
+        Option opt = new Option( OPT_NODE_SIZE, true, "maximum number of children per index node (default: "
+                                                      + PackedRTree.DEFAULT_NODE_SIZE + ")" );
+        opts.addOption( opt );
+
+        CommandUtils.addDefaultOptions( opts );
+        return opts;
+    }
+
+    private static void printHelp( Options options ) {
+        CommandUtils.printHelp( options, ShapeIndexBuilder.class.getSimpleName(), null, "shapefile..." );
+    }
+}